@@ -42,6 +42,7 @@
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -607,6 +608,17 @@ default boolean contains(Location<World> location) {
      */
     ClaimData getData();
 
+    /**
+     * Gets the last active date of claim.
+     * 
+     * <p>Owner logins are tracked by the owner's player data instead of
+     * the claim, so this is the later of {@link ClaimData#getDateLastActive()}
+     * and the last time the owner was seen.</p>
+     * 
+     * @return The last active date
+     */
+    Instant getLastActive();
+
     /**
      * Gets the {@link ClaimType} of claim.
      * 
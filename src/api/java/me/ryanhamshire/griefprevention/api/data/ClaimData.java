@@ -115,10 +115,13 @@ public interface ClaimData {
     Instant getDateCreated();
 
     /**
-     * Gets the last active date of claim.
+     * Gets the last active date stored with claim.
      * 
      * @return The last active date
+     * @deprecated Owner logins no longer update this date, use
+     *     {@link me.ryanhamshire.griefprevention.api.claim.Claim#getLastActive()}
      */
+    @Deprecated
     Instant getDateLastActive();
 
     Tristate getPvpOverride();
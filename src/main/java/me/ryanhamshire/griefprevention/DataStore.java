@@ -40,8 +40,10 @@
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.claim.GPClaimManager;
 import me.ryanhamshire.griefprevention.claim.GPClaimResult;
+import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
 import me.ryanhamshire.griefprevention.configuration.ClaimTemplateStorage;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
+import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
 import me.ryanhamshire.griefprevention.configuration.type.ConfigBase;
 import me.ryanhamshire.griefprevention.configuration.type.GlobalConfig;
 import me.ryanhamshire.griefprevention.event.GPDeleteClaimEvent;
@@ -78,8 +80,11 @@
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
+import javax.annotation.Nullable;
+
 //singleton class which manages all GriefPrevention data (except for config options)
 public abstract class DataStore {
 
@@ -91,7 +96,7 @@ public abstract class DataStore {
     public static Map<UUID, GriefPreventionConfig<ConfigBase>> worldConfigMap = Maps.newHashMap();
     public static Map<String, ClaimTemplateStorage> globalTemplates = new HashMap<>();
     public static GriefPreventionConfig<GlobalConfig> globalConfig;
-    public static Map<UUID, GPPlayerData> GLOBAL_PLAYER_DATA = Maps.newHashMap();
+    public static final GPPlayerDataRegistry GLOBAL_PLAYER_DATA = new GPPlayerDataRegistry();
     public static boolean USE_GLOBAL_PLAYER_STORAGE = true;
     public static Map<ClaimType, Map<String, Boolean>> CLAIM_FLAG_DEFAULTS = Maps.newHashMap();
 
@@ -240,6 +245,7 @@ public static void loadBannedWords() {
             }
 
             bannedWords = Files.readLines(bannedWordsFile, Charset.forName("UTF-8"));
+            GriefPreventionPlugin.instance.chatFilter.setBannedWords(bannedWords);
             if (regenerateDefaults || bannedWords.isEmpty()) {
                 String defaultWords =
                         "nigger\nniggers\nniger\nnigga\nnigers\nniggas\n" +
@@ -321,6 +327,12 @@ public void clearCachedPlayerData(WorldProperties worldProperties, UUID playerUn
         this.getClaimWorldManager(worldProperties).removePlayer(playerUniqueId);
     }
 
+    // creates the storage backing a new claim's data
+    public abstract ClaimStorageData createClaimStorage(GPClaim claim, @Nullable GPClaim parent);
+
+    // creates the storage backing a player's data in the given world
+    public abstract PlayerStorageData createPlayerStorage(WorldProperties worldProperties, UUID playerUniqueId);
+
     public abstract void writeClaimToStorage(GPClaim claim);
 
     public abstract void deleteClaimFromSecondaryStorage(GPClaim claim);
@@ -585,7 +597,7 @@ public GPPlayerData getPlayerData(World world, UUID playerUniqueId) {
     public GPPlayerData getPlayerData(WorldProperties worldProperties, UUID playerUniqueId) {
         GPPlayerData playerData = null;
         GPClaimManager claimWorldManager = this.getClaimWorldManager(worldProperties);
-        playerData = claimWorldManager.getPlayerDataMap().get(playerUniqueId);
+        playerData = claimWorldManager.getPlayerDataRegistry().get(playerUniqueId);
         return playerData;
     }
 
@@ -606,6 +618,22 @@ public void removePlayerData(WorldProperties worldProperties, UUID playerUniqueI
         claimWorldManager.removePlayer(playerUniqueId);
     }
 
+    // evicts player data of offline players that has not been used for the configured time
+    public void evictIdlePlayerData() {
+        final int idleMinutes = GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.idleTimeToLive;
+        if (idleMinutes <= 0) {
+            return;
+        }
+        final long idleMillis = TimeUnit.MINUTES.toMillis(idleMinutes);
+        if (USE_GLOBAL_PLAYER_STORAGE) {
+            GLOBAL_PLAYER_DATA.evictIdle(idleMillis);
+            return;
+        }
+        for (GPClaimManager claimWorldManager : this.claimWorldManagers.values()) {
+            claimWorldManager.getPlayerDataRegistry().evictIdle(idleMillis);
+        }
+    }
+
     public GPClaimManager getClaimWorldManager(WorldProperties worldProperties) {
         GPClaimManager claimWorldManager = null;
         if (worldProperties == null) {
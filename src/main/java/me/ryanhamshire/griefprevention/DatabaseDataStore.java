@@ -22,521 +22,180 @@
  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
- */
 package me.ryanhamshire.griefprevention;
 
+import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
+import me.ryanhamshire.griefprevention.claim.GPClaimManager;
+import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
+import me.ryanhamshire.griefprevention.configuration.DatabaseClaimStorageData;
+import me.ryanhamshire.griefprevention.configuration.DatabasePlayerStorageData;
+import me.ryanhamshire.griefprevention.configuration.PersistenceQueue;
+import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
+import me.ryanhamshire.griefprevention.logging.CustomLogEntryTypes;
+import me.ryanhamshire.griefprevention.migrator.FlatFileMigrator;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.service.sql.SqlService;
 import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.storage.WorldProperties;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.Properties;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
-//manages data stored in the file system
-public class DatabaseDataStore extends DataStore {
+import javax.annotation.Nullable;
 
-    private Connection databaseConnection = null;
+//manages claim and player data stored in a SQL database, world configs and templates remain file based
+public class DatabaseDataStore extends FlatFileDataStore {
 
-    private String databaseUrl;
-    private String userName;
-    private String password;
+    // player data shared by all worlds is stored under this scope
+    private static final UUID GLOBAL_PLAYER_SCOPE = new UUID(0, 0);
 
-    DatabaseDataStore(String url, String userName, String password) throws Exception {
-        this.databaseUrl = url;
-        this.userName = userName;
-        this.password = password;
+    private final String url;
+    private final int batchSize;
+    private DatabaseTables tables;
+    // wilderness rows read with their world, handed to the wilderness claim storage when it is created
+    private final Map<UUID, DatabaseTables.ClaimRow> wildernessRows = new HashMap<>();
 
-        this.initialize();
+    public DatabaseDataStore(String url, int batchSize) {
+        this.url = url;
+        this.batchSize = batchSize;
+    }
+
+    public static DatabaseDataStore getInstance() {
+        return (DatabaseDataStore) GriefPreventionPlugin.instance.dataStore;
+    }
+
+    public DatabaseTables getTables() {
+        return this.tables;
     }
 
-    @SuppressWarnings({"unused", "null"})
     @Override
     void initialize() throws Exception {
-        /*try {
-            // load the java driver for mySQL
-            Class.forName("com.mysql.jdbc.Driver");
-        } catch (Exception e) {
-            GriefPreventionPlugin.addLogEntry("ERROR: Unable to load Java's mySQL database driver.  Check to make sure you've installed it properly.");
-            throw e;
-        }
-
         try {
-            this.refreshDataConnection();
-        } catch (Exception e2) {
+            // connections are pooled by the sql service
+            this.tables = new DatabaseTables(Sponge.getServiceManager().provideUnchecked(SqlService.class)
+                    .getDataSource(GriefPreventionPlugin.instance, this.url), this.batchSize);
+            this.tables.createTables();
+        } catch (SQLException e) {
             GriefPreventionPlugin.addLogEntry("ERROR: Unable to connect to database.  Check your config file settings.");
-            throw e2;
-        }
-
-        try {
-            // ensure the data tables exist
-            Statement statement = databaseConnection.createStatement();
-
-            statement.execute("CREATE TABLE IF NOT EXISTS griefprevention_nextclaimid (nextid INT(15));");
-
-            statement.execute(
-                    "CREATE TABLE IF NOT EXISTS griefprevention_claimdata (id INT(15), owner VARCHAR(50), lessercorner VARCHAR(100), greatercorner "
-                            + "VARCHAR(100), builders VARCHAR(1000), containers VARCHAR(1000), accessors VARCHAR(1000), managers VARCHAR(1000), "
-                            + "parentid INT(15));");
-
-            statement.execute(
-                    "CREATE TABLE IF NOT EXISTS griefprevention_playerdata (name VARCHAR(50), lastlogin DATETIME, accruedblocks INT(15), "
-                            + "bonusblocks INT(15));");
-
-            statement.execute("CREATE TABLE IF NOT EXISTS griefprevention_schemaversion (version INT(15));");
-
-            // if the next claim id table is empty, this is a brand new database
-            // which will write using the latest schema
-            // otherwise, schema version is determined by schemaversion table
-            // (or =0 if table is empty, see getSchemaVersion())
-            ResultSet results = statement.executeQuery("SELECT * FROM griefprevention_nextclaimid;");
-            if (!results.next()) {
-                this.setSchemaVersion(latestSchemaVersion);
-            }
-        } catch (Exception e3) {
-            GriefPreventionPlugin.addLogEntry("ERROR: Unable to create the necessary database table.  Details:");
-            GriefPreventionPlugin.addLogEntry(e3.getMessage());
-            e3.printStackTrace();
-            throw e3;
-        }
-
-        // load group data into memory
-        Statement statement = databaseConnection.createStatement();
-        // load next claim number into memory
-        ResultSet results = statement.executeQuery("SELECT * FROM griefprevention_nextclaimid;");
-
-        // if there's nothing yet, add it
-        if (!results.next()) {
-            statement.execute("INSERT INTO griefprevention_nextclaimid VALUES(0);");
-        }
-
-        if (this.getSchemaVersion() == 0) {
-            try {
-                this.refreshDataConnection();
-
-                // pull ALL player data from the database
-                statement = this.databaseConnection.createStatement();
-                results = statement.executeQuery("SELECT * FROM griefprevention_playerdata;");
-
-                // make a list of changes to be made
-                HashMap<String, UUID> changes = new HashMap<String, UUID>();
-
-                ArrayList<String> namesToConvert = new ArrayList<String>();
-                while (results.next()) {
-                    // get the id
-                    String playerName = results.getString("name");
-
-                    // add to list of names to convert to UUID
-                    namesToConvert.add(playerName);
-                }
-
-                // reset results cursor
-                results.beforeFirst();
-
-                // for each result
-                while (results.next()) {
-                    // get the id
-                    String playerName = results.getString("name");
-
-                    // try to convert player name to UUID
-                    try {
-                        Optional<User> user = Sponge.getGame().getServiceManager().provide(UserStorageService.class).get().get(playerName);
-
-                        // if successful, update the playerdata row by replacing
-                        // the player's name with the player's UUID
-                        if (user.isPresent()) {
-                            changes.put(playerName, user.get().getUniqueId());
-                        }
-                    }
-                    // otherwise leave it as-is. no harm done - it won't be
-                    // requested by name, and this update only happens once.
-                    catch (Exception ex) {
-                    }
-                }
-
-                // refresh data connection in case data migration took a long time
-                this.refreshDataConnection();
-
-                for (String name : changes.keySet()) {
-                    try {
-                        statement = this.databaseConnection.createStatement();
-                        statement.execute(
-                                "UPDATE griefprevention_playerdata SET name = '" + changes.get(name).toString() + "' WHERE name = '" + name + "';");
-                    } catch (SQLException e) {
-                        GriefPreventionPlugin.addLogEntry("Unable to convert player data for " + name + ".  Skipping.");
-                        GriefPreventionPlugin.addLogEntry(e.getMessage());
-                    }
-                }
-            } catch (SQLException e) {
-                GriefPreventionPlugin.addLogEntry("Unable to convert player data.  Details:");
-                GriefPreventionPlugin.addLogEntry(e.getMessage());
-                e.printStackTrace();
-            }
-        }
-
-        // load claims data into memory
-        results = statement.executeQuery("SELECT * FROM griefprevention_claimdata;");
-
-        ArrayList<GPClaim> claimsToRemove = new ArrayList<GPClaim>();
-        ArrayList<GPClaim> subdivisionsToLoad = new ArrayList<GPClaim>();
-        List<World> validWorlds = (List<World>) Sponge.getGame().getServer().getWorlds();
-
-        while (results.next()) {
-            try {
-                // problematic claims will be removed from secondary storage,
-                // and never added to in-memory data store
-                boolean removeClaim = false;
-
-                long parentId = results.getLong("parentid");
-                long claimID = results.getLong("id");
-
-                Location<World> lesserBoundaryCorner = null;
-                Location<World> greaterBoundaryCorner = null;
-                String lesserCornerString = "(location not available)";
-                try {
-                    lesserCornerString = results.getString("lessercorner");
-                    Vector3i lesserPos = BlockUtils.positionFromString(lesserCornerString);
-                    // lesserBoundaryCorner = positionFromString(lesserCornerString);
-
-                    String greaterCornerString = results.getString("greatercorner");
-                    //greaterBoundaryCorner = positionFromString(greaterCornerString);
-                } catch (Exception e) {
-                    if (e.getMessage().contains("World not found")) {
-                        removeClaim = true;
-                        GriefPreventionPlugin.addLogEntry("Removing a claim in a world which does not exist: " + lesserCornerString);
-                        continue;
-                    } else {
-                        throw e;
-                    }
-                }
-
-                String ownerName = results.getString("owner");
-                Optional<User> owner = Optional.empty();
-                if (ownerName.isEmpty() || ownerName.startsWith("--")) {
-                    owner = Optional.empty(); // administrative land claim or subdivision
-                } else if (this.getSchemaVersion() < 1) {
-                    try {
-                        owner = Sponge.getGame().getServiceManager().provide(UserStorageService.class).get().get(ownerName);
-                    } catch (Exception ex) {
-                        GriefPreventionPlugin.addLogEntry("This owner name did not convert to a UUID: " + ownerName + ".");
-                        GriefPreventionPlugin.addLogEntry("  Converted land claim to administrative @ " + lesserBoundaryCorner.toString());
-                    }
-                }
-
-                String managersString = results.getString("managers");
-                List<String> managerNames = Arrays.asList(managersString.split(";"));
-                managerNames = this.convertNameListToUUIDList(managerNames);
-
-                GPClaim claim = new GPClaim(lesserBoundaryCorner, greaterBoundaryCorner, ClaimType.BASIC);
-                claim.ownerID = owner.get().getUniqueId();
-
-                if (removeClaim) {
-                    claimsToRemove.add(claim);
-                } else if (parentId == -1) {
-                    // top level claim
-                    this.addClaim(claim, false);
-                } else {
-                    // subdivision
-                    subdivisionsToLoad.add(claim);
-                }
-            } catch (SQLException e) {
-                GriefPreventionPlugin.addLogEntry("Unable to load a claim.  Details: " + e.getMessage() + " ... " + results.toString());
-                e.printStackTrace();
-            }
-        }
-
-        // add subdivisions to their parent claims
-        for (Claim childClaim : subdivisionsToLoad) {
-            // find top level claim parent
-            Claim topLevelClaim = this.getClaimAt(childClaim.getLesserBoundaryCorner(), true, null);
-
-            if (topLevelClaim == null) {
-                claimsToRemove.add(childClaim);
-                GriefPreventionPlugin.addLogEntry("Removing orphaned claim subdivision: " + childClaim.getLesserBoundaryCorner().toString());
-                continue;
-            }
-
-            // add this claim to the list of children of the current top level
-            // claim
-            childClaim.parent = topLevelClaim;
-            topLevelClaim.children.add(childClaim);
-        }
-
-        for (int i = 0; i < claimsToRemove.size(); i++) {
-            this.deleteClaimFromSecondaryStorage(claimsToRemove.get(i));
+            throw e;
         }
 
-        if (this.getSchemaVersion() <= 2) {
-            this.refreshDataConnection();
-            statement = this.databaseConnection.createStatement();
-            statement.execute("DELETE FROM griefprevention_claimdata WHERE id='-1';");
-        }*/
-
         super.initialize();
     }
 
-    // see datastore.cs. this will ALWAYS be a top level claim
     @Override
-    public void writeClaimToStorage(GPClaim claim) {
-        try {
-            this.refreshDataConnection();
-
-            // wipe out any existing data about this claim
-            this.deleteClaimFromSecondaryStorage(claim);
-
-            // write claim data to the database
-            this.writeClaimData(claim);
-        } catch (SQLException e) {
-            //GriefPrevention.AddLogEntry("Unable to save data for claim at " + this.locationToString(claim.lesserBoundaryCorner) + ".  Details:");
-            GriefPreventionPlugin.addLogEntry(e.getMessage());
-        }
-    }
-
-    // actually writes claim data to the database
-    private void writeClaimData(GPClaim claim) throws SQLException {
-        /*String lesserCornerString = this.locationToString(claim.getLesserBoundaryCorner());
-        String greaterCornerString = this.locationToString(claim.getGreaterBoundaryCorner());
-        String owner = "";
-        if (claim.ownerID != null)
-            owner = claim.ownerID.toString();
-
-        ArrayList<String> builders = new ArrayList<String>();
-        ArrayList<String> containers = new ArrayList<String>();
-        ArrayList<String> accessors = new ArrayList<String>();
-        ArrayList<String> managers = new ArrayList<String>();
-
-        claim.getPermissions(builders, containers, accessors, managers);
-
-        String buildersString = "";
-        for (int i = 0; i < builders.size(); i++) {
-            buildersString += builders.get(i) + ";";
-        }
-
-        String containersString = "";
-        for (int i = 0; i < containers.size(); i++) {
-            containersString += containers.get(i) + ";";
-        }
-
-        String accessorsString = "";
-        for (int i = 0; i < accessors.size(); i++) {
-            accessorsString += accessors.get(i) + ";";
-        }
-
-        String managersString = "";
-        for (int i = 0; i < managers.size(); i++) {
-            managersString += managers.get(i) + ";";
+    public void loadWorldData(World world) {
+        final WorldProperties worldProperties = world.getProperties();
+        GPClaimManager claimWorldManager = this.claimWorldManagers.get(worldProperties.getUniqueId());
+        if (claimWorldManager == null) {
+            this.registerWorld(worldProperties);
+            claimWorldManager = this.claimWorldManagers.get(worldProperties.getUniqueId());
         }
 
-        long parentId;
-        if (claim.parent == null) {
-            parentId = -1;
-        } else {
-            parentId = claim.parent.id;
+        if (GriefPreventionPlugin.getGlobalConfig().getConfig().database.migrateFlatFile) {
+            try {
+                FlatFileMigrator.migrate(this, worldProperties);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
 
+        final long start = System.nanoTime();
+        List<DatabaseTables.ClaimRow> claimRows;
         try {
-            this.refreshDataConnection();
-
-            Statement statement = databaseConnection.createStatement();
-            statement.execute(
-                    "INSERT INTO griefprevention_claimdata (id, owner, lessercorner, greatercorner, builders, containers, accessors, managers,
-                    parentid) VALUES("
-                            +
-                            claim.id + ", '" +
-                            owner + "', '" +
-                            lesserCornerString + "', '" +
-                            greaterCornerString + "', '" +
-                            buildersString + "', '" +
-                            containersString + "', '" +
-                            accessorsString + "', '" +
-                            managersString + "', " +
-                            parentId +
-                            ");");
-        } catch (SQLException e) {
-            GriefPrevention.AddLogEntry("Unable to save data for claim at " + this.locationToString(claim.lesserBoundaryCorner) + ".  Details:");
-            GriefPrevention.AddLogEntry(e.getMessage());
-        }*/
-    }
-
-    // deletes a claim from the database
-    @Override
-    public void deleteClaimFromSecondaryStorage(GPClaim claim) {
-        try {
-            this.refreshDataConnection();
-
-            Statement statement = this.databaseConnection.createStatement();
-            statement.execute("DELETE FROM griefprevention_claimdata WHERE id='" + claim.id + "';");
+            claimRows = this.tables.readWorldClaims(worldProperties.getUniqueId());
         } catch (SQLException e) {
-            GriefPreventionPlugin.addLogEntry("Unable to delete data for claim " + claim.id + ".  Details:");
-            GriefPreventionPlugin.addLogEntry(e.getMessage());
             e.printStackTrace();
-        }
-    }
-
-    /*@Override
-    PlayerData getPlayerDataFromStorage(UUID playerID) {
-        PlayerData playerData = new PlayerData();
-        playerData.playerID = playerID;
-
-        try {
-            this.refreshDataConnection();
-
-            Statement statement = this.databaseConnection.createStatement();
-            ResultSet results = statement.executeQuery("SELECT * FROM griefprevention_playerdata WHERE name='" + playerID.toString() + "';");
-
-            // if data for this player exists, use it
-            if (results.next()) {
-                playerData.setLastLogin(results.getTimestamp("lastlogin"));
-                playerData.setAccruedClaimBlocks(results.getInt("accruedblocks"));
-                playerData.setBonusClaimBlocks(results.getInt("bonusblocks"));
+            claimRows = new ArrayList<>();
+        }
+        final long read = System.nanoTime();
+        final Iterator<DatabaseTables.ClaimRow> iterator = claimRows.iterator();
+        while (iterator.hasNext()) {
+            final DatabaseTables.ClaimRow claimRow = iterator.next();
+            if (claimRow.getClaimUniqueId().equals(worldProperties.getUniqueId())) {
+                this.wildernessRows.put(claimRow.getClaimUniqueId(), claimRow);
+                iterator.remove();
             }
-        } catch (SQLException e) {
-            StringWriter errors = new StringWriter();
-            e.printStackTrace(new PrintWriter(errors));
-            GriefPrevention.AddLogEntry(playerID + " " + errors.toString(), CustomLogEntryTypes.Exception);
-        }
-
-        return playerData;
-    }*/
-
-    // saves changes to player data. MUST be called after you're done making
-    // changes, otherwise a reload will lose them
-    @Override
-    public void overrideSavePlayerData(UUID playerID, GPPlayerData playerData) {
-        // never save data for the "administrative" account. an empty string for
-        // player name indicates administrative account
-        if (playerID == null) {
-            return;
         }
+        claimWorldManager.createWildernessClaim(worldProperties);
 
-        //this.savePlayerData(playerID.toString(), playerData);
-    }
-
-   /* private void savePlayerData(String playerID, PlayerData playerData) {
         try {
-            this.refreshDataConnection();
-
-            SimpleDateFormat sqlFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            String dateString = sqlFormat.format(playerData.getLastLogin());
-
-            Statement statement = databaseConnection.createStatement();
-            statement.execute("DELETE FROM griefprevention_playerdata WHERE name='" + playerID.toString() + "';");
-            statement = databaseConnection.createStatement();
-            statement.execute("INSERT INTO griefprevention_playerdata (name, lastlogin, accruedblocks, bonusblocks) VALUES ('" + playerID.toString()
-                    + "', '" + dateString + "', " + playerData.getAccruedClaimBlocks() + ", " + playerData.getBonusClaimBlocks() + ");");
-        } catch (SQLException e) {
-            StringWriter errors = new StringWriter();
-            e.printStackTrace(new PrintWriter(errors));
-            GriefPrevention.AddLogEntry(playerID + " " + errors.toString(), CustomLogEntryTypes.Exception);
-        }
-    }*/
-
-    void close() {
-        if (this.databaseConnection != null) {
-            try {
-                if (!this.databaseConnection.isClosed()) {
-                    this.databaseConnection.close();
+            final List<LoadedClaim> claims = parseClaims(claimRows, claimRow -> parseClaim(claimRow, worldProperties.getUniqueId()));
+            final long parsed = System.nanoTime();
+            this.linkClaims(world, claims);
+            final long linked = System.nanoTime();
+            GriefPreventionPlugin.instance.getLogger().info("[" + worldProperties.getWorldName() + "] " + this.claimLoadCount + " total claims loaded "
+                    + "(read: " + TimeUnit.NANOSECONDS.toMillis(read - start) + "ms, "
+                    + "parse: " + TimeUnit.NANOSECONDS.toMillis(parsed - read) + "ms, "
+                    + "link: " + TimeUnit.NANOSECONDS.toMillis(linked - parsed) + "ms).");
+
+            final boolean migrate = isMigratingPlayerData();
+            for (UUID playerUniqueId : this.tables.readPlayerIds(this.getPlayerScope(worldProperties))) {
+                if (!migrate && !Sponge.getServer().getPlayer(playerUniqueId).isPresent()) {
+                    continue;
                 }
-            } catch (SQLException e) {
+                this.getOrCreatePlayerData(worldProperties, playerUniqueId);
             }
-            ;
+        } catch (Exception e) {
+            e.printStackTrace();
         }
 
-        this.databaseConnection = null;
+        // handle default flag permissions
+        this.setupDefaultPermissions(world);
+        this.claimLoadCount = 0;
     }
 
-    private void refreshDataConnection() throws SQLException {
-        if (this.databaseConnection == null || !this.databaseConnection.isValid(3)) {
-            // set username/pass properties
-            Properties connectionProps = new Properties();
-            connectionProps.put("user", this.userName);
-            connectionProps.put("password", this.password);
-            connectionProps.put("autoReconnect", "true");
-            connectionProps.put("maxReconnects", String.valueOf(Integer.MAX_VALUE));
-
-            // establish connection
-            this.databaseConnection = DriverManager.getConnection(this.databaseUrl, connectionProps);
+    @Nullable
+    private static LoadedClaim parseClaim(DatabaseTables.ClaimRow claimRow, UUID worldUniqueId) {
+        final DatabaseClaimStorageData claimStorage = new DatabaseClaimStorageData(claimRow.getClaimUniqueId(), worldUniqueId, claimRow.getType(),
+                claimRow.getData(), claimRow.getTrusts(), claimRow.getBankTransactions());
+        if (claimStorage.getConfig() == null) {
+            GriefPreventionPlugin.instance.getLogger().error("Claim " + claimRow.getClaimUniqueId() + " failed to load.");
+            return null;
         }
+        return new LoadedClaim(claimRow.getClaimUniqueId(), claimStorage, "Claim " + claimRow.getClaimUniqueId());
     }
 
     @Override
-    protected int getSchemaVersionFromStorage() {
-        try {
-            this.refreshDataConnection();
-
-            Statement statement = this.databaseConnection.createStatement();
-            ResultSet results = statement.executeQuery("SELECT * FROM griefprevention_schemaversion;");
-
-            // if there's nothing yet, assume 0 and add it
-            if (!results.next()) {
-                this.setSchemaVersion(0);
-                return 0;
+    public ClaimStorageData createClaimStorage(GPClaim claim, @Nullable GPClaim parent) {
+        if (claim.getType() == ClaimType.WILDERNESS) {
+            // an existing row takes precedence, other new claims never have one
+            final DatabaseTables.ClaimRow claimRow = this.wildernessRows.remove(claim.getUniqueId());
+            if (claimRow != null) {
+                return new DatabaseClaimStorageData(claim.getUniqueId(), claim.getWorldUniqueId(), claimRow.getType(), claimRow.getData(),
+                        claimRow.getTrusts(), claimRow.getBankTransactions());
             }
-
-            // otherwise return the value that's in the table
-            else {
-                return results.getInt("version");
-            }
-
-        } catch (SQLException e) {
-            GriefPreventionPlugin.addLogEntry("Unable to retrieve schema version from database.  Details:");
-            GriefPreventionPlugin.addLogEntry(e.getMessage());
-            e.printStackTrace();
-            return 0;
-        }
-    }
-
-    @Override
-    protected void updateSchemaVersionInStorage(int versionToSet) {
-        try {
-            this.refreshDataConnection();
-
-            Statement statement = databaseConnection.createStatement();
-            statement.execute("DELETE FROM griefprevention_schemaversion;");
-            statement.execute("INSERT INTO griefprevention_schemaversion VALUES (" + versionToSet + ");");
-        } catch (SQLException e) {
-            GriefPreventionPlugin.addLogEntry("Unable to set next schema version to " + versionToSet + ".  Details:");
-            GriefPreventionPlugin.addLogEntry(e.getMessage());
         }
+        return new DatabaseClaimStorageData(claim.getUniqueId(), claim.getWorldUniqueId(), claim.getOwnerUniqueId(), claim.getType(), claim.isCuboid());
     }
 
     @Override
-    int getMigrationVersionFromStorage() {
-        return -1;
+    public PlayerStorageData createPlayerStorage(WorldProperties worldProperties, UUID playerUniqueId) {
+        return new DatabasePlayerStorageData(this.getPlayerScope(worldProperties), playerUniqueId);
     }
 
-    @Override
-    void updateMigrationVersionInStorage(int versionToSet) {
+    public UUID getPlayerScope(WorldProperties worldProperties) {
+        return DataStore.USE_GLOBAL_PLAYER_STORAGE ? GLOBAL_PLAYER_SCOPE : worldProperties.getUniqueId();
     }
 
     @Override
-    GPPlayerData getPlayerDataFromStorage(UUID playerID) {
-        return null;
-    }
-
-    @Override
-    public GPPlayerData getOrCreatePlayerData(WorldProperties worldProperties, UUID playerUniqueId) {
-        return null;
-    }
-
-    @Override
-    public void registerWorld(WorldProperties worldProperties) {
-    }
-
-    @Override
-    public void loadWorldData(World world) {
-    }
-
-    @Override
-    public void unloadWorldData(WorldProperties worldProperties) {
-    }
-
-    @Override
-    void loadClaimTemplates() {
+    public void deleteClaimFromSecondaryStorage(GPClaim claim) {
+        final UUID claimUniqueId = claim.getUniqueId();
+        PersistenceQueue.submit(claim.getClaimStorage(), () -> {
+            try {
+                this.tables.deleteClaim(claimUniqueId);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                GriefPreventionPlugin.addLogEntry("Error: Unable to delete claim " + claimUniqueId + " from the database.", CustomLogEntryTypes.Exception);
+            }
+            return 0;
+        });
     }
-
 }
@@ -0,0 +1,404 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) Ryan Hamshire
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+package me.ryanhamshire.griefprevention;
+
+import com.flowpowered.math.vector.Vector3i;
+import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.configuration.DatabaseClaimStorageData;
+import me.ryanhamshire.griefprevention.configuration.PlayerDataConfig;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+/**
+ * Reads and writes the claim and player tables used by
+ * {@link DatabaseDataStore}.
+ *
+ * <p>Every method blocks on the database and must not be called on the
+ * main thread once the server is running.</p>
+ */
+public class DatabaseTables {
+
+    private final DataSource dataSource;
+    private final int batchSize;
+
+    public DatabaseTables(DataSource dataSource, int batchSize) {
+        this.dataSource = dataSource;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void createTables() throws SQLException {
+        try (Connection connection = this.dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            if (!tableExists(connection, "gp_claim")) {
+                statement.executeUpdate("CREATE TABLE gp_claim (claim_uuid CHAR(36) NOT NULL PRIMARY KEY, world_uuid CHAR(36) NOT NULL, "
+                        + "parent_uuid CHAR(36), owner_uuid CHAR(36), claim_type VARCHAR(16) NOT NULL, cuboid BOOLEAN NOT NULL, "
+                        + "min_x INT NOT NULL, min_y INT NOT NULL, min_z INT NOT NULL, max_x INT NOT NULL, max_y INT NOT NULL, max_z INT NOT NULL, "
+                        + "claim_data TEXT NOT NULL)");
+                statement.executeUpdate("CREATE INDEX gp_claim_world ON gp_claim (world_uuid)");
+                statement.executeUpdate("CREATE INDEX gp_claim_owner ON gp_claim (owner_uuid)");
+            }
+            if (!tableExists(connection, "gp_claim_trust")) {
+                // trust_key uses the same names as the claim data, ex. 'builders' or 'manager-groups'
+                statement.executeUpdate("CREATE TABLE gp_claim_trust (claim_uuid CHAR(36) NOT NULL, trust_key VARCHAR(32) NOT NULL, "
+                        + "subject VARCHAR(255) NOT NULL)");
+                statement.executeUpdate("CREATE INDEX gp_claim_trust_claim ON gp_claim_trust (claim_uuid)");
+            }
+            if (!tableExists(connection, "gp_bank_transaction")) {
+                statement.executeUpdate("CREATE TABLE gp_bank_transaction (claim_uuid CHAR(36) NOT NULL, seq INT NOT NULL, "
+                        + "transaction_data TEXT NOT NULL, PRIMARY KEY (claim_uuid, seq))");
+            }
+            if (!tableExists(connection, "gp_player")) {
+                statement.executeUpdate("CREATE TABLE gp_player (scope_uuid CHAR(36) NOT NULL, player_uuid CHAR(36) NOT NULL, "
+                        + "accrued_blocks INT NOT NULL, bonus_blocks INT NOT NULL, migrated BOOLEAN NOT NULL, last_seen BIGINT, "
+                        + "PRIMARY KEY (scope_uuid, player_uuid))");
+            } else if (!columnExists(connection, "gp_player", "last_seen")) {
+                statement.executeUpdate("ALTER TABLE gp_player ADD COLUMN last_seen BIGINT");
+            }
+            if (!tableExists(connection, "gp_meta")) {
+                statement.executeUpdate("CREATE TABLE gp_meta (meta_key VARCHAR(128) NOT NULL PRIMARY KEY, meta_value VARCHAR(255))");
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        final String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+        try (ResultSet result = metaData.getTables(null, null, name, null)) {
+            return result.next();
+        }
+    }
+
+    private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        final boolean upperCase = metaData.storesUpperCaseIdentifiers();
+        try (ResultSet result = metaData.getColumns(null, null, upperCase ? table.toUpperCase() : table, upperCase ? column.toUpperCase() : column)) {
+            return result.next();
+        }
+    }
+
+    public void deleteClaim(UUID claimUniqueId) throws SQLException {
+        final String claimId = claimUniqueId.toString();
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (String table : new String[] {"gp_claim", "gp_claim_trust", "gp_bank_transaction"}) {
+                    try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE claim_uuid = ?")) {
+                        statement.setString(1, claimId);
+                        statement.executeUpdate();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // reads the raw rows of all claims stored for a world, including the wilderness
+    public List<ClaimRow> readWorldClaims(UUID worldUniqueId) throws SQLException {
+        final String worldId = worldUniqueId.toString();
+        final Map<String, Map<String, List<String>>> trusts = new HashMap<>();
+        final Map<String, List<String>> bankTransactions = new HashMap<>();
+        final List<ClaimRow> claimRows = new ArrayList<>();
+        try (Connection connection = this.dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT t.claim_uuid, t.trust_key, t.subject FROM gp_claim_trust t "
+                    + "INNER JOIN gp_claim c ON c.claim_uuid = t.claim_uuid WHERE c.world_uuid = ?")) {
+                statement.setString(1, worldId);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        trusts.computeIfAbsent(result.getString(1), k -> new HashMap<>())
+                                .computeIfAbsent(result.getString(2), k -> new ArrayList<>())
+                                .add(result.getString(3));
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT b.claim_uuid, b.transaction_data FROM gp_bank_transaction b "
+                    + "INNER JOIN gp_claim c ON c.claim_uuid = b.claim_uuid WHERE c.world_uuid = ? ORDER BY b.claim_uuid, b.seq")) {
+                statement.setString(1, worldId);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        bankTransactions.computeIfAbsent(result.getString(1), k -> new ArrayList<>()).add(result.getString(2));
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT claim_uuid, claim_type, claim_data FROM gp_claim "
+                    + "WHERE world_uuid = ?")) {
+                statement.setString(1, worldId);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        final String claimId = result.getString(1);
+                        final Map<String, List<String>> claimTrusts = trusts.get(claimId);
+                        final List<String> claimTransactions = bankTransactions.get(claimId);
+                        claimRows.add(new ClaimRow(UUID.fromString(claimId), ClaimType.valueOf(result.getString(2)), result.getString(3),
+                                claimTrusts == null ? new HashMap<>() : claimTrusts,
+                                claimTransactions == null ? new ArrayList<>() : claimTransactions));
+                    }
+                }
+            }
+        }
+        return claimRows;
+    }
+
+    // replaces the stored rows of each claim in a single transaction
+    public void writeClaims(List<DatabaseClaimStorageData.Row> claimRows) throws SQLException, IOException {
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement deleteClaim = connection.prepareStatement("DELETE FROM gp_claim WHERE claim_uuid = ?");
+                    PreparedStatement deleteTrusts = connection.prepareStatement("DELETE FROM gp_claim_trust WHERE claim_uuid = ?");
+                    PreparedStatement deleteTransactions = connection.prepareStatement("DELETE FROM gp_bank_transaction WHERE claim_uuid = ?");
+                    PreparedStatement insertClaim = connection.prepareStatement("INSERT INTO gp_claim (claim_uuid, world_uuid, parent_uuid, owner_uuid, "
+                            + "claim_type, cuboid, min_x, min_y, min_z, max_x, max_y, max_z, claim_data) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                    PreparedStatement insertTrust = connection.prepareStatement("INSERT INTO gp_claim_trust (claim_uuid, trust_key, subject) VALUES (?, ?, ?)");
+                    PreparedStatement insertTransaction = connection.prepareStatement("INSERT INTO gp_bank_transaction (claim_uuid, seq, transaction_data) "
+                            + "VALUES (?, ?, ?)")) {
+                final PreparedStatement[] batches = {deleteClaim, deleteTrusts, deleteTransactions, insertClaim, insertTrust, insertTransaction};
+                int count = 0;
+                for (DatabaseClaimStorageData.Row claimRow : claimRows) {
+                    final String claimId = claimRow.getClaimUniqueId().toString();
+                    deleteClaim.setString(1, claimId);
+                    deleteClaim.addBatch();
+                    deleteTrusts.setString(1, claimId);
+                    deleteTrusts.addBatch();
+                    deleteTransactions.setString(1, claimId);
+                    deleteTransactions.addBatch();
+
+                    final Vector3i lesser = claimRow.getLesserBoundaryCorner();
+                    final Vector3i greater = claimRow.getGreaterBoundaryCorner();
+                    final UUID parentUniqueId = claimRow.getParentUniqueId();
+                    final UUID ownerUniqueId = claimRow.getOwnerUniqueId();
+                    insertClaim.setString(1, claimId);
+                    insertClaim.setString(2, claimRow.getWorldUniqueId().toString());
+                    insertClaim.setString(3, parentUniqueId == null ? null : parentUniqueId.toString());
+                    insertClaim.setString(4, ownerUniqueId == null ? null : ownerUniqueId.toString());
+                    insertClaim.setString(5, claimRow.getType().name());
+                    insertClaim.setBoolean(6, claimRow.isCuboid());
+                    insertClaim.setInt(7, lesser.getX());
+                    insertClaim.setInt(8, lesser.getY());
+                    insertClaim.setInt(9, lesser.getZ());
+                    insertClaim.setInt(10, greater.getX());
+                    insertClaim.setInt(11, greater.getY());
+                    insertClaim.setInt(12, greater.getZ());
+                    insertClaim.setString(13, claimRow.getData());
+                    insertClaim.addBatch();
+
+                    for (Map.Entry<String, List<String>> entry : claimRow.getTrusts().entrySet()) {
+                        for (String subject : entry.getValue()) {
+                            insertTrust.setString(1, claimId);
+                            insertTrust.setString(2, entry.getKey());
+                            insertTrust.setString(3, subject);
+                            insertTrust.addBatch();
+                        }
+                    }
+                    int seq = 0;
+                    for (String transaction : claimRow.getBankTransactions()) {
+                        insertTransaction.setString(1, claimId);
+                        insertTransaction.setInt(2, seq++);
+                        insertTransaction.setString(3, transaction);
+                        insertTransaction.addBatch();
+                    }
+
+                    if (++count % this.batchSize == 0) {
+                        executeBatches(batches);
+                    }
+                }
+                executeBatches(batches);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    public List<UUID> readPlayerIds(UUID scopeUniqueId) throws SQLException {
+        final List<UUID> playerIds = new ArrayList<>();
+        try (Connection connection = this.dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT player_uuid FROM gp_player WHERE scope_uuid = ?")) {
+            statement.setString(1, scopeUniqueId.toString());
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    playerIds.add(UUID.fromString(result.getString(1)));
+                }
+            }
+        }
+        return playerIds;
+    }
+
+    /**
+     * Reads the stored data of a player into the given config.
+     *
+     * @return Whether the player was found
+     */
+    public boolean readPlayer(UUID scopeUniqueId, UUID playerUniqueId, PlayerDataConfig config) throws SQLException {
+        try (Connection connection = this.dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT accrued_blocks, bonus_blocks, migrated, last_seen FROM gp_player "
+                        + "WHERE scope_uuid = ? AND player_uuid = ?")) {
+            statement.setString(1, scopeUniqueId.toString());
+            statement.setString(2, playerUniqueId.toString());
+            try (ResultSet result = statement.executeQuery()) {
+                if (!result.next()) {
+                    return false;
+                }
+                config.setAccruedClaimBlocks(result.getInt(1));
+                config.setBonusClaimBlocks(result.getInt(2));
+                config.setMigratedBlocks(result.getBoolean(3));
+                final long lastSeen = result.getLong(4);
+                config.setLastSeen(result.wasNull() ? null : Instant.ofEpochMilli(lastSeen));
+                return true;
+            }
+        }
+    }
+
+    // replaces the stored rows of each player in a single transaction
+    public void writePlayers(UUID scopeUniqueId, Map<UUID, PlayerDataConfig> players) throws SQLException {
+        final String scopeId = scopeUniqueId.toString();
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement deletePlayer = connection.prepareStatement("DELETE FROM gp_player WHERE scope_uuid = ? AND player_uuid = ?");
+                    PreparedStatement insertPlayer = connection.prepareStatement("INSERT INTO gp_player (scope_uuid, player_uuid, accrued_blocks, "
+                            + "bonus_blocks, migrated, last_seen) VALUES (?, ?, ?, ?, ?, ?)")) {
+                final PreparedStatement[] batches = {deletePlayer, insertPlayer};
+                int count = 0;
+                for (Map.Entry<UUID, PlayerDataConfig> entry : players.entrySet()) {
+                    final String playerId = entry.getKey().toString();
+                    final PlayerDataConfig config = entry.getValue();
+                    deletePlayer.setString(1, scopeId);
+                    deletePlayer.setString(2, playerId);
+                    deletePlayer.addBatch();
+                    insertPlayer.setString(1, scopeId);
+                    insertPlayer.setString(2, playerId);
+                    insertPlayer.setInt(3, config.getAccruedClaimBlocks());
+                    insertPlayer.setInt(4, config.getBonusClaimBlocks());
+                    insertPlayer.setBoolean(5, config.hasMigratedBlocks());
+                    final Instant lastSeen = config.getLastSeen();
+                    if (lastSeen != null) {
+                        insertPlayer.setLong(6, lastSeen.toEpochMilli());
+                    } else {
+                        insertPlayer.setNull(6, Types.BIGINT);
+                    }
+                    insertPlayer.addBatch();
+                    if (++count % this.batchSize == 0) {
+                        executeBatches(batches);
+                    }
+                }
+                executeBatches(batches);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    public boolean hasMetaValue(String key) throws SQLException {
+        try (Connection connection = this.dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT meta_value FROM gp_meta WHERE meta_key = ?")) {
+            statement.setString(1, key);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+
+    public void setMetaValue(String key, String value) throws SQLException {
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM gp_meta WHERE meta_key = ?");
+                    PreparedStatement insert = connection.prepareStatement("INSERT INTO gp_meta (meta_key, meta_value) VALUES (?, ?)")) {
+                delete.setString(1, key);
+                delete.executeUpdate();
+                insert.setString(1, key);
+                insert.setString(2, value);
+                insert.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // statements are executed in order so deletes always run before inserts
+    private static void executeBatches(PreparedStatement[] statements) throws SQLException {
+        for (PreparedStatement statement : statements) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * A claim row as read from the database, parsed off the main thread.
+     */
+    public static final class ClaimRow {
+
+        private final UUID claimId;
+        private final ClaimType type;
+        private final String data;
+        private final Map<String, List<String>> trusts;
+        private final List<String> bankTransactions;
+
+        ClaimRow(UUID claimId, ClaimType type, String data, Map<String, List<String>> trusts, List<String> bankTransactions) {
+            this.claimId = claimId;
+            this.type = type;
+            this.data = data;
+            this.trusts = trusts;
+            this.bankTransactions = bankTransactions;
+        }
+
+        public UUID getClaimUniqueId() {
+            return this.claimId;
+        }
+
+        public ClaimType getType() {
+            return this.type;
+        }
+
+        public String getData() {
+            return this.data;
+        }
+
+        public Map<String, List<String>> getTrusts() {
+            return this.trusts;
+        }
+
+        public List<String> getBankTransactions() {
+            return this.bankTransactions;
+        }
+    }
+}
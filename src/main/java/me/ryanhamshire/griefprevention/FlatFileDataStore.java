@@ -35,6 +35,8 @@
 import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
 import me.ryanhamshire.griefprevention.configuration.ClaimTemplateStorage;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
+import me.ryanhamshire.griefprevention.configuration.PersistenceQueue;
+import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
 import me.ryanhamshire.griefprevention.configuration.TownStorageData;
 import me.ryanhamshire.griefprevention.configuration.type.ConfigBase;
 import me.ryanhamshire.griefprevention.logging.CustomLogEntryTypes;
@@ -58,8 +60,20 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
 
 //manages data stored in the file system
 public class FlatFileDataStore extends DataStore {
@@ -75,7 +89,7 @@ public class FlatFileDataStore extends DataStore {
     public final static Map<UUID, Task> cleanupClaimTasks = Maps.newHashMap();
     private final Path rootConfigPath = GriefPreventionPlugin.instance.getConfigPath().resolve("worlds");
     public static Path rootWorldSavePath;
-    private int claimLoadCount = 0;
+    int claimLoadCount = 0;
 
     public FlatFileDataStore() {
     }
@@ -182,6 +196,8 @@ public void loadWorldData(World world) {
                 Path gpMigratedPath = redProtectDataPath.resolve("gp_migrated_" + worldProperties.getWorldName());
                 if (Files.exists(redProtectFilePath) && !Files.exists(gpMigratedPath)) {
                     RedProtectMigrator.migrate(world, redProtectFilePath, newWorldDataPath.resolve("ClaimData"));
+                    // migrated claims are read back below
+                    PersistenceQueue.flushAndWait();
                     Files.createFile(gpMigratedPath);
                 }
             }
@@ -205,8 +221,7 @@ public void loadWorldData(World world) {
         try {
             File[] files = newWorldDataPath.resolve("ClaimData").toFile().listFiles();
             if (files != null && files.length > 0) {
-                this.loadClaimData(files, worldProperties);
-                GriefPreventionPlugin.instance.getLogger().info("[" + worldProperties.getWorldName() + "] " + this.claimLoadCount + " total claims loaded.");
+                this.loadClaimData(files, world);
             }
 
             if (GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.useGlobalPlayerDataStorage) {
@@ -249,60 +264,132 @@ public void unloadWorldData(WorldProperties worldProperties) {
         DataStore.worldConfigMap.remove(worldProperties.getUniqueId());
     }
 
-    void loadClaimData(File[] files, WorldProperties worldProperties) throws Exception {
-        for (int i = 0; i < files.length; i++) {
-            File file = files[i];
+    // Claim files are read in parallel, then registered on the calling thread
+    void loadClaimData(File[] files, World world) throws Exception {
+        final WorldProperties worldProperties = world.getProperties();
+        final long start = System.nanoTime();
+        final List<File> claimFiles = new ArrayList<>();
+        this.collectClaimFiles(files, claimFiles);
+        final long discovered = System.nanoTime();
+
+        final List<LoadedClaim> claims = parseClaims(claimFiles, file -> this.readClaimFile(file, worldProperties));
+        final long parsed = System.nanoTime();
+
+        this.linkClaims(world, claims);
+        final long linked = System.nanoTime();
+        GriefPreventionPlugin.instance.getLogger().info("[" + worldProperties.getWorldName() + "] " + this.claimLoadCount + " total claims loaded "
+                + "(discover: " + TimeUnit.NANOSECONDS.toMillis(discovered - start) + "ms, "
+                + "parse: " + TimeUnit.NANOSECONDS.toMillis(parsed - discovered) + "ms, "
+                + "link: " + TimeUnit.NANOSECONDS.toMillis(linked - parsed) + "ms).");
+    }
+
+    private void collectClaimFiles(File[] files, List<File> claimFiles) {
+        for (File file : files) {
             if (file.isFile()) {
-                this.loadClaimFile(file, worldProperties);
+                claimFiles.add(file);
+            } else if (file.isDirectory()) {
+                final File[] children = file.listFiles();
+                if (children != null) {
+                    this.collectClaimFiles(children, claimFiles);
+                }
             }
         }
-        for (int i = 0; i < files.length; i++) {
-            File file = files[i];
-            if (file.isDirectory()) {
-                this.loadClaimData(file.listFiles(), worldProperties);
+    }
+
+    // safe to call off the main thread
+    @Nullable
+    private LoadedClaim readClaimFile(File file, WorldProperties worldProperties) {
+        // the filename is the claim ID. try to parse it
+        UUID claimId;
+
+        try {
+            final String fileName = file.getName();
+            // UUID's should always be 36 in length
+            if (fileName.length() != 36) {
+                return null;
             }
+
+            claimId = UUID.fromString(fileName);
+        } catch (Exception e) {
+            GriefPreventionPlugin.instance.getLogger().error("Could not read claim file " + file.getAbsolutePath());
+            return null;
         }
-    }
 
-    void loadClaimFile(File file, WorldProperties worldProperties) {
-        if (file.isFile()) // avoids folders
-        {
-            // the filename is the claim ID. try to parse it
-            UUID claimId;
+        // the wilderness claim is loaded separately
+        if (claimId.equals(worldProperties.getUniqueId())) {
+            return null;
+        }
 
-            try {
-                final String fileName = file.getName();
-                // UUID's should always be 36 in length
-                if (fileName.length() != 36) {
-                    return;
-                }
+        try {
+            return new LoadedClaim(claimId, this.readClaimStorage(file, worldProperties), file.getAbsolutePath());
+        } catch (Exception e) {
+            GriefPreventionPlugin.instance.getLogger().error(file.getAbsolutePath() + " failed to load.");
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-                claimId = UUID.fromString(fileName);
-            } catch (Exception e) {
-                GriefPreventionPlugin.instance.getLogger().error("Could not read claim file " + file.getAbsolutePath());
-                return;
-            }
+    // maps each source to a claim on a dedicated pool, null results are dropped
+    static <T> List<LoadedClaim> parseClaims(List<T> sources, Function<T, LoadedClaim> parser) throws Exception {
+        final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return pool.submit(() -> sources.parallelStream()
+                    .map(parser)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList())).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
 
+    // registers claims with parents before their children
+    void linkClaims(World world, List<LoadedClaim> claims) {
+        final Map<UUID, List<LoadedClaim>> claimsByParent = new HashMap<>();
+        for (LoadedClaim claim : claims) {
+            claimsByParent.computeIfAbsent(claim.storage.getConfig().getParent().orElse(null), k -> new ArrayList<>()).add(claim);
+        }
+
+        final Deque<LoadedClaim> pending = new ArrayDeque<>();
+        final List<LoadedClaim> topLevelClaims = claimsByParent.remove(null);
+        if (topLevelClaims != null) {
+            pending.addAll(topLevelClaims);
+        }
+        while (!pending.isEmpty()) {
+            final LoadedClaim claim = pending.poll();
             try {
-               this.loadClaim(file, worldProperties, claimId);
+                this.addLoadedClaim(claim.storage, world, claim.claimId, claim.source);
             } catch (Exception e) {
-                GriefPreventionPlugin.instance.getLogger().error(file.getAbsolutePath() + " failed to load.");
+                GriefPreventionPlugin.instance.getLogger().error(claim.source + " failed to load.");
                 e.printStackTrace();
+                continue;
+            }
+            final List<LoadedClaim> children = claimsByParent.remove(claim.claimId);
+            if (children != null) {
+                pending.addAll(children);
+            }
+        }
+
+        // anything left has a parent that is missing or failed to load
+        for (Map.Entry<UUID, List<LoadedClaim>> entry : claimsByParent.entrySet()) {
+            for (LoadedClaim claim : entry.getValue()) {
+                GriefPreventionPlugin.instance.getLogger().error(claim.source + " failed to load. Required parent claim '" + entry.getKey()
+                        + "' no longer exists. Skipping...");
             }
         }
     }
 
-    void loadPlayerData(WorldProperties worldProperties, File[] files) throws Exception {
+    // all player data is loaded if migrating, otherwise only online players
+    static boolean isMigratingPlayerData() {
         final boolean resetMigration = GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.resetMigrations;
         final boolean resetClaimData = GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.resetAccruedClaimBlocks;
         final int migration2dRate = GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.migrateAreaRate;
         final int migration3dRate = GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.migrateVolumeRate;
-        boolean migrate = false;
-        if (resetMigration || resetClaimData || (migration2dRate > -1 && GriefPreventionPlugin.CLAIM_BLOCK_SYSTEM == ClaimBlockSystem.AREA) 
-                || (migration3dRate > -1 && GriefPreventionPlugin.CLAIM_BLOCK_SYSTEM == ClaimBlockSystem.VOLUME)) {
-            // load all player data if migrating
-            migrate = true;
-        }
+        return resetMigration || resetClaimData || (migration2dRate > -1 && GriefPreventionPlugin.CLAIM_BLOCK_SYSTEM == ClaimBlockSystem.AREA)
+                || (migration3dRate > -1 && GriefPreventionPlugin.CLAIM_BLOCK_SYSTEM == ClaimBlockSystem.VOLUME);
+    }
+
+    void loadPlayerData(WorldProperties worldProperties, File[] files) throws Exception {
+        final boolean migrate = isMigratingPlayerData();
         for (int i = 0; i < files.length; i++) {
             if (files[i].isFile()) // avoids folders
             {
@@ -340,29 +427,33 @@ void loadPlayerData(WorldProperties worldProperties, File[] files) throws Except
 
     public GPClaim loadClaim(File claimFile, WorldProperties worldProperties, UUID claimId)
             throws Exception {
-        GPClaim claim;
-
         final GPClaimManager claimManager = this.getClaimWorldManager(worldProperties);
         if (claimManager.getWildernessClaim() != null && claimManager.getWildernessClaim().getUniqueId().equals(claimId)) {
             return null;
         }
+        final World world = Sponge.getServer().loadWorld(worldProperties).orElse(null);
+        if (world == null) {
+            throw new Exception("World [Name: " + worldProperties.getWorldName() + "][UUID: " + worldProperties.getUniqueId().toString() + "] is not loaded.");
+        }
+
+        return this.addLoadedClaim(this.readClaimStorage(claimFile, worldProperties), world, claimId, claimFile.toString());
+    }
+
+    // reads a claim file, safe to call off the main thread
+    ClaimStorageData readClaimStorage(File claimFile, WorldProperties worldProperties) throws Exception {
         boolean isTown = claimFile.toPath().getParent().endsWith("town");
-        boolean writeToStorage = false;
         ClaimStorageData claimStorage = null;
         if (isTown) {
             claimStorage = new TownStorageData(claimFile.toPath(), worldProperties.getUniqueId());
         } else {
             claimStorage = new ClaimStorageData(claimFile.toPath(), worldProperties.getUniqueId());
         }
+        if (claimStorage.getConfig() == null) {
+            throw new Exception("Claim file '" + claimFile.getName() + "' could not be read. Skipping...");
+        }
 
         final ClaimType type = claimStorage.getConfig().getType();
-        final UUID parent = claimStorage.getConfig().getParent().orElse(null);
         final String fileName = claimFile.getName();
-        final World world = Sponge.getServer().loadWorld(worldProperties).orElse(null);
-        if (world == null) {
-            throw new Exception("World [Name: " + worldProperties.getWorldName() + "][UUID: " + worldProperties.getUniqueId().toString() + "] is not loaded.");
-        }
-
         if (claimFile.getParentFile().getName().equalsIgnoreCase("claimdata")) {
             final Path newPath = claimStorage.filePath.getParent().resolve(type.name().toLowerCase());
             if (Files.notExists(newPath)) {
@@ -372,11 +463,21 @@ public GPClaim loadClaim(File claimFile, WorldProperties worldProperties, UUID c
             claimStorage.filePath = newPath.resolve(fileName);
             claimStorage = new ClaimStorageData(claimStorage.filePath, worldProperties.getUniqueId());
         }
+        return claimStorage;
+    }
+
+    // registers a claim whose storage has been loaded, parents must be registered first
+    GPClaim addLoadedClaim(ClaimStorageData claimStorage, World world, UUID claimId, String source) throws Exception {
+        final WorldProperties worldProperties = world.getProperties();
+        final GPClaimManager claimManager = this.getClaimWorldManager(worldProperties);
+        final ClaimType type = claimStorage.getConfig().getType();
+        final UUID parent = claimStorage.getConfig().getParent().orElse(null);
+        boolean writeToStorage = false;
 
         // identify world the claim is in
         UUID worldUniqueId = claimStorage.getConfig().getWorldUniqueId();
         if (!worldProperties.getUniqueId().equals(worldUniqueId)) {
-            GriefPreventionPlugin.addLogEntry("Found mismatch world UUID in " + type.name().toLowerCase() + " claim file " + claimFile + ". Expected " + worldProperties.getUniqueId() + ", found " + worldUniqueId + ". Updating file with correct UUID...", CustomLogEntryTypes.Exception);
+            GriefPreventionPlugin.addLogEntry("Found mismatch world UUID in " + type.name().toLowerCase() + " claim " + source + ". Expected " + worldProperties.getUniqueId() + ", found " + worldUniqueId + ". Updating with correct UUID...", CustomLogEntryTypes.Exception);
             claimStorage.getConfig().setWorldUniqueId(worldProperties.getUniqueId());
             writeToStorage = true;
         }
@@ -386,7 +487,7 @@ public GPClaim loadClaim(File claimFile, WorldProperties worldProperties, UUID c
         Vector3i lesserCorner = claimStorage.getConfig().getLesserBoundaryCornerPos();
         Vector3i greaterCorner = claimStorage.getConfig().getGreaterBoundaryCornerPos();
         if (lesserCorner == null || greaterCorner == null) {
-            throw new Exception("Claim file '" + claimFile.getName() + "' has corrupted data and cannot be loaded. Skipping...");
+            throw new Exception("Claim '" + source + "' has corrupted data and cannot be loaded. Skipping...");
         }
 
         Location<World> lesserBoundaryCorner = new Location<World>(world, lesserCorner);
@@ -400,7 +501,7 @@ public GPClaim loadClaim(File claimFile, WorldProperties worldProperties, UUID c
         }
 
         // instantiate
-        claim = new GPClaim(lesserBoundaryCorner, greaterBoundaryCorner, claimId, claimStorage.getConfig().getType(), ownerID, cuboid);
+        final GPClaim claim = new GPClaim(lesserBoundaryCorner, greaterBoundaryCorner, claimId, claimStorage.getConfig().getType(), ownerID, cuboid);
         claim.setClaimStorage(claimStorage);
         claim.setClaimData(claimStorage.getConfig());
 
@@ -423,6 +524,40 @@ public GPClaim loadClaim(File claimFile, WorldProperties worldProperties, UUID c
         return claim;
     }
 
+    @Override
+    public ClaimStorageData createClaimStorage(GPClaim claim, @Nullable GPClaim parent) {
+        Path claimDataFolderPath = null;
+        // check if main world
+        if (parent != null) {
+            claimDataFolderPath = parent.getClaimStorage().filePath.getParent().resolve(claim.getType().name().toLowerCase());
+        } else {
+            claimDataFolderPath = DataStore.worldConfigMap.get(claim.getWorldUniqueId()).getPath().getParent().resolve("ClaimData").resolve(claim.getType().name().toLowerCase());
+        }
+        try {
+            if (Files.notExists(claimDataFolderPath)) {
+                Files.createDirectories(claimDataFolderPath);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        final Path claimFilePath = claimDataFolderPath.resolve(claim.getUniqueId().toString());
+        if (claim.isTown()) {
+            return new TownStorageData(claimFilePath, claim.getWorldUniqueId(), claim.getOwnerUniqueId(), claim.isCuboid());
+        }
+        return new ClaimStorageData(claimFilePath, claim.getWorldUniqueId(), claim.getOwnerUniqueId(), claim.getType(), claim.isCuboid());
+    }
+
+    @Override
+    public PlayerStorageData createPlayerStorage(WorldProperties worldProperties, UUID playerUniqueId) {
+        Path playerFilePath = null;
+        if (DataStore.USE_GLOBAL_PLAYER_STORAGE) {
+            playerFilePath = DataStore.globalPlayerDataPath.resolve(playerUniqueId.toString());
+        } else {
+            playerFilePath = DataStore.worldConfigMap.get(worldProperties.getUniqueId()).getPath().getParent().resolve("PlayerData").resolve(playerUniqueId.toString());
+        }
+        return new PlayerStorageData(playerFilePath);
+    }
+
     @Override
     public void writeClaimToStorage(GPClaim claim) {
         try {
@@ -442,15 +577,21 @@ public void writeClaimToStorage(GPClaim claim) {
     // deletes a claim from the file system
     @Override
     public void deleteClaimFromSecondaryStorage(GPClaim claim) {
-        try {
-            Files.delete(claim.getClaimStorage().filePath);
-            if (claim.getClaimStorage().folderPath.toFile().listFiles().length == 0) {
-                Files.delete(claim.getClaimStorage().folderPath);
+        final Path filePath = claim.getClaimStorage().filePath;
+        final Path folderPath = claim.getClaimStorage().folderPath;
+        // runs after any queued write of the claim
+        PersistenceQueue.submit(claim.getClaimStorage(), () -> {
+            try {
+                Files.delete(filePath);
+                if (folderPath.toFile().listFiles().length == 0) {
+                    Files.delete(folderPath);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                GriefPreventionPlugin.addLogEntry("Error: Unable to delete claim file \"" + filePath + "\".");
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            GriefPreventionPlugin.addLogEntry("Error: Unable to delete claim file \"" + claim.getClaimStorage().filePath + "\".");
-        }
+            return 0;
+        });
     }
 
     @Override
@@ -579,4 +720,17 @@ GPPlayerData getPlayerDataFromStorage(UUID playerID) {
     void overrideSavePlayerData(UUID playerID, GPPlayerData playerData) {
     }
 
+    static final class LoadedClaim {
+
+        final UUID claimId;
+        final ClaimStorageData storage;
+        // used in log messages
+        final String source;
+
+        LoadedClaim(UUID claimId, ClaimStorageData storage, String source) {
+            this.claimId = claimId;
+            this.storage = storage;
+            this.source = source;
+        }
+    }
 }
@@ -31,19 +31,22 @@
 import me.ryanhamshire.griefprevention.api.claim.Claim;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.api.data.PlayerData;
+import me.ryanhamshire.griefprevention.chat.ChatSpamState;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.command.CommandHelper;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
 import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
 import me.ryanhamshire.griefprevention.permission.GPOptionHandler;
+import me.ryanhamshire.griefprevention.permission.GPOptionSnapshot;
 import me.ryanhamshire.griefprevention.permission.GPOptions;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
 import me.ryanhamshire.griefprevention.util.PermissionUtils;
-import me.ryanhamshire.griefprevention.util.PlayerUtils;
+import me.ryanhamshire.griefprevention.visual.VisualBlockList;
+import me.ryanhamshire.griefprevention.visual.VisualizationSender;
+import me.ryanhamshire.griefprevention.visual.VisualizationTracker;
 import net.minecraft.world.chunk.Chunk;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.block.BlockSnapshot;
-import org.spongepowered.api.data.Transaction;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.entity.living.player.User;
 import org.spongepowered.api.scheduler.Task;
@@ -57,13 +60,19 @@
 
 import java.lang.ref.WeakReference;
 import java.net.InetAddress;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
 
 //holds all of GriefPrevention's player-tied data
 public class GPPlayerData implements PlayerData {
@@ -76,7 +85,10 @@ public class GPPlayerData implements PlayerData {
     // the player's claims
     private Set<Claim> claimList;
 
-    private PlayerStorageData playerStorage;
+    private volatile PlayerStorageData playerStorage;
+    private Supplier<PlayerStorageData> playerStorageLoader;
+    // last time this data was used, for idle eviction
+    volatile long lastAccessed = System.currentTimeMillis();
 
     // where this player was the last time we checked on him for earning claim blocks
     public Location<World> lastAfkCheckLocation;
@@ -119,20 +131,12 @@ public class GPPlayerData implements PlayerData {
     @SuppressWarnings("unused")
     private Date lastLogin;
 
-    // the player's last chat message, or slash command complete with parameters
-    public String lastMessage = "";
-
-    // last time the player sent a chat message or used a monitored slash command
-    public Date lastMessageTimestamp = new Date();
-
-    // number of consecutive "spams"
-    public int spamCount = 0;
-
-    // whether the player recently received a warning
-    public boolean spamWarned = false;
+    // chat spam tracking
+    public final ChatSpamState chatSpamState = new ChatSpamState();
 
     // visualization
-    public List<Transaction<BlockSnapshot>> visualBlocks;
+    public VisualBlockList visualBlocks;
+    public final VisualizationTracker visualTracker = new VisualizationTracker();
     public UUID visualClaimId;
     public Task visualRevertTask;
 
@@ -251,14 +255,19 @@ public class GPPlayerData implements PlayerData {
     public boolean ignoreTowns = false;
     public boolean ignoreWilderness = false;
 
+    private volatile GPOptionSnapshot optionSnapshot;
+    // option refresh timings of this player, updated on the main thread
+    private int optionRefreshCount;
+    private long lastOptionRefreshNanos;
+    private long maxOptionRefreshNanos;
     public boolean dataInitialized = false;
     public boolean showVisualFillers = true;
     private boolean checkedDimensionHeight = false;
 
-    public GPPlayerData(WorldProperties worldProperties, UUID playerUniqueId, PlayerStorageData playerStorage, GriefPreventionConfig<?> activeConfig, Set<Claim> claims) {
+    public GPPlayerData(WorldProperties worldProperties, UUID playerUniqueId, Supplier<PlayerStorageData> playerStorageLoader, GriefPreventionConfig<?> activeConfig, Set<Claim> claims) {
         this.worldProperties = worldProperties;
         this.playerID = playerUniqueId;
-        this.playerStorage = playerStorage;
+        this.playerStorageLoader = playerStorageLoader;
         this.claimList = claims;
         this.refreshPlayerOptions();
     }
@@ -271,67 +280,121 @@ public void refreshPlayerOptions() {
                 this.playerSubject = new WeakReference<>(subject);
             }
             final Subject subject = this.playerSubject.get();
+            if (subject == null) {
+                return;
+            }
             final Set<Context> activeContexts = PermissionUtils.getActiveContexts(subject, this, null);
-            // options
-            this.optionAbandonReturnRatioTown = PlayerUtils.getOptionDoubleValue(activeContexts, subject, GPOptions.ABANDON_RETURN_RATIO_TOWN, this.optionAbandonReturnRatioTown);
-            this.optionAbandonReturnRatioBasic = PlayerUtils.getOptionDoubleValue(activeContexts, subject, GPOptions.ABANDON_RETURN_RATIO_BASIC, this.optionAbandonReturnRatioBasic);
-            this.optionBlocksAccruedPerHour = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.BLOCKS_ACCRUED_PER_HOUR, this.optionBlocksAccruedPerHour);
-            this.optionClaimExpirationChest = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.CLAIM_EXPIRATION_CHEST, this.optionClaimExpirationChest);
-            this.optionCreateClaimLimitBasic = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.CREATE_CLAIM_LIMIT_BASIC, this.optionCreateClaimLimitBasic);
-            this.optionCreateClaimLimitSubdivision = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.CREATE_CLAIM_LIMIT_SUBDIVISION, this.optionCreateClaimLimitSubdivision);
-            this.optionCreateClaimLimitTown = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.CREATE_CLAIM_LIMIT_TOWN, this.optionCreateClaimLimitTown);
-            this.optionInitialClaimBlocks = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.INITIAL_CLAIM_BLOCKS, this.optionInitialClaimBlocks);
-            this.optionRadiusClaimInspect = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.RADIUS_CLAIM_INSPECT, this.optionRadiusClaimInspect);
-            this.optionRadiusClaimList = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.RADIUS_CLAIM_LIST, this.optionRadiusClaimList);
-            this.optionMaxAccruedBlocks = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_ACCRUED_BLOCKS, this.optionMaxAccruedBlocks);
-            this.optionMaxClaimLevel = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_LEVEL, this.optionMaxClaimLevel);
-            this.optionMaxClaimSizeBasicX = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_SIZE_BASIC_X, this.optionMaxClaimSizeBasicX);
-            this.optionMaxClaimSizeBasicY = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_SIZE_BASIC_Y, this.optionMaxClaimSizeBasicY);
-            this.optionMaxClaimSizeBasicZ = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_SIZE_BASIC_Z, this.optionMaxClaimSizeBasicZ);
-            this.optionMaxClaimSizeTownX = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_SIZE_TOWN_X, this.optionMaxClaimSizeTownX);
-            this.optionMaxClaimSizeTownY = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_SIZE_TOWN_Y, this.optionMaxClaimSizeTownY);
-            this.optionMaxClaimSizeTownZ = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_SIZE_TOWN_Z, this.optionMaxClaimSizeTownZ);
-            this.optionMaxClaimSizeSubX = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_SIZE_SUBDIVISION_X, this.optionMaxClaimSizeSubX);
-            this.optionMaxClaimSizeSubY = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_SIZE_SUBDIVISION_Y, this.optionMaxClaimSizeSubY);
-            this.optionMaxClaimSizeSubZ = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MAX_CLAIM_SIZE_SUBDIVISION_Z, this.optionMaxClaimSizeSubZ);
-            this.optionMinClaimLevel = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MIN_CLAIM_LEVEL, this.optionMinClaimLevel);
-            this.optionMinClaimSizeBasicX = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MIN_CLAIM_SIZE_BASIC_X, this.optionMinClaimSizeBasicX);
-            this.optionMinClaimSizeBasicY = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MIN_CLAIM_SIZE_BASIC_Y, this.optionMinClaimSizeBasicY);
-            this.optionMinClaimSizeBasicZ = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MIN_CLAIM_SIZE_BASIC_Z, this.optionMinClaimSizeBasicZ);
-            this.optionMinClaimSizeTownX = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MIN_CLAIM_SIZE_TOWN_X, this.optionMinClaimSizeTownX);
-            this.optionMinClaimSizeTownY = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MIN_CLAIM_SIZE_TOWN_Y, this.optionMinClaimSizeTownY);
-            this.optionMinClaimSizeTownZ = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.MIN_CLAIM_SIZE_TOWN_Z, this.optionMinClaimSizeTownZ);
-            this.optionClaimCreateMode = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.CLAIM_CREATE_MODE, this.optionClaimCreateMode);
-            this.optionClaimExpirationChest = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.CLAIM_EXPIRATION_CHEST, this.optionClaimExpirationChest);
-            this.optionClaimExpirationBasic = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.CLAIM_EXPIRATION_BASIC, this.optionClaimExpirationBasic);
-            this.optionClaimExpirationTown = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.CLAIM_EXPIRATION_TOWN, this.optionClaimExpirationTown);
-            this.optionClaimExpirationSubdivision = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.CLAIM_EXPIRATION_SUBDIVISION, this.optionClaimExpirationSubdivision);
-            this.optionTaxExpirationBasic = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.TAX_EXPIRATION_BASIC, this.optionTaxExpirationBasic);
-            this.optionTaxExpirationSubdivision = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.TAX_EXPIRATION_BASIC, this.optionTaxExpirationSubdivision);
-            this.optionTaxExpirationTown = PlayerUtils.getOptionIntValue(activeContexts, subject, GPOptions.TAX_EXPIRATION_BASIC, this.optionTaxExpirationTown);
-            this.optionTaxRateBasic = PlayerUtils.getOptionDoubleValue(activeContexts, subject, GPOptions.TAX_RATE_BASIC, this.optionTaxRateBasic);
-            this.optionTaxRateSubdivision = PlayerUtils.getOptionDoubleValue(activeContexts, subject, GPOptions.TAX_RATE_BASIC, this.optionTaxRateSubdivision);
-            this.optionTaxRateTown = PlayerUtils.getOptionDoubleValue(activeContexts, subject, GPOptions.TAX_RATE_TOWN, this.optionTaxRateTown);
-            this.optionTaxRateTownBasic = PlayerUtils.getOptionDoubleValue(activeContexts, subject, GPOptions.TAX_RATE_TOWN_BASIC, this.optionTaxRateTownBasic);
-            this.optionTaxRateTownSubdivision = PlayerUtils.getOptionDoubleValue(activeContexts, subject, GPOptions.TAX_RATE_TOWN_BASIC, this.optionTaxRateTownSubdivision);
-            // permissions
-            this.ignoreBorderCheck = subject.hasPermission(activeContexts, GPPermissions.IGNORE_BORDER_CHECK);
-            this.ignoreAdminClaims = subject.hasPermission(activeContexts, GPPermissions.IGNORE_CLAIMS_ADMIN);
-            this.ignoreTowns = subject.hasPermission(activeContexts, GPPermissions.IGNORE_CLAIMS_TOWN);
-            this.ignoreWilderness = subject.hasPermission(activeContexts, GPPermissions.IGNORE_CLAIMS_WILDERNESS);
-            this.ignoreBasicClaims = subject.hasPermission(activeContexts, GPPermissions.IGNORE_CLAIMS_BASIC);
-            this.canManageAdminClaims = subject.hasPermission(activeContexts, GPPermissions.COMMAND_ADMIN_CLAIMS);
-            this.canManageWilderness = subject.hasPermission(activeContexts, GPPermissions.MANAGE_WILDERNESS);
-            this.playerName = subject.getFriendlyIdentifier().orElse(null);
-            if (this.optionMaxClaimLevel > 255 || this.optionMaxClaimLevel <= 0 || this.optionMaxClaimLevel < this.optionMinClaimLevel) {
-                this.optionMaxClaimLevel = 255;
+            final GPOptionSnapshot snapshot = GPOptionSnapshot.capture(subject, activeContexts);
+            Sponge.getScheduler().createTaskBuilder().execute(() -> this.applyOptions(snapshot)).submit(GriefPreventionPlugin.instance);
+        });
+    }
+
+    // Applied on the main thread so readers always see one consistent refresh
+    private void applyOptions(GPOptionSnapshot snapshot) {
+        final GPOptionSnapshot previous = this.optionSnapshot;
+        this.optionRefreshCount++;
+        this.lastOptionRefreshNanos = snapshot.getRefreshNanos();
+        this.maxOptionRefreshNanos = Math.max(this.maxOptionRefreshNanos, snapshot.getRefreshNanos());
+        // options
+        this.optionAbandonReturnRatioTown = this.resolveOption(previous, snapshot, GPOptions.ABANDON_RETURN_RATIO_TOWN, this.optionAbandonReturnRatioTown);
+        this.optionAbandonReturnRatioBasic = this.resolveOption(previous, snapshot, GPOptions.ABANDON_RETURN_RATIO_BASIC, this.optionAbandonReturnRatioBasic);
+        this.optionBlocksAccruedPerHour = this.resolveOption(previous, snapshot, GPOptions.BLOCKS_ACCRUED_PER_HOUR, this.optionBlocksAccruedPerHour);
+        this.optionClaimExpirationChest = this.resolveOption(previous, snapshot, GPOptions.CLAIM_EXPIRATION_CHEST, this.optionClaimExpirationChest);
+        this.optionCreateClaimLimitBasic = this.resolveOption(previous, snapshot, GPOptions.CREATE_CLAIM_LIMIT_BASIC, this.optionCreateClaimLimitBasic);
+        this.optionCreateClaimLimitSubdivision = this.resolveOption(previous, snapshot, GPOptions.CREATE_CLAIM_LIMIT_SUBDIVISION, this.optionCreateClaimLimitSubdivision);
+        this.optionCreateClaimLimitTown = this.resolveOption(previous, snapshot, GPOptions.CREATE_CLAIM_LIMIT_TOWN, this.optionCreateClaimLimitTown);
+        this.optionInitialClaimBlocks = this.resolveOption(previous, snapshot, GPOptions.INITIAL_CLAIM_BLOCKS, this.optionInitialClaimBlocks);
+        this.optionRadiusClaimInspect = this.resolveOption(previous, snapshot, GPOptions.RADIUS_CLAIM_INSPECT, this.optionRadiusClaimInspect);
+        this.optionRadiusClaimList = this.resolveOption(previous, snapshot, GPOptions.RADIUS_CLAIM_LIST, this.optionRadiusClaimList);
+        this.optionMaxAccruedBlocks = this.resolveOption(previous, snapshot, GPOptions.MAX_ACCRUED_BLOCKS, this.optionMaxAccruedBlocks);
+        this.optionMaxClaimLevel = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_LEVEL, this.optionMaxClaimLevel);
+        this.optionMaxClaimSizeBasicX = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_SIZE_BASIC_X, this.optionMaxClaimSizeBasicX);
+        this.optionMaxClaimSizeBasicY = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_SIZE_BASIC_Y, this.optionMaxClaimSizeBasicY);
+        this.optionMaxClaimSizeBasicZ = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_SIZE_BASIC_Z, this.optionMaxClaimSizeBasicZ);
+        this.optionMaxClaimSizeTownX = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_SIZE_TOWN_X, this.optionMaxClaimSizeTownX);
+        this.optionMaxClaimSizeTownY = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_SIZE_TOWN_Y, this.optionMaxClaimSizeTownY);
+        this.optionMaxClaimSizeTownZ = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_SIZE_TOWN_Z, this.optionMaxClaimSizeTownZ);
+        this.optionMaxClaimSizeSubX = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_SIZE_SUBDIVISION_X, this.optionMaxClaimSizeSubX);
+        this.optionMaxClaimSizeSubY = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_SIZE_SUBDIVISION_Y, this.optionMaxClaimSizeSubY);
+        this.optionMaxClaimSizeSubZ = this.resolveOption(previous, snapshot, GPOptions.MAX_CLAIM_SIZE_SUBDIVISION_Z, this.optionMaxClaimSizeSubZ);
+        this.optionMinClaimLevel = this.resolveOption(previous, snapshot, GPOptions.MIN_CLAIM_LEVEL, this.optionMinClaimLevel);
+        this.optionMinClaimSizeBasicX = this.resolveOption(previous, snapshot, GPOptions.MIN_CLAIM_SIZE_BASIC_X, this.optionMinClaimSizeBasicX);
+        this.optionMinClaimSizeBasicY = this.resolveOption(previous, snapshot, GPOptions.MIN_CLAIM_SIZE_BASIC_Y, this.optionMinClaimSizeBasicY);
+        this.optionMinClaimSizeBasicZ = this.resolveOption(previous, snapshot, GPOptions.MIN_CLAIM_SIZE_BASIC_Z, this.optionMinClaimSizeBasicZ);
+        this.optionMinClaimSizeTownX = this.resolveOption(previous, snapshot, GPOptions.MIN_CLAIM_SIZE_TOWN_X, this.optionMinClaimSizeTownX);
+        this.optionMinClaimSizeTownY = this.resolveOption(previous, snapshot, GPOptions.MIN_CLAIM_SIZE_TOWN_Y, this.optionMinClaimSizeTownY);
+        this.optionMinClaimSizeTownZ = this.resolveOption(previous, snapshot, GPOptions.MIN_CLAIM_SIZE_TOWN_Z, this.optionMinClaimSizeTownZ);
+        this.optionClaimCreateMode = this.resolveOption(previous, snapshot, GPOptions.CLAIM_CREATE_MODE, this.optionClaimCreateMode);
+        this.optionClaimExpirationChest = this.resolveOption(previous, snapshot, GPOptions.CLAIM_EXPIRATION_CHEST, this.optionClaimExpirationChest);
+        this.optionClaimExpirationBasic = this.resolveOption(previous, snapshot, GPOptions.CLAIM_EXPIRATION_BASIC, this.optionClaimExpirationBasic);
+        this.optionClaimExpirationTown = this.resolveOption(previous, snapshot, GPOptions.CLAIM_EXPIRATION_TOWN, this.optionClaimExpirationTown);
+        this.optionClaimExpirationSubdivision = this.resolveOption(previous, snapshot, GPOptions.CLAIM_EXPIRATION_SUBDIVISION, this.optionClaimExpirationSubdivision);
+        this.optionTaxExpirationBasic = this.resolveOption(previous, snapshot, GPOptions.TAX_EXPIRATION_BASIC, this.optionTaxExpirationBasic);
+        this.optionTaxExpirationSubdivision = this.resolveOption(previous, snapshot, GPOptions.TAX_EXPIRATION_BASIC, this.optionTaxExpirationSubdivision);
+        this.optionTaxExpirationTown = this.resolveOption(previous, snapshot, GPOptions.TAX_EXPIRATION_BASIC, this.optionTaxExpirationTown);
+        this.optionTaxRateBasic = this.resolveOption(previous, snapshot, GPOptions.TAX_RATE_BASIC, this.optionTaxRateBasic);
+        this.optionTaxRateSubdivision = this.resolveOption(previous, snapshot, GPOptions.TAX_RATE_BASIC, this.optionTaxRateSubdivision);
+        this.optionTaxRateTown = this.resolveOption(previous, snapshot, GPOptions.TAX_RATE_TOWN, this.optionTaxRateTown);
+        this.optionTaxRateTownBasic = this.resolveOption(previous, snapshot, GPOptions.TAX_RATE_TOWN_BASIC, this.optionTaxRateTownBasic);
+        this.optionTaxRateTownSubdivision = this.resolveOption(previous, snapshot, GPOptions.TAX_RATE_TOWN_BASIC, this.optionTaxRateTownSubdivision);
+        // permissions
+        this.ignoreBorderCheck = snapshot.hasPermission(GPPermissions.IGNORE_BORDER_CHECK);
+        this.ignoreAdminClaims = snapshot.hasPermission(GPPermissions.IGNORE_CLAIMS_ADMIN);
+        this.ignoreTowns = snapshot.hasPermission(GPPermissions.IGNORE_CLAIMS_TOWN);
+        this.ignoreWilderness = snapshot.hasPermission(GPPermissions.IGNORE_CLAIMS_WILDERNESS);
+        this.ignoreBasicClaims = snapshot.hasPermission(GPPermissions.IGNORE_CLAIMS_BASIC);
+        this.canManageAdminClaims = snapshot.hasPermission(GPPermissions.COMMAND_ADMIN_CLAIMS);
+        this.canManageWilderness = snapshot.hasPermission(GPPermissions.MANAGE_WILDERNESS);
+        this.playerName = snapshot.getFriendlyName();
+        if (this.optionMaxClaimLevel > 255 || this.optionMaxClaimLevel <= 0 || this.optionMaxClaimLevel < this.optionMinClaimLevel) {
+            this.optionMaxClaimLevel = 255;
+        }
+        if (this.optionMinClaimLevel < 0 || this.optionMinClaimLevel >= 255 || this.optionMinClaimLevel > this.optionMaxClaimLevel) {
+            this.optionMinClaimLevel = 0;
+        }
+        this.optionSnapshot = snapshot;
+        this.dataInitialized = true;
+        this.checkedDimensionHeight = false;
+    }
+
+    // Resolved values always win, so a refresh resets user toggles such as /claimmode to their option
+    private int resolveOption(@Nullable GPOptionSnapshot previous, GPOptionSnapshot current, String option, int value) {
+        final String optionValue = this.getOptionValue(previous, current, option, value);
+        if (optionValue != null) {
+            try {
+                return Integer.parseInt(optionValue);
+            } catch (NumberFormatException e) {
+                return value;
             }
-            if (this.optionMinClaimLevel < 0 || this.optionMinClaimLevel >= 255 || this.optionMinClaimLevel > this.optionMaxClaimLevel) {
-                this.optionMinClaimLevel = 0;
+        }
+        return value;
+    }
+
+    private double resolveOption(@Nullable GPOptionSnapshot previous, GPOptionSnapshot current, String option, double value) {
+        final String optionValue = this.getOptionValue(previous, current, option, value);
+        if (optionValue != null) {
+            try {
+                return Double.parseDouble(optionValue);
+            } catch (NumberFormatException e) {
+                return value;
             }
-            this.dataInitialized = true;
-            this.checkedDimensionHeight = false;
-        });
+        }
+        return value;
+    }
+
+    @Nullable
+    private String getOptionValue(@Nullable GPOptionSnapshot previous, GPOptionSnapshot current, String option, Object defaultValue) {
+        final String optionValue = current.getOption(option);
+        // Only publish the global default when the option first goes missing
+        if (optionValue == null && (previous == null || previous.getOption(option) != null)) {
+            GriefPreventionPlugin.GLOBAL_SUBJECT.getTransientSubjectData().setOption(new HashSet<>(), option, String.valueOf(defaultValue));
+        }
+        return optionValue;
+    }
+
+    @Nullable
+    public GPOptionSnapshot getOptionSnapshot() {
+        return this.optionSnapshot;
     }
 
     public String getPlayerName() {
@@ -346,6 +409,7 @@ public String getPlayerName() {
     }
 
     public void revertActiveVisual(Player player) {
+        this.visualTracker.clear();
         if (this.visualRevertTask != null) {
             this.visualRevertTask.cancel();
             this.visualRevertTask = null;
@@ -358,14 +422,11 @@ public void revertActiveVisual(Player player) {
             }
         }
         this.visualClaimId = null;
-        if (this.visualBlocks == null || !player.getWorld().equals(this.visualBlocks.get(0).getFinal().getLocation().get().getExtent())) {
+        if (this.visualBlocks == null || !this.visualBlocks.isInWorld(player.getWorld())) {
             return;
         }
 
-        for (int i = 0; i < this.visualBlocks.size(); i++) {
-            BlockSnapshot snapshot = this.visualBlocks.get(i).getOriginal();
-            player.sendBlockChange(snapshot.getPosition(), snapshot.getState());
-        }
+        VisualizationSender.sendOriginal(player, this.visualBlocks);
     }
 
     // whether or not this player is "in" pvp combat
@@ -447,7 +508,7 @@ public double getRemainingChunks() {
     }
 
     public int getAccruedClaimBlocks() {
-        return this.playerStorage.getConfig().getAccruedClaimBlocks();
+        return this.getStorageData().getConfig().getAccruedClaimBlocks();
     }
 
     public boolean addAccruedClaimBlocks(int newAccruedClaimBlocks) {
@@ -457,7 +518,7 @@ public boolean addAccruedClaimBlocks(int newAccruedClaimBlocks) {
             return false;
         }
 
-        this.playerStorage.getConfig().setAccruedClaimBlocks(currentTotal + newAccruedClaimBlocks);
+        this.getStorageData().getConfig().setAccruedClaimBlocks(currentTotal + newAccruedClaimBlocks);
         return true;
     }
 
@@ -467,16 +528,26 @@ public boolean setAccruedClaimBlocks(int newAccruedClaimBlocks) {
             return false;
         }
 
-        this.playerStorage.getConfig().setAccruedClaimBlocks(newAccruedClaimBlocks);
+        this.getStorageData().getConfig().setAccruedClaimBlocks(newAccruedClaimBlocks);
         return true;
     }
 
+    @Nullable
+    public Instant getLastSeen() {
+        return this.getStorageData().getConfig().getLastSeen();
+    }
+
+    // Marks every claim of this player as active without touching the claims themselves
+    public void updateLastSeen() {
+        this.getStorageData().getConfig().setLastSeen(Instant.now());
+    }
+
     public int getBonusClaimBlocks() {
-        return this.playerStorage.getConfig().getBonusClaimBlocks();
+        return this.getStorageData().getConfig().getBonusClaimBlocks();
     }
 
     public void setBonusClaimBlocks(int bonusClaimBlocks) {
-        this.playerStorage.getConfig().setBonusClaimBlocks(bonusClaimBlocks);
+        this.getStorageData().getConfig().setBonusClaimBlocks(bonusClaimBlocks);
     }
 
     @Override
@@ -545,12 +616,43 @@ public boolean canCreateClaim(Player player, boolean sendMessage) {
         return true;
     }
 
+    public int getOptionRefreshCount() {
+        return this.optionRefreshCount;
+    }
+
+    public double getLastOptionRefreshMillis() {
+        return this.lastOptionRefreshNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxOptionRefreshMillis() {
+        return this.maxOptionRefreshNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
     public void saveAllData() {
-        this.playerStorage.save();
+        // storage that was never loaded has nothing to save
+        if (this.playerStorage != null) {
+            this.playerStorage.save();
+        }
     }
 
+    // Storage is loaded on first use
     public PlayerStorageData getStorageData() {
-        return this.playerStorage;
+        PlayerStorageData storage = this.playerStorage;
+        if (storage == null) {
+            synchronized (this) {
+                storage = this.playerStorage;
+                if (storage == null) {
+                    storage = this.playerStorageLoader.get();
+                    this.playerStorage = storage;
+                    this.playerStorageLoader = null;
+                }
+            }
+        }
+        return storage;
+    }
+
+    public boolean isStorageLoaded() {
+        return this.playerStorage != null;
     }
 
     public List<Claim> getClaims() {
@@ -800,6 +902,7 @@ public double getTotalTax() {
 
     public void onDisconnect() {
         this.visualBlocks = null;
+        this.visualTracker.clear();
         this.lastInteractClaim = null;
         this.claimResizing = null;
         this.claimSubdividing = null;
@@ -0,0 +1,139 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention;
+
+import me.ryanhamshire.griefprevention.configuration.PersistenceQueue;
+import org.spongepowered.api.Sponge;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * Player data of one claim manager, or of every world with global storage.
+ *
+ * <p>Safe to use from any thread. Creation is atomic so concurrent callers
+ * always share one instance. Data of offline players that own no claims is
+ * evicted once it has been idle for the configured time. Claim owners stay
+ * loaded since their claims keep a reference to their data.</p>
+ */
+public final class GPPlayerDataRegistry {
+
+    private static final AtomicLong evictedCount = new AtomicLong();
+
+    private final ConcurrentHashMap<UUID, GPPlayerData> playerData = new ConcurrentHashMap<>();
+    private final Map<UUID, GPPlayerData> view = Collections.unmodifiableMap(this.playerData);
+
+    @Nullable
+    public GPPlayerData get(UUID playerUniqueId) {
+        final GPPlayerData data = this.playerData.get(playerUniqueId);
+        if (data != null) {
+            data.lastAccessed = System.currentTimeMillis();
+        }
+        return data;
+    }
+
+    public GPPlayerData getOrCreate(UUID playerUniqueId, Function<UUID, GPPlayerData> factory) {
+        GPPlayerData data = this.playerData.get(playerUniqueId);
+        if (data == null) {
+            // the factory must not touch this registry
+            data = this.playerData.computeIfAbsent(playerUniqueId, factory);
+        }
+        data.lastAccessed = System.currentTimeMillis();
+        return data;
+    }
+
+    @Nullable
+    public GPPlayerData remove(UUID playerUniqueId) {
+        return this.playerData.remove(playerUniqueId);
+    }
+
+    public void clear() {
+        this.playerData.clear();
+    }
+
+    public int size() {
+        return this.playerData.size();
+    }
+
+    /**
+     * Gets a read-only live view of the registered player data.
+     *
+     * @return The player data view
+     */
+    public Map<UUID, GPPlayerData> asMap() {
+        return this.view;
+    }
+
+    /**
+     * Evicts data of offline players without claims that has not been used
+     * for the given time. Must be called on the main thread.
+     *
+     * <p>Data with a pending save is saved and kept until the write is done,
+     * so a later load never reads stale storage.</p>
+     *
+     * @param idleMillis How long data must be unused to be evicted
+     * @return The number of evicted entries
+     */
+    public int evictIdle(long idleMillis) {
+        final long cutoff = System.currentTimeMillis() - idleMillis;
+        int evicted = 0;
+        final Iterator<GPPlayerData> iterator = this.playerData.values().iterator();
+        while (iterator.hasNext()) {
+            final GPPlayerData data = iterator.next();
+            if (data.lastAccessed > cutoff || !data.getInternalClaims().isEmpty() || isReservedUniqueId(data.playerID)
+                    || Sponge.getServer().getPlayer(data.playerID).isPresent()) {
+                continue;
+            }
+            if (data.isStorageLoaded()) {
+                data.saveAllData();
+                // changes made while the stored data is read are applied once it completes
+                if (!data.getStorageData().isLoaded() || PersistenceQueue.isQueued(data.getStorageData())) {
+                    continue;
+                }
+            }
+            data.onDisconnect();
+            iterator.remove();
+            evicted++;
+        }
+        evictedCount.addAndGet(evicted);
+        return evicted;
+    }
+
+    private static boolean isReservedUniqueId(UUID uniqueId) {
+        return uniqueId.equals(GriefPreventionPlugin.WORLD_USER_UUID) || uniqueId.equals(GriefPreventionPlugin.ADMIN_USER_UUID)
+                || uniqueId.equals(GriefPreventionPlugin.PUBLIC_UUID);
+    }
+
+    public static long getEvictedCount() {
+        return evictedCount.get();
+    }
+}
@@ -42,10 +42,12 @@
 import me.ryanhamshire.griefprevention.api.claim.ClaimBlockSystem;
 import me.ryanhamshire.griefprevention.api.claim.ClaimFlag;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.chat.ChatFilter;
 import me.ryanhamshire.griefprevention.claim.ClaimContextCalculator;
 import me.ryanhamshire.griefprevention.claim.ClaimsMode;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.claim.GPClaimManager;
+import me.ryanhamshire.griefprevention.command.ClaimNameElement;
 import me.ryanhamshire.griefprevention.command.CommandAccessTrust;
 import me.ryanhamshire.griefprevention.command.CommandAdjustBonusClaimBlocks;
 import me.ryanhamshire.griefprevention.command.CommandClaimAbandon;
@@ -114,7 +116,9 @@
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
 import me.ryanhamshire.griefprevention.configuration.MessageDataConfig;
 import me.ryanhamshire.griefprevention.configuration.MessageStorage;
+import me.ryanhamshire.griefprevention.configuration.PersistenceQueue;
 import me.ryanhamshire.griefprevention.configuration.category.BlacklistCategory;
+import me.ryanhamshire.griefprevention.configuration.category.DatabaseCategory;
 import me.ryanhamshire.griefprevention.configuration.type.ConfigBase;
 import me.ryanhamshire.griefprevention.configuration.type.GlobalConfig;
 import me.ryanhamshire.griefprevention.listener.BlockEventHandler;
@@ -128,6 +132,7 @@
 import me.ryanhamshire.griefprevention.migrator.GPPermissionMigrator;
 import me.ryanhamshire.griefprevention.permission.GPBlacklists;
 import me.ryanhamshire.griefprevention.permission.GPOptions;
+import me.ryanhamshire.griefprevention.permission.GPPermissionCache;
 import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
 import me.ryanhamshire.griefprevention.provider.GPApiProvider;
@@ -145,7 +150,6 @@
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.entity.player.InventoryPlayer;
 import net.minecraft.item.ItemStack;
-import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.LocaleUtils;
 import org.bstats.sponge.Metrics2;
 import org.slf4j.Logger;
@@ -176,6 +180,8 @@
 import org.spongepowered.api.event.game.state.GameAboutToStartServerEvent;
 import org.spongepowered.api.event.game.state.GamePreInitializationEvent;
 import org.spongepowered.api.event.game.state.GameStartedServerEvent;
+import org.spongepowered.api.event.game.state.GameStoppedServerEvent;
+import org.spongepowered.api.event.permission.SubjectDataUpdateEvent;
 import org.spongepowered.api.event.service.ChangeServiceProviderEvent;
 import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.ItemTypes;
@@ -215,8 +221,6 @@
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Plugin(id = "griefprevention", name = "GriefPrevention", version = "4.3.0", description = "This plugin is designed to prevent all forms of grief.")
 public class GriefPreventionPlugin {
@@ -262,6 +266,8 @@ public class GriefPreventionPlugin {
 
     // this handles data storage, like player and region data
     public DataStore dataStore;
+    // profanity, IP address and repeat message checks for chat and signs
+    public final ChatFilter chatFilter = new ChatFilter(() -> getGlobalConfig().getConfig().spam.allowedIpAddresses);
 
     public MCClansApiProvider clanApiProvider;
     public NucleusApiProvider nucleusApiProvider;
@@ -397,6 +403,12 @@ public void onChangeServiceProvider(ChangeServiceProviderEvent event) {
         }
     }
 
+    // picks up changes made directly in the permission plugin, as well as our own writes
+    @Listener
+    public void onSubjectDataUpdate(SubjectDataUpdateEvent event) {
+        GPPermissionCache.invalidate();
+    }
+
     private boolean validateSpongeVersion() {
         if (Sponge.getPlatform().getContainer(Component.IMPLEMENTATION).getName().equals("SpongeForge")) {
             if (Sponge.getPlatform().getContainer(Component.IMPLEMENTATION).getVersion().isPresent()) {
@@ -762,7 +774,12 @@ public void onServerAboutToStart(GameAboutToStartServerEvent event) {
 
         if (this.dataStore == null) {
             try {
-                this.dataStore = new FlatFileDataStore();
+                final DatabaseCategory databaseConfig = getGlobalConfig().getConfig().database;
+                if (databaseConfig.dbURL.isEmpty()) {
+                    this.dataStore = new FlatFileDataStore();
+                } else {
+                    this.dataStore = new DatabaseDataStore(databaseConfig.getConnectionUrl(), databaseConfig.batchSize);
+                }
                 // Migrator currently only handles pixelmon
                 // Remove pixelmon check after GP 5.0.0 update
                 if (Sponge.getPluginManager().getPlugin("pixelmon").isPresent()) {
@@ -775,14 +792,14 @@ public void onServerAboutToStart(GameAboutToStartServerEvent event) {
                 }
                 this.dataStore.initialize();
             } catch (Exception e) {
-                this.getLogger().info("Unable to initialize the file system data store.  Details:");
+                this.getLogger().info("Unable to initialize the data store.  Details:");
                 this.getLogger().info(e.getMessage());
                 e.printStackTrace();
                 return;
             }
         }
 
-        String dataMode = (this.dataStore instanceof FlatFileDataStore) ? "(File Mode)" : "(Database Mode)";
+        String dataMode = (this.dataStore instanceof DatabaseDataStore) ? "(Database Mode)" : "(File Mode)";
         Sponge.getEventManager().registerListeners(this, new BlockEventHandler(dataStore));
         Sponge.getEventManager().registerListeners(this, new PlayerEventHandler(dataStore, this));
         Sponge.getEventManager().registerListeners(this, new EntityEventHandler(dataStore));
@@ -889,10 +906,26 @@ public void onServerStarted(GameStartedServerEvent event) {
         DeliverClaimBlocksTask task = new DeliverClaimBlocksTask(null);
         Sponge.getScheduler().createTaskBuilder().interval(5, TimeUnit.MINUTES).execute(task)
                 .submit(GriefPreventionPlugin.instance);
+
+        // evict data of offline players that is no longer used
+        Sponge.getScheduler().createTaskBuilder().interval(1, TimeUnit.MINUTES).execute(this.dataStore::evictIdlePlayerData)
+                .submit(GriefPreventionPlugin.instance);
         addLogEntry("Boot finished.");
         this.logger.info("Loaded successfully.");
     }
 
+    @Listener
+    public void onServerStopped(GameStoppedServerEvent event) {
+        if (this.executor == null) {
+            return;
+        }
+        // worlds have been saved at this point, write out anything still queued
+        PersistenceQueue.flushAndWait();
+        if (this.customLogger != null) {
+            this.customLogger.close();
+        }
+    }
+
     // handles sub commands
     public void registerBaseCommands() {
 
@@ -913,6 +946,7 @@ public void registerBaseCommands() {
         debugChoicesBuilder.put("log", "log");
         debugChoicesBuilder.put("record", "record");
         debugChoicesBuilder.put("paste", "paste");
+        debugChoicesBuilder.put("stats", "stats");
 
         ImmutableMap.Builder<String, String> contextChoicesBuilder = ImmutableMap.builder();
         contextChoicesBuilder.put("default", "default");
@@ -1097,7 +1131,7 @@ public void registerBaseCommands() {
         Sponge.getCommandManager().register(this, CommandSpec.builder()
                 .description(Text.of("Gets information about a claim"))
                 .permission(GPPermissions.COMMAND_CLAIM_INFO_BASE)
-                .arguments(optional(string(Text.of("id"))))
+                .arguments(optional(new ClaimNameElement(Text.of("id"))))
                 .executor(new CommandClaimInfo())
                 .build(), "claiminfo", "claimsinfo");
 
@@ -1305,7 +1339,7 @@ public void registerBaseCommands() {
         Sponge.getCommandManager().register(this, CommandSpec.builder()
                 .description(Text.of("Gets information about a town"))
                 .permission(GPPermissions.COMMAND_TOWN_INFO_BASE)
-                .arguments(optional(string(Text.of("id"))))
+                .arguments(optional(new ClaimNameElement(Text.of("id"))))
                 .executor(new CommandClaimInfo(true))
                 .build(), "towninfo", "townsinfo");
 
@@ -1770,6 +1804,7 @@ public void loadConfig() {
             messageData = messageStorage.getConfig();
             DataStore.USE_GLOBAL_PLAYER_STORAGE = DataStore.globalConfig.getConfig().playerdata.useGlobalPlayerDataStorage;
             GPFlags.populateFlagStatus();
+            GPPermissionCache.reload();
             CLAIM_BLOCK_SYSTEM = DataStore.globalConfig.getConfig().playerdata.claimBlockSystem;
             this.modificationTool = Sponge.getRegistry().getType(ItemType.class, DataStore.globalConfig.getConfig().claim.modificationTool).orElse(ItemTypes.GOLDEN_SHOVEL);
             this.investigationTool = Sponge.getRegistry().getType(ItemType.class, DataStore.globalConfig.getConfig().claim.investigationTool).orElse(ItemTypes.STICK);
@@ -2084,22 +2119,6 @@ public int getSeaLevel(World world) {
         return world.getDimension().getMinimumSpawnHeight();
     }
 
-    public boolean containsBlockedIP(String message) {
-        message = message.replace("\r\n", "");
-        Pattern ipAddressPattern = Pattern.compile("([0-9]{1,3}\\.){3}[0-9]{1,3}");
-        Matcher matcher = ipAddressPattern.matcher(message);
-
-        // if it looks like an IP address
-        if (matcher.find()) {
-            // and it's not in the list of allowed IP addresses
-            if (!GriefPreventionPlugin.getGlobalConfig().getConfig().spam.allowedIpAddresses.contains(matcher.group())) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
     public Map<String, GPDebugData> getDebugUserMap() {
         return this.debugUserMap;
     }
@@ -2145,7 +2164,6 @@ public static boolean isSourceIdBlacklisted(String flag, Object source, WorldPro
 
         final GriefPreventionConfig<?> activeConfig = GriefPreventionPlugin.getActiveConfig(worldProperties);
         final String id = GPPermissionHandler.getPermissionIdentifier(source);
-        final String idNoMeta = GPPermissionHandler.getIdentifierWithoutMeta(id);
 
         // Check global
         if (GPBlacklists.GLOBAL_SOURCE) {
@@ -2154,25 +2172,13 @@ public static boolean isSourceIdBlacklisted(String flag, Object source, WorldPro
             if (globalSourceBlacklist == null) {
                 return false;
             }
-            for (String str : globalSourceBlacklist) {
-                if (FilenameUtils.wildcardMatch(id, str)) {
-                    return true;
-                }
-                if (FilenameUtils.wildcardMatch(idNoMeta, str)) {
-                    return true;
-                }
+            if (GPBlacklists.getMatcher(globalSourceBlacklist).matches(id)) {
+                return true;
             }
         }
         // Check flag
-        if (checkFlag) {
-            for (String str : flagList) {
-                if (FilenameUtils.wildcardMatch(id, str)) {
-                    return true;
-                }
-                if (FilenameUtils.wildcardMatch(idNoMeta, str)) {
-                    return true;
-                }
-            }
+        if (checkFlag && GPBlacklists.getMatcher(flagList).matches(id)) {
+            return true;
         }
 
         return false;
@@ -2187,7 +2193,6 @@ public static boolean isTargetIdBlacklisted(String flag, Object target, WorldPro
 
         final GriefPreventionConfig<?> activeConfig = GriefPreventionPlugin.getActiveConfig(worldProperties);
         final String id = GPPermissionHandler.getPermissionIdentifier(target);
-        final String idNoMeta = GPPermissionHandler.getIdentifierWithoutMeta(id);
 
         // Check global
         if (GPBlacklists.GLOBAL_TARGET) {
@@ -2196,38 +2201,13 @@ public static boolean isTargetIdBlacklisted(String flag, Object target, WorldPro
             if (globalTargetBlacklist == null) {
                 return false;
             }
-            for (String str : globalTargetBlacklist) {
-                if (FilenameUtils.wildcardMatch(id, str)) {
-                    return true;
-                }
-                if (FilenameUtils.wildcardMatch(idNoMeta, str)) {
-                    return true;
-                }
+            if (GPBlacklists.getMatcher(globalTargetBlacklist).matches(id)) {
+                return true;
             }
         }
         // Check flag
-        if (checkFlag) {
-            for (String str : flagList) {
-                if (FilenameUtils.wildcardMatch(id, str)) {
-                    return true;
-                }
-                if (FilenameUtils.wildcardMatch(idNoMeta, str)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
-    public static boolean containsProfanity(String message) {
-        final String[] words = message.split("\\s+");
-        for (String banned : DataStore.bannedWords) {
-            for (String word : words) {
-                if (FilenameUtils.wildcardMatch(word, banned)) {
-                    return true;
-                }
-            }
+        if (checkFlag && GPBlacklists.getMatcher(flagList).matches(id)) {
+            return true;
         }
 
         return false;
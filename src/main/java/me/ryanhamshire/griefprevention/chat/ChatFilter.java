@@ -0,0 +1,161 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.chat;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chat checks shared by chat, monitored commands and signs.
+ *
+ * <p>The banned words and allowed addresses are immutable and published
+ * through volatile fields, so the checks can run on async chat threads. The
+ * last message shown in chat is guarded by the instance lock.</p>
+ */
+public final class ChatFilter {
+
+    private static final Pattern IP_ADDRESS = Pattern.compile("([0-9]{1,3}\\.){3}[0-9]{1,3}");
+
+    private final Supplier<List<String>> allowedAddressSource;
+    private volatile ProfanityMatcher profanityMatcher = ProfanityMatcher.EMPTY;
+    private volatile AllowedAddresses allowedAddresses = new AllowedAddresses(Collections.emptyList());
+
+    // last chat message shown, regardless of who sent it
+    private String lastChatMessage = "";
+    private long lastChatMessageTimestamp = 0;
+    // number of identical messages in a row
+    private int duplicateMessageCount = 0;
+
+    /**
+     * @param allowedAddressSource Supplies the configured list of allowed IP
+     *     addresses, read again on every check so config reloads apply
+     */
+    public ChatFilter(Supplier<List<String>> allowedAddressSource) {
+        this.allowedAddressSource = allowedAddressSource;
+    }
+
+    public void setBannedWords(List<String> bannedWords) {
+        this.profanityMatcher = ProfanityMatcher.compile(bannedWords);
+    }
+
+    public boolean containsProfanity(String message) {
+        return this.profanityMatcher.containsProfanity(message);
+    }
+
+    public boolean containsBlockedIP(String message) {
+        final Matcher matcher = IP_ADDRESS.matcher(message.replace("\r\n", ""));
+        // if it looks like an IP address and it's not in the list of allowed IP addresses
+        return matcher.find() && !this.getAllowedAddresses().contains(matcher.group());
+    }
+
+    // Rebuilt whenever the config list is replaced by a reload
+    private Set<String> getAllowedAddresses() {
+        final List<String> source = this.allowedAddressSource.get();
+        AllowedAddresses allowed = this.allowedAddresses;
+        if (allowed.source != source) {
+            allowed = new AllowedAddresses(source);
+            this.allowedAddresses = allowed;
+        }
+        return allowed.addresses;
+    }
+
+    /**
+     * Records a message shown in chat by any player.
+     *
+     * @param message The message
+     * @param now The current time in milliseconds
+     * @param countRepeat Whether an exact repeat of the previous message should be counted
+     * @return The number of repeats in a row, or 0 if the message was not counted as one
+     */
+    public synchronized int recordChatMessage(String message, long now, boolean countRepeat) {
+        if (countRepeat && message.equals(this.lastChatMessage) && now - this.lastChatMessageTimestamp < 750) {
+            return ++this.duplicateMessageCount;
+        }
+        this.lastChatMessage = message;
+        this.lastChatMessageTimestamp = now;
+        this.duplicateMessageCount = 0;
+        return 0;
+    }
+
+    // if two strings are 75% identical, they're too close to follow each other in the chat
+    public static boolean stringsAreSimilar(String message, String lastMessage) {
+        // determine which is shorter
+        String shorterString, longerString;
+        if (lastMessage.length() < message.length()) {
+            shorterString = lastMessage;
+            longerString = message;
+        } else {
+            shorterString = message;
+            longerString = lastMessage;
+        }
+
+        if (shorterString.length() <= 5)
+            return shorterString.equals(longerString);
+
+        // set similarity tolerance
+        int maxIdenticalCharacters = longerString.length() - longerString.length() / 4;
+
+        // trivial check on length
+        if (shorterString.length() < maxIdenticalCharacters)
+            return false;
+
+        // compare forward
+        int identicalCount = 0;
+        int i;
+        for (i = 0; i < shorterString.length(); i++) {
+            if (shorterString.charAt(i) == longerString.charAt(i))
+                identicalCount++;
+            if (identicalCount > maxIdenticalCharacters)
+                return true;
+        }
+
+        // compare backward
+        int j;
+        for (j = 0; j < shorterString.length() - i; j++) {
+            if (shorterString.charAt(shorterString.length() - j - 1) == longerString.charAt(longerString.length() - j - 1))
+                identicalCount++;
+            if (identicalCount > maxIdenticalCharacters)
+                return true;
+        }
+
+        return false;
+    }
+
+    private static final class AllowedAddresses {
+
+        private final List<String> source;
+        private final Set<String> addresses;
+
+        AllowedAddresses(List<String> source) {
+            this.source = source;
+            this.addresses = new HashSet<>(source);
+        }
+    }
+}
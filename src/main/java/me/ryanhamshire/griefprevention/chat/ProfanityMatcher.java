@@ -0,0 +1,203 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.chat;
+
+import it.unimi.dsi.fastutil.chars.Char2ObjectMap;
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.apache.commons.io.FilenameUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Banned words compiled for matching against chat messages.
+ *
+ * <p>A message contains profanity if any of its whitespace separated words
+ * matches a banned word, where {@code *} and {@code ?} are wildcards. Words
+ * without wildcards are found through a hash set. For the others, the longest
+ * literal part of each is added to an Aho-Corasick automaton, so a single pass
+ * over a word yields the few patterns worth a full wildcard match.</p>
+ *
+ * <p>Instances are immutable and safe to use from any thread.</p>
+ */
+public final class ProfanityMatcher {
+
+    public static final ProfanityMatcher EMPTY = compile(Collections.emptyList());
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Set<String> exact = new HashSet<>();
+    private final List<String> patterns = new ArrayList<>();
+    // patterns made only of wildcards
+    private final IntArrayList unanchored = new IntArrayList();
+    private final Node root = new Node();
+
+    private ProfanityMatcher(List<String> bannedWords) {
+        for (String banned : bannedWords) {
+            if (banned == null || banned.isEmpty()) {
+                continue;
+            }
+            final int[] literal = longestLiteral(banned);
+            if (literal == null) {
+                this.exact.add(banned);
+            } else if (literal[0] == literal[1]) {
+                this.unanchored.add(this.patterns.size());
+                this.patterns.add(banned);
+            } else {
+                this.root.add(banned, literal[0], literal[1], this.patterns.size());
+                this.patterns.add(banned);
+            }
+        }
+        this.root.link();
+    }
+
+    public static ProfanityMatcher compile(List<String> bannedWords) {
+        return new ProfanityMatcher(bannedWords);
+    }
+
+    public boolean containsProfanity(String message) {
+        for (String word : WHITESPACE.split(message)) {
+            if (this.matches(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean matches(String word) {
+        if (this.exact.contains(word)) {
+            return true;
+        }
+        Node node = this.root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.next(word.charAt(i));
+            for (Node output = node.terminal ? node : node.output; output != null; output = output.output) {
+                for (int j = 0; j < output.patterns.size(); j++) {
+                    if (FilenameUtils.wildcardMatch(word, this.patterns.get(output.patterns.getInt(j)))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < this.unanchored.size(); i++) {
+            if (FilenameUtils.wildcardMatch(word, this.patterns.get(this.unanchored.getInt(i)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return this.exact.size() + this.patterns.size();
+    }
+
+    // Returns the bounds of the longest run without wildcards, or null if there are no wildcards
+    private static int[] longestLiteral(String pattern) {
+        int bestStart = 0;
+        int bestEnd = 0;
+        int start = 0;
+        boolean wildcard = false;
+        for (int i = 0; i <= pattern.length(); i++) {
+            if (i == pattern.length() || pattern.charAt(i) == '*' || pattern.charAt(i) == '?') {
+                if (i - start > bestEnd - bestStart) {
+                    bestStart = start;
+                    bestEnd = i;
+                }
+                start = i + 1;
+                wildcard |= i < pattern.length();
+            }
+        }
+        return wildcard ? new int[] {bestStart, bestEnd} : null;
+    }
+
+    private static final class Node {
+
+        private final Char2ObjectMap<Node> children = new Char2ObjectOpenHashMap<>();
+        private final IntArrayList patterns = new IntArrayList(0);
+        private boolean terminal;
+        private Node fail;
+        // nearest terminal node along the fail links
+        private Node output;
+
+        void add(String pattern, int start, int end, int patternIndex) {
+            Node node = this;
+            for (int i = start; i < end; i++) {
+                final char c = pattern.charAt(i);
+                Node child = node.children.get(c);
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            node.terminal = true;
+            node.patterns.add(patternIndex);
+        }
+
+        // Builds the fail and output links breadth first, called on the root once every pattern is added
+        void link() {
+            final Queue<Node> queue = new ArrayDeque<>();
+            for (Node child : this.children.values()) {
+                child.fail = this;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                final Node node = queue.poll();
+                for (Char2ObjectMap.Entry<Node> entry : node.children.char2ObjectEntrySet()) {
+                    final Node child = entry.getValue();
+                    Node fail = node.fail;
+                    while (fail != null && !fail.children.containsKey(entry.getCharKey())) {
+                        fail = fail.fail;
+                    }
+                    child.fail = fail == null ? this : fail.children.get(entry.getCharKey());
+                    child.output = child.fail.terminal ? child.fail : child.fail.output;
+                    queue.add(child);
+                }
+            }
+        }
+
+        Node next(char c) {
+            Node node = this;
+            while (true) {
+                final Node child = node.children.get(c);
+                if (child != null) {
+                    return child;
+                }
+                if (node.fail == null) {
+                    // root
+                    return node;
+                }
+                node = node.fail;
+            }
+        }
+    }
+}
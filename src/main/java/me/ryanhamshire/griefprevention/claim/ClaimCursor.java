@@ -0,0 +1,141 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.claim;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.api.claim.Claim;
+import org.spongepowered.api.entity.Entity;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+/**
+ * Remembers the last claim found along with the area in which that lookup
+ * is known to still hold, so nearby lookups can skip the index.
+ *
+ * <p>For a claim the area is its boundaries, minus any child claims. For
+ * wilderness it is the chunk column, but only if no claim overlaps it.
+ * The area is discarded as soon as the spatial index of its world
+ * changes, which happens whenever a claim is created, resized or
+ * deleted.</p>
+ */
+public final class ClaimCursor {
+
+    private static final Cache<Entity, ClaimCursor> ENTITY_CURSORS = Caffeine.newBuilder().weakKeys().build();
+
+    private final GPClaimManager claimManager;
+    private final ClaimSpatialIndex spatialIndex;
+    private GPClaim claim;
+    private int modCount;
+    private int minX;
+    private int minY;
+    private int minZ;
+    private int maxX;
+    private int maxY;
+    private int maxZ;
+
+    ClaimCursor(GPClaimManager claimManager, ClaimSpatialIndex spatialIndex) {
+        this.claimManager = claimManager;
+        this.spatialIndex = spatialIndex;
+    }
+
+    static ClaimCursor forEntity(GPClaimManager claimManager, ClaimSpatialIndex spatialIndex, Entity entity) {
+        ClaimCursor cursor = ENTITY_CURSORS.getIfPresent(entity);
+        if (cursor == null || cursor.spatialIndex != spatialIndex) {
+            cursor = new ClaimCursor(claimManager, spatialIndex);
+            ENTITY_CURSORS.put(entity, cursor);
+        }
+        return cursor;
+    }
+
+    public GPClaim getClaimAt(Location<World> location) {
+        return this.getClaimAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public GPClaim getClaimAt(int x, int y, int z) {
+        if (this.contains(x, y, z)) {
+            return this.claim;
+        }
+
+        final GPClaim claim = this.claimManager.getClaimAt(x, y, z, null, false);
+        if (GriefPreventionPlugin.getActiveConfig(this.claimManager.getWorldProperties()).getConfig().claim.useSpatialIndex) {
+            this.moveTo(claim, x, z);
+        }
+        return claim;
+    }
+
+    private void moveTo(GPClaim claim, int x, int z) {
+        this.claim = null;
+        if (!claim.isWilderness()) {
+            this.setArea(claim.lesserBoundaryCorner.getBlockX(), claim.lesserBoundaryCorner.getBlockY(), claim.lesserBoundaryCorner.getBlockZ(),
+                    claim.greaterBoundaryCorner.getBlockX(), claim.greaterBoundaryCorner.getBlockY(), claim.greaterBoundaryCorner.getBlockZ());
+            // a child only applies where its parents do
+            GPClaim parent = claim.parent;
+            while (parent != null && !parent.isWilderness()) {
+                this.setArea(Math.max(this.minX, parent.lesserBoundaryCorner.getBlockX()), Math.max(this.minY, parent.lesserBoundaryCorner.getBlockY()),
+                        Math.max(this.minZ, parent.lesserBoundaryCorner.getBlockZ()), Math.min(this.maxX, parent.greaterBoundaryCorner.getBlockX()),
+                        Math.min(this.maxY, parent.greaterBoundaryCorner.getBlockY()), Math.min(this.maxZ, parent.greaterBoundaryCorner.getBlockZ()));
+                parent = parent.parent;
+            }
+        } else {
+            final int minX = x & ~15;
+            final int minZ = z & ~15;
+            if (this.spatialIndex.hasClaimsIn(minX, minZ, minX + 15, minZ + 15)) {
+                return;
+            }
+            this.setArea(minX, Integer.MIN_VALUE, minZ, minX + 15, Integer.MAX_VALUE, minZ + 15);
+        }
+        this.claim = claim;
+        this.modCount = this.spatialIndex.getModCount();
+    }
+
+    private void setArea(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    private boolean contains(int x, int y, int z) {
+        if (this.claim == null || this.spatialIndex.getModCount() != this.modCount) {
+            return false;
+        }
+        if (x < this.minX || x > this.maxX || y < this.minY || y > this.maxY || z < this.minZ || z > this.maxZ) {
+            return false;
+        }
+        if (this.claim.isWilderness()) {
+            return true;
+        }
+        for (Claim child : this.claim.children) {
+            if (ClaimSpatialIndex.containsBlock((GPClaim) child, x, y, z)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.claim;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import me.ryanhamshire.griefprevention.api.claim.Claim;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.api.Sponge;
+
+/**
+ * Remembers, for the current tick, which block positions have all of their
+ * neighbors in the same claim as the position itself.
+ *
+ * <p>Neighbor notifications almost always stay within one claim or within
+ * wilderness, in which case no neighbor needs a claim lookup. Results are
+ * dropped every tick and whenever the spatial index changes.</p>
+ */
+public final class ClaimNeighborMemo {
+
+    private static long skippedCount;
+    private static long evaluatedCount;
+
+    private final ClaimSpatialIndex spatialIndex;
+    // position -> claim whose neighborhood it was checked against
+    private final Long2ObjectOpenHashMap<GPClaim> contained = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<GPClaim> crossing = new Long2ObjectOpenHashMap<>();
+    private int tick = -1;
+    private int modCount;
+
+    ClaimNeighborMemo(ClaimSpatialIndex spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
+    /**
+     * Checks if the block and all six of its neighbors are in the claim.
+     *
+     * @param claim The claim at the block
+     * @param x The block x
+     * @param y The block y
+     * @param z The block z
+     * @return Whether no neighbor is in another claim
+     */
+    public boolean isNeighborhoodInClaim(GPClaim claim, int x, int y, int z) {
+        final int tick = Sponge.getServer().getRunningTimeTicks();
+        if (tick != this.tick || this.spatialIndex.getModCount() != this.modCount) {
+            this.contained.clear();
+            this.crossing.clear();
+            this.tick = tick;
+            this.modCount = this.spatialIndex.getModCount();
+        }
+
+        final long pos = BlockPos.toLong(x, y, z);
+        if (this.contained.get(pos) == claim) {
+            skippedCount++;
+            return true;
+        }
+        if (this.crossing.get(pos) == claim) {
+            evaluatedCount++;
+            return false;
+        }
+
+        final boolean result = this.containsNeighborhood(claim, x, y, z);
+        if (result) {
+            this.contained.put(pos, claim);
+            skippedCount++;
+        } else {
+            this.crossing.put(pos, claim);
+            evaluatedCount++;
+        }
+        return result;
+    }
+
+    private boolean containsNeighborhood(GPClaim claim, int x, int y, int z) {
+        if (claim.isWilderness()) {
+            return !this.spatialIndex.hasClaimsIn(x - 1, z - 1, x + 1, z + 1);
+        }
+
+        // the claim, and every parent it is nested in, must cover the neighbors
+        GPClaim current = claim;
+        while (current != null && !current.isWilderness()) {
+            if (!ClaimSpatialIndex.containsBlock(current, x - 1, y - 1, z - 1) || !ClaimSpatialIndex.containsBlock(current, x + 1, y + 1, z + 1)) {
+                return false;
+            }
+            current = current.parent;
+        }
+        for (Claim child : claim.children) {
+            final GPClaim childClaim = (GPClaim) child;
+            if (childClaim.lesserBoundaryCorner.getBlockX() <= x + 1 && childClaim.greaterBoundaryCorner.getBlockX() >= x - 1
+                    && childClaim.lesserBoundaryCorner.getBlockY() <= y + 1 && childClaim.greaterBoundaryCorner.getBlockY() >= y - 1
+                    && childClaim.lesserBoundaryCorner.getBlockZ() <= z + 1 && childClaim.greaterBoundaryCorner.getBlockZ() >= z - 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public static long getEvaluatedCount() {
+        return evaluatedCount;
+    }
+}
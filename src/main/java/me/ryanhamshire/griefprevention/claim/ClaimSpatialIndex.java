@@ -0,0 +1,356 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.claim;
+
+import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import me.ryanhamshire.griefprevention.GPPlayerData;
+import me.ryanhamshire.griefprevention.api.claim.TrustType;
+import net.minecraft.util.math.ChunkPos;
+import org.spongepowered.api.entity.living.player.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * A hierarchical grid of every claim in a world, including children.
+ *
+ * <p>Each level halves the resolution of the one below it, starting at
+ * chunk size. A claim is stored on the lowest level whose cell is at least
+ * as wide as the claim so it never occupies more than 2x2 cells. A point
+ * lookup therefore costs one hash lookup per populated level, regardless
+ * of how many claims share a chunk.</p>
+ */
+public class ClaimSpatialIndex {
+
+    private static final int BASE_SHIFT = 4;
+    // 2^26 blocks covers the full 60 million block world border
+    private static final int LEVELS = 23;
+
+    @SuppressWarnings("unchecked")
+    private final Long2ObjectOpenHashMap<List<GPClaim>>[] cells = new Long2ObjectOpenHashMap[LEVELS];
+    private final int[] levelCounts = new int[LEVELS];
+    private final Map<GPClaim, Entry> entries = Maps.newHashMap();
+    private int modCount;
+
+    public ClaimSpatialIndex() {
+        for (int i = 0; i < LEVELS; i++) {
+            this.cells[i] = new Long2ObjectOpenHashMap<>();
+        }
+    }
+
+    /**
+     * Inserts the claim or, if already indexed, moves it to match its
+     * current boundaries.
+     *
+     * @param claim The claim
+     */
+    public void update(GPClaim claim) {
+        this.remove(claim);
+        this.modCount++;
+        if (claim.isWilderness()) {
+            return;
+        }
+
+        final int minX = claim.lesserBoundaryCorner.getBlockX();
+        final int minZ = claim.lesserBoundaryCorner.getBlockZ();
+        final int maxX = claim.greaterBoundaryCorner.getBlockX();
+        final int maxZ = claim.greaterBoundaryCorner.getBlockZ();
+        final int level = getLevel(Math.max(maxX - minX, maxZ - minZ) + 1);
+        final int shift = BASE_SHIFT + level;
+        final Entry entry = new Entry(level, minX >> shift, minZ >> shift, maxX >> shift, maxZ >> shift);
+        final Long2ObjectOpenHashMap<List<GPClaim>> levelCells = this.cells[level];
+        for (int x = entry.minCellX; x <= entry.maxCellX; x++) {
+            for (int z = entry.minCellZ; z <= entry.maxCellZ; z++) {
+                final long key = ChunkPos.asLong(x, z);
+                List<GPClaim> claims = levelCells.get(key);
+                if (claims == null) {
+                    claims = new ArrayList<>(2);
+                    levelCells.put(key, claims);
+                }
+                claims.add(claim);
+            }
+        }
+
+        this.levelCounts[level]++;
+        this.entries.put(claim, entry);
+    }
+
+    public void remove(GPClaim claim) {
+        final Entry entry = this.entries.remove(claim);
+        if (entry == null) {
+            return;
+        }
+
+        this.modCount++;
+
+        final Long2ObjectOpenHashMap<List<GPClaim>> levelCells = this.cells[entry.level];
+        for (int x = entry.minCellX; x <= entry.maxCellX; x++) {
+            for (int z = entry.minCellZ; z <= entry.maxCellZ; z++) {
+                final long key = ChunkPos.asLong(x, z);
+                final List<GPClaim> claims = levelCells.get(key);
+                if (claims != null) {
+                    claims.remove(claim);
+                    if (claims.isEmpty()) {
+                        levelCells.remove(key);
+                    }
+                }
+            }
+        }
+
+        this.levelCounts[entry.level]--;
+    }
+
+    public void clear() {
+        for (int i = 0; i < LEVELS; i++) {
+            this.cells[i].clear();
+            this.levelCounts[i] = 0;
+        }
+        this.entries.clear();
+        this.modCount++;
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets a counter that changes whenever a claim is added, moved or
+     * removed.
+     *
+     * @return The modification count
+     */
+    public int getModCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Checks if any claim overlaps the block column area.
+     *
+     * @param minX The lesser block x
+     * @param minZ The lesser block z
+     * @param maxX The greater block x
+     * @param maxZ The greater block z
+     * @return Whether a claim overlaps the area
+     */
+    public boolean hasClaimsIn(int minX, int minZ, int maxX, int maxZ) {
+        for (int level = 0; level < LEVELS; level++) {
+            if (this.levelCounts[level] == 0) {
+                continue;
+            }
+
+            final int shift = BASE_SHIFT + level;
+            final Long2ObjectOpenHashMap<List<GPClaim>> levelCells = this.cells[level];
+            for (int cellX = minX >> shift; cellX <= maxX >> shift; cellX++) {
+                for (int cellZ = minZ >> shift; cellZ <= maxZ >> shift; cellZ++) {
+                    final List<GPClaim> claims = levelCells.get(ChunkPos.asLong(cellX, cellZ));
+                    if (claims == null) {
+                        continue;
+                    }
+
+                    for (int i = 0; i < claims.size(); i++) {
+                        final GPClaim claim = claims.get(i);
+                        if (claim.lesserBoundaryCorner.getBlockX() <= maxX && claim.greaterBoundaryCorner.getBlockX() >= minX
+                                && claim.lesserBoundaryCorner.getBlockZ() <= maxZ && claim.greaterBoundaryCorner.getBlockZ() >= minZ) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets every claim, including children, that overlaps the block area.
+     *
+     * @param minX The lesser block x
+     * @param minY The lesser block y
+     * @param minZ The lesser block z
+     * @param maxX The greater block x
+     * @param maxY The greater block y
+     * @param maxZ The greater block z
+     * @return The overlapping claims
+     */
+    public List<GPClaim> getIntersectingClaims(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        final Set<GPClaim> found = new ReferenceOpenHashSet<>();
+        for (int level = 0; level < LEVELS; level++) {
+            if (this.levelCounts[level] == 0) {
+                continue;
+            }
+
+            final int shift = BASE_SHIFT + level;
+            final Long2ObjectOpenHashMap<List<GPClaim>> levelCells = this.cells[level];
+            for (int cellX = minX >> shift; cellX <= maxX >> shift; cellX++) {
+                for (int cellZ = minZ >> shift; cellZ <= maxZ >> shift; cellZ++) {
+                    final List<GPClaim> claims = levelCells.get(ChunkPos.asLong(cellX, cellZ));
+                    if (claims == null) {
+                        continue;
+                    }
+
+                    for (int i = 0; i < claims.size(); i++) {
+                        final GPClaim claim = claims.get(i);
+                        if (claim.lesserBoundaryCorner.getBlockX() <= maxX && claim.greaterBoundaryCorner.getBlockX() >= minX
+                                && claim.lesserBoundaryCorner.getBlockZ() <= maxZ && claim.greaterBoundaryCorner.getBlockZ() >= minZ
+                                && claim.lesserBoundaryCorner.getBlockY() <= maxY && claim.greaterBoundaryCorner.getBlockY() >= minY) {
+                            found.add(claim);
+                        }
+                    }
+                }
+            }
+        }
+
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Gets the deepest claim containing the block position.
+     *
+     * <p>A child only matches if every one of its parents also contains the
+     * position, which mirrors walking down from the top level claim.</p>
+     *
+     * @param x The block x
+     * @param y The block y
+     * @param z The block z
+     * @return The deepest claim, or null if the position is in wilderness
+     */
+    public GPClaim getDeepestClaimAt(int x, int y, int z) {
+        return this.getDeepestClaimAt(x, y, z, 0, null);
+    }
+
+    /**
+     * Gets the deepest claim containing the block position, treating each
+     * claim the player is not builder trusted in as extended by the border
+     * radius.
+     *
+     * <p>No objects are allocated unless the position falls inside a border
+     * band, where a trust check is required.</p>
+     *
+     * @param x The block x
+     * @param y The block y
+     * @param z The block z
+     * @param borderBlockRadius The border radius, 0 for none
+     * @param playerData The player to check border trust for, may be null
+     * @return The deepest claim, or null if the position is in wilderness
+     */
+    public GPClaim getDeepestClaimAt(int x, int y, int z, int borderBlockRadius, @Nullable GPPlayerData playerData) {
+        if (playerData == null) {
+            borderBlockRadius = 0;
+        }
+
+        GPClaim deepest = null;
+        int deepestLevel = -1;
+        for (int level = 0; level < LEVELS; level++) {
+            if (this.levelCounts[level] == 0) {
+                continue;
+            }
+
+            final int shift = BASE_SHIFT + level;
+            final Long2ObjectOpenHashMap<List<GPClaim>> levelCells = this.cells[level];
+            final int maxCellX = (x + borderBlockRadius) >> shift;
+            final int maxCellZ = (z + borderBlockRadius) >> shift;
+            for (int cellX = (x - borderBlockRadius) >> shift; cellX <= maxCellX; cellX++) {
+                for (int cellZ = (z - borderBlockRadius) >> shift; cellZ <= maxCellZ; cellZ++) {
+                    final List<GPClaim> claims = levelCells.get(ChunkPos.asLong(cellX, cellZ));
+                    if (claims == null) {
+                        continue;
+                    }
+
+                    for (int i = 0; i < claims.size(); i++) {
+                        final GPClaim claim = claims.get(i);
+                        if (!containsBlock(claim, x, y, z)) {
+                            if (borderBlockRadius == 0 || !containsBlock(claim, x, y, z, borderBlockRadius)
+                                    || claim.isUserTrusted((User) playerData.getPlayerSubject(), TrustType.BUILDER)) {
+                                continue;
+                            }
+                        }
+
+                        final int depth = getDepthIfParentsContain(claim, x, y, z);
+                        if (depth > deepestLevel) {
+                            deepest = claim;
+                            deepestLevel = depth;
+                        }
+                    }
+                }
+            }
+        }
+
+        return deepest;
+    }
+
+    static int getDepthIfParentsContain(GPClaim claim, int x, int y, int z) {
+        int depth = 0;
+        GPClaim parent = claim.parent;
+        while (parent != null && !parent.isWilderness()) {
+            if (!containsBlock(parent, x, y, z)) {
+                return -1;
+            }
+            depth++;
+            parent = parent.parent;
+        }
+        return depth;
+    }
+
+    static boolean containsBlock(GPClaim claim, int x, int y, int z) {
+        return containsBlock(claim, x, y, z, 0);
+    }
+
+    static boolean containsBlock(GPClaim claim, int x, int y, int z, int radius) {
+        return x >= claim.lesserBoundaryCorner.getBlockX() - radius && x <= claim.greaterBoundaryCorner.getBlockX() + radius
+                && z >= claim.lesserBoundaryCorner.getBlockZ() - radius && z <= claim.greaterBoundaryCorner.getBlockZ() + radius
+                && y >= claim.lesserBoundaryCorner.getBlockY() - radius && y <= claim.greaterBoundaryCorner.getBlockY() + radius;
+    }
+
+    private static int getLevel(int size) {
+        int level = 0;
+        while (level < LEVELS - 1 && (1 << (BASE_SHIFT + level)) < size) {
+            level++;
+        }
+        return level;
+    }
+
+    private static final class Entry {
+
+        final int level;
+        final int minCellX;
+        final int minCellZ;
+        final int maxCellX;
+        final int maxCellZ;
+
+        Entry(int level, int minCellX, int minCellZ, int maxCellX, int maxCellZ) {
+            this.level = level;
+            this.minCellX = minCellX;
+            this.minCellZ = minCellZ;
+            this.maxCellX = maxCellX;
+            this.maxCellZ = maxCellZ;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.claim;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resolves the claims of every location affected by an explosion.
+ *
+ * <p>The claims overlapping the explosion's bounding box are collected
+ * from the spatial index once. If there are none, every location is
+ * wilderness and no per location lookup is needed. A handful of claims is
+ * scanned directly, larger sets fall back to a {@link ClaimCursor}.</p>
+ */
+public final class ExplosionClaimFilter {
+
+    // above this, the spatial index is faster than a linear scan
+    private static final int MAX_SCAN_CLAIMS = 16;
+
+    private final GPClaimManager claimManager;
+    private final List<GPClaim> claims;
+    private final ClaimCursor cursor;
+
+    private ExplosionClaimFilter(GPClaimManager claimManager, List<GPClaim> claims) {
+        this.claimManager = claimManager;
+        this.claims = claims;
+        this.cursor = claimManager.createCursor();
+    }
+
+    public static ExplosionClaimFilter create(GPClaimManager claimManager, Collection<Location<World>> locations) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (Location<World> location : locations) {
+            final Vector3i pos = location.getBlockPosition();
+            minX = Math.min(minX, pos.getX());
+            minY = Math.min(minY, pos.getY());
+            minZ = Math.min(minZ, pos.getZ());
+            maxX = Math.max(maxX, pos.getX());
+            maxY = Math.max(maxY, pos.getY());
+            maxZ = Math.max(maxZ, pos.getZ());
+        }
+        if (minX > maxX) {
+            return new ExplosionClaimFilter(claimManager, Collections.emptyList());
+        }
+        return new ExplosionClaimFilter(claimManager, claimManager.getIntersectingClaims(minX, minY, minZ, maxX, maxY, maxZ));
+    }
+
+    public GPClaim getClaimAt(Location<World> location) {
+        if (this.claims.isEmpty()) {
+            return this.claimManager.getWildernessClaim();
+        }
+        if (this.claims.size() > MAX_SCAN_CLAIMS) {
+            return this.cursor.getClaimAt(location);
+        }
+
+        final int x = location.getBlockX();
+        final int y = location.getBlockY();
+        final int z = location.getBlockZ();
+        GPClaim deepest = null;
+        int deepestLevel = -1;
+        for (int i = 0; i < this.claims.size(); i++) {
+            final GPClaim claim = this.claims.get(i);
+            if (!ClaimSpatialIndex.containsBlock(claim, x, y, z)) {
+                continue;
+            }
+            final int depth = ClaimSpatialIndex.getDepthIfParentsContain(claim, x, y, z);
+            if (depth > deepestLevel) {
+                deepest = claim;
+                deepestLevel = depth;
+            }
+        }
+        return deepest != null ? deepest : this.claimManager.getWildernessClaim();
+    }
+}
@@ -50,11 +50,11 @@
 import me.ryanhamshire.griefprevention.command.CommandHelper;
 import me.ryanhamshire.griefprevention.configuration.ClaimDataConfig;
 import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
+import me.ryanhamshire.griefprevention.configuration.DatabaseClaimStorageData;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
 import me.ryanhamshire.griefprevention.configuration.IClaimData;
 import me.ryanhamshire.griefprevention.configuration.MessageStorage;
 import me.ryanhamshire.griefprevention.configuration.TownDataConfig;
-import me.ryanhamshire.griefprevention.configuration.TownStorageData;
 import me.ryanhamshire.griefprevention.event.GPChangeClaimEvent;
 import me.ryanhamshire.griefprevention.event.GPCreateClaimEvent;
 import me.ryanhamshire.griefprevention.event.GPDeleteClaimEvent;
@@ -71,6 +71,7 @@
 import me.ryanhamshire.griefprevention.visual.Visualization;
 import me.ryanhamshire.griefprevention.visual.VisualizationType;
 import net.minecraft.util.math.ChunkPos;
+import ninja.leaping.configurate.objectmapping.ObjectMappingException;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.block.BlockSnapshot;
 import org.spongepowered.api.block.BlockState;
@@ -95,11 +96,9 @@
 import org.spongepowered.api.world.World;
 import org.spongepowered.common.SpongeImpl;
 
-import java.io.File;
-import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -246,27 +245,9 @@ public GPClaim(Location<World> lesserBoundaryCorner, Location<World> greaterBoun
     }
 
     public void initializeClaimData(GPClaim parent) {
-        Path claimDataFolderPath = null;
-        // check if main world
-        if (parent != null) {
-            claimDataFolderPath = parent.getClaimStorage().filePath.getParent().resolve(this.type.name().toLowerCase());
-        } else {
-            claimDataFolderPath = DataStore.worldConfigMap.get(this.world.getUniqueId()).getPath().getParent().resolve("ClaimData").resolve(this.type.name().toLowerCase());
-        }
-        try {
-            if (Files.notExists(claimDataFolderPath)) {
-                Files.createDirectories(claimDataFolderPath);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        File claimFile = new File(claimDataFolderPath + File.separator + this.id);
-        if (this.isTown()) {
-            this.claimStorage = new TownStorageData(claimFile.toPath(), this.world.getUniqueId(), this.ownerUniqueId, this.cuboid);
-        } else {
-            this.claimStorage = new ClaimStorageData(claimFile.toPath(), this.world.getUniqueId(), this.ownerUniqueId, this.type, this.cuboid);
-        }
+        this.claimStorage = DATASTORE.createClaimStorage(this, parent);
         this.claimData = this.claimStorage.getConfig();
+        this.bindClaimData();
         this.parent = parent;
 
         this.updateClaimStorageData();
@@ -296,6 +277,20 @@ public GPPlayerData getOwnerPlayerData() {
         return this.ownerPlayerData;
     }
 
+    // loads the owner's storage if needed, CleanupUnusedClaimsTask loads it off the main thread first
+    @Override
+    public Instant getLastActive() {
+        final Instant lastActive = this.getInternalClaimData().getDateLastActive();
+        // subdivisions are kept active by the owner of their parent
+        final GPClaim ownerClaim = this.parent != null ? this.parent : this;
+        if (ownerClaim.isAdminClaim() || ownerClaim.isWilderness()) {
+            return lastActive;
+        }
+        final GPPlayerData ownerData = ownerClaim.getOwnerPlayerData();
+        final Instant lastSeen = ownerData == null ? null : ownerData.getLastSeen();
+        return lastSeen != null && lastSeen.isAfter(lastActive) ? lastSeen : lastActive;
+    }
+
     public UUID getOwnerUniqueId() {
         if (this.isAdminClaim()) {
             return GriefPreventionPlugin.ADMIN_USER_UUID;
@@ -313,6 +308,9 @@ public UUID getOwnerUniqueId() {
 
     public void setOwnerUniqueId(UUID uniqueId) {
         this.ownerUniqueId = uniqueId;
+        if (this.worldClaimManager != null) {
+            this.worldClaimManager.updateOwnerIndex(this);
+        }
     }
 
     public boolean isAdminClaim() {
@@ -859,6 +857,15 @@ public ClaimStorageData getClaimStorage() {
 
     public void setClaimData(IClaimData data) {
         this.claimData = data;
+        this.bindClaimData();
+    }
+
+    // Keeps the name index in sync with the bound data
+    private void bindClaimData() {
+        if (this.claimData instanceof ClaimDataConfig) {
+            ((ClaimDataConfig) this.claimData).setNameChangeListener(() -> GPClaimIndex.updateName(this));
+        }
+        GPClaimIndex.updateName(this);
     }
 
     public void setClaimStorage(ClaimStorageData storage) {
@@ -993,7 +1000,9 @@ public ClaimResult transferOwner(UUID newOwnerID) {
             this.claimData.setType(ClaimType.BASIC);
         }
 
-        this.ownerUniqueId = event.getNewOwner();
+        // keep the activity of the previous owner
+        this.claimData.setDateLastActive(this.getLastActive());
+        this.setOwnerUniqueId(event.getNewOwner());
         if (!this.getOwnerUniqueId().equals(newOwnerID)) {
             newOwnerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(this.world, this.getOwnerUniqueId());
         }
@@ -1391,6 +1400,7 @@ public ClaimResult resizeInternal(int smallX, int smallY, int smallZ, int bigX,
                 claimsInChunk.add(this);
             }
         }
+        claimWorldManager.updateSpatialIndex(this);
 
         this.claimData.setLesserBoundaryCorner(BlockUtils.positionToString(this.lesserBoundaryCorner));
         this.claimData.setGreaterBoundaryCorner(BlockUtils.positionToString(this.greaterBoundaryCorner));
@@ -1543,6 +1553,7 @@ public ClaimResult resizeCuboid(int smallX, int smallY, int smallZ, int bigX, in
                 claimsInChunk.add(this);
             }
         }
+        claimWorldManager.updateSpatialIndex(this);
 
         this.claimData.setLesserBoundaryCorner(BlockUtils.positionToString(this.lesserBoundaryCorner));
         this.claimData.setGreaterBoundaryCorner(BlockUtils.positionToString(this.greaterBoundaryCorner));
@@ -1956,23 +1967,34 @@ public ClaimResult changeType(ClaimType type, Optional<UUID> ownerUniqueId, Comm
             newOwnerUUID = GriefPreventionPlugin.ADMIN_USER_UUID;
         }
 
-        final String fileName = this.getClaimStorage().filePath.getFileName().toString();
-        final Path newPath = this.getClaimStorage().folderPath.getParent().resolve(type.name().toLowerCase()).resolve(fileName);
-        try {
-            if (Files.notExists(newPath.getParent())) {
-                Files.createDirectories(newPath.getParent());
-            }
-            Files.move(this.getClaimStorage().filePath, newPath);
+        if (this.getClaimStorage() instanceof DatabaseClaimStorageData) {
+            // Database rows are not organized by type so only the data binding needs to change
             if (type == ClaimType.TOWN) {
-                this.setClaimStorage(new TownStorageData(newPath, this.getWorldUniqueId(), newOwnerUUID, this.cuboid));
+                try {
+                    this.setClaimStorage(((DatabaseClaimStorageData) this.getClaimStorage()).rebind(this.getWorldUniqueId(), type));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    return new GPClaimResult(ClaimResultType.CLAIM_NOT_FOUND, Text.of(e.getMessage()));
+                }
             } else {
-                this.setClaimStorage(new ClaimStorageData(newPath, this.getWorldUniqueId(), (ClaimDataConfig) this.getInternalClaimData()));
+                this.setClaimStorage(new DatabaseClaimStorageData(this.id, this.getWorldUniqueId(), (ClaimDataConfig) this.getInternalClaimData()));
             }
             this.claimData = this.claimStorage.getConfig();
+            this.bindClaimData();
             this.getClaimStorage().save();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new GPClaimResult(ClaimResultType.CLAIM_NOT_FOUND, Text.of(e.getMessage()));
+        } else {
+            try {
+                final String fileName = this.getClaimStorage().filePath.getFileName().toString();
+                final Path newPath = this.getClaimStorage().folderPath.getParent().resolve(type.name().toLowerCase()).resolve(fileName);
+                // the file is moved through the persistence queue after any queued write
+                this.setClaimStorage(this.getClaimStorage().moveTo(newPath, this.getWorldUniqueId(), type));
+                this.claimData = this.claimStorage.getConfig();
+                this.bindClaimData();
+                this.getClaimStorage().save();
+            } catch (ObjectMappingException e) {
+                e.printStackTrace();
+                return new GPClaimResult(ClaimResultType.CLAIM_NOT_FOUND, Text.of(e.getMessage()));
+            }
         }
 
         // If switched to admin or new owner, remove from player claim list
@@ -2125,10 +2147,23 @@ public boolean isUserTrusted(User user, TrustType type, Set<Context> contexts) {
         }
 
         final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(world, user.getUniqueId());
-        if (!playerData.canIgnoreClaim(this) && this.getInternalClaimData() != null && this.getInternalClaimData().isExpired()) {
+        return this.isUserTrusted(user, playerData, type, contexts);
+    }
+
+    // Player data may be null if it is not loaded, in which case only the owner and trusts are checked
+    public boolean isUserTrusted(User user, @Nullable GPPlayerData playerData, TrustType type, Set<Context> contexts) {
+        if (user == null) {
+            return false;
+        }
+
+        if ((playerData == null || !playerData.canIgnoreClaim(this)) && this.getInternalClaimData() != null && this.getInternalClaimData().isExpired()) {
             return false;
         }
-        if (!playerData.executingClaimDebug && !playerData.debugClaimPermissions) {
+        if (playerData == null) {
+            if (user.getUniqueId().equals(this.getOwnerUniqueId())) {
+                return true;
+            }
+        } else if (!playerData.executingClaimDebug && !playerData.debugClaimPermissions) {
             if (user.getUniqueId().equals(this.getOwnerUniqueId())) {
                 return true;
             }
@@ -2150,40 +2185,8 @@ public boolean isUserTrusted(User user, TrustType type, Set<Context> contexts) {
             return true;
         }
 
-        if (type == TrustType.ACCESSOR) {
-            if (this.claimData.getAccessors().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getContainers().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
-                return true;
-            }
-        } else if (type == TrustType.BUILDER) {
-            if (this.claimData.getBuilders().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
-                return true;
-            }
-        } else if (type == TrustType.CONTAINER) {
-            if (this.claimData.getContainers().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
-                return true;
-            }
-        } else if (type == TrustType.MANAGER) {
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
-                return true;
-            }
+        if (this.claimData.hasUserTrust(user.getUniqueId(), type)) {
+            return true;
         }
 
         if (contexts == null) {
@@ -2197,50 +2200,14 @@ public boolean isUserTrusted(User user, TrustType type, Set<Context> contexts) {
 
         // Only check parent if this claim inherits
         if (this.parent != null && this.getData().doesInheritParent()) {
-            return this.parent.isUserTrusted(user, type, contexts);
+            return this.parent.isUserTrusted(user, playerData, type, contexts);
         }
 
         return false;
     }
 
     private boolean isPublicTrusted(TrustType type) {
-        if (type == TrustType.ACCESSOR) {
-            if (this.claimData.getAccessors().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getContainers().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-        } else if (type == TrustType.BUILDER) {
-            if (this.claimData.getBuilders().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-        } else if (type == TrustType.CONTAINER) {
-            if (this.claimData.getContainers().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-        } else if (type == TrustType.MANAGER) {
-            if (this.claimData.getManagers().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-                return true;
-            }
-        }
-
-        return false;
+        return this.claimData.hasUserTrust(GriefPreventionPlugin.PUBLIC_UUID, type);
     }
 
     @Override
@@ -2249,11 +2216,11 @@ public boolean isGroupTrusted(String group, TrustType type) {
             return false;
         }
 
-        if (!PermissionUtils.hasGroupSubject(group)) {
+        // never waits on the main thread, group trusts are prefetched when the claim loads
+        final Subject subj = PermissionUtils.loadGroupSubject(group);
+        if (subj == null) {
             return false;
         }
-
-        final Subject subj = PermissionUtils.getGroupSubject(group);
         Set<Context> contexts = new HashSet<>();
         contexts.add(this.getContext());
 
@@ -2268,11 +2235,7 @@ public ClaimResult addUserTrust(UUID uuid, TrustType type) {
             return new GPClaimResult(ClaimResultType.CLAIM_EVENT_CANCELLED, event.getMessage().orElse(null));
         }
 
-        List<UUID> userList = this.getUserTrustList(type);
-        if (!userList.contains(uuid)) {
-            userList.add(uuid);
-        }
-
+        this.claimData.addUserTrust(uuid, type);
         this.claimData.setRequiresSave(true);
         this.claimData.save();
         return new GPClaimResult(this, ClaimResultType.SUCCESS);
@@ -2287,10 +2250,7 @@ public ClaimResult addUserTrusts(List<UUID> uuids, TrustType type) {
         }
 
         for (UUID uuid : uuids) {
-            List<UUID> userList = this.getUserTrustList(type);
-            if (!userList.contains(uuid)) {
-                userList.add(uuid);
-            }
+            this.claimData.addUserTrust(uuid, type);
         }
 
         this.claimData.setRequiresSave(true);
@@ -2313,7 +2273,7 @@ public ClaimResult removeUserTrust(UUID uuid, TrustType type) {
             return result;
         }
 
-        this.getUserTrustList(type).remove(uuid);
+        this.claimData.removeUserTrust(uuid, type);
         this.claimData.setRequiresSave(true);
         this.claimData.save();
         return new GPClaimResult(this, ClaimResultType.SUCCESS);
@@ -2337,11 +2297,8 @@ public ClaimResult removeUserTrusts(List<UUID> uuids, TrustType type) {
             return new GPClaimResult(this, ClaimResultType.SUCCESS);
         }
 
-        List<UUID> userList = this.getUserTrustList(type);
         for (UUID uuid : uuids) {
-            if (userList.contains(uuid)) {
-                userList.remove(uuid);
-            }
+            this.claimData.removeUserTrust(uuid, type);
         }
 
         this.claimData.setRequiresSave(true);
@@ -2361,6 +2318,7 @@ public ClaimResult addGroupTrust(String group, TrustType type) {
         if (!groupList.contains(group)) {
             groupList.add(group);
         }
+        PermissionUtils.prefetchGroupSubject(group);
 
         this.claimData.setRequiresSave(true);
         this.claimData.save();
@@ -2380,6 +2338,7 @@ public ClaimResult addGroupTrusts(List<String> groups, TrustType type) {
             if (!groupList.contains(group)) {
                 groupList.add(group);
             }
+            PermissionUtils.prefetchGroupSubject(group);
         }
 
         this.claimData.setRequiresSave(true);
@@ -2454,10 +2413,7 @@ public ClaimResult removeAllTrusts() {
             return new GPClaimResult(ClaimResultType.CLAIM_EVENT_CANCELLED, event.getMessage().orElse(null));
         }
 
-        for (TrustType type : TrustType.values()) {
-            this.getUserTrustList(type).clear();
-        }
-
+        this.claimData.clearUserTrusts();
         for (TrustType type : TrustType.values()) {
             this.getGroupTrustList(type).clear();
         }
@@ -2476,10 +2432,7 @@ public ClaimResult removeAllUserTrusts() {
             return new GPClaimResult(ClaimResultType.CLAIM_EVENT_CANCELLED, event.getMessage().orElse(null));
         }
 
-        for (TrustType type : TrustType.values()) {
-            this.getUserTrustList(type).clear();
-        }
-
+        this.claimData.clearUserTrusts();
         this.claimData.setRequiresSave(true);
         this.claimData.save();
         return new GPClaimResult(this, ClaimResultType.SUCCESS);
@@ -2504,10 +2457,7 @@ public ClaimResult removeAllGroupTrusts() {
     }
 
     public ClaimResult removeAllTrustsFromUser(UUID userUniqueId) {
-        for (TrustType type : TrustType.values()) {
-            this.getUserTrustList(type).remove(userUniqueId);
-        }
-
+        this.claimData.removeUserTrust(userUniqueId, TrustType.NONE);
         return new GPClaimResult(this, ClaimResultType.SUCCESS);
     }
 
@@ -2581,6 +2531,18 @@ public List<String> getGroupTrustList(TrustType type) {
         return this.getGroupTrustList(type, false);
     }
 
+    // Starts resolving the trusted groups so trust checks on the main thread find them loaded
+    public void prefetchGroupTrusts() {
+        for (TrustType type : TrustType.values()) {
+            if (type == TrustType.NONE) {
+                continue;
+            }
+            for (String group : this.getGroupTrustList(type)) {
+                PermissionUtils.prefetchGroupSubject(group);
+            }
+        }
+    }
+
     public List<String> getGroupTrustList(TrustType type, boolean includeParents) {
         List<String> trustList = new ArrayList<>();
         if (type == TrustType.ACCESSOR) {
@@ -2631,7 +2593,7 @@ public Optional<Account> getEconomyAccount() {
         }
         EconomyService economyService = GriefPreventionPlugin.instance.economyService.orElse(null);
         if (economyService != null) {
-            this.economyAccount = economyService.getOrCreateAccount(this.claimStorage.filePath.getFileName().toString()).orElse(null);
+            this.economyAccount = economyService.getOrCreateAccount(this.id.toString()).orElse(null);
             return Optional.ofNullable(this.economyAccount);
         }
         return Optional.empty();
@@ -2982,19 +2944,16 @@ private void moveChildToParent(GPClaim parentClaim, GPClaim childClaim) {
             childClaim.parent.children.remove(childClaim);
         }
         childClaim.parent = parentClaim;
-        String fileName = childClaim.getClaimStorage().filePath.getFileName().toString();
-        Path newPath = parentClaim.getClaimStorage().folderPath.resolve(childClaim.getType().name().toLowerCase()).resolve(fileName);
-        try {
-            if (Files.notExists(newPath.getParent())) {
-                Files.createDirectories(newPath.getParent());
-            }
-            Files.move(childClaim.getClaimStorage().filePath, newPath);
-            if (childClaim.getClaimStorage().folderPath.toFile().listFiles().length == 0) {
-                Files.delete(childClaim.getClaimStorage().folderPath);
-            }
-            childClaim.setClaimStorage(new ClaimStorageData(newPath, this.getWorldUniqueId(), (ClaimDataConfig) childClaim.getInternalClaimData()));
-        } catch (IOException e) {
-            e.printStackTrace();
+        // Database rows are not organized by parent so only the parent reference needs to change
+        if (!(childClaim.getClaimStorage() instanceof DatabaseClaimStorageData)) {
+            String fileName = childClaim.getClaimStorage().filePath.getFileName().toString();
+            Path newPath = parentClaim.getClaimStorage().folderPath.resolve(childClaim.getType().name().toLowerCase()).resolve(fileName);
+            try {
+                // the file is moved through the persistence queue after any queued write
+                childClaim.setClaimStorage(childClaim.getClaimStorage().moveTo(newPath, this.getWorldUniqueId(), childClaim.getType()));
+            } catch (ObjectMappingException e) {
+                e.printStackTrace();
+            }
         }
 
         // Make sure to update new parent in storage
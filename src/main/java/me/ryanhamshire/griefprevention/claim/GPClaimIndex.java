@@ -0,0 +1,186 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.claim;
+
+import me.ryanhamshire.griefprevention.api.claim.Claim;
+import org.spongepowered.api.text.Text;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+/**
+ * Claims of every world by unique id and by name.
+ *
+ * <p>Kept in sync by {@link GPClaimManager} as claims are added, removed and
+ * unloaded, and by {@link GPClaim} when a claim's name changes. Names are
+ * matched case-insensitively after Unicode normalization and whitespace
+ * collapsing, and are kept sorted for prefix queries. Safe to read from any
+ * thread.</p>
+ */
+public final class GPClaimIndex {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Map<UUID, GPClaim> CLAIMS = new ConcurrentHashMap<>();
+    private static final ConcurrentSkipListMap<String, Set<GPClaim>> NAMES = new ConcurrentSkipListMap<>();
+    // Claim id -> normalized name it is indexed under
+    private static final Map<UUID, String> INDEXED_NAMES = new ConcurrentHashMap<>();
+
+    private GPClaimIndex() {
+    }
+
+    static void add(GPClaim claim) {
+        CLAIMS.put(claim.getUniqueId(), claim);
+        updateName(claim);
+    }
+
+    static void remove(GPClaim claim) {
+        // a claim may have been replaced by another instance with the same id
+        if (CLAIMS.remove(claim.getUniqueId(), claim)) {
+            removeName(claim);
+        }
+    }
+
+    /**
+     * Re-indexes a claim under its current name.
+     *
+     * @param claim The claim
+     */
+    public static void updateName(GPClaim claim) {
+        if (CLAIMS.get(claim.getUniqueId()) != claim) {
+            return;
+        }
+        final String name = normalize(claim.getName().map(Text::toPlain).orElse(null));
+        final String indexedName = INDEXED_NAMES.get(claim.getUniqueId());
+        if (name == null ? indexedName == null : name.equals(indexedName)) {
+            return;
+        }
+        removeName(claim);
+        if (name != null) {
+            NAMES.computeIfAbsent(name, key -> ConcurrentHashMap.newKeySet()).add(claim);
+            INDEXED_NAMES.put(claim.getUniqueId(), name);
+        }
+    }
+
+    private static void removeName(GPClaim claim) {
+        final String indexedName = INDEXED_NAMES.remove(claim.getUniqueId());
+        if (indexedName != null) {
+            NAMES.computeIfPresent(indexedName, (key, claims) -> {
+                claims.remove(claim);
+                return claims.isEmpty() ? null : claims;
+            });
+        }
+    }
+
+    public static Optional<Claim> getClaim(UUID claimUniqueId) {
+        return Optional.ofNullable(CLAIMS.get(claimUniqueId));
+    }
+
+    /**
+     * Gets the top level claims with a name.
+     *
+     * @param name The claim name
+     * @param worldUniqueId The world to search, or null for every world
+     * @return The matching claims
+     */
+    public static List<Claim> getClaimsByName(String name, @Nullable UUID worldUniqueId) {
+        final String key = normalize(name);
+        final List<Claim> claimList = new ArrayList<>();
+        if (key == null) {
+            return claimList;
+        }
+        final Set<GPClaim> claims = NAMES.get(key);
+        if (claims != null) {
+            for (GPClaim claim : claims) {
+                if (isMatch(claim, worldUniqueId)) {
+                    claimList.add(claim);
+                }
+            }
+        }
+        return claimList;
+    }
+
+    /**
+     * Gets the names of top level claims starting with a prefix, sorted.
+     *
+     * @param prefix The name prefix
+     * @param worldUniqueId The world to search, or null for every world
+     * @param limit The maximum number of names to return
+     * @return The claim names as they were set
+     */
+    public static List<String> getNamesStartingWith(String prefix, @Nullable UUID worldUniqueId, int limit) {
+        final String key = prefix.isEmpty() ? "" : normalize(prefix);
+        final List<String> names = new ArrayList<>();
+        if (key == null) {
+            return names;
+        }
+        final NavigableMap<String, Set<GPClaim>> matches = key.isEmpty() ? NAMES : NAMES.subMap(key, true, key + Character.MAX_VALUE, false);
+        for (Set<GPClaim> claims : matches.values()) {
+            if (names.size() >= limit) {
+                break;
+            }
+            for (GPClaim claim : claims) {
+                final Text name = claim.getName().orElse(null);
+                if (name != null && isMatch(claim, worldUniqueId)) {
+                    names.add(name.toPlain());
+                    break;
+                }
+            }
+        }
+        return names;
+    }
+
+    private static boolean isMatch(GPClaim claim, @Nullable UUID worldUniqueId) {
+        if (claim.parent != null || claim.isWilderness()) {
+            return false;
+        }
+        return worldUniqueId == null || claim.getWorld().getUniqueId().equals(worldUniqueId);
+    }
+
+    public static int size() {
+        return CLAIMS.size();
+    }
+
+    @Nullable
+    static String normalize(@Nullable String name) {
+        if (name == null) {
+            return null;
+        }
+        final String normalized = WHITESPACE.matcher(Normalizer.normalize(name, Normalizer.Form.NFKC)).replaceAll(" ").trim();
+        return normalized.isEmpty() ? null : normalized.toLowerCase(Locale.ROOT);
+    }
+}
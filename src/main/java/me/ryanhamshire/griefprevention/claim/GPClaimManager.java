@@ -28,9 +28,12 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import me.ryanhamshire.griefprevention.DataStore;
 import me.ryanhamshire.griefprevention.GPPlayerData;
+import me.ryanhamshire.griefprevention.GPPlayerDataRegistry;
 import me.ryanhamshire.griefprevention.GPTimings;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.api.claim.Claim;
@@ -39,27 +42,23 @@
 import me.ryanhamshire.griefprevention.api.claim.ClaimResult;
 import me.ryanhamshire.griefprevention.api.claim.ClaimResultType;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
-import me.ryanhamshire.griefprevention.configuration.ClaimDataConfig;
-import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
+import me.ryanhamshire.griefprevention.configuration.DatabaseClaimStorageData;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
 import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
 import me.ryanhamshire.griefprevention.event.GPDeleteClaimEvent;
-import me.ryanhamshire.griefprevention.util.BlockUtils;
 import net.minecraft.util.math.ChunkPos;
+import ninja.leaping.configurate.objectmapping.ObjectMappingException;
 import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.event.CauseStackManager;
 import org.spongepowered.api.service.economy.EconomyService;
 import org.spongepowered.api.service.economy.account.Account;
 import org.spongepowered.api.service.economy.account.UniqueAccount;
-import org.spongepowered.api.text.Text;
-import org.spongepowered.api.util.Direction;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.storage.WorldProperties;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -68,6 +67,7 @@
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nullable;
 
@@ -78,13 +78,20 @@ public class GPClaimManager implements ClaimManager {
     private GriefPreventionConfig<?> activeConfig;
 
     // Player UUID -> player data
-    private Map<UUID, GPPlayerData> playerDataList = Maps.newHashMap();
+    private final GPPlayerDataRegistry playerDataRegistry = new GPPlayerDataRegistry();
     // World claim list
     private Set<Claim> worldClaims = new HashSet<>();
+    // Owner UUID -> top level claims, read from any thread when player data is created
+    private final Map<UUID, Set<Claim>> ownerClaimsMap = new ConcurrentHashMap<>();
+    // Claim -> owner it is indexed under, so it can be found after an owner change
+    private final Map<Claim, UUID> indexedOwners = new Reference2ObjectOpenHashMap<>();
     // Claim UUID -> Claim
     private Map<UUID, Claim> claimUniqueIdMap = Maps.newHashMap();
     // String -> Claim
-    private Map<Long, Set<Claim>> chunksToClaimsMap = new Long2ObjectOpenHashMap<>(4096);
+    private final Long2ObjectMap<Set<Claim>> chunksToClaimsMap = new Long2ObjectOpenHashMap<>(4096);
+    // Claims (including children) indexed by their boundaries
+    private final ClaimSpatialIndex spatialIndex = new ClaimSpatialIndex();
+    private final ClaimNeighborMemo neighborMemo = new ClaimNeighborMemo(this.spatialIndex);
     private GPClaim theWildernessClaim;
 
     public GPClaimManager() {
@@ -98,73 +105,78 @@ public GPClaimManager(WorldProperties worldProperties) {
     }
 
     public GPPlayerData getOrCreatePlayerData(UUID playerUniqueId) {
-        GPPlayerData playerData = this.getPlayerDataMap().get(playerUniqueId);
-        if (playerData == null) {
-            return createPlayerData(playerUniqueId);
-        } else {
-            return playerData;
-        }
+        return this.getPlayerDataRegistry().getOrCreate(playerUniqueId, this::createPlayerData);
     }
 
     private GPPlayerData createPlayerData(UUID playerUniqueId) {
-        Path playerFilePath = null;
-        if (DataStore.USE_GLOBAL_PLAYER_STORAGE) {
-            playerFilePath = DataStore.globalPlayerDataPath.resolve(playerUniqueId.toString());
-        } else {
-            playerFilePath = DataStore.worldConfigMap.get(this.worldProperties.getUniqueId()).getPath().getParent().resolve("PlayerData").resolve(playerUniqueId.toString());
-        }
-
-        PlayerStorageData playerStorage = new PlayerStorageData(playerFilePath);
+        final WorldProperties worldProperties = this.worldProperties;
         Set<Claim> claimList = this.createPlayerClaimList(playerUniqueId);
-        GPPlayerData playerData = new GPPlayerData(this.worldProperties, playerUniqueId, playerStorage, this.activeConfig, claimList);
-        this.getPlayerDataMap().put(playerUniqueId, playerData);
-        return playerData;
+        return new GPPlayerData(worldProperties, playerUniqueId, () -> DATASTORE.createPlayerStorage(worldProperties, playerUniqueId),
+                this.activeConfig, claimList);
     }
 
     private Set<Claim> createPlayerClaimList(UUID playerUniqueId) {
         Set<Claim> claimList = new HashSet<>();
         if (DataStore.USE_GLOBAL_PLAYER_STORAGE) {
             for (World world : Sponge.getServer().getWorlds()) {
-                GPClaimManager claimmanager = DATASTORE.getClaimWorldManager(world.getProperties());
-                for (Claim claim : claimmanager.worldClaims) {
-                    GPClaim gpClaim = (GPClaim) claim;
-                    if (gpClaim.isAdminClaim()) {
-                        continue;
-                    }
-                    if (gpClaim.parent != null) {
-                       if (gpClaim.parent.getOwnerUniqueId().equals(playerUniqueId)) {
-                           claimList.add(claim);
-                       }
-                    } else {
-                        if (gpClaim.getOwnerUniqueId().equals(playerUniqueId)) {
-                            claimList.add(claim);
-                        }
-                    }
-                }
+                DATASTORE.getClaimWorldManager(world.getProperties()).collectOwnedClaims(playerUniqueId, claimList);
             }
         } else {
-            for (Claim claim : this.worldClaims) {
-                GPClaim gpClaim = (GPClaim) claim;
-                if (gpClaim.isAdminClaim()) {
-                    continue;
-                }
-                if (gpClaim.parent != null) {
-                   if (gpClaim.parent.getOwnerUniqueId().equals(playerUniqueId)) {
-                       claimList.add(claim);
-                   }
-                } else {
-                    if (gpClaim.getOwnerUniqueId().equals(playerUniqueId)) {
-                        claimList.add(claim);
-                    }
-                }
-            }
+            this.collectOwnedClaims(playerUniqueId, claimList);
         }
 
         return claimList;
     }
 
+    private void collectOwnedClaims(UUID ownerUniqueId, Set<Claim> claimList) {
+        final Set<Claim> ownedClaims = this.ownerClaimsMap.get(ownerUniqueId);
+        if (ownedClaims == null) {
+            return;
+        }
+        for (Claim claim : ownedClaims) {
+            if (!((GPClaim) claim).isAdminClaim()) {
+                claimList.add(claim);
+            }
+        }
+    }
+
+    private void addWorldClaim(GPClaim claim) {
+        if (this.worldClaims.add(claim)) {
+            this.indexOwner(claim);
+        }
+    }
+
+    private void removeWorldClaim(Claim claim) {
+        if (this.worldClaims.remove(claim)) {
+            final UUID ownerUniqueId = this.indexedOwners.remove(claim);
+            if (ownerUniqueId != null) {
+                this.ownerClaimsMap.computeIfPresent(ownerUniqueId, (key, claims) -> {
+                    claims.remove(claim);
+                    return claims.isEmpty() ? null : claims;
+                });
+            }
+        }
+    }
+
+    private void indexOwner(GPClaim claim) {
+        final UUID ownerUniqueId = claim.getOwnerUniqueId();
+        if (ownerUniqueId == null) {
+            return;
+        }
+        this.ownerClaimsMap.computeIfAbsent(ownerUniqueId, key -> ConcurrentHashMap.newKeySet()).add(claim);
+        this.indexedOwners.put(claim, ownerUniqueId);
+    }
+
+    // Called after a claim's owner changed
+    public void updateOwnerIndex(GPClaim claim) {
+        if (this.worldClaims.contains(claim)) {
+            this.removeWorldClaim(claim);
+            this.addWorldClaim(claim);
+        }
+    }
+
     public void removePlayer(UUID playerUniqueId) {
-        this.getPlayerDataMap().remove(playerUniqueId);
+        this.getPlayerDataRegistry().remove(playerUniqueId);
     }
 
     public ClaimResult addClaim(Claim claim) {
@@ -205,6 +217,8 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
 
         // We need to keep track of all claims so they can be referenced by children during server startup
         this.claimUniqueIdMap.put(claim.id, claim);
+        GPClaimIndex.add(claim);
+        claim.prefetchGroupTrusts();
 
         if (claim.isWilderness()) {
             this.theWildernessClaim = claim;
@@ -213,8 +227,9 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
 
         if (claim.parent != null) {
             claim.parent.children.add(claim);
-            this.worldClaims.remove(claim);
+            this.removeWorldClaim(claim);
             this.deleteChunkHashes((GPClaim) claim);
+            this.spatialIndex.update(claim);
             if (!claim.isAdminClaim() && (!claim.isInTown() || !claim.getTownClaim().getOwnerUniqueId().equals(claim.getOwnerUniqueId()))) {
                 final GPPlayerData playerData = this.getPlayerDataMap().get(claim.getOwnerUniqueId());
                 Set<Claim> playerClaims = playerData.getInternalClaims();
@@ -225,9 +240,7 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
             return;
         }
 
-        if (!this.worldClaims.contains(claim)) {
-            this.worldClaims.add(claim);
-        }
+        this.addWorldClaim(claim);
         final UUID ownerId = claim.getOwnerUniqueId();
         final GPPlayerData playerData = this.getPlayerDataMap().get(ownerId);
         if (playerData != null) {
@@ -236,7 +249,7 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
                 playerClaims.add(claim);
             }
         } else if (!claim.isAdminClaim()) {
-            this.createPlayerData(ownerId);
+            this.getOrCreatePlayerData(ownerId);
         }
 
         this.updateChunkHashes(claim);
@@ -255,11 +268,16 @@ public void updateChunkHashes(GPClaim claim) {
 
             claimsInChunk.add(claim);
         }
+        this.spatialIndex.update(claim);
+    }
+
+    public void updateSpatialIndex(GPClaim claim) {
+        this.spatialIndex.update(claim);
     }
 
     // Used when parent claims becomes children
     public void removeClaimData(Claim claim) {
-        this.worldClaims.remove(claim);
+        this.removeWorldClaim(claim);
         this.deleteChunkHashes((GPClaim) claim);
     }
 
@@ -309,8 +327,9 @@ public void deleteClaimInternal(Claim claim, boolean deleteChildren) {
                 bankAccount.resetBalance(economyService.getDefaultCurrency(), Sponge.getCauseStackManager().getCurrentCause());
             }
         }
-        this.worldClaims.remove(claim);
+        this.removeWorldClaim(claim);
         this.claimUniqueIdMap.remove(claim.getUniqueId());
+        GPClaimIndex.remove(gpClaim);
         this.deleteChunkHashes((GPClaim) claim);
         if (gpClaim.parent != null) {
             gpClaim.parent.children.remove(claim);
@@ -322,31 +341,28 @@ public void deleteClaimInternal(Claim claim, boolean deleteChildren) {
     // Migrates children to new parent
     private void migrateChildToNewParent(GPClaim parentClaim, GPClaim childClaim) {
         childClaim.parent = parentClaim;
-        String fileName = childClaim.getClaimStorage().filePath.getFileName().toString();
-        Path newPath = null;
-        if (parentClaim == null) {
-            newPath = childClaim.getClaimStorage().folderPath.getParent().getParent().resolve(childClaim.getType().name().toLowerCase()).resolve(fileName);
-        } else {
-            // Only store in same claim type folder if not admin.
-            // Admin claims are currently the only type that can hold children of same type within
-            if (childClaim.getType().equals(parentClaim.getType()) && (!parentClaim.isAdminClaim())) {
-                newPath = parentClaim.getClaimStorage().folderPath.resolve(fileName);
+        // Database rows are not organized by parent so only the parent reference needs to change
+        if (!(childClaim.getClaimStorage() instanceof DatabaseClaimStorageData)) {
+            String fileName = childClaim.getClaimStorage().filePath.getFileName().toString();
+            Path newPath = null;
+            if (parentClaim == null) {
+                newPath = childClaim.getClaimStorage().folderPath.getParent().getParent().resolve(childClaim.getType().name().toLowerCase()).resolve(fileName);
             } else {
-                newPath = parentClaim.getClaimStorage().folderPath.resolve(childClaim.getType().name().toLowerCase()).resolve(fileName);
+                // Only store in same claim type folder if not admin.
+                // Admin claims are currently the only type that can hold children of same type within
+                if (childClaim.getType().equals(parentClaim.getType()) && (!parentClaim.isAdminClaim())) {
+                    newPath = parentClaim.getClaimStorage().folderPath.resolve(fileName);
+                } else {
+                    newPath = parentClaim.getClaimStorage().folderPath.resolve(childClaim.getType().name().toLowerCase()).resolve(fileName);
+                }
             }
-        }
 
-        try {
-            if (Files.notExists(newPath.getParent())) {
-                Files.createDirectories(newPath.getParent());
+            try {
+                // the file is moved through the persistence queue after any queued write
+                childClaim.setClaimStorage(childClaim.getClaimStorage().moveTo(newPath, this.getWorldProperties().getUniqueId(), childClaim.getType()));
+            } catch (ObjectMappingException e) {
+                e.printStackTrace();
             }
-            Files.move(childClaim.getClaimStorage().filePath, newPath);
-            if (childClaim.getClaimStorage().folderPath.toFile().listFiles().length == 0) {
-                Files.delete(childClaim.getClaimStorage().folderPath);
-            }
-            childClaim.setClaimStorage(new ClaimStorageData(newPath, this.getWorldProperties().getUniqueId(), (ClaimDataConfig) childClaim.getInternalClaimData()));
-        } catch (IOException e) {
-            e.printStackTrace();
         }
 
         // Make sure to update new parent in storage
@@ -386,6 +402,7 @@ private void resetPlayerClaimVisuals(Claim claim) {
     }
 
     private void deleteChunkHashes(GPClaim claim) {
+        this.spatialIndex.remove(claim);
         Set<Long> chunkHashes = claim.getChunkHashes(false);
         if (chunkHashes == null) {
             return;
@@ -432,6 +449,7 @@ public void createWildernessClaim(WorldProperties worldProperties) {
         DATASTORE.writeClaimToStorage(wilderness);
         this.theWildernessClaim = wilderness;
         this.claimUniqueIdMap.put(wilderness.getUniqueId(), wilderness);
+        GPClaimIndex.add(wilderness);
     }
 
     @Override
@@ -454,10 +472,14 @@ public Set<Claim> getInternalWorldClaims() {
     }
 
     public Map<UUID, GPPlayerData> getPlayerDataMap() {
+        return this.getPlayerDataRegistry().asMap();
+    }
+
+    public GPPlayerDataRegistry getPlayerDataRegistry() {
         if (DataStore.USE_GLOBAL_PLAYER_STORAGE) {
             return DataStore.GLOBAL_PLAYER_DATA;
         }
-        return this.playerDataList;
+        return this.playerDataRegistry;
     }
 
     @Override
@@ -477,15 +499,21 @@ public void save() {
         this.theWildernessClaim.save();
 
         for (GPPlayerData playerData : this.getPlayerDataMap().values()) {
-            playerData.getStorageData().save();
+            playerData.saveAllData();
         }
     }
 
     public void unload() {
-        this.playerDataList.clear();
+        this.playerDataRegistry.clear();
         this.worldClaims.clear();
+        this.ownerClaimsMap.clear();
+        this.indexedOwners.clear();
+        for (Claim claim : this.claimUniqueIdMap.values()) {
+            GPClaimIndex.remove((GPClaim) claim);
+        }
         this.claimUniqueIdMap.clear();
         this.chunksToClaimsMap.clear();
+        this.spatialIndex.clear();
         if (this.theWildernessClaim != null) {
             this.theWildernessClaim.unload();
             this.theWildernessClaim = null;
@@ -520,36 +548,29 @@ public Claim getClaimAt(Location<World> location, GPClaim cachedClaim, GPPlayerD
             return cachedClaim;
         }
 
-        Set<Claim> claimsInChunk = this.getInternalChunksToClaimsMap().get(ChunkPos.asLong(location.getBlockX() >> 4, location.getBlockZ() >> 4));
-        if (useBorderBlockRadius && (playerData != null && !playerData.ignoreBorderCheck)) {
-            final int borderBlockRadius = GriefPreventionPlugin.getActiveConfig(location.getExtent().getUniqueId()).getConfig().claim.borderBlockRadius;
-            // if borderBlockRadius > 0, check surrounding chunks
-            if (borderBlockRadius > 0) {
-                for (Direction direction : BlockUtils.ORDINAL_SET) {
-                    Location<World> currentLocation = location;
-                    for (int i = 0; i < borderBlockRadius; i++) { // Handle depth
-                        currentLocation = currentLocation.getBlockRelative(direction); 
-                        Set<Claim> relativeClaims = this.getInternalChunksToClaimsMap().get(ChunkPos.asLong(currentLocation.getBlockX() >> 4, currentLocation.getBlockZ() >> 4));
-                        if (relativeClaims != null) {
-                            if (claimsInChunk == null) {
-                                claimsInChunk = new HashSet<>();
-                            }
-                            claimsInChunk.addAll(relativeClaims);
-                        }
-                    }
-                }
-            }
-        }
-        if (claimsInChunk == null) {
-            //GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
-            return this.getWildernessClaim();
+        if (GriefPreventionPlugin.getActiveConfig(this.worldProperties).getConfig().claim.useSpatialIndex) {
+            return this.getClaimAt(location.getBlockX(), location.getBlockY(), location.getBlockZ(), playerData, useBorderBlockRadius);
         }
 
-        // TODO change to check deepest level and work its way up to root
-        for (Claim claim : claimsInChunk) {
-            GPClaim foundClaim = findClaim((GPClaim) claim, location, playerData, useBorderBlockRadius);
-            if (foundClaim != null) {
-                return foundClaim;
+        // if borderBlockRadius > 0, check surrounding chunks
+        final int borderBlockRadius = this.getBorderBlockRadius(playerData, useBorderBlockRadius);
+        final int minChunkX = (location.getBlockX() - borderBlockRadius) >> 4;
+        final int minChunkZ = (location.getBlockZ() - borderBlockRadius) >> 4;
+        final int maxChunkX = (location.getBlockX() + borderBlockRadius) >> 4;
+        final int maxChunkZ = (location.getBlockZ() + borderBlockRadius) >> 4;
+        // the shared chunk sets are read in place, a claim spanning several chunks is simply checked again
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                final Set<Claim> claimsInChunk = this.chunksToClaimsMap.get(ChunkPos.asLong(chunkX, chunkZ));
+                if (claimsInChunk == null) {
+                    continue;
+                }
+                for (Claim claim : claimsInChunk) {
+                    GPClaim foundClaim = findClaim((GPClaim) claim, location, playerData, useBorderBlockRadius);
+                    if (foundClaim != null) {
+                        return foundClaim;
+                    }
+                }
             }
         }
 
@@ -558,6 +579,67 @@ public Claim getClaimAt(Location<World> location, GPClaim cachedClaim, GPPlayerD
         return this.getWildernessClaim();
     }
 
+    /**
+     * Gets the claim at a block position without creating a {@link Location}.
+     *
+     * <p>When the spatial index is enabled this allocates nothing unless the
+     * position is within the border radius of a claim.</p>
+     *
+     * @param x The block x
+     * @param y The block y
+     * @param z The block z
+     * @param playerData The player data, used for border checks
+     * @param useBorderBlockRadius Whether to apply the claim border radius
+     * @return The claim at position, or wilderness if none
+     */
+    public GPClaim getClaimAt(int x, int y, int z, @Nullable GPPlayerData playerData, boolean useBorderBlockRadius) {
+        if (!GriefPreventionPlugin.getActiveConfig(this.worldProperties).getConfig().claim.useSpatialIndex) {
+            final World world = Sponge.getServer().getWorld(this.worldProperties.getUniqueId()).get();
+            return (GPClaim) this.getClaimAt(new Location<>(world, x, y, z), null, playerData, useBorderBlockRadius);
+        }
+
+        final GPClaim claim = this.spatialIndex.getDeepestClaimAt(x, y, z, this.getBorderBlockRadius(playerData, useBorderBlockRadius), playerData);
+        return claim != null ? claim : this.getWildernessClaim();
+    }
+
+    /**
+     * Gets the claim at a location an entity moved to, skipping the lookup
+     * while the entity stays within the claim it was last found in.
+     *
+     * @param entity The entity
+     * @param location The location
+     * @return The claim
+     */
+    public GPClaim getClaimAtEntity(Entity entity, Location<World> location) {
+        return ClaimCursor.forEntity(this, this.spatialIndex, entity).getClaimAt(location);
+    }
+
+    public ClaimNeighborMemo getNeighborMemo() {
+        return this.neighborMemo;
+    }
+
+    // includes children
+    public List<GPClaim> getIntersectingClaims(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return this.spatialIndex.getIntersectingClaims(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Creates a cursor for resolving many nearby locations, such as the
+     * blocks of a single event.
+     *
+     * @return A new cursor
+     */
+    public ClaimCursor createCursor() {
+        return new ClaimCursor(this, this.spatialIndex);
+    }
+
+    private int getBorderBlockRadius(GPPlayerData playerData, boolean useBorderBlockRadius) {
+        if (!useBorderBlockRadius || playerData == null || playerData.ignoreBorderCheck) {
+            return 0;
+        }
+        return Math.max(0, GriefPreventionPlugin.getActiveConfig(this.worldProperties).getConfig().claim.borderBlockRadius);
+    }
+
     private GPClaim findClaim(GPClaim claim, Location<World> location, GPPlayerData playerData, boolean useBorderBlockRadius) {
         if (claim.contains(location, playerData, useBorderBlockRadius)) {
             // when we find a top level claim, if the location is in one of its children,
@@ -583,29 +665,33 @@ private GPClaim findClaim(GPClaim claim, Location<World> location, GPPlayerData
 
     @Override
     public List<Claim> getClaimsByName(String name) {
-        List<Claim> claimList = new ArrayList<>();
-        for (Claim worldClaim : this.getWorldClaims()) {
-            Text claimName = worldClaim.getName().orElse(null);
-            if (claimName != null && !claimName.isEmpty()) {
-                if (claimName.toPlain().equalsIgnoreCase(name)) {
-                    claimList.add(worldClaim);
-                }
+        final List<Claim> claimList = new ArrayList<>();
+        for (Claim claim : GPClaimIndex.getClaimsByName(name, null)) {
+            if (this.claimUniqueIdMap.get(claim.getUniqueId()) == claim) {
+                claimList.add(claim);
             }
-            // check children
-            for (Claim child : ((GPClaim) worldClaim).getChildren(true)) {
-                if (child.getUniqueId().toString().equals(name)) {
-                    claimList.add(child);
-                }
+        }
+        // check children
+        try {
+            final Claim child = this.claimUniqueIdMap.get(UUID.fromString(name));
+            if (child != null && ((GPClaim) child).parent != null) {
+                claimList.add(child);
             }
+        } catch (IllegalArgumentException e) {
+            // not a claim id
         }
         return claimList;
     }
 
+    // Runs during world load, player storage is read in place as migrations need the stored values
     public void resetPlayerData() {
         // check migration reset
         if (GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.resetMigrations) {
             for (GPPlayerData playerData : this.getPlayerDataMap().values()) {
                 final PlayerStorageData playerStorage = playerData.getStorageData();
+                if (!playerStorage.isLoaded()) {
+                    playerStorage.load();
+                }
                 playerStorage.getConfig().setMigratedBlocks(false);
                 playerStorage.save();
             }
@@ -627,6 +713,9 @@ public void resetPlayerData() {
 
         for (GPPlayerData playerData : this.getPlayerDataMap().values()) {
             final PlayerStorageData playerStorage = playerData.getStorageData();
+            if (!playerStorage.isLoaded()) {
+                playerStorage.load();
+            }
             final int accruedBlocks = playerStorage.getConfig().getAccruedClaimBlocks();
             int newAccruedBlocks = accruedBlocks;
             // first check reset
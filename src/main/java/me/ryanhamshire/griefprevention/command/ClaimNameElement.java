@@ -0,0 +1,91 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.command;
+
+import me.ryanhamshire.griefprevention.claim.GPClaimIndex;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.text.Text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+/**
+ * A claim name or UUID, completed from the top level claim names in the
+ * source's world. Takes the rest of the arguments, so names may contain
+ * spaces.
+ */
+public class ClaimNameElement extends CommandElement {
+
+    private static final int MAX_COMPLETIONS = 50;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public ClaimNameElement(Text key) {
+        super(key);
+    }
+
+    @Nullable
+    @Override
+    protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+        return joinRemaining(args);
+    }
+
+    @Override
+    public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+        final List<String> words = new ArrayList<>();
+        while (args.hasNext()) {
+            args.nextIfPresent().ifPresent(words::add);
+        }
+        final UUID worldUniqueId = src instanceof Player ? ((Player) src).getWorld().getUniqueId() : null;
+        final List<String> names = GPClaimIndex.getNamesStartingWith(String.join(" ", words), worldUniqueId, MAX_COMPLETIONS);
+        // the client only replaces the word being typed, so drop the words before it
+        final int typedWords = Math.max(words.size() - 1, 0);
+        final List<String> completions = new ArrayList<>(names.size());
+        for (String name : names) {
+            final String[] nameWords = WHITESPACE.split(name.trim());
+            if (nameWords.length > typedWords) {
+                completions.add(String.join(" ", Arrays.copyOfRange(nameWords, typedWords, nameWords.length)));
+            }
+        }
+        return completions;
+    }
+
+    private static String joinRemaining(CommandArgs args) throws ArgumentParseException {
+        final StringBuilder builder = new StringBuilder(args.next());
+        while (args.hasNext()) {
+            builder.append(' ').append(args.next());
+        }
+        return builder.toString();
+    }
+}
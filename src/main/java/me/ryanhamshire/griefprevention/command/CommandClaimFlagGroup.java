@@ -82,6 +82,9 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
             source = null;
         }
 
+        if (!PermissionUtils.resolveGroupSubject(group, () -> this.execute(src, ctx))) {
+            return CommandResult.success();
+        }
         if (!PermissionUtils.hasGroupSubject(group)) {
             final Text message = GriefPreventionPlugin.instance.messageData.commandGroupInvalid
                     .apply(ImmutableMap.of(
@@ -33,7 +33,7 @@
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.api.claim.TrustType;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
-import me.ryanhamshire.griefprevention.claim.GPClaimManager;
+import me.ryanhamshire.griefprevention.claim.GPClaimIndex;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandResult;
@@ -55,6 +55,7 @@
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -112,27 +113,18 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
                 return CommandResult.success();
             }
         } else {
-            for (World world : Sponge.getServer().getWorlds()) {
-                if (!GriefPreventionPlugin.instance.claimsEnabledForWorld(world.getProperties())) {
-                    continue;
-                }
-
-                final GPClaimManager claimManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(world.getProperties());
-                UUID uuid = null;
-                try {
-                    uuid = UUID.fromString(claimIdentifier);
-                    claim = claimManager.getClaimByUUID(uuid).orElse(null);
-                    if (claim != null) {
-                        break;
-                    }
-                } catch (IllegalArgumentException e) {
-                    
-                }
-                if (uuid == null) {
-                    final List<Claim> claimList = claimManager.getClaimsByName(claimIdentifier);
-                    if (!claimList.isEmpty()) {
-                        claim = claimList.get(0);
-                    }
+            UUID uuid = null;
+            try {
+                uuid = UUID.fromString(claimIdentifier);
+            } catch (IllegalArgumentException e) {
+                // look up by name
+            }
+            final List<Claim> claimList = uuid != null ? GPClaimIndex.getClaim(uuid).map(Collections::singletonList).orElse(Collections.emptyList())
+                    : GPClaimIndex.getClaimsByName(claimIdentifier, player != null ? player.getWorld().getUniqueId() : null);
+            for (Claim match : claimList) {
+                if (GriefPreventionPlugin.instance.claimsEnabledForWorld(match.getWorld().getProperties())) {
+                    claim = match;
+                    break;
                 }
             }
         }
@@ -205,7 +197,7 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
         }
 
         try {
-            Instant instant = claim.getData().getDateLastActive();
+            Instant instant = gpClaim.getLastActive();
             lastActive = Date.from(instant);
         } catch(DateTimeParseException ex) {
             // ignore
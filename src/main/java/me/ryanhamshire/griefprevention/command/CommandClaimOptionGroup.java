@@ -79,6 +79,20 @@ public CommandResult execute(CommandSource src, CommandContext args) throws Comm
             return CommandResult.success();
         }
 
+        if (!PermissionUtils.resolveGroupSubject(group, () -> {
+            try {
+                this.execute(src, args);
+            } catch (CommandException e) {
+                src.sendMessage(e.getText());
+            }
+        })) {
+            return CommandResult.success();
+        }
+        if (!PermissionUtils.hasGroupSubject(group)) {
+            GriefPreventionPlugin.sendMessage(player,GriefPreventionPlugin.instance.messageData.commandGroupInvalid.toText());
+            return CommandResult.success();
+        }
+
         Set<Context> contexts = new HashSet<>();
         final Subject subj = PermissionUtils.getGroupSubject(group);
         if (!isGlobalOption) {
@@ -94,11 +108,6 @@ public CommandResult execute(CommandSource src, CommandContext args) throws Comm
                 return CommandResult.success();
             }
 
-            if (!PermissionUtils.hasGroupSubject(group)) {
-                GriefPreventionPlugin.sendMessage(player,GriefPreventionPlugin.instance.messageData.commandGroupInvalid.toText());
-                return CommandResult.success();
-            }
-
             final Text message = GriefPreventionPlugin.instance.messageData.permissionClaimManage
                     .apply(ImmutableMap.of(
                     "type", claim.getType().name())).build();
@@ -73,6 +73,15 @@ public CommandResult execute(CommandSource src, CommandContext args) throws Comm
         final String group = args.<String>getOne("group").orElse(null);
         final String value = args.<String>getOne("value").orElse(null);
 
+        if (!PermissionUtils.resolveGroupSubject(group, () -> {
+            try {
+                this.execute(src, args);
+            } catch (CommandException e) {
+                src.sendMessage(e.getText());
+            }
+        })) {
+            return CommandResult.success();
+        }
         if (!PermissionUtils.hasGroupSubject(group)) {
             GriefPreventionPlugin.sendMessage(player, GriefPreventionPlugin.instance.messageData.commandGroupInvalid.toText());
             return CommandResult.success();
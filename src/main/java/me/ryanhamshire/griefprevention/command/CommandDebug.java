@@ -24,8 +24,17 @@
  */
 package me.ryanhamshire.griefprevention.command;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import me.ryanhamshire.griefprevention.GPDebugData;
+import me.ryanhamshire.griefprevention.GPPlayerData;
+import me.ryanhamshire.griefprevention.GPPlayerDataRegistry;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.claim.ClaimNeighborMemo;
+import me.ryanhamshire.griefprevention.configuration.PersistenceQueue;
+import me.ryanhamshire.griefprevention.logging.CustomLogger;
+import me.ryanhamshire.griefprevention.permission.GPOptionSnapshot;
+import me.ryanhamshire.griefprevention.permission.GPPermissionCache;
+import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.command.args.CommandContext;
@@ -33,6 +42,7 @@
 import org.spongepowered.api.entity.living.player.User;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.format.TextColors;
+import org.spongepowered.api.world.storage.WorldProperties;
 
 public class CommandDebug implements CommandExecutor {
 
@@ -42,6 +52,52 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
         User user = ctx.<User>getOne("user").orElse(null);
         GPDebugData debugData = null;
         boolean paste = false;
+        final Text GP_TEXT = Text.of(TextColors.RESET, "[", TextColors.AQUA, "GP", TextColors.WHITE, "] ");
+        if (target.equalsIgnoreCase("stats")) {
+            final CacheStats stats = GPPermissionCache.getStats();
+            src.sendMessage(Text.of(GP_TEXT, TextColors.GRAY, "Permission cache: ",
+                    GPPermissionCache.isEnabled() ? Text.of(TextColors.GREEN, "ON") : Text.of(TextColors.RED, "OFF")));
+            src.sendMessage(Text.of(TextColors.GRAY, "Hits: ", TextColors.WHITE, stats.hitCount(), TextColors.GRAY, " | ",
+                    "Misses: ", TextColors.WHITE, stats.missCount(), TextColors.GRAY, " | ",
+                    "Hit rate: ", TextColors.WHITE, String.format("%.2f%%", stats.hitRate() * 100)));
+            src.sendMessage(Text.of(TextColors.GRAY, "Stale: ", TextColors.WHITE, GPPermissionCache.getStaleCount(), TextColors.GRAY, " | ",
+                    "Evictions: ", TextColors.WHITE, stats.evictionCount(), TextColors.GRAY, " | ",
+                    "Size: ", TextColors.WHITE, GPPermissionCache.getSize(), TextColors.GRAY, " | ",
+                    "Generation: ", TextColors.WHITE, GPPermissionCache.getGeneration()));
+            src.sendMessage(Text.of(GP_TEXT, TextColors.GRAY, "Storage queue: "));
+            src.sendMessage(Text.of(TextColors.GRAY, "Depth: ", TextColors.WHITE, PersistenceQueue.getQueueDepth(), TextColors.GRAY, " | ",
+                    "Saves: ", TextColors.WHITE, PersistenceQueue.getEnqueuedCount(), TextColors.GRAY, " | ",
+                    "Coalesced: ", TextColors.WHITE, PersistenceQueue.getCoalescedCount(), TextColors.GRAY, " | ",
+                    "Writes: ", TextColors.WHITE, PersistenceQueue.getWriteCount(), TextColors.GRAY, " | ",
+                    "Failures: ", TextColors.WHITE, PersistenceQueue.getFailureCount()));
+            src.sendMessage(Text.of(TextColors.GRAY, "Bytes written: ", TextColors.WHITE, PersistenceQueue.getBytesWritten(), TextColors.GRAY, " | ",
+                    "Flush ms (last/avg/max): ", TextColors.WHITE, String.format("%.2f/%.2f/%.2f", PersistenceQueue.getLastFlushMillis(),
+                            PersistenceQueue.getAverageFlushMillis(), PersistenceQueue.getMaxFlushMillis())));
+            src.sendMessage(Text.of(GP_TEXT, TextColors.GRAY, "Neighbor notifications: "));
+            src.sendMessage(Text.of(TextColors.GRAY, "Skipped: ", TextColors.WHITE, ClaimNeighborMemo.getSkippedCount(), TextColors.GRAY, " | ",
+                    "Evaluated: ", TextColors.WHITE, ClaimNeighborMemo.getEvaluatedCount()));
+            src.sendMessage(Text.of(GP_TEXT, TextColors.GRAY, "Player option refresh: "));
+            src.sendMessage(Text.of(TextColors.GRAY, "Refreshes: ", TextColors.WHITE, GPOptionSnapshot.getRefreshCount(), TextColors.GRAY, " | ",
+                    "ms (last/max): ", TextColors.WHITE, String.format("%.2f/%.2f", GPOptionSnapshot.getLastRefreshMillis(),
+                            GPOptionSnapshot.getMaxRefreshMillis())));
+            if (user != null) {
+                final WorldProperties worldProperties = user.getPlayer().map(player -> player.getWorld().getProperties())
+                        .orElse(Sponge.getServer().getDefaultWorld().orElse(null));
+                if (worldProperties != null) {
+                    final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(worldProperties, user.getUniqueId());
+                    src.sendMessage(Text.of(TextColors.GRAY, user.getName(), ": ", TextColors.WHITE, playerData.getOptionRefreshCount(), TextColors.GRAY, " | ",
+                            "ms (last/max): ", TextColors.WHITE, String.format("%.2f/%.2f", playerData.getLastOptionRefreshMillis(),
+                                    playerData.getMaxOptionRefreshMillis())));
+                }
+            }
+            src.sendMessage(Text.of(GP_TEXT, TextColors.GRAY, "Abridged log: "));
+            src.sendMessage(Text.of(TextColors.GRAY, "Queued: ", TextColors.WHITE, CustomLogger.getQueuedCount(), TextColors.GRAY, " | ",
+                    "Written: ", TextColors.WHITE, CustomLogger.getWrittenCount(), TextColors.GRAY, " | ",
+                    "Dropped: ", TextColors.WHITE, CustomLogger.getDroppedCount()));
+            src.sendMessage(Text.of(GP_TEXT, TextColors.GRAY, "Player data: "));
+            src.sendMessage(Text.of(TextColors.GRAY, "Evicted: ", TextColors.WHITE, GPPlayerDataRegistry.getEvictedCount()));
+            return CommandResult.success();
+        }
         if (target.equalsIgnoreCase("on")) {
             debugData = getOrCreateDebugUser(src, user, true);
         } else if (target.equalsIgnoreCase("record")) {
@@ -55,7 +111,6 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
             }
         }
 
-        final Text GP_TEXT = Text.of(TextColors.RESET, "[", TextColors.AQUA, "GP", TextColors.WHITE, "] ");
         if (debugData == null) {
             if (paste) {
                 debugData = GriefPreventionPlugin.instance.getDebugUserMap().get(src.getIdentifier());
@@ -987,8 +987,7 @@ public static void handleUserTrustCommand(Player player, TrustType trustType, Us
 
             for (Claim currentClaim : targetClaims) {
                 GPClaim gpClaim = (GPClaim) currentClaim;
-                final List<UUID> trustList = gpClaim.getUserTrustList(trustType);
-                if (trustList.contains(user.getUniqueId())) {
+                if (!gpClaim.getInternalClaimData().addUserTrust(user.getUniqueId(), trustType)) {
                     final Text message = GriefPreventionPlugin.instance.messageData.trustAlreadyHas
                         .apply(ImmutableMap.of(
                             "target", user.getName(),
@@ -997,7 +996,6 @@ public static void handleUserTrustCommand(Player player, TrustType trustType, Us
                     return;
                 }
 
-                trustList.add(user.getUniqueId());
                 gpClaim.getInternalClaimData().setRequiresSave(true);
                 gpClaim.getInternalClaimData().save();
             }
@@ -1018,6 +1016,9 @@ public static void handleGroupTrustCommand(Player player, TrustType trustType, S
             GriefPreventionPlugin.sendMessage(player, invalidGroup);
             return;
         }
+        if (!PermissionUtils.resolveGroupSubject(group, () -> handleGroupTrustCommand(player, trustType, group))) {
+            return;
+        }
         if (!PermissionUtils.hasGroupSubject(group)) {
             GriefPreventionPlugin.sendMessage(player, invalidGroup);
             return;
@@ -146,6 +146,9 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
         final Text totalBlockText = Text.of(TextColors.YELLOW, "Total Blocks", WHITE_SEMI_COLON, TextColors.GREEN, playerData.optionInitialClaimBlocks + playerData.getAccruedClaimBlocks() + playerData.getBonusClaimBlocks());
         final Text totalClaimableChunkText = Text.of(TextColors.YELLOW, "Total Claimable Chunks", WHITE_SEMI_COLON, TextColors.GREEN, Math.round(claimableChunks * 100.0)/100.0);
         final Text totalClaimText = Text.of(TextColors.YELLOW, "Total Claims", WHITE_SEMI_COLON, TextColors.GREEN, claimList.size());
+        final Text optionRefreshText = Text.of(TextColors.YELLOW, "Option Refresh", WHITE_SEMI_COLON, TextColors.GREEN, playerData.getOptionRefreshCount(),
+                TextColors.GRAY, " (", TextColors.LIGHT_PURPLE, String.format("%.2f/%.2f", playerData.getLastOptionRefreshMillis(),
+                        playerData.getMaxOptionRefreshMillis()), TextColors.WHITE, " ms last/max", TextColors.GRAY, ")");
 
         List<Text> claimsTextList = Lists.newArrayList();
         claimsTextList.add(uuidText);
@@ -168,6 +171,7 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
         claimsTextList.add(totalBlockText);
         claimsTextList.add(totalClaimableChunkText);
         claimsTextList.add(totalClaimText);
+        claimsTextList.add(optionRefreshText);
         JoinData joinData = user.getOrCreate(JoinData.class).orElse(null);
         if (joinData != null && joinData.lastPlayed().exists()) {
             Date lastActive = null;
@@ -51,7 +51,6 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.UUID;
 
 public class CommandTrustAll implements CommandExecutor {
 
@@ -80,6 +79,9 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
             GriefPreventionPlugin.sendMessage(player, GriefPreventionPlugin.instance.messageData.commandPlayerGroupInvalid.toText());
             return CommandResult.success();
         }
+        if (group != null && !PermissionUtils.resolveGroupSubject(group, () -> this.execute(src, ctx))) {
+            return CommandResult.success();
+        }
 
         if (user != null && user.getUniqueId().equals(player.getUniqueId())) {
             GriefPreventionPlugin.sendMessage(player, GriefPreventionPlugin.instance.messageData.trustSelf.toText());
@@ -146,11 +148,7 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
 
     private void addAllUserTrust(Claim claim, User user) {
         GPClaim gpClaim = (GPClaim) claim;
-        List<UUID> trustList = gpClaim.getUserTrustList(TrustType.BUILDER);
-        if (!trustList.contains(user.getUniqueId())) {
-            trustList.add(user.getUniqueId());
-        }
-
+        gpClaim.getInternalClaimData().addUserTrust(user.getUniqueId(), TrustType.BUILDER);
         gpClaim.getInternalClaimData().setRequiresSave(true);
         for (Claim child : gpClaim.children) {
             this.addAllGroupTrust(child, user);
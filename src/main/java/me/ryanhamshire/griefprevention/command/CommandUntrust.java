@@ -80,6 +80,9 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
             GriefPreventionPlugin.sendMessage(src, GriefPreventionPlugin.instance.messageData.commandPlayerGroupInvalid.toText());
             return CommandResult.success();
         }
+        if (group != null && !PermissionUtils.resolveGroupSubject(group, () -> this.execute(src, ctx))) {
+            return CommandResult.success();
+        }
         if (user != null && user.getUniqueId().equals(player.getUniqueId())) {
             GriefPreventionPlugin.sendMessage(player, GriefPreventionPlugin.instance.messageData.untrustSelf.toText());
             return CommandResult.success();
@@ -125,9 +128,7 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
                     return CommandResult.success();
                 }
 
-                for (TrustType trustType : TrustType.values()) {
-                    claim.getUserTrustList(trustType).remove(user.getUniqueId());
-                }
+                claim.getInternalClaimData().removeUserTrust(user.getUniqueId(), TrustType.NONE);
             } else {
                 Set<Context> contexts = new HashSet<>();
                 contexts.add(claim.getContext());
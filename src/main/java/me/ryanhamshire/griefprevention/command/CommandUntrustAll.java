@@ -83,6 +83,9 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
             GriefPreventionPlugin.sendMessage(player, GriefPreventionPlugin.instance.messageData.commandPlayerGroupInvalid.toText());
             return CommandResult.success();
         }
+        if (group != null && !PermissionUtils.resolveGroupSubject(group, () -> this.execute(src, ctx))) {
+            return CommandResult.success();
+        }
         if (user != null && user.getUniqueId().equals(player.getUniqueId())) {
             GriefPreventionPlugin.sendMessage(player, GriefPreventionPlugin.instance.messageData.untrustSelf.toText());
             return CommandResult.success();
@@ -149,7 +152,7 @@ private void removeAllUserTrust(Claim claim, User user) {
         contexts.add(gpClaim.getContext());
         for (TrustType type : TrustType.values()) {
             user.getSubjectData().setPermission(contexts, GPPermissions.getTrustPermission(type), Tristate.UNDEFINED);
-            gpClaim.getUserTrustList(type).remove(user.getUniqueId());
+            gpClaim.getInternalClaimData().removeUserTrust(user.getUniqueId(), type);
             gpClaim.getInternalClaimData().setRequiresSave(true);
             for (Claim child : gpClaim.children) {
                 this.removeAllUserTrust(child, user);
@@ -25,10 +25,15 @@
 package me.ryanhamshire.griefprevention.configuration;
 
 import com.flowpowered.math.vector.Vector3i;
+import it.unimi.dsi.fastutil.objects.Object2ByteMap;
+import it.unimi.dsi.fastutil.objects.Object2ByteMaps;
+import it.unimi.dsi.fastutil.objects.Object2ByteOpenHashMap;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.api.claim.TrustType;
 import me.ryanhamshire.griefprevention.api.data.EconomyData;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.configuration.category.ConfigCategory;
+import me.ryanhamshire.griefprevention.permission.GPPermissionCache;
 import me.ryanhamshire.griefprevention.util.BlockUtils;
 import ninja.leaping.configurate.objectmapping.Setting;
 import ninja.leaping.configurate.objectmapping.serialize.ConfigSerializable;
@@ -37,12 +42,15 @@
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 @ConfigSerializable
 public class ClaimDataConfig extends ConfigCategory implements IClaimData {
 
@@ -51,6 +59,8 @@ public class ClaimDataConfig extends ConfigCategory implements IClaimData {
     private Vector3i greaterPos;
     private Vector3i spawnPos;
     private ClaimStorageData claimStorage;
+    // not serialized, notified when the name changes
+    private Runnable nameChangeListener;
 
     @Setting
     private UUID parent;
@@ -115,6 +125,15 @@ public class ClaimDataConfig extends ConfigCategory implements IClaimData {
     @Setting
     private EconomyDataConfig economyData = new EconomyDataConfig();
 
+    private static final byte ACCESSOR_BIT = 1;
+    private static final byte CONTAINER_BIT = 2;
+    private static final byte BUILDER_BIT = 4;
+    private static final byte MANAGER_BIT = 8;
+
+    // Derived from the user trust lists, built on first use
+    private volatile Object2ByteMap<UUID> trustIndex;
+    private volatile long permissionGeneration = GPPermissionCache.nextClaimGeneration();
+
     public ClaimDataConfig() {
 
     }
@@ -307,19 +326,125 @@ public Vector3i getGreaterBoundaryCornerPos() {
     }
 
     public List<UUID> getAccessors() {
-        return this.accessors;
+        return Collections.unmodifiableList(this.accessors);
     }
 
     public List<UUID> getBuilders() {
-        return this.builders;
+        return Collections.unmodifiableList(this.builders);
     }
 
     public List<UUID> getContainers() {
-        return this.containers;
+        return Collections.unmodifiableList(this.containers);
     }
 
     public List<UUID> getManagers() {
-        return this.managers;
+        return Collections.unmodifiableList(this.managers);
+    }
+
+    @Override
+    public boolean hasUserTrust(UUID uuid, TrustType type) {
+        Object2ByteMap<UUID> index = this.trustIndex;
+        if (index == null) {
+            index = this.buildTrustIndex();
+        }
+        return (index.getByte(uuid) & getTrustMask(type)) != 0;
+    }
+
+    @Override
+    public boolean addUserTrust(UUID uuid, TrustType type) {
+        final List<UUID> trustList = this.getTrustList(type);
+        if (trustList == null || trustList.contains(uuid)) {
+            return false;
+        }
+        trustList.add(uuid);
+        this.onUserTrustChanged();
+        return true;
+    }
+
+    @Override
+    public boolean removeUserTrust(UUID uuid, TrustType type) {
+        boolean removed = false;
+        if (type == TrustType.NONE) {
+            removed |= this.accessors.remove(uuid);
+            removed |= this.containers.remove(uuid);
+            removed |= this.builders.remove(uuid);
+            removed |= this.managers.remove(uuid);
+        } else {
+            final List<UUID> trustList = this.getTrustList(type);
+            removed = trustList != null && trustList.remove(uuid);
+        }
+        if (removed) {
+            this.onUserTrustChanged();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clearUserTrusts() {
+        this.accessors.clear();
+        this.containers.clear();
+        this.builders.clear();
+        this.managers.clear();
+        this.onUserTrustChanged();
+    }
+
+    @Nullable
+    private List<UUID> getTrustList(TrustType type) {
+        switch (type) {
+            case ACCESSOR:
+                return this.accessors;
+            case CONTAINER:
+                return this.containers;
+            case BUILDER:
+                return this.builders;
+            case MANAGER:
+                return this.managers;
+            default:
+                return null;
+        }
+    }
+
+    private void onUserTrustChanged() {
+        this.setRequiresSave(true);
+        this.buildTrustIndex();
+    }
+
+    @Override
+    public void updateTrustIndex() {
+        this.buildTrustIndex();
+    }
+
+    private Object2ByteMap<UUID> buildTrustIndex() {
+        final Object2ByteOpenHashMap<UUID> index = new Object2ByteOpenHashMap<>();
+        addTrustBits(index, this.accessors, ACCESSOR_BIT);
+        addTrustBits(index, this.containers, CONTAINER_BIT);
+        addTrustBits(index, this.builders, BUILDER_BIT);
+        addTrustBits(index, this.managers, MANAGER_BIT);
+        final Object2ByteMap<UUID> trustIndex = Object2ByteMaps.unmodifiable(index);
+        this.trustIndex = trustIndex;
+        return trustIndex;
+    }
+
+    private static void addTrustBits(Object2ByteOpenHashMap<UUID> index, List<UUID> uuids, byte bit) {
+        for (UUID uuid : uuids) {
+            index.put(uuid, (byte) (index.getByte(uuid) | bit));
+        }
+    }
+
+    // The trust types that grant the requested type
+    private static byte getTrustMask(TrustType type) {
+        switch (type) {
+            case ACCESSOR:
+                return ACCESSOR_BIT | CONTAINER_BIT | BUILDER_BIT | MANAGER_BIT;
+            case CONTAINER:
+                return CONTAINER_BIT | BUILDER_BIT | MANAGER_BIT;
+            case BUILDER:
+                return BUILDER_BIT | MANAGER_BIT;
+            case MANAGER:
+                return MANAGER_BIT;
+            default:
+                return 0;
+        }
     }
 
     public List<String> getAccessorGroups() {
@@ -340,13 +465,13 @@ public List<String> getManagerGroups() {
 
     @Override
     public void setDenyMessages(boolean flag) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.allowDenyMessages = flag;
     }
 
     @Override
     public void setExpiration(boolean flag) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.allowClaimExpiration = flag;
     }
 
@@ -362,82 +487,98 @@ public void setCuboid(boolean cuboid) {
 
     @Override
     public void setPvpOverride(Tristate pvp) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.pvpOverride = pvp;
     }
 
     @Override
     public void setResizable(boolean resizable) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.isResizable = resizable;
     }
 
     @Override
     public void setType(ClaimType type) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.claimType = type;
     }
 
     @Override
     public void setDateLastActive(Instant date) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.dateLastActive = date.toString();
     }
 
     @Override
     public void setName(Text name) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.claimName = name;
+        if (this.nameChangeListener != null) {
+            this.nameChangeListener.run();
+        }
+    }
+
+    public void setNameChangeListener(Runnable listener) {
+        this.nameChangeListener = listener;
     }
 
     @Override
     public void setGreeting(Text message) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.claimGreetingMessage = message;
     }
 
     @Override
     public void setFarewell(Text message) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.claimFarewellMessage = message;
     }
 
     @Override
     public void setLesserBoundaryCorner(String location) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.lesserBoundaryCornerPos = location;
         this.lesserPos = null;
     }
 
     @Override
     public void setGreaterBoundaryCorner(String location) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.greaterBoundaryCornerPos = location;
         this.greaterPos = null;
     }
 
     @Override
     public void setAccessors(List<UUID> accessors) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.accessors = accessors;
+        this.trustIndex = null;
     }
 
     @Override
     public void setBuilders(List<UUID> builders) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.builders = builders;
+        this.trustIndex = null;
     }
 
     @Override
     public void setContainers(List<UUID> containers) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.containers = containers;
+        this.trustIndex = null;
     }
 
     @Override
     public void setManagers(List<UUID> coowners) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.managers = coowners;
+        this.trustIndex = null;
+    }
+
+    @Override
+    public long getPermissionGeneration() {
+        return this.permissionGeneration;
     }
 
     public boolean requiresSave() {
@@ -447,6 +588,10 @@ public boolean requiresSave() {
     @Override
     public void setRequiresSave(boolean flag) {
         this.requiresSave = flag;
+        if (flag) {
+            // any saved change may affect the claim's cached permission decisions
+            this.permissionGeneration = GPPermissionCache.nextClaimGeneration();
+        }
     }
 
     @Override
@@ -465,19 +610,19 @@ public boolean doesInheritParent() {
 
     @Override
     public void setInheritParent(boolean flag) {
-        this.requiresSave = true;
         this.inheritParent = flag;
+        this.setRequiresSave(true);
     }
 
     @Override
     public void setOwnerUniqueId(UUID newClaimOwner) {
-        this.requiresSave = true;
         this.ownerUniqueId = newClaimOwner;
+        this.setRequiresSave(true);
     }
 
     @Override
     public void setWorldUniqueId(UUID uuid) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.worldUniqueId = uuid;
     }
 
@@ -496,7 +641,7 @@ public void setSpawnPos(Vector3i spawnPos) {
             return;
         }
 
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.spawnPos = spawnPos;
         this.claimSpawn = BlockUtils.positionToString(spawnPos);
     }
@@ -508,13 +653,13 @@ public boolean requiresClaimBlocks() {
 
     @Override
     public void setRequiresClaimBlocks(boolean requiresClaimBlocks) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.requiresClaimBlocks = requiresClaimBlocks;
     }
 
     @Override
     public void setParent(UUID uuid) {
-        this.requiresSave = true;
+        this.setRequiresSave(true);
         this.parent = uuid;
     }
 
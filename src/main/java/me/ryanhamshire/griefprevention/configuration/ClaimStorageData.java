@@ -35,15 +35,16 @@
 import org.spongepowered.api.Sponge;
 import org.spongepowered.common.SpongeImpl;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.UUID;
 
-public class ClaimStorageData {
+public class ClaimStorageData implements PersistenceQueue.Persistable {
 
     protected HoconConfigurationLoader loader;
-    private CommentedConfigurationNode root = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults());
+    protected CommentedConfigurationNode root = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults());
     protected ObjectMapper<ClaimDataConfig>.BoundInstance configMapper;
     protected ClaimDataConfig configBase;
     public Path filePath;
@@ -86,6 +87,10 @@ public class ClaimStorageData {
     // SUB
     public static final String MAIN_INHERIT_PARENT = "inherit-parent";
 
+    // Used by storage backends that are not file based
+    protected ClaimStorageData() {
+    }
+
     // Used for new claims after server startup
     @SuppressWarnings({"unchecked", "rawtypes"})
     public ClaimStorageData(Path path, UUID worldUniqueId, UUID ownerUniqueId, ClaimType type, boolean cuboid) {
@@ -170,20 +175,82 @@ public ClaimDataConfig getConfig() {
         return this.configBase;
     }
 
-    public void save() {
-        try {
-            this.configMapper.serialize(this.root.getNode(GriefPreventionPlugin.MOD_ID));
-            this.loader.save(this.root);
-            this.configBase.setRequiresSave(false);
-        } catch (IOException | ObjectMappingException e) {
-            SpongeImpl.getLogger().error("Failed to save configuration", e);
+    /**
+     * Creates storage for this claim at a new path from the data in memory.
+     * The file move is queued behind any pending write of this storage, so
+     * nothing touches the disk on the calling thread.
+     *
+     * @param path The new file path
+     * @param worldUniqueId The claim world
+     * @param type The claim type the storage is for
+     * @return The storage at the new path, which must be saved by the caller
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ClaimStorageData moveTo(Path path, UUID worldUniqueId, ClaimType type) throws ObjectMappingException {
+        // the queued save of this storage is discarded by the move so capture it here
+        this.configMapper.serialize(this.root.getNode(GriefPreventionPlugin.MOD_ID));
+        final ClaimStorageData storage = type == ClaimType.TOWN ? new TownStorageData() : new ClaimStorageData();
+        storage.filePath = path;
+        storage.folderPath = path.getParent();
+        storage.loader = HoconConfigurationLoader.builder().setPath(path).build();
+        storage.root = this.root.copy();
+        if (type == ClaimType.TOWN) {
+            storage.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(TownDataConfig.class).bindToNew();
+            storage.configMapper.getInstance().setClaimStorageData(storage);
+            storage.configBase = storage.configMapper.populate(storage.root.getNode(GriefPreventionPlugin.MOD_ID));
+            storage.configBase.updateTrustIndex();
+        } else {
+            storage.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(ClaimDataConfig.class).bind(this.configBase);
+            storage.configMapper.getInstance().setClaimStorageData(storage);
+            storage.configBase = this.configBase;
         }
+        ((EconomyDataConfig) storage.configBase.getEconomyData()).activeConfig = GriefPreventionPlugin.getActiveConfig(worldUniqueId);
+
+        final Path oldPath = this.filePath;
+        final Path oldFolderPath = this.folderPath;
+        // runs after any queued write of the claim
+        PersistenceQueue.submit(this, () -> {
+            try {
+                if (Files.notExists(path.getParent())) {
+                    Files.createDirectories(path.getParent());
+                }
+                Files.move(oldPath, path);
+                final File[] files = oldFolderPath.toFile().listFiles();
+                if (files != null && files.length == 0) {
+                    Files.delete(oldFolderPath);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                GriefPreventionPlugin.addLogEntry("Error: Unable to move claim file \"" + oldPath + "\" to \"" + path + "\".");
+            }
+            return 0;
+        });
+        return storage;
+    }
+
+    public void save() {
+        PersistenceQueue.enqueue(this);
+    }
+
+    @Override
+    public PersistenceQueue.Write snapshot() throws ObjectMappingException {
+        this.configMapper.serialize(this.root.getNode(GriefPreventionPlugin.MOD_ID));
+        this.configBase.setRequiresSave(false);
+        final CommentedConfigurationNode data = this.root.copy();
+        final HoconConfigurationLoader loader = this.loader;
+        final Path path = this.filePath;
+        return () -> {
+            loader.save(data);
+            return Files.size(path);
+        };
     }
 
     public void load() {
         try {
             this.root = this.loader.load(ConfigurationOptions.defaults());
             this.configBase = this.configMapper.populate(this.root.getNode(GriefPreventionPlugin.MOD_ID));
+            // trust lists may have been replaced
+            this.configBase.updateTrustIndex();
         } catch (Exception e) {
             SpongeImpl.getLogger().error("Failed to load configuration", e);
         }
@@ -0,0 +1,299 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.configuration;
+
+import com.flowpowered.math.vector.Vector3i;
+import com.typesafe.config.ConfigRenderOptions;
+import me.ryanhamshire.griefprevention.DatabaseDataStore;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import ninja.leaping.configurate.ConfigurationOptions;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
+import ninja.leaping.configurate.objectmapping.ObjectMapper;
+import ninja.leaping.configurate.objectmapping.ObjectMappingException;
+import org.spongepowered.common.SpongeImpl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+/**
+ * Claim storage backed by {@link DatabaseDataStore}.
+ *
+ * <p>Trust lists and the bank transaction log are kept in their own tables,
+ * everything else is stored as a HOCON blob next to the indexed claim
+ * columns.</p>
+ */
+public class DatabaseClaimStorageData extends ClaimStorageData {
+
+    public static final String[] TRUST_KEYS = {MAIN_ACCESSORS, MAIN_BUILDERS, MAIN_CONTAINERS, MAIN_MANAGERS,
+            MAIN_ACCESSOR_GROUPS, MAIN_BUILDER_GROUPS, MAIN_CONTAINER_GROUPS, MAIN_MANAGER_GROUPS};
+    private static final String ECONOMY_DATA = "economyData";
+    private static final String BANK_TRANSACTION_LOG = "bankTransactionLog";
+    private static final ConfigRenderOptions RENDER_OPTIONS = ConfigRenderOptions.defaults().setComments(false).setOriginComments(false);
+
+    private final UUID claimUniqueId;
+    private String data = "";
+    private Map<String, List<String>> trusts = new HashMap<>();
+    private List<String> bankTransactions = new ArrayList<>();
+
+    // Used for new claims after server startup
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DatabaseClaimStorageData(UUID claimUniqueId, UUID worldUniqueId, UUID ownerUniqueId, ClaimType type, boolean cuboid) {
+        this.claimUniqueId = claimUniqueId;
+        try {
+            if (type == ClaimType.TOWN) {
+                this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(TownDataConfig.class).bindToNew();
+            } else {
+                this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(ClaimDataConfig.class).bindToNew();
+            }
+            this.configMapper.getInstance().setWorldUniqueId(worldUniqueId);
+            this.configMapper.getInstance().setOwnerUniqueId(ownerUniqueId);
+            this.configMapper.getInstance().setType(type);
+            this.configMapper.getInstance().setCuboid(cuboid);
+            this.configMapper.getInstance().setClaimStorageData(this);
+            load();
+            ((EconomyDataConfig) this.configMapper.getInstance().getEconomyData()).activeConfig = GriefPreventionPlugin.getActiveConfig(worldUniqueId);
+        } catch (Exception e) {
+            SpongeImpl.getLogger().error("Failed to initialize configuration", e);
+        }
+    }
+
+    // Used when rebinding existing claim data
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DatabaseClaimStorageData(UUID claimUniqueId, UUID worldUniqueId, ClaimDataConfig claimData) {
+        this.claimUniqueId = claimUniqueId;
+        try {
+            this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forObject(claimData);
+            this.configMapper.getInstance().setClaimStorageData(this);
+            this.configBase = claimData;
+            ((EconomyDataConfig) this.configMapper.getInstance().getEconomyData()).activeConfig = GriefPreventionPlugin.getActiveConfig(worldUniqueId);
+        } catch (Exception e) {
+            SpongeImpl.getLogger().error("Failed to initialize configuration", e);
+        }
+    }
+
+    // Used during server load
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DatabaseClaimStorageData(UUID claimUniqueId, UUID worldUniqueId, ClaimType type, String data, Map<String, List<String>> trusts,
+            List<String> bankTransactions) {
+        this.claimUniqueId = claimUniqueId;
+        this.data = data;
+        this.trusts = trusts;
+        this.bankTransactions = bankTransactions;
+        try {
+            if (type == ClaimType.TOWN) {
+                this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(TownDataConfig.class).bindToNew();
+            } else {
+                this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(ClaimDataConfig.class).bindToNew();
+            }
+            this.configMapper.getInstance().setClaimStorageData(this);
+            load();
+            ((EconomyDataConfig) this.configMapper.getInstance().getEconomyData()).activeConfig = GriefPreventionPlugin.getActiveConfig(worldUniqueId);
+        } catch (Exception e) {
+            SpongeImpl.getLogger().error("Failed to initialize configuration", e);
+        }
+    }
+
+    public UUID getClaimUniqueId() {
+        return this.claimUniqueId;
+    }
+
+    /**
+     * Creates storage holding the current data of this claim, bound to the
+     * config of the given type.
+     */
+    public DatabaseClaimStorageData rebind(UUID worldUniqueId, ClaimType type) throws ObjectMappingException, IOException {
+        final Row row = this.createRow();
+        return new DatabaseClaimStorageData(this.claimUniqueId, worldUniqueId, type, row.getData(), row.getTrusts(), row.getBankTransactions());
+    }
+
+    @Override
+    public PersistenceQueue.Write snapshot() throws ObjectMappingException {
+        final Row row = this.createRow();
+        return () -> {
+            DatabaseDataStore.getInstance().getTables().writeClaims(Collections.singletonList(row));
+            return row.getSize();
+        };
+    }
+
+    /**
+     * Captures the current claim data as the rows written by
+     * {@link DatabaseDataStore}.
+     */
+    public Row createRow() throws ObjectMappingException {
+        final CommentedConfigurationNode node = this.root.getNode(GriefPreventionPlugin.MOD_ID);
+        this.configMapper.serialize(node);
+        this.configBase.setRequiresSave(false);
+        final Map<String, List<String>> trusts = new HashMap<>();
+        for (String key : TRUST_KEYS) {
+            final List<String> values = node.getNode(key).getList(Object::toString);
+            if (!values.isEmpty()) {
+                trusts.put(key, values);
+            }
+            node.removeChild(key);
+        }
+        final List<String> bankTransactions = node.getNode(ECONOMY_DATA, BANK_TRANSACTION_LOG).getList(Object::toString);
+        node.getNode(ECONOMY_DATA).removeChild(BANK_TRANSACTION_LOG);
+        return new Row(this.claimUniqueId, this.configBase, this.root.copy(), trusts, bankTransactions);
+    }
+
+    @Override
+    public void load() {
+        try {
+            final String data = this.data;
+            this.root = HoconConfigurationLoader.builder()
+                    .setSource(() -> new BufferedReader(new StringReader(data)))
+                    .build()
+                    .load(ConfigurationOptions.defaults());
+            final CommentedConfigurationNode node = this.root.getNode(GriefPreventionPlugin.MOD_ID);
+            for (String key : TRUST_KEYS) {
+                final List<String> values = this.trusts.get(key);
+                node.getNode(key).setValue(values == null ? new ArrayList<>() : values);
+            }
+            node.getNode(ECONOMY_DATA, BANK_TRANSACTION_LOG).setValue(this.bankTransactions);
+            this.configBase = this.configMapper.populate(node);
+            // trust lists may have been replaced
+            this.configBase.updateTrustIndex();
+        } catch (Exception e) {
+            SpongeImpl.getLogger().error("Failed to load configuration", e);
+        }
+    }
+
+    /**
+     * An immutable copy of a claim's stored values, safe to write off the
+     * main thread.
+     */
+    public static final class Row {
+
+        private final UUID claimUniqueId;
+        private final UUID worldUniqueId;
+        @Nullable private final UUID parentUniqueId;
+        @Nullable private final UUID ownerUniqueId;
+        private final ClaimType type;
+        private final boolean cuboid;
+        private final Vector3i lesserBoundaryCorner;
+        private final Vector3i greaterBoundaryCorner;
+        private final CommentedConfigurationNode root;
+        private final Map<String, List<String>> trusts;
+        private final List<String> bankTransactions;
+        @Nullable private String data;
+
+        public Row(UUID claimUniqueId, ClaimDataConfig config, CommentedConfigurationNode root, Map<String, List<String>> trusts,
+                List<String> bankTransactions) {
+            this.claimUniqueId = claimUniqueId;
+            this.worldUniqueId = config.getWorldUniqueId();
+            this.parentUniqueId = config.getParent().orElse(null);
+            this.ownerUniqueId = config.getOwnerUniqueId();
+            this.type = config.getType();
+            this.cuboid = config.isCuboid();
+            this.lesserBoundaryCorner = config.getLesserBoundaryCornerPos();
+            this.greaterBoundaryCorner = config.getGreaterBoundaryCornerPos();
+            this.root = root;
+            this.trusts = trusts;
+            this.bankTransactions = bankTransactions;
+        }
+
+        public UUID getClaimUniqueId() {
+            return this.claimUniqueId;
+        }
+
+        public UUID getWorldUniqueId() {
+            return this.worldUniqueId;
+        }
+
+        @Nullable
+        public UUID getParentUniqueId() {
+            return this.parentUniqueId;
+        }
+
+        @Nullable
+        public UUID getOwnerUniqueId() {
+            return this.ownerUniqueId;
+        }
+
+        public ClaimType getType() {
+            return this.type;
+        }
+
+        public boolean isCuboid() {
+            return this.cuboid;
+        }
+
+        public Vector3i getLesserBoundaryCorner() {
+            return this.lesserBoundaryCorner;
+        }
+
+        public Vector3i getGreaterBoundaryCorner() {
+            return this.greaterBoundaryCorner;
+        }
+
+        public Map<String, List<String>> getTrusts() {
+            return this.trusts;
+        }
+
+        public List<String> getBankTransactions() {
+            return this.bankTransactions;
+        }
+
+        // rendered on first use so it happens on the writing thread
+        public String getData() throws IOException {
+            if (this.data == null) {
+                final StringWriter writer = new StringWriter();
+                HoconConfigurationLoader.builder()
+                        .setRenderOptions(RENDER_OPTIONS)
+                        .setSink(() -> new BufferedWriter(writer))
+                        .build()
+                        .save(this.root);
+                this.data = writer.toString();
+            }
+            return this.data;
+        }
+
+        public long getSize() throws IOException {
+            long size = this.getData().length();
+            for (List<String> subjects : this.trusts.values()) {
+                for (String subject : subjects) {
+                    size += subject.length();
+                }
+            }
+            for (String transaction : this.bankTransactions) {
+                size += transaction.length();
+            }
+            return size;
+        }
+    }
+}
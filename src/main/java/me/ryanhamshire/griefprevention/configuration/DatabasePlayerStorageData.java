@@ -0,0 +1,161 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.configuration;
+
+import me.ryanhamshire.griefprevention.DatabaseDataStore;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.common.SpongeImpl;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Player storage backed by {@link DatabaseDataStore}.
+ *
+ * <p>Storage created on the main thread reads its row on
+ * {@link GriefPreventionPlugin#executor}. Until then changes are made to a
+ * placeholder config and applied on top of the row once it was read.</p>
+ */
+public class DatabasePlayerStorageData extends PlayerStorageData {
+
+    private final UUID scopeUniqueId;
+    private final UUID playerUniqueId;
+    private volatile boolean loaded;
+    // read to apply on the main thread, 0 if none
+    private volatile long pendingLoad;
+    private long loadCount;
+
+    public DatabasePlayerStorageData(UUID scopeUniqueId, UUID playerUniqueId) {
+        this.scopeUniqueId = scopeUniqueId;
+        this.playerUniqueId = playerUniqueId;
+        this.configBase = new PlayerDataConfig();
+        if (Sponge.getServer().isMainThread()) {
+            this.loadAsync();
+        } else {
+            this.load();
+        }
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return this.loaded && this.pendingLoad == 0;
+    }
+
+    @Override
+    public PersistenceQueue.Write snapshot() {
+        // a placeholder would replace the stored row, it is saved once the row was applied
+        if (!this.isLoaded() || this.configBase == null || !this.configBase.requiresSave()) {
+            return null;
+        }
+        final PlayerDataConfig config = copyOf(this.configBase);
+        this.configBase.setRequiresSave(false);
+        return () -> {
+            DatabaseDataStore.getInstance().getTables().writePlayers(this.scopeUniqueId, Collections.singletonMap(this.playerUniqueId, config));
+            return Integer.BYTES * 2 + 1;
+        };
+    }
+
+    // Blocks on the read, only used off the main thread and during world load
+    @Override
+    public void load() {
+        this.pendingLoad = 0;
+        final PlayerDataConfig base = copyOf(this.configBase);
+        final PlayerDataConfig row = new PlayerDataConfig();
+        final Boolean found = this.readRow(row);
+        if (found != null) {
+            this.apply(base, row, found);
+        }
+    }
+
+    @Override
+    public void loadAsync() {
+        if (this.pendingLoad != 0) {
+            return;
+        }
+        final long load = ++this.loadCount;
+        this.pendingLoad = load;
+        final PlayerDataConfig base = copyOf(this.configBase);
+        GriefPreventionPlugin.instance.executor.execute(() -> {
+            final PlayerDataConfig row = new PlayerDataConfig();
+            final Boolean found = this.readRow(row);
+            Sponge.getScheduler().createTaskBuilder().execute(() -> {
+                // replaced by a blocking load
+                if (this.pendingLoad != load) {
+                    return;
+                }
+                this.pendingLoad = 0;
+                if (found != null) {
+                    this.apply(base, row, found);
+                    this.save();
+                }
+            }).submit(GriefPreventionPlugin.instance);
+        });
+    }
+
+    // null if the row could not be read, the placeholder is then never saved over it
+    private Boolean readRow(PlayerDataConfig row) {
+        try {
+            return DatabaseDataStore.getInstance().getTables().readPlayer(this.scopeUniqueId, this.playerUniqueId, row);
+        } catch (SQLException e) {
+            SpongeImpl.getLogger().error("Failed to load player data", e);
+            return null;
+        }
+    }
+
+    // Applies changes made since base was captured on top of the stored row
+    private void apply(PlayerDataConfig base, PlayerDataConfig row, boolean found) {
+        this.loaded = true;
+        final PlayerDataConfig config = this.configBase;
+        if (!found) {
+            // new players are stored as is
+            config.setRequiresSave(true);
+            return;
+        }
+        final int accruedChange = config.getAccruedClaimBlocks() - base.getAccruedClaimBlocks();
+        final int bonusChange = config.getBonusClaimBlocks() - base.getBonusClaimBlocks();
+        final boolean migrated = config.hasMigratedBlocks() && !base.hasMigratedBlocks();
+        final Instant localLastSeen = config.getLastSeen();
+        final Instant lastSeen = localLastSeen != null && (row.getLastSeen() == null || localLastSeen.isAfter(row.getLastSeen()))
+                ? localLastSeen : row.getLastSeen();
+        config.setAccruedClaimBlocks(row.getAccruedClaimBlocks() + accruedChange);
+        config.setBonusClaimBlocks(row.getBonusClaimBlocks() + bonusChange);
+        config.setMigratedBlocks(row.hasMigratedBlocks() || migrated);
+        config.setLastSeen(lastSeen);
+        config.setRequiresSave(accruedChange != 0 || bonusChange != 0 || migrated || !Objects.equals(lastSeen, row.getLastSeen()));
+    }
+
+    private static PlayerDataConfig copyOf(PlayerDataConfig source) {
+        final PlayerDataConfig config = new PlayerDataConfig();
+        config.setAccruedClaimBlocks(source.getAccruedClaimBlocks());
+        config.setBonusClaimBlocks(source.getBonusClaimBlocks());
+        config.setMigratedBlocks(source.hasMigratedBlocks());
+        config.setLastSeen(source.getLastSeen());
+        return config;
+    }
+}
@@ -25,6 +25,7 @@
 package me.ryanhamshire.griefprevention.configuration;
 
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.api.claim.TrustType;
 import me.ryanhamshire.griefprevention.api.data.ClaimData;
 
 import java.util.List;
@@ -52,6 +53,51 @@ public interface IClaimData extends ClaimData {
 
     List<String> getManagerGroups();
 
+    /**
+     * Checks the user trust lists using the in-memory trust index.
+     *
+     * @param uuid The user or public uuid
+     * @param type The trust type, which is also granted by any higher type
+     * @return Whether the uuid is trusted
+     */
+    boolean hasUserTrust(UUID uuid, TrustType type);
+
+    /**
+     * Trusts a user and updates the trust index.
+     *
+     * @param uuid The user or public uuid
+     * @param type The trust type
+     * @return Whether the user was not already trusted with the type
+     */
+    boolean addUserTrust(UUID uuid, TrustType type);
+
+    /**
+     * Removes a user's trust and updates the trust index.
+     *
+     * @param uuid The user or public uuid
+     * @param type The trust type, or {@link TrustType#NONE} for every type
+     * @return Whether any trust was removed
+     */
+    boolean removeUserTrust(UUID uuid, TrustType type);
+
+    /**
+     * Removes every user trust and updates the trust index.
+     */
+    void clearUserTrusts();
+
+    /**
+     * Rebuilds the trust index after the trust lists are loaded.
+     */
+    void updateTrustIndex();
+
+    /**
+     * Gets the generation of this data for cached permission decisions. It
+     * changes whenever the data is marked for saving.
+     *
+     * @return The generation
+     */
+    long getPermissionGeneration();
+
     void setOwnerUniqueId(UUID newClaimOwner);
 
     void setWorldUniqueId(UUID uuid);
@@ -0,0 +1,243 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.configuration;
+
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.common.SpongeImpl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+/**
+ * Write-behind queue for claim and player storage.
+ *
+ * <p>Saves only mark a storage as dirty. Dirty storages are captured on the
+ * main thread once per flush, so repeated saves are coalesced and config
+ * objects are never read off the main thread. Rendering and I/O then run on
+ * {@link GriefPreventionPlugin#executor}, one flush after another so writes
+ * to the same storage stay in order.</p>
+ */
+public class PersistenceQueue {
+
+    /**
+     * Storage that can be saved through the queue.
+     */
+    public interface Persistable {
+
+        /**
+         * Captures the data to write, called on the main thread.
+         *
+         * @return The write to run, or null if there is nothing to write
+         */
+        @Nullable
+        Write snapshot() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Write {
+
+        /**
+         * Writes captured data, called on the executor.
+         *
+         * @return The number of bytes written
+         */
+        long write() throws Exception;
+    }
+
+    private static final Set<Persistable> PENDING = ConcurrentHashMap.newKeySet();
+    // storages captured but not written yet
+    private static final Map<Persistable, Integer> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final AtomicBoolean FLUSH_SCHEDULED = new AtomicBoolean();
+    private static final Object WRITE_LOCK = new Object();
+    private static CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+    private static final LongAdder ENQUEUED = new LongAdder();
+    private static final LongAdder COALESCED = new LongAdder();
+    private static final LongAdder WRITES = new LongAdder();
+    private static final LongAdder FAILURES = new LongAdder();
+    private static final LongAdder BYTES_WRITTEN = new LongAdder();
+    private static final LongAdder FLUSHES = new LongAdder();
+    private static final LongAdder FLUSH_NANOS = new LongAdder();
+    private static final AtomicLong LAST_FLUSH_NANOS = new AtomicLong();
+    private static final AtomicLong MAX_FLUSH_NANOS = new AtomicLong();
+
+    public static void enqueue(Persistable storage) {
+        ENQUEUED.increment();
+        if (!PENDING.add(storage)) {
+            COALESCED.increment();
+            return;
+        }
+        if (FLUSH_SCHEDULED.compareAndSet(false, true)) {
+            final int delay = Math.max(1, GriefPreventionPlugin.getGlobalConfig().getConfig().thread.storageFlushDelay);
+            Sponge.getScheduler().createTaskBuilder().delayTicks(delay).execute(PersistenceQueue::flush).submit(GriefPreventionPlugin.instance);
+        }
+    }
+
+    /**
+     * Runs a write after every write already submitted, used for deletes
+     * and moves. Any pending save of the storage is discarded.
+     */
+    public static void submit(@Nullable Persistable storage, Write write) {
+        if (storage != null) {
+            PENDING.remove(storage);
+        }
+        final List<Persistable> storages = new ArrayList<>(1);
+        final List<Write> writes = new ArrayList<>(1);
+        storages.add(storage);
+        writes.add(write);
+        submit(storages, writes);
+    }
+
+    /**
+     * Captures every dirty storage and submits the writes to the executor.
+     * Must be called on the main thread.
+     */
+    public static void flush() {
+        FLUSH_SCHEDULED.set(false);
+        if (PENDING.isEmpty()) {
+            return;
+        }
+        final List<Persistable> storages = new ArrayList<>();
+        final List<Write> writes = new ArrayList<>();
+        final Iterator<Persistable> iterator = PENDING.iterator();
+        while (iterator.hasNext()) {
+            final Persistable storage = iterator.next();
+            iterator.remove();
+            try {
+                final Write write = storage.snapshot();
+                if (write != null) {
+                    storages.add(storage);
+                    writes.add(write);
+                }
+            } catch (Exception e) {
+                FAILURES.increment();
+                SpongeImpl.getLogger().error("Failed to save configuration", e);
+            }
+        }
+        if (!writes.isEmpty()) {
+            submit(storages, writes);
+        }
+    }
+
+    /**
+     * Flushes the queue and blocks until every submitted write completed.
+     * Used on shutdown and world unload.
+     */
+    public static void flushAndWait() {
+        flush();
+        final CompletableFuture<Void> pendingWrite;
+        synchronized (WRITE_LOCK) {
+            pendingWrite = lastWrite;
+        }
+        pendingWrite.join();
+    }
+
+    public static boolean isQueued(Persistable storage) {
+        return PENDING.contains(storage) || IN_FLIGHT.containsKey(storage);
+    }
+
+    private static void submit(List<Persistable> storages, List<Write> writes) {
+        for (Persistable storage : storages) {
+            if (storage != null) {
+                IN_FLIGHT.merge(storage, 1, Integer::sum);
+            }
+        }
+        synchronized (WRITE_LOCK) {
+            // writes never complete exceptionally so the chain is never broken
+            lastWrite = lastWrite.thenRunAsync(() -> runWrites(storages, writes), GriefPreventionPlugin.instance.executor);
+        }
+    }
+
+    private static void runWrites(List<Persistable> storages, List<Write> writes) {
+        final long start = System.nanoTime();
+        for (int i = 0; i < writes.size(); i++) {
+            try {
+                BYTES_WRITTEN.add(writes.get(i).write());
+                WRITES.increment();
+            } catch (Throwable t) {
+                FAILURES.increment();
+                SpongeImpl.getLogger().error("Failed to save configuration", t);
+            }
+            final Persistable storage = storages.get(i);
+            if (storage != null) {
+                IN_FLIGHT.computeIfPresent(storage, (k, count) -> count == 1 ? null : count - 1);
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        FLUSHES.increment();
+        FLUSH_NANOS.add(elapsed);
+        LAST_FLUSH_NANOS.set(elapsed);
+        MAX_FLUSH_NANOS.accumulateAndGet(elapsed, Math::max);
+    }
+
+    public static int getQueueDepth() {
+        return PENDING.size() + IN_FLIGHT.size();
+    }
+
+    public static long getEnqueuedCount() {
+        return ENQUEUED.sum();
+    }
+
+    public static long getCoalescedCount() {
+        return COALESCED.sum();
+    }
+
+    public static long getWriteCount() {
+        return WRITES.sum();
+    }
+
+    public static long getFailureCount() {
+        return FAILURES.sum();
+    }
+
+    public static long getBytesWritten() {
+        return BYTES_WRITTEN.sum();
+    }
+
+    public static double getAverageFlushMillis() {
+        final long flushes = FLUSHES.sum();
+        return flushes == 0 ? 0 : FLUSH_NANOS.sum() / (double) flushes / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public static double getLastFlushMillis() {
+        return LAST_FLUSH_NANOS.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public static double getMaxFlushMillis() {
+        return MAX_FLUSH_NANOS.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
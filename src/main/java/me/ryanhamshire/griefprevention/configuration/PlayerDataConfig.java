@@ -28,6 +28,10 @@
 import ninja.leaping.configurate.objectmapping.Setting;
 import ninja.leaping.configurate.objectmapping.serialize.ConfigSerializable;
 
+import java.time.Instant;
+
+import javax.annotation.Nullable;
+
 @ConfigSerializable
 public class PlayerDataConfig extends ConfigCategory {
 
@@ -40,6 +44,9 @@ public class PlayerDataConfig extends ConfigCategory {
     private int bonusClaimBlocks = 0;
     @Setting(value = "migrated-blocks")
     private boolean migrated = false;
+    @Setting(value = "last-seen", comment = "When the player last logged in to or entered this world. Claim expiration counts from this date "
+            + "\nwhen it is later than the claim's own last active date.")
+    private String lastSeen;
 
     public int getAccruedClaimBlocks() {
         return this.accruedClaimBlocks;
@@ -59,6 +66,16 @@ public void setBonusClaimBlocks(int blocks) {
         this.bonusClaimBlocks = blocks;
     }
 
+    @Nullable
+    public Instant getLastSeen() {
+        return this.lastSeen == null ? null : Instant.parse(this.lastSeen);
+    }
+
+    public void setLastSeen(@Nullable Instant date) {
+        this.requiresSave = true;
+        this.lastSeen = date == null ? null : date.toString();
+    }
+
     public boolean requiresSave() {
         return this.requiresSave;
     }
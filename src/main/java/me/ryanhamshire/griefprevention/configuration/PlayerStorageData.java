@@ -33,20 +33,24 @@
 import ninja.leaping.configurate.objectmapping.ObjectMappingException;
 import org.spongepowered.common.SpongeImpl;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
-public class PlayerStorageData {
+public class PlayerStorageData implements PersistenceQueue.Persistable {
 
     private HoconConfigurationLoader loader;
     private CommentedConfigurationNode root = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults());
     private ObjectMapper<PlayerDataConfig>.BoundInstance configMapper;
-    private PlayerDataConfig configBase;
+    protected PlayerDataConfig configBase;
+    private Path path;
+
+    // Used by storage backends that are not file based
+    protected PlayerStorageData() {
+    }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     public PlayerStorageData(Path path) {
-
+        this.path = path;
         try {
             if (Files.notExists(path.getParent())) {
                 Files.createDirectories(path.getParent());
@@ -70,17 +74,34 @@ public PlayerDataConfig getConfig() {
     }
 
     public void save() {
-        try {
-            if (this.configBase != null) {
-                if (this.configBase.requiresSave()) {
-                    this.configMapper.serialize(this.root.getNode(GriefPreventionPlugin.MOD_ID));
-                    this.loader.save(this.root);
-                    this.configBase.setRequiresSave(false);
-                }
-            }
-        } catch (IOException | ObjectMappingException e) {
-            SpongeImpl.getLogger().error("Failed to save configuration", e);
+        if (this.configBase != null && this.configBase.requiresSave()) {
+            PersistenceQueue.enqueue(this);
+        }
+    }
+
+    @Override
+    public PersistenceQueue.Write snapshot() throws ObjectMappingException {
+        if (this.configBase == null || !this.configBase.requiresSave()) {
+            return null;
         }
+        this.configMapper.serialize(this.root.getNode(GriefPreventionPlugin.MOD_ID));
+        this.configBase.setRequiresSave(false);
+        final CommentedConfigurationNode data = this.root.copy();
+        final HoconConfigurationLoader loader = this.loader;
+        final Path path = this.path;
+        return () -> {
+            loader.save(data);
+            return Files.size(path);
+        };
+    }
+
+    // File storage is read in place
+    public void loadAsync() {
+        this.load();
+    }
+
+    public boolean isLoaded() {
+        return true;
     }
 
     public void load() {
@@ -31,6 +31,10 @@
 
 public class TownStorageData extends ClaimStorageData {
 
+    // Used when a claim file is moved
+    TownStorageData() {
+    }
+
     public TownStorageData(Path path, UUID worldUniqueId, UUID ownerUniqueId, boolean cuboid) {
         super(path, worldUniqueId, ownerUniqueId, ClaimType.TOWN, cuboid);
     }
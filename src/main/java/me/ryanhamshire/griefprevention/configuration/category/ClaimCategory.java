@@ -61,6 +61,9 @@ public class ClaimCategory extends ConfigCategory {
     public int taxApplyHour = 12;
     @Setting(value = "bank-transaction-log-limit")
     public int bankTransactionLogLimit = 60;
+    @Setting(value = "use-spatial-index", comment = "Whether to resolve claims at a location using a hierarchical spatial index instead of scanning all claims in the chunk. (Default: true)"
+            + "\nNote: Set to false to fall back to the chunk claim map.")
+    public boolean useSpatialIndex = true;
     @Setting(value = "hide-borders-when-using-wecui", comment = "Whether to hide the glowstone/gold block borders when using WECUI.")
     public boolean hideBorders = false;
 
@@ -27,13 +27,45 @@
 import ninja.leaping.configurate.objectmapping.Setting;
 import ninja.leaping.configurate.objectmapping.serialize.ConfigSerializable;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
 @ConfigSerializable
 public class DatabaseCategory extends ConfigCategory {
 
-    @Setting(value = "password", comment = "password")
+    @Setting(value = "password", comment = "The password used to connect to the database, if it is not part of the url.")
     public String dbPassword = "";
-    @Setting(value = "username", comment = "username")
+    @Setting(value = "username", comment = "The username used to connect to the database, if it is not part of the url.")
     public String dbUsername = "";
-    @Setting(value = "url", comment = "url")
+    @Setting(value = "url", comment =
+            "The JDBC url of the database used to store claim and player data. Leave empty to use flat file storage." +
+            "\nEx. 'jdbc:h2:gp-data' for an embedded database, relative H2 paths are resolved against the plugin config folder." +
+            "\nEx. 'jdbc:mysql://localhost/griefprevention' for an external database along with username and password.")
     public String dbURL = "";
-}
\ No newline at end of file
+    @Setting(value = "migrate-flat-file", comment =
+            "Set to true to copy existing flat file claim and player data into the database once per world." +
+            "\nNote: Flat files are left in place and are no longer updated.")
+    public boolean migrateFlatFile = false;
+    @Setting(value = "batch-size", comment = "The maximum number of rows sent to the database in a single batch.")
+    public int batchSize = 500;
+
+    /**
+     * Gets the url passed to the sql service, with the configured
+     * credentials added in the 'user:password@host' form it expects.
+     */
+    public String getConnectionUrl() {
+        final int hostIndex = this.dbURL.indexOf("://");
+        if (this.dbUsername.isEmpty() || hostIndex < 0 || this.dbURL.indexOf('@', hostIndex) >= 0) {
+            return this.dbURL;
+        }
+        try {
+            String credentials = URLEncoder.encode(this.dbUsername, "UTF-8");
+            if (!this.dbPassword.isEmpty()) {
+                credentials += ":" + URLEncoder.encode(this.dbPassword, "UTF-8");
+            }
+            return this.dbURL.substring(0, hostIndex + 3) + credentials + "@" + this.dbURL.substring(hostIndex + 3);
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
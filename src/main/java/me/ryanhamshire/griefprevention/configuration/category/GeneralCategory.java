@@ -56,6 +56,14 @@ public class GeneralCategory extends ConfigCategory {
     public List<String> whisperCommandList = new ArrayList<>();
     @Setting(value = "protect-item-drops-death-non-pvp", comment = "Whether players' dropped on death items are protected in non-pvp worlds.")
     public boolean protectItemsOnDeathNonPvp = true;
+    @Setting(value = "permission-cache-size", comment = "The max number of claim permission results to cache. Set to 0 to disable. (Default: 50000)"
+            + "\nNote: This is only read from the global config.")
+    public int permissionCacheSize = 50000;
+    @Setting(value = "permission-cache-expiry", comment = "The number of seconds a cached claim permission result stays valid. (Default: 5)"
+            + "\nNote: Cached results are dropped whenever claim data changes or the permissions plugin reports a subject data update."
+            + "\nIf your permissions plugin does not report updates, a permission revoked in it may still be granted for up to this many seconds."
+            + "\nLower values apply such changes sooner at the cost of fewer cache hits.")
+    public int permissionCacheExpiry = 5;
     @Setting(value = "chat-rules-enabled", comment = "Whether chat should be monitored and filtered by rules.")
     public boolean chatProtectionEnabled = false;
 }
\ No newline at end of file
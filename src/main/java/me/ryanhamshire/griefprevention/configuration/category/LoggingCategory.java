@@ -38,4 +38,11 @@ public class LoggingCategory extends ConfigCategory {
     public boolean loggingSocialActions = false;
     @Setting(value = "suspicious-activity", comment = "Log suspicious activity.")
     public boolean loggingSuspiciousActivity = false;
+    @Setting(value = "buffer-size", comment = "How many log entries can wait in memory to be written. Rounded up to a power of two.")
+    public int bufferSize = 8192;
+    @Setting(value = "write-interval", comment = "Seconds between writes of waiting log entries. Entries are written early when the buffer is half full.")
+    public int writeInterval = 10;
+    @Setting(value = "block-when-full", comment = "If true, threads other than the main thread wait up to a second for room when the log buffer is full."
+            + "\nIf false, or on the main thread, the entry is dropped and counted.")
+    public boolean blockWhenFull = false;
 }
\ No newline at end of file
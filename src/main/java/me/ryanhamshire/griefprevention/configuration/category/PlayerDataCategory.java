@@ -33,6 +33,9 @@ public class PlayerDataCategory extends ConfigCategory {
 
     @Setting(value = "use-global-storage", comment = "Whether player data should be stored globally. False will store all data per world.")
     public boolean useGlobalPlayerDataStorage = true;
+    @Setting(value = "idle-time-to-live", comment = "Minutes to keep data of an offline player who owns no claims in memory after it was last used."
+            + "\nSet to 0 to keep it until the player disconnects or the server stops. (Default: 30)")
+    public int idleTimeToLive = 30;
     @Setting(value = "claim-block-system", comment = "Determines which claim block system to use for claims. (Default: AREA)\nIf set to VOLUME, claim blocks will use the chunk count system to balance 3d claiming."
             + "\nIf set to AREA, the standard 2d block count system will be used.")
     public ClaimBlockSystem claimBlockSystem = ClaimBlockSystem.AREA;
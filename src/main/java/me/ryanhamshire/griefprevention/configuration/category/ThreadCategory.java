@@ -32,4 +32,7 @@ public class ThreadCategory extends ConfigCategory {
 
     @Setting(value = "executor-threads", comment = "The number of threads to use for GP's executor. (Default: 1)")
     public int numExecutorThreads = 1;
+    @Setting(value = "storage-flush-delay", comment = "The number of ticks claim and player saves are held to coalesce repeated saves before "
+            + "being written on GP's executor. (Default: 20)")
+    public int storageFlushDelay = 20;
 }
@@ -37,8 +37,13 @@
 import me.ryanhamshire.griefprevention.api.claim.ClaimResult;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.api.claim.TrustType;
+import me.ryanhamshire.griefprevention.chat.ChatSpamState;
+import me.ryanhamshire.griefprevention.claim.ClaimCursor;
+import me.ryanhamshire.griefprevention.claim.ExplosionClaimFilter;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
+import me.ryanhamshire.griefprevention.claim.GPClaimManager;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
+import me.ryanhamshire.griefprevention.permission.GPPermissionBatch;
 import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
 import me.ryanhamshire.griefprevention.util.BlockPosCache;
@@ -91,6 +96,7 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -182,20 +188,23 @@ public void onBlockPre(ChangeBlockEvent.Pre event) {
         // Handle player block breaks separately
         if (isForgePlayerBreak && !hasFakePlayer && source instanceof Player) {
             final Player player = (Player) source;
+            final ClaimCursor cursor = this.dataStore.getClaimWorldManager(world.getProperties()).createCursor();
+            final GPPermissionBatch batch = new GPPermissionBatch(event, GPPermissions.BLOCK_BREAK, source, player, TrustType.BUILDER, true);
             GPClaim targetClaim = null;
             for (Location<World> location : event.getLocations()) {
-                if (GriefPreventionPlugin.isTargetIdBlacklisted(ClaimFlag.BLOCK_BREAK.toString(), location.getBlock(), world.getProperties())) {
+                final BlockState blockState = location.getBlock();
+                if (batch.isTargetIdBlacklisted(ClaimFlag.BLOCK_BREAK.toString(), blockState, world.getProperties())) {
                    GPTimings.BLOCK_PRE_EVENT.stopTimingIfSync();
                    return;
                 }
 
-                targetClaim = this.dataStore.getClaimAt(location, targetClaim);
-                if (location.getBlockType() == BlockTypes.AIR) {
+                targetClaim = cursor.getClaimAt(location);
+                if (blockState.getType() == BlockTypes.AIR) {
                     continue;
                 }
 
                 // check overrides
-                final Tristate result = GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.BLOCK_BREAK, source, location.getBlock(), player, TrustType.BUILDER, true);
+                final Tristate result = batch.getClaimPermission(location, targetClaim, blockState, blockState);
                 if (result != Tristate.TRUE) {
                     final Text message = GriefPreventionPlugin.instance.messageData.permissionBuild
                             .apply(ImmutableMap.of(
@@ -220,6 +229,9 @@ public void onBlockPre(ChangeBlockEvent.Pre event) {
             }
             GPClaim sourceClaim = this.dataStore.getClaimAt(sourceLocation);
             GPClaim targetClaim = null;
+            final ClaimCursor cursor = this.dataStore.getClaimWorldManager(world.getProperties()).createCursor();
+            final GPPermissionBatch batch = new GPPermissionBatch(event, isLeafDecay ? GPPermissions.LEAF_DECAY : isFireSource ? GPPermissions.FIRE_SPREAD
+                    : isLiquidSource ? GPPermissions.LIQUID_FLOW : GPPermissions.BLOCK_BREAK, source, user, null, true);
             List<Location<World>> sourceLocations = event.getLocations();
             if (pistonExtend) {
                 // check next block in extend direction
@@ -237,12 +249,12 @@ public void onBlockPre(ChangeBlockEvent.Pre event) {
                         continue;
                     }
                 }
-                if (GriefPreventionPlugin.isTargetIdBlacklisted(ClaimFlag.BLOCK_BREAK.toString(), location.getBlock(), world.getProperties())) {
+                final BlockState blockState = location.getBlock();
+                if (batch.isTargetIdBlacklisted(ClaimFlag.BLOCK_BREAK.toString(), blockState, world.getProperties())) {
                     continue;
                 }
 
-                final BlockState blockState = location.getBlock();
-                targetClaim = this.dataStore.getClaimAt(location, targetClaim);
+                targetClaim = cursor.getClaimAt(location);
                 if (user != null && targetClaim.isUserTrusted(user, TrustType.BUILDER)) {
                     if (shouldLogEvent) {
                         GPPermissionHandler.addEventLogEntry(event, location, source, blockState, user, GPPermissions.BLOCK_BREAK, TrustType.BUILDER.name().toLowerCase(), Tristate.TRUE);
@@ -272,26 +284,26 @@ public void onBlockPre(ChangeBlockEvent.Pre event) {
                     }
                 }
                 if (isLeafDecay) {
-                    if (GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.LEAF_DECAY, source, blockState, user, true) == Tristate.FALSE) {
+                    if (batch.getClaimPermission(location, targetClaim, blockState, blockState) == Tristate.FALSE) {
                         event.setCancelled(true);
                         GPTimings.BLOCK_PRE_EVENT.stopTimingIfSync();
                         return;
                     }
                 } else if (isFireSource) {
-                    if (GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.FIRE_SPREAD, source, blockState, user, true) == Tristate.FALSE) {
+                    if (batch.getClaimPermission(location, targetClaim, blockState, blockState) == Tristate.FALSE) {
                         event.setCancelled(true);
                         GPTimings.BLOCK_PRE_EVENT.stopTimingIfSync();
                         return;
                     }
                 } else if (isLiquidSource) {
-                    if (GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.LIQUID_FLOW, source, blockState, user, true) == Tristate.FALSE) {
+                    if (batch.getClaimPermission(location, targetClaim, blockState, blockState) == Tristate.FALSE) {
                         event.setCancelled(true);
                         lastBlockPreCancelled = true;
                         GPTimings.BLOCK_PRE_EVENT.stopTimingIfSync();
                         return;
                     }
                     continue;
-                } else if (GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.BLOCK_BREAK, source, blockState, user, true) == Tristate.FALSE) {
+                } else if (batch.getClaimPermission(location, targetClaim, blockState, blockState) == Tristate.FALSE) {
                     // PRE events can be spammy so we need to avoid sending player messages here.
                     event.setCancelled(true);
                     lastBlockPreCancelled = true;
@@ -302,6 +314,9 @@ public void onBlockPre(ChangeBlockEvent.Pre event) {
         } else if (user != null) {
             final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getPlayerData(world, user.getUniqueId());
             GPClaim targetClaim = null;
+            final ClaimCursor cursor = this.dataStore.getClaimWorldManager(world.getProperties()).createCursor();
+            final GPPermissionBatch batch = new GPPermissionBatch(event, isFireSource ? GPPermissions.FIRE_SPREAD
+                    : isLiquidSource ? GPPermissions.LIQUID_FLOW : GPPermissions.BLOCK_BREAK, source, user, null, true);
             for (Location<World> location : event.getLocations()) {
                 // Mods such as enderstorage will send chest updates to itself
                 // We must ignore cases like these to avoid issues with mod
@@ -310,12 +325,12 @@ public void onBlockPre(ChangeBlockEvent.Pre event) {
                         continue;
                     }
                 }
-                if (GriefPreventionPlugin.isTargetIdBlacklisted(ClaimFlag.BLOCK_BREAK.toString(), location.getBlock(), world.getProperties())) {
+                final BlockState blockState = location.getBlock();
+                if (batch.isTargetIdBlacklisted(ClaimFlag.BLOCK_BREAK.toString(), blockState, world.getProperties())) {
                     continue;
                 }
 
-                final BlockState blockState = location.getBlock();
-                targetClaim = this.dataStore.getClaimAt(location, targetClaim);
+                targetClaim = cursor.getClaimAt(location);
                 // If a player successfully interacted with a block recently such as a pressure plate, ignore check
                 // This fixes issues such as pistons not being able to extend
                 if (!isForgePlayerBreak && playerData != null && playerData.checkLastInteraction(targetClaim, user)) {
@@ -329,20 +344,20 @@ public void onBlockPre(ChangeBlockEvent.Pre event) {
                 }
 
                 if (isFireSource) {
-                    if (GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.FIRE_SPREAD, source, blockState, user, true) == Tristate.FALSE) {
+                    if (batch.getClaimPermission(location, targetClaim, blockState, blockState) == Tristate.FALSE) {
                         event.setCancelled(true);
                         GPTimings.BLOCK_PRE_EVENT.stopTimingIfSync();
                         return;
                     }
                 } else if (isLiquidSource) {
-                    if (GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.LIQUID_FLOW, source, blockState, user, true) == Tristate.FALSE) {
+                    if (batch.getClaimPermission(location, targetClaim, blockState, blockState) == Tristate.FALSE) {
                         event.setCancelled(true);
                         lastBlockPreCancelled = true;
                         GPTimings.BLOCK_PRE_EVENT.stopTimingIfSync();
                         return;
                     }
                     continue;
-                } else if (GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.BLOCK_BREAK, source, blockState, user, true) == Tristate.FALSE) {
+                } else if (batch.getClaimPermission(location, targetClaim, blockState, blockState) == Tristate.FALSE) {
                     event.setCancelled(true);
                     lastBlockPreCancelled = true;
                     GPTimings.BLOCK_PRE_EVENT.stopTimingIfSync();
@@ -398,6 +413,16 @@ public void onBlockNotify(NotifyNeighborBlockEvent event) {
         }
 
         GPTimings.BLOCK_NOTIFY_EVENT.startTimingIfSync();
+        // skip neighbor lookups when the update cannot leave the source claim
+        final GPClaimManager claimManager = this.dataStore.getClaimWorldManager(sourceLocation.getExtent().getProperties());
+        if (claimManager.getNeighborMemo().isNeighborhoodInClaim(sourceClaim, sourceLocation.getBlockX(), sourceLocation.getBlockY(), sourceLocation.getBlockZ())) {
+            if (playerData != null && !event.getNeighbors().isEmpty()) {
+                playerData.setLastInteractData(sourceClaim);
+            }
+            GPTimings.BLOCK_NOTIFY_EVENT.stopTimingIfSync();
+            return;
+        }
+
         GPClaim targetClaim = null;
         List<Direction> removed = new ArrayList<>();
         for (Map.Entry<Direction, BlockState> neighborEntry : event.getNeighbors().entrySet()) {
@@ -631,16 +656,20 @@ public void onExplosionDetonate(ExplosionEvent.Detonate event) {
 
         GPTimings.EXPLOSION_EVENT.startTimingIfSync();
         final User user = CauseContextHelper.getEventUser(event);
-        GPClaim targetClaim = null;
+        GPTimings.EXPLOSION_CLAIM_FILTER.startTimingIfSync();
+        final ExplosionClaimFilter claimFilter = ExplosionClaimFilter.create(this.dataStore.getClaimWorldManager(world.getProperties()), event.getAffectedLocations());
+        GPTimings.EXPLOSION_CLAIM_FILTER.stopTimingIfSync();
+        GPTimings.EXPLOSION_TARGET_CHECK.startTimingIfSync();
+        // each claim is checked once per block state
+        final GPPermissionBatch explosionBatch = new GPPermissionBatch(event, GPPermissions.EXPLOSION, source, user, null, true);
+        final GPPermissionBatch surfaceBatch = GPFlags.EXPLOSION_SURFACE ? new GPPermissionBatch(event, GPPermissions.EXPLOSION_SURFACE, source, user, null, true) : null;
+        final int seaLevel = ((net.minecraft.world.World) world).getSeaLevel();
         final List<Location<World>> filteredLocations = new ArrayList<>();
         for (Location<World> location : event.getAffectedLocations()) {
-            targetClaim =  GriefPreventionPlugin.instance.dataStore.getClaimAt(location, targetClaim);
-            Tristate result = Tristate.UNDEFINED;
-            if (GPFlags.EXPLOSION_SURFACE && location.getPosition().getY() > ((net.minecraft.world.World) world).getSeaLevel()) {
-                result = GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.EXPLOSION_SURFACE, source, location.getBlock(), user, true);
-            } else {
-                result = GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.EXPLOSION, source, location.getBlock(), user, true);
-            }
+            final GPClaim targetClaim = claimFilter.getClaimAt(location);
+            final BlockState blockState = location.getBlock();
+            final GPPermissionBatch batch = surfaceBatch != null && location.getBlockY() > seaLevel ? surfaceBatch : explosionBatch;
+            final Tristate result = batch.getClaimPermission(location, targetClaim, blockState, blockState);
 
             if (result == Tristate.FALSE) {
                 // Avoid lagging server from large explosions.
@@ -651,11 +680,12 @@ public void onExplosionDetonate(ExplosionEvent.Detonate event) {
                 filteredLocations.add(location);
             }
         }
+        GPTimings.EXPLOSION_TARGET_CHECK.stopTimingIfSync();
         // Workaround for SpongeForge bug
         if (event.isCancelled()) {
             event.getAffectedLocations().clear();
         } else if (!filteredLocations.isEmpty()) {
-            event.getAffectedLocations().removeAll(filteredLocations);
+            event.getAffectedLocations().removeAll(new HashSet<>(filteredLocations));
         }
         GPTimings.EXPLOSION_EVENT.stopTimingIfSync();
     }
@@ -722,22 +752,29 @@ public void onBlockBreak(ChangeBlockEvent.Break event) {
         GPTimings.BLOCK_BREAK_EVENT.startTimingIfSync();
         List<Transaction<BlockSnapshot>> transactions = event.getTransactions();
         GPClaim targetClaim = null;
+        final ClaimCursor cursor = this.dataStore.getClaimWorldManager(world.getProperties()).createCursor();
+        final GPPermissionBatch batch = new GPPermissionBatch(event, GPPermissions.BLOCK_BREAK, source, user, TrustType.BUILDER, true);
         for (Transaction<BlockSnapshot> transaction : transactions) {
-            if (GriefPreventionPlugin.isTargetIdBlacklisted(ClaimFlag.BLOCK_BREAK.toString(), transaction.getOriginal(), world.getProperties())) {
+            final BlockSnapshot original = transaction.getOriginal();
+            final BlockState blockState = original.getState();
+            if (batch.isTargetIdBlacklisted(ClaimFlag.BLOCK_BREAK.toString(), blockState, world.getProperties())) {
                 continue;
             }
 
-            Location<World> location = transaction.getOriginal().getLocation().orElse(null);
-            targetClaim = this.dataStore.getClaimAt(location, targetClaim);
+            Location<World> location = original.getLocation().orElse(null);
+            if (location == null) {
+                continue;
+            }
+            targetClaim = cursor.getClaimAt(location);
             if (locatable != null && targetClaim.isWilderness()) {
                 continue;
             }
-            if (location == null || transaction.getOriginal().getState().getType() == BlockTypes.AIR) {
+            if (blockState.getType() == BlockTypes.AIR) {
                 continue;
             }
 
             // check overrides
-            final Tristate result = GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.BLOCK_BREAK, source, transaction.getOriginal(), user, TrustType.BUILDER, true);
+            final Tristate result = batch.getClaimPermission(location, targetClaim, original, blockState);
             if (result != Tristate.TRUE) {
                 if (player != null) {
                     final Text message = GriefPreventionPlugin.instance.messageData.permissionBuild
@@ -811,9 +848,10 @@ public void onBlockPlace(ChangeBlockEvent.Place event) {
         }
 
         GPClaim targetClaim = null;
+        final GPPermissionBatch batch = new GPPermissionBatch(event, GPPermissions.BLOCK_PLACE, source, user, TrustType.BUILDER, true);
         for (Transaction<BlockSnapshot> transaction : event.getTransactions()) {
             final BlockSnapshot block = transaction.getFinal();
-            if (GriefPreventionPlugin.isTargetIdBlacklisted(ClaimFlag.BLOCK_PLACE.toString(), block, world.getProperties())) {
+            if (batch.isTargetIdBlacklisted(ClaimFlag.BLOCK_PLACE.toString(), block.getState(), world.getProperties())) {
                 continue;
             }
 
@@ -835,7 +873,7 @@ public void onBlockPlace(ChangeBlockEvent.Place event) {
                 }
 
                 // check overrides
-                final Tristate result = GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.BLOCK_PLACE, source, block, user, TrustType.BUILDER, true);
+                final Tristate result = batch.getClaimPermission(location, targetClaim, block, block.getState());
                 if (result != Tristate.TRUE) {
                     // TODO - make sure this doesn't spam
                     /*if (source instanceof Player) {
@@ -1017,7 +1055,7 @@ public void onSignChanged(ChangeSignEvent event) {
 
         String signMessage = lines.toString();
         // prevent signs with blocked IP addresses
-        if (!user.hasPermission(GPPermissions.OVERRIDE_SPAM) && GriefPreventionPlugin.instance.containsBlockedIP(signMessage)) {
+        if (!user.hasPermission(GPPermissions.OVERRIDE_SPAM) && GriefPreventionPlugin.instance.chatFilter.containsBlockedIP(signMessage)) {
             event.setCancelled(true);
             GPTimings.SIGN_CHANGE_EVENT.stopTimingIfSync();
             return;
@@ -1025,10 +1063,17 @@ public void onSignChanged(ChangeSignEvent event) {
 
         // if not empty and wasn't the same as the last sign, log it and remember it for later
         GPPlayerData playerData = this.dataStore.getOrCreatePlayerData(world, user.getUniqueId());
-        if (notEmpty && playerData.lastMessage != null && !playerData.lastMessage.equals(signMessage)) {
+        final ChatSpamState spamState = playerData.chatSpamState;
+        final boolean newMessage;
+        synchronized (spamState) {
+            newMessage = notEmpty && !signMessage.equals(spamState.lastMessage);
+            if (newMessage) {
+                spamState.lastMessage = signMessage;
+            }
+        }
+        if (newMessage) {
             GriefPreventionPlugin.addLogEntry(user.getName() + lines.toString().replace("\n  ", ";"), null);
             //PlayerEventHandler.makeSocialLogEntry(player.get().getName(), signMessage);
-            playerData.lastMessage = signMessage;
 
             if (!user.hasPermission(GPPermissions.EAVES_DROP_SIGNS)) {
                 Collection<Player> players = (Collection<Player>) Sponge.getGame().getServer().getOnlinePlayers();
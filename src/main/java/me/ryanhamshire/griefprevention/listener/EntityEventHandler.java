@@ -36,10 +36,12 @@
 import me.ryanhamshire.griefprevention.api.claim.ClaimFlag;
 import me.ryanhamshire.griefprevention.api.claim.TrustType;
 import me.ryanhamshire.griefprevention.claim.ClaimsMode;
+import me.ryanhamshire.griefprevention.claim.ExplosionClaimFilter;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.claim.GPClaimManager;
 import me.ryanhamshire.griefprevention.event.GPAttackPlayerEvent;
 import me.ryanhamshire.griefprevention.event.GPBorderClaimEvent;
+import me.ryanhamshire.griefprevention.permission.GPPermissionBatch;
 import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
 import me.ryanhamshire.griefprevention.provider.MCClansApiProvider;
@@ -91,16 +93,16 @@
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.explosion.Explosion;
-import org.spongepowered.api.world.storage.WorldProperties;
 import org.spongepowered.common.SpongeImplHooks;
 import org.spongepowered.common.bridge.OwnershipTrackedBridge;
 import org.spongepowered.common.data.util.NbtDataUtil;
 import org.spongepowered.common.bridge.entity.EntityBridge;
 
 import java.lang.ref.WeakReference;
-import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Predicate;
@@ -181,13 +183,26 @@ public void onEntityExplosionDetonate(ExplosionEvent.Detonate event) {
             }
         }
 
+        GPTimings.EXPLOSION_CLAIM_FILTER.startTimingIfSync();
+        final List<Location<World>> entityLocations = new ArrayList<>(event.getEntities().size());
+        for (Entity entity : event.getEntities()) {
+            entityLocations.add(entity.getLocation());
+        }
+        final ExplosionClaimFilter claimFilter = ExplosionClaimFilter.create(this.dataStore.getClaimWorldManager(event.getTargetWorld().getProperties()), entityLocations);
+        GPTimings.EXPLOSION_CLAIM_FILTER.stopTimingIfSync();
+        GPTimings.EXPLOSION_TARGET_CHECK.startTimingIfSync();
+        // each claim is checked once per entity id
+        final GPPermissionBatch batch = new GPPermissionBatch(event, GPPermissions.ENTITY_DAMAGE, source, user, null, false);
+        int index = 0;
         while (iterator.hasNext()) {
             Entity entity = iterator.next();
-            targetClaim =  GriefPreventionPlugin.instance.dataStore.getClaimAt(entity.getLocation(), targetClaim);
-            if (GPPermissionHandler.getClaimPermission(event, entity.getLocation(), targetClaim, GPPermissions.ENTITY_DAMAGE, source, entity, user) == Tristate.FALSE) {
+            final Location<World> location = entityLocations.get(index++);
+            targetClaim = claimFilter.getClaimAt(location);
+            if (batch.getClaimPermission(location, targetClaim, entity) == Tristate.FALSE) {
                 iterator.remove();
             }
         }
+        GPTimings.EXPLOSION_TARGET_CHECK.stopTimingIfSync();
         GPTimings.ENTITY_EXPLOSION_DETONATE_EVENT.stopTimingIfSync();
     }
 
@@ -678,6 +693,21 @@ public void onEntityMove(MoveEntityEvent event){
         if (!GriefPreventionPlugin.instance.claimsEnabledForWorld(world.getProperties())) {
             return;
         }
+
+        final Location<World> fromLocation = event.getFromTransform().getLocation();
+        final Location<World> toLocation = event.getToTransform().getLocation();
+        GPClaim fromClaim = null;
+        GPClaim toClaim = null;
+        if (!(entity instanceof Player) && !(((net.minecraft.entity.Entity) entity).getControllingPassenger() instanceof Player)) {
+            // nothing to do unless a claim border was crossed
+            final GPClaimManager claimManager = this.dataStore.getClaimWorldManager(world.getProperties());
+            fromClaim = claimManager.getClaimAtEntity(entity, fromLocation);
+            toClaim = claimManager.getClaimAtEntity(entity, toLocation);
+            if (fromClaim == toClaim) {
+                return;
+            }
+        }
+
         final boolean enterBlacklisted = GriefPreventionPlugin.isSourceIdBlacklisted(ClaimFlag.ENTER_CLAIM.toString(), entity, world.getProperties());
         final boolean exitBlacklisted = GriefPreventionPlugin.isSourceIdBlacklisted(ClaimFlag.EXIT_CLAIM.toString(), entity, world.getProperties());
         if (enterBlacklisted && exitBlacklisted) {
@@ -699,13 +729,8 @@ public void onEntityMove(MoveEntityEvent event){
             owner = ((OwnershipTrackedBridge) entity).tracked$getOwnerReference().orElse(null);
         }
 
-        final Location<World> fromLocation = event.getFromTransform().getLocation();
-        final Location<World> toLocation = event.getToTransform().getLocation();
-
         if (player == null && owner == null) {
             // Handle border event without player
-            GPClaim fromClaim = this.dataStore.getClaimAt(fromLocation);
-            GPClaim toClaim = this.dataStore.getClaimAt(toLocation);
             if (fromClaim != toClaim) {
                 GPBorderClaimEvent gpEvent = new GPBorderClaimEvent(entity, fromClaim, toClaim);
                 // enter
@@ -730,12 +755,9 @@ public void onEntityMove(MoveEntityEvent event){
             return;
         }
 
-        GPClaim fromClaim = null;
-        GPClaim toClaim = this.dataStore.getClaimAt(toLocation);
         if (playerData != null) {
+            toClaim = this.dataStore.getClaimAt(toLocation);
             fromClaim = this.dataStore.getClaimAtPlayer(playerData, fromLocation);
-        } else {
-            fromClaim = this.dataStore.getClaimAt(fromLocation);
         }
 
         if (GPFlags.ENTER_CLAIM && !enterBlacklisted && playerData != null && playerData.lastClaim != null) {
@@ -999,26 +1021,8 @@ public void onEntityTeleport(MoveEntityEvent.Teleport event) {
         }
 
         if (player != null && !sourceLocation.getExtent().getUniqueId().equals(destination.getExtent().getUniqueId())) {
-            // new world, check if player has world storage for it
-            GPClaimManager claimWorldManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(destination.getExtent().getProperties());
-
-            try (final CauseStackManager.StackFrame frame = Sponge.getCauseStackManager().pushCauseFrame()) {
-                // update lastActive timestamps for claims this player owns
-                WorldProperties worldProperties = destination.getExtent().getProperties();
-                UUID playerUniqueId = player.getUniqueId();
-                Sponge.getCauseStackManager().pushCause(GriefPreventionPlugin.instance);
-                for (Claim claim : this.dataStore.getClaimWorldManager(worldProperties).getWorldClaims()) {
-                    if (claim.getOwnerUniqueId().equals(playerUniqueId)) {
-                        // update lastActive timestamp for claim
-                        claim.getData().setDateLastActive(Instant.now());
-                        claimWorldManager.addClaim(claim);
-                    } else if (claim.getParent().isPresent() && claim.getParent().get().getOwnerUniqueId().equals(playerUniqueId)) {
-                        // update lastActive timestamp for subdivisions if parent owner logs on
-                        claim.getData().setDateLastActive(Instant.now());
-                        claimWorldManager.addClaim(claim);
-                    }
-                }
-            }
+            // new world, update lastActive for the claims this player owns there
+            this.dataStore.getOrCreatePlayerData(destination.getExtent().getProperties(), player.getUniqueId()).updateLastSeen();
         }
 
         if (playerData != null) {
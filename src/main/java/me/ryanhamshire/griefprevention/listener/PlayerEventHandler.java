@@ -44,12 +44,14 @@
 import me.ryanhamshire.griefprevention.api.claim.ClaimResultType;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.api.claim.TrustType;
+import me.ryanhamshire.griefprevention.chat.ChatFilter;
+import me.ryanhamshire.griefprevention.chat.ChatSpamState;
 import me.ryanhamshire.griefprevention.claim.ClaimsMode;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
-import me.ryanhamshire.griefprevention.claim.GPClaimManager;
 import me.ryanhamshire.griefprevention.command.CommandHelper;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
 import me.ryanhamshire.griefprevention.configuration.MessageStorage;
+import me.ryanhamshire.griefprevention.configuration.PersistenceQueue;
 import me.ryanhamshire.griefprevention.logging.CustomLogEntryTypes;
 import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
@@ -59,6 +61,7 @@
 import me.ryanhamshire.griefprevention.task.WelcomeTask;
 import me.ryanhamshire.griefprevention.util.BlockUtils;
 import me.ryanhamshire.griefprevention.util.PaginationUtils;
+import me.ryanhamshire.griefprevention.util.PermissionUtils;
 import me.ryanhamshire.griefprevention.util.PlayerUtils;
 import me.ryanhamshire.griefprevention.visual.Visualization;
 import me.ryanhamshire.griefprevention.visual.VisualizationType;
@@ -100,6 +103,7 @@
 import org.spongepowered.api.event.command.SendCommandEvent;
 import org.spongepowered.api.event.entity.DestructEntityEvent;
 import org.spongepowered.api.event.entity.InteractEntityEvent;
+import org.spongepowered.api.event.entity.MoveEntityEvent;
 import org.spongepowered.api.event.entity.living.humanoid.HandInteractEvent;
 import org.spongepowered.api.event.entity.living.humanoid.player.KickPlayerEvent;
 import org.spongepowered.api.event.entity.living.humanoid.player.RespawnPlayerEvent;
@@ -148,7 +152,6 @@
 
 import java.lang.ref.WeakReference;
 import java.net.InetAddress;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
@@ -167,6 +170,7 @@
 public class PlayerEventHandler {
 
     private final DataStore dataStore;
+    private final ChatFilter chatFilter;
     private final WorldEditApiProvider worldEditProvider;
     private final BanService banService;
     private int lastInteractItemPrimaryTick = -1;
@@ -187,6 +191,7 @@ public class PlayerEventHandler {
     // typical constructor, yawn
     public PlayerEventHandler(DataStore dataStore, GriefPreventionPlugin plugin) {
         this.dataStore = dataStore;
+        this.chatFilter = plugin.chatFilter;
         this.worldEditProvider = GriefPreventionPlugin.instance.worldEditProvider;
         this.banService = Sponge.getServiceManager().getRegistration(BanService.class).get().getProvider();
     }
@@ -286,7 +291,7 @@ public void onPlayerChat(MessageChannelEvent.Chat event, @First Player player) {
 
         // troll and excessive profanity filter
         boolean isSoftMuted = this.dataStore.isSoftMuted(player.getUniqueId());
-        if (!isSoftMuted && !player.hasPermission(GPPermissions.OVERRIDE_PROFANITY) && GriefPreventionPlugin.containsProfanity(message)) {
+        if (!isSoftMuted && !player.hasPermission(GPPermissions.OVERRIDE_PROFANITY) && this.chatFilter.containsProfanity(message)) {
             // limit recipients to sender
             event.setChannel(player.getMessageChannel());
 
@@ -353,13 +358,6 @@ public void onPlayerChat(MessageChannelEvent.Chat event, @First Player player) {
         GPTimings.PLAYER_CHAT_EVENT.stopTimingIfSync();
     }
 
-    // last chat message shown, regardless of who sent it
-    private String lastChatMessage = "";
-    private long lastChatMessageTimestamp = 0;
-
-    // number of identical messages in a row
-    private int duplicateMessageCount = 0;
-
     // returns true if the message should be sent, false if it should be muted
     private boolean handlePlayerChat(Player player, String message, Event event) {
         // FEATURE: automatically educate players about claiming land
@@ -403,7 +401,7 @@ private boolean handlePlayerChat(Player player, String message, Event event) {
         }
 
         // remedy any CAPS SPAM, exception for very short messages which could be emoticons like =D or XD
-        if (message.length() > 4 && this.stringsAreSimilar(message.toUpperCase(), message)) {
+        if (message.length() > 4 && ChatFilter.stringsAreSimilar(message.toUpperCase(), message)) {
             // exception for strings containing forward slash to avoid changing
             // a case-sensitive URL
             if (event instanceof MessageEvent) {
@@ -411,45 +409,50 @@ private boolean handlePlayerChat(Player player, String message, Event event) {
             }
         }
 
+        final ChatSpamState spamState = playerData.chatSpamState;
+        synchronized (spamState) {
+            return this.handlePlayerSpam(player, message, spamState, spam, mutedReason);
+        }
+    }
+
+    // must hold the lock of the player's spam state
+    private boolean handlePlayerSpam(Player player, String message, ChatSpamState spamState, boolean spam, String mutedReason) {
         // always mute an exact match to the last chat message
-        long now = new Date().getTime();
-        if (mutedReason != null && message.equals(this.lastChatMessage) && now - this.lastChatMessageTimestamp < 750) {
-            playerData.spamCount += ++this.duplicateMessageCount;
+        final long now = System.currentTimeMillis();
+        final int duplicateMessageCount = this.chatFilter.recordChatMessage(message, now, mutedReason != null);
+        if (duplicateMessageCount > 0) {
+            spamState.spamCount += duplicateMessageCount;
             spam = true;
             mutedReason = "repeat message";
-        } else {
-            this.lastChatMessage = message;
-            this.lastChatMessageTimestamp = now;
-            this.duplicateMessageCount = 0;
         }
 
         // where other types of spam are concerned, casing isn't significant
         message = message.toLowerCase();
 
         // check message content and timing
-        long millisecondsSinceLastMessage = now - playerData.lastMessageTimestamp.getTime();
+        long millisecondsSinceLastMessage = now - spamState.lastMessageTimestamp;
 
         // if the message came too close to the last one
         if (millisecondsSinceLastMessage < 1500) {
             // increment the spam counter
-            playerData.spamCount++;
+            spamState.spamCount++;
             spam = true;
         }
 
         // if it's very similar to the last message from the same player and
         // within 10 seconds of that message
-        if (mutedReason == null && this.stringsAreSimilar(message, playerData.lastMessage)
-                && now - playerData.lastMessageTimestamp.getTime() < 10000) {
-            playerData.spamCount++;
+        if (mutedReason == null && ChatFilter.stringsAreSimilar(message, spamState.lastMessage)
+                && now - spamState.lastMessageTimestamp < 10000) {
+            spamState.spamCount++;
             spam = true;
             mutedReason = "similar message";
         }
 
         // filter IP addresses
         if (mutedReason == null) {
-            if (GriefPreventionPlugin.instance.containsBlockedIP(message)) {
+            if (this.chatFilter.containsBlockedIP(message)) {
                 // spam notation
-                playerData.spamCount += 1;
+                spamState.spamCount += 1;
                 spam = true;
 
                 // block message
@@ -475,28 +478,28 @@ private boolean handlePlayerChat(Player player, String message, Event event) {
 
             if (symbolsCount > message.length() / 2 || (message.length() > 15 && whitespaceCount < message.length() / 10)) {
                 spam = true;
-                if (playerData.spamCount > 0)
+                if (spamState.spamCount > 0)
                     mutedReason = "gibberish";
-                playerData.spamCount++;
+                spamState.spamCount++;
             }
         }
 
         // very short messages close together are spam
         if (mutedReason == null && message.length() < 5 && millisecondsSinceLastMessage < 3000) {
             spam = true;
-            playerData.spamCount++;
+            spamState.spamCount++;
         }
 
         // in any case, record the timestamp of this message and also its
         // content for next time
-        playerData.lastMessageTimestamp = new Date();
-        playerData.lastMessage = message;
+        spamState.lastMessageTimestamp = now;
+        spamState.lastMessage = message;
 
         // if the message was determined to be a spam, consider taking action
         if (spam) {
             // anything above level 8 for a player which has received a
             // warning... kick or if enabled, ban
-            if (playerData.spamCount > 8 && playerData.spamWarned) {
+            if (spamState.spamCount > 8 && spamState.spamWarned) {
                 if (GriefPreventionPlugin.getGlobalConfig().getConfig().spam.autoBanOffenders) {
                     // log entry
                     GriefPreventionPlugin.addLogEntry("Banning " + player.getName() + " for spam.", CustomLogEntryTypes.AdminActivity);
@@ -518,14 +521,14 @@ private boolean handlePlayerChat(Player player, String message, Event event) {
             }
 
             // cancel any messages while at or above the third spam level and issue warnings anything above level 2, mute and warn
-            if (playerData.spamCount >= 4) {
+            if (spamState.spamCount >= 4) {
                 if (mutedReason == null) {
                     mutedReason = "too-frequent text";
                 }
-                if (!playerData.spamWarned) {
+                if (!spamState.spamWarned) {
                     GriefPreventionPlugin.sendMessage(player, GriefPreventionPlugin.instance.messageData.warningBanMessage.toText(), 10L);
                     GriefPreventionPlugin.addLogEntry("Warned " + player.getName() + " about spam penalties.", CustomLogEntryTypes.Debug, false);
-                    playerData.spamWarned = true;
+                    spamState.spamWarned = true;
                 }
             }
 
@@ -541,58 +544,32 @@ private boolean handlePlayerChat(Player player, String message, Event event) {
 
         // otherwise if not a spam, reset the spam counter for this player
         else {
-            playerData.spamCount = 0;
-            playerData.spamWarned = false;
+            spamState.spamCount = 0;
+            spamState.spamWarned = false;
         }
 
         return false;
     }
 
-    // if two strings are 75% identical, they're too close to follow each other in the chat
-    private boolean stringsAreSimilar(String message, String lastMessage) {
-        // determine which is shorter
-        String shorterString, longerString;
-        if (lastMessage.length() < message.length()) {
-            shorterString = lastMessage;
-            longerString = message;
-        } else {
-            shorterString = message;
-            longerString = lastMessage;
+    // streams claim visuals around the player whenever they enter another chunk
+    @Listener(order = Order.POST)
+    public void onPlayerMoveVisual(MoveEntityEvent event) {
+        if (!(event.getTargetEntity() instanceof Player)) {
+            return;
         }
-
-        if (shorterString.length() <= 5)
-            return shorterString.equals(longerString);
-
-        // set similarity tolerance
-        int maxIdenticalCharacters = longerString.length() - longerString.length() / 4;
-
-        // trivial check on length
-        if (shorterString.length() < maxIdenticalCharacters)
-            return false;
-
-        // compare forward
-        int identicalCount = 0;
-        int i;
-        for (i = 0; i < shorterString.length(); i++) {
-            if (shorterString.charAt(i) == longerString.charAt(i))
-                identicalCount++;
-            if (identicalCount > maxIdenticalCharacters)
-                return true;
+        final Location<World> toLocation = event.getToTransform().getLocation();
+        final Location<World> fromLocation = event.getFromTransform().getLocation();
+        if ((toLocation.getBlockX() >> 4) == (fromLocation.getBlockX() >> 4) && (toLocation.getBlockZ() >> 4) == (fromLocation.getBlockZ() >> 4)) {
+            return;
         }
 
-        // compare backward
-        int j;
-        for (j = 0; j < shorterString.length() - i; j++) {
-            if (shorterString.charAt(shorterString.length() - j - 1) == longerString.charAt(longerString.length() - j - 1))
-                identicalCount++;
-            if (identicalCount > maxIdenticalCharacters)
-                return true;
+        final Player player = (Player) event.getTargetEntity();
+        final GPPlayerData playerData = this.dataStore.getOrCreatePlayerData(toLocation.getExtent(), player.getUniqueId());
+        if (playerData.visualBlocks != null) {
+            playerData.visualTracker.update(player, playerData, toLocation);
         }
-
-        return false;
     }
 
-
     // when a player uses a slash command...
     @Listener(order = Order.FIRST, beforeModifications = true)
     public void onPlayerCommand(SendCommandEvent event, @First Player player) {
@@ -807,6 +784,8 @@ static void makeSocialLogEntry(String name, String message) {
     public void onPlayerLogin(ClientConnectionEvent.Login event) {
         GPTimings.PLAYER_LOGIN_EVENT.startTimingIfSync();
         User player = event.getTargetUser();
+        // warm the permission subject so the join does not wait on it
+        PermissionUtils.prefetchUserSubject(player.getUniqueId());
         if (!GriefPreventionPlugin.instance.claimsEnabledForWorld(event.getToTransform().getExtent().getProperties())) {
             GPTimings.PLAYER_LOGIN_EVENT.stopTimingIfSync();
             return;
@@ -849,22 +828,14 @@ public void onPlayerLogin(ClientConnectionEvent.Login event) {
         final UUID playerUniqueId = player.getUniqueId();
         final GPPlayerData playerData = this.dataStore.getOrCreatePlayerData(worldProperties, playerUniqueId);
         // Always reload playerdata storage on login in case a server is sharing data across servers
-        playerData.getStorageData().load();
+        // unless a local save has not been written yet, database rows are read off the main thread
+        if (!PersistenceQueue.isQueued(playerData.getStorageData())) {
+            playerData.getStorageData().loadAsync();
+        }
         playerData.receivedDropUnlockAdvertisement = false;
         playerData.ipAddress = ipAddress;
-        final GPClaimManager claimWorldManager = this.dataStore.getClaimWorldManager(worldProperties);
-        final Instant dateNow = Instant.now();
-        for (Claim claim : claimWorldManager.getWorldClaims()) {
-            if (claim.getType() != ClaimType.ADMIN && claim.getOwnerUniqueId().equals(playerUniqueId)) {
-                // update lastActive timestamp for claim
-                claim.getData().setDateLastActive(dateNow);
-                // update timestamps for subdivisions
-                for (Claim subdivision : ((GPClaim) claim).children) {
-                    subdivision.getData().setDateLastActive(dateNow);
-                }
-                ((GPClaim) claim).getInternalClaimData().setRequiresSave(true);
-            }
-        }
+        // claims and their subdivisions count this as activity when checked for expiration
+        playerData.updateLastSeen();
         GPTimings.PLAYER_LOGIN_EVENT.stopTimingIfSync();
     }
 
@@ -27,6 +27,7 @@
 import me.ryanhamshire.griefprevention.GPTimings;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.claim.GPClaimManager;
+import me.ryanhamshire.griefprevention.configuration.PersistenceQueue;
 import me.ryanhamshire.griefprevention.task.TaxApplyTask;
 import me.ryanhamshire.griefprevention.util.TaskUtils;
 import org.spongepowered.api.Sponge;
@@ -82,6 +83,9 @@ public void onWorldUnload(UnloadWorldEvent event) {
             return;
         }
 
+        // write everything for the world before its data is released
+        GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(event.getTargetWorld().getProperties()).save();
+        PersistenceQueue.flushAndWait();
         GriefPreventionPlugin.instance.dataStore.removeClaimWorldManager(event.getTargetWorld().getProperties());
     }
 
@@ -24,32 +24,66 @@
  */
 package me.ryanhamshire.griefprevention.logging;
 
-import com.google.common.io.Files;
 import me.ryanhamshire.griefprevention.DataStore;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.configuration.category.LoggingCategory;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.scheduler.Scheduler;
 
 import java.io.File;
-import java.nio.charset.Charset;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Writes the abridged GriefPrevention logs.
+ *
+ * <p>Entries are formatted by the caller and queued in a bounded lock-free
+ * buffer, so logging never takes a lock on the calling thread. One async
+ * writer drains the buffer into a file per day. When the buffer is full an
+ * entry is dropped and counted, unless {@code block-when-full} is set, in
+ * which case threads other than the main thread wait briefly for room.</p>
+ */
 public class CustomLogger {
 
-    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("HH:mm");
-    private final SimpleDateFormat filenameFormat = new SimpleDateFormat("yyyy_MM_dd");
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter FILENAME_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM_dd");
+    // how long a producer may wait for room when blocking is enabled
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final AtomicLong queuedCount = new AtomicLong();
+    private static final AtomicLong droppedCount = new AtomicLong();
+    private static final AtomicLong writtenCount = new AtomicLong();
+
     private final String logFolderPath = DataStore.dataLayerFolderPath + File.separator + "Logs";
-    private final int secondsBetweenWrites = 10;
+    private final LogRingBuffer<Entry> buffer;
+    private final boolean blockWhenFull;
+    private final AtomicBoolean writeRequested = new AtomicBoolean();
+    private final AtomicLong droppedSinceWrite = new AtomicLong();
 
-    // stringbuilder is not thread safe, stringbuffer is
-    private StringBuffer queuedEntries = new StringBuffer();
+    // only touched by the writer
+    private final List<Entry> pendingEntries = new ArrayList<>();
+    private FileChannel channel;
+    private long channelDay = -1;
 
     public CustomLogger() {
+        final LoggingCategory config = GriefPreventionPlugin.getGlobalConfig().getConfig().logging;
+        this.buffer = new LogRingBuffer<>(Math.max(64, config.bufferSize));
+        this.blockWhenFull = config.blockWhenFull;
+
         // ensure log folder exists
         File logFolder = new File(this.logFolderPath);
         logFolder.mkdirs();
@@ -58,19 +92,18 @@ public CustomLogger() {
         this.deleteExpiredLogs();
 
         // unless disabled, schedule recurring tasks
-        int daysToKeepLogs = GriefPreventionPlugin.getGlobalConfig().getConfig().logging.loggingDaysToKeep;
+        int daysToKeepLogs = config.loggingDaysToKeep;
         if (daysToKeepLogs > 0) {
+            final int secondsBetweenWrites = Math.max(1, config.writeInterval);
             Scheduler scheduler = Sponge.getGame().getScheduler();
-            scheduler.createTaskBuilder().async().execute(new EntryWriter()).delay(this.secondsBetweenWrites, TimeUnit.SECONDS).interval(this
-                    .secondsBetweenWrites, TimeUnit.SECONDS).submit(GriefPreventionPlugin.instance);
+            scheduler.createTaskBuilder().async().execute(new EntryWriter()).delay(secondsBetweenWrites, TimeUnit.SECONDS).interval(
+                    secondsBetweenWrites, TimeUnit.SECONDS).submit(GriefPreventionPlugin.instance);
             scheduler.createTaskBuilder().async().execute(new ExpiredLogRemover()).delay(1, TimeUnit.DAYS).interval(1, TimeUnit.DAYS)
                     .submit(GriefPreventionPlugin
                             .instance);
         }
     }
 
-    private static final Pattern inlineFormatterPattern = Pattern.compile("�.");
-
     public void addEntry(String entry, CustomLogEntryTypes entryType) {
         // if disabled, do nothing
         int daysToKeepLogs = GriefPreventionPlugin.getGlobalConfig().getConfig().logging.loggingDaysToKeep;
@@ -83,11 +116,54 @@ public void addEntry(String entry, CustomLogEntryTypes entryType) {
             return;
         }
 
-        // otherwise write to the in-memory buffer, after removing formatters
-        Matcher matcher = inlineFormatterPattern.matcher(entry);
-        entry = matcher.replaceAll("");
-        String timestamp = this.timestampFormat.format(new Date());
-        this.queuedEntries.append(timestamp + " " + entry + "\n");
+        // otherwise queue it, after removing formatters
+        final LocalDateTime now = LocalDateTime.now();
+        final Entry logEntry = new Entry(now.toLocalDate().toEpochDay(), TIMESTAMP_FORMAT.format(now) + " " + stripFormatting(entry) + "\n");
+        if (!this.buffer.offer(logEntry) && !this.waitForRoom(logEntry)) {
+            droppedCount.incrementAndGet();
+            this.droppedSinceWrite.incrementAndGet();
+            return;
+        }
+        queuedCount.incrementAndGet();
+
+        // write early instead of letting a burst fill the buffer
+        if (this.buffer.size() >= this.buffer.capacity() / 2 && this.writeRequested.compareAndSet(false, true)) {
+            Sponge.getScheduler().createTaskBuilder().async().execute(new EntryWriter()).submit(GriefPreventionPlugin.instance);
+        }
+    }
+
+    private boolean waitForRoom(Entry entry) {
+        if (!this.blockWhenFull || (Sponge.isServerAvailable() && Sponge.getServer().isMainThread())) {
+            return false;
+        }
+        if (this.writeRequested.compareAndSet(false, true)) {
+            Sponge.getScheduler().createTaskBuilder().async().execute(new EntryWriter()).submit(GriefPreventionPlugin.instance);
+        }
+        final long deadline = System.nanoTime() + MAX_WAIT_NANOS;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            if (this.buffer.offer(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripFormatting(String entry) {
+        if (entry.indexOf('\u00A7') < 0 && entry.indexOf('\uFFFD') < 0) {
+            return entry;
+        }
+        final StringBuilder builder = new StringBuilder(entry.length());
+        for (int i = 0; i < entry.length(); i++) {
+            final char c = entry.charAt(i);
+            if (c == '\u00A7' || c == '\uFFFD') {
+                // skip the formatting code as well
+                i++;
+                continue;
+            }
+            builder.append(c);
+        }
+        return builder.toString();
     }
 
     private boolean isEnabledType(CustomLogEntryTypes entryType) {
@@ -110,27 +186,111 @@ private boolean isEnabledType(CustomLogEntryTypes entryType) {
         return true;
     }
 
-    void writeEntries() {
+    synchronized void writeEntries() {
+        this.writeRequested.set(false);
+        Entry entry;
+        while ((entry = this.buffer.poll()) != null) {
+            this.pendingEntries.add(entry);
+        }
+        final long dropped = this.droppedSinceWrite.getAndSet(0);
+        if (dropped > 0) {
+            final LocalDateTime now = LocalDateTime.now();
+            this.pendingEntries.add(new Entry(now.toLocalDate().toEpochDay(), TIMESTAMP_FORMAT.format(now) + " " + dropped
+                    + " log entries were dropped because the log buffer was full.\n"));
+        }
+
+        // if nothing to write, stop here
+        if (this.pendingEntries.isEmpty()) {
+            return;
+        }
+
+        int written = 0;
         try {
-            // if nothing to write, stop here
-            if (this.queuedEntries.length() == 0) {
-                return;
+            final StringBuilder builder = new StringBuilder();
+            while (written < this.pendingEntries.size()) {
+                // entries for the same day go out in one write
+                final long day = this.pendingEntries.get(written).day;
+                int end = written;
+                builder.setLength(0);
+                while (end < this.pendingEntries.size() && this.pendingEntries.get(end).day == day) {
+                    builder.append(this.pendingEntries.get(end).line);
+                    end++;
+                }
+                final ByteBuffer bytes = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+                final FileChannel channel = this.getChannel(day);
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                writtenCount.addAndGet(end - written);
+                written = end;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            // reopen on the next write, unwritten entries are kept to retry
+            this.closeChannel();
+        } finally {
+            this.pendingEntries.subList(0, written).clear();
+            // never hold more than one buffer's worth while the disk is failing
+            final int overflow = this.pendingEntries.size() - this.buffer.capacity();
+            if (overflow > 0) {
+                this.pendingEntries.subList(0, overflow).clear();
+                droppedCount.addAndGet(overflow);
             }
+        }
+    }
 
+    private FileChannel getChannel(long day) throws IOException {
+        if (this.channel == null || this.channelDay != day) {
+            this.closeChannel();
             // determine filename based on date
-            String filename = this.filenameFormat.format(new Date()) + ".log";
-            String filepath = this.logFolderPath + File.separator + filename;
-            File logFile = new File(filepath);
+            final String filename = FILENAME_FORMAT.format(LocalDate.ofEpochDay(day)) + ".log";
+            this.channel = FileChannel.open(Paths.get(this.logFolderPath, filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            this.channelDay = day;
+        }
+        return this.channel;
+    }
+
+    private void closeChannel() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            this.channel = null;
+            this.channelDay = -1;
+        }
+    }
 
-            // dump content
-            Files.append(this.queuedEntries.toString(), logFile, Charset.forName("UTF-8"));
+    /**
+     * Writes anything still buffered and closes the log file.
+     */
+    public synchronized void close() {
+        this.writeEntries();
+        this.closeChannel();
+    }
 
-            // in case of a failure to write the above due to exception,
-            // the unwritten entries will remain the buffer for the next write
-            // to retry
-            this.queuedEntries.setLength(0);
-        } catch (Exception e) {
-            e.printStackTrace();
+    public static long getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    public static long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public static long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    private static final class Entry {
+
+        final long day;
+        final String line;
+
+        Entry(long day, String line) {
+            this.day = day;
+            this.line = line;
         }
     }
 
@@ -0,0 +1,134 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.migrator;
+
+import me.ryanhamshire.griefprevention.DataStore;
+import me.ryanhamshire.griefprevention.DatabaseDataStore;
+import me.ryanhamshire.griefprevention.DatabaseTables;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
+import me.ryanhamshire.griefprevention.configuration.DatabaseClaimStorageData;
+import me.ryanhamshire.griefprevention.configuration.PlayerDataConfig;
+import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
+import me.ryanhamshire.griefprevention.configuration.TownStorageData;
+import org.spongepowered.api.world.storage.WorldProperties;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+
+/**
+ * Copies flat file claim and player data into the database once.
+ *
+ * <p>Flat files are left untouched so they can serve as a backup.</p>
+ */
+public class FlatFileMigrator {
+
+    private static final String MIGRATED_KEY = "flat-file-migrated:";
+
+    public static void migrate(DatabaseDataStore dataStore, WorldProperties worldProperties) throws Exception {
+        final UUID worldUniqueId = worldProperties.getUniqueId();
+        final Path worldDataPath = DataStore.worldConfigMap.get(worldUniqueId).getPath().getParent();
+        final DatabaseTables tables = dataStore.getTables();
+
+        final String claimKey = MIGRATED_KEY + worldUniqueId;
+        if (!tables.hasMetaValue(claimKey)) {
+            final List<DatabaseClaimStorageData.Row> claimRows = new ArrayList<>();
+            final Path claimDataPath = worldDataPath.resolve("ClaimData");
+            if (Files.isDirectory(claimDataPath)) {
+                try (Stream<Path> paths = Files.walk(claimDataPath)) {
+                    for (Path path : (Iterable<Path>) paths::iterator) {
+                        final UUID claimId = getUniqueId(path);
+                        if (claimId == null) {
+                            continue;
+                        }
+                        final ClaimStorageData claimStorage = path.getParent().endsWith("town")
+                                ? new TownStorageData(path, worldUniqueId) : new ClaimStorageData(path, worldUniqueId);
+                        if (claimStorage.getConfig() == null || claimStorage.getConfig().getLesserBoundaryCornerPos() == null
+                                || claimStorage.getConfig().getGreaterBoundaryCornerPos() == null) {
+                            GriefPreventionPlugin.instance.getLogger().error("Claim file " + path + " has corrupted data and cannot be migrated. Skipping...");
+                            continue;
+                        }
+                        claimStorage.getConfig().setWorldUniqueId(worldUniqueId);
+                        final DatabaseClaimStorageData databaseStorage = new DatabaseClaimStorageData(claimId, worldUniqueId, claimStorage.getConfig());
+                        claimRows.add(databaseStorage.createRow());
+                    }
+                }
+            }
+            tables.writeClaims(claimRows);
+            tables.setMetaValue(claimKey, Instant.now().toString());
+            GriefPreventionPlugin.instance.getLogger().info("[" + worldProperties.getWorldName() + "] " + claimRows.size()
+                    + " claims migrated from flat file storage.");
+        }
+
+        final UUID playerScope = dataStore.getPlayerScope(worldProperties);
+        final String playerKey = MIGRATED_KEY + "players:" + playerScope;
+        if (!tables.hasMetaValue(playerKey)) {
+            final Path playerDataPath = DataStore.USE_GLOBAL_PLAYER_STORAGE ? DataStore.globalPlayerDataPath : worldDataPath.resolve("PlayerData");
+            final Map<UUID, PlayerDataConfig> players = new HashMap<>();
+            if (Files.isDirectory(playerDataPath)) {
+                try (DirectoryStream<Path> paths = Files.newDirectoryStream(playerDataPath)) {
+                    for (Path path : paths) {
+                        final UUID playerUniqueId = getUniqueId(path);
+                        if (playerUniqueId == null) {
+                            continue;
+                        }
+                        final PlayerDataConfig config = new PlayerStorageData(path).getConfig();
+                        if (config != null) {
+                            players.put(playerUniqueId, config);
+                        }
+                    }
+                }
+            }
+            tables.writePlayers(playerScope, players);
+            tables.setMetaValue(playerKey, Instant.now().toString());
+            GriefPreventionPlugin.instance.getLogger().info("[" + worldProperties.getWorldName() + "] " + players.size()
+                    + " player data files migrated from flat file storage.");
+        }
+    }
+
+    // data files are named after the UUID they store
+    @Nullable
+    private static UUID getUniqueId(Path path) {
+        final String fileName = path.getFileName().toString();
+        if (fileName.length() != 36 || !Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(fileName);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -27,6 +27,7 @@
 import com.google.common.reflect.TypeToken;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.api.claim.TrustType;
 import me.ryanhamshire.griefprevention.configuration.ClaimDataConfig;
 import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
 import me.ryanhamshire.griefprevention.util.BlockUtils;
@@ -127,7 +128,6 @@ public static void migrate(World world, Path redProtectFilePath, Path gpClaimDat
                 }
                 List<String> rpUsers = new ArrayList<>(owners);
                 rpUsers.addAll(members);
-                List<UUID> builders = claimDataConfig.getBuilders();
                 for (String builder : rpUsers) {
                     if (!validate(builder)) {
                         continue;
@@ -144,8 +144,8 @@ public static void migrate(World world, Path redProtectFilePath, Path gpClaimDat
                                 "'. Skipping...");
                         continue;
                     }
-                    if (!builders.contains(builderUniqueId) && ownerUniqueId != null && !builderUniqueId.equals(ownerUniqueId)) {
-                        builders.add(builderUniqueId);
+                    if (ownerUniqueId != null && !builderUniqueId.equals(ownerUniqueId)) {
+                        claimDataConfig.addUserTrust(builderUniqueId, TrustType.BUILDER);
                     }
                 }
 
@@ -0,0 +1,144 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.permission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+import org.apache.commons.io.FilenameUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A blacklist compiled for fast identifier lookups.
+ *
+ * <p>Entries without wildcards are matched through a hash set and entries
+ * whose only wildcard is a trailing {@code *}, such as {@code modid:*}, through
+ * a prefix trie. Anything else falls back to a wildcard match. Results are
+ * remembered per identifier since the same few ids are checked constantly.</p>
+ */
+public final class GPBlacklistMatcher {
+
+    private static final int MAX_CACHED_RESULTS = 2048;
+
+    private final Set<String> exact = new HashSet<>();
+    private final PrefixNode prefixes = new PrefixNode();
+    private final List<String> patterns = new ArrayList<>();
+    private final Cache<String, Boolean> results = Caffeine.newBuilder().maximumSize(MAX_CACHED_RESULTS).build();
+
+    private GPBlacklistMatcher(List<String> entries) {
+        for (String entry : entries) {
+            if (entry == null) {
+                continue;
+            }
+            final int wildcardIndex = indexOfWildcard(entry);
+            if (wildcardIndex == -1) {
+                this.exact.add(entry);
+            } else if (wildcardIndex == entry.length() - 1 && entry.charAt(wildcardIndex) == '*') {
+                this.prefixes.add(entry, wildcardIndex);
+            } else {
+                this.patterns.add(entry);
+            }
+        }
+    }
+
+    public static GPBlacklistMatcher compile(List<String> entries) {
+        return new GPBlacklistMatcher(entries);
+    }
+
+    /**
+     * Checks if the identifier, with or without its meta, is blacklisted.
+     *
+     * @param id The permission identifier
+     * @return Whether it is blacklisted
+     */
+    public boolean matches(String id) {
+        return this.results.get(id, key -> this.matchesEntry(key) || this.matchesEntry(GPPermissionHandler.getIdentifierWithoutMeta(key)));
+    }
+
+    private boolean matchesEntry(String id) {
+        if (this.exact.contains(id) || this.prefixes.matchesPrefixOf(id)) {
+            return true;
+        }
+        for (int i = 0; i < this.patterns.size(); i++) {
+            if (FilenameUtils.wildcardMatch(id, this.patterns.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOfWildcard(String entry) {
+        for (int i = 0; i < entry.length(); i++) {
+            final char c = entry.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class PrefixNode {
+
+        private Char2ObjectOpenHashMap<PrefixNode> children;
+        private boolean terminal;
+
+        void add(String entry, int length) {
+            PrefixNode node = this;
+            for (int i = 0; i < length; i++) {
+                if (node.children == null) {
+                    node.children = new Char2ObjectOpenHashMap<>();
+                }
+                final char c = entry.charAt(i);
+                PrefixNode child = node.children.get(c);
+                if (child == null) {
+                    child = new PrefixNode();
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            node.terminal = true;
+        }
+
+        boolean matchesPrefixOf(String id) {
+            PrefixNode node = this;
+            for (int i = 0; ; i++) {
+                if (node.terminal) {
+                    return true;
+                }
+                if (i == id.length() || node.children == null) {
+                    return false;
+                }
+                node = node.children.get(id.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+        }
+    }
+}
@@ -24,6 +24,8 @@
  */
 package me.ryanhamshire.griefprevention.permission;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.api.claim.ClaimFlag;
 import me.ryanhamshire.griefprevention.configuration.category.BlacklistCategory;
@@ -35,6 +37,8 @@
 public class GPBlacklists {
 
     public static Map<String, List<String>> blacklistMap = new HashMap<>();
+    // Keyed by list identity so world config lists compile separately
+    private static final Cache<List<String>, GPBlacklistMatcher> MATCHER_CACHE = Caffeine.newBuilder().weakKeys().build();
 
     public static boolean GLOBAL_SOURCE;
     public static boolean GLOBAL_TARGET;
@@ -76,7 +80,18 @@ public class GPBlacklists {
     public static boolean PROJECTILE_IMPACT_BLOCK;
     public static boolean PROJECTILE_IMPACT_ENTITY;
 
+    /**
+     * Gets the compiled matcher for a blacklist. Matchers are rebuilt on reload.
+     *
+     * @param blacklist The blacklist entries
+     * @return The matcher
+     */
+    public static GPBlacklistMatcher getMatcher(List<String> blacklist) {
+        return MATCHER_CACHE.get(blacklist, GPBlacklistMatcher::compile);
+    }
+
     public static void populateBlacklistStatus() {
+        MATCHER_CACHE.invalidateAll();
         final BlacklistCategory blacklistCategory = GriefPreventionPlugin.getGlobalConfig().getConfig().blacklist;
         GLOBAL_SOURCE = !blacklistCategory.getGlobalSourceBlacklist().isEmpty();
         GLOBAL_TARGET = !blacklistCategory.getGlobalTargetBlacklist().isEmpty();
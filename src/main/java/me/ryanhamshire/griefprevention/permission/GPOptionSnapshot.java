@@ -0,0 +1,169 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.permission;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.spongepowered.api.service.context.Context;
+import org.spongepowered.api.service.permission.Subject;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * The option and permission values a player resolved to in one refresh.
+ *
+ * <p>Captured off the main thread and published as a whole, so a player's
+ * options are never seen half refreshed. Options without a value are
+ * absent. Each option goes through {@link Subject#getOption} because
+ * {@code getSubjectData().getOptions()} only returns values assigned
+ * directly to the subject and misses inherited ones.</p>
+ */
+public final class GPOptionSnapshot {
+
+    private static final String[] OPTIONS = {
+        GPOptions.ABANDON_RETURN_RATIO_BASIC,
+        GPOptions.ABANDON_RETURN_RATIO_TOWN,
+        GPOptions.BLOCKS_ACCRUED_PER_HOUR,
+        GPOptions.CLAIM_CREATE_MODE,
+        GPOptions.CLAIM_EXPIRATION_BASIC,
+        GPOptions.CLAIM_EXPIRATION_CHEST,
+        GPOptions.CLAIM_EXPIRATION_SUBDIVISION,
+        GPOptions.CLAIM_EXPIRATION_TOWN,
+        GPOptions.CREATE_CLAIM_LIMIT_BASIC,
+        GPOptions.CREATE_CLAIM_LIMIT_SUBDIVISION,
+        GPOptions.CREATE_CLAIM_LIMIT_TOWN,
+        GPOptions.INITIAL_CLAIM_BLOCKS,
+        GPOptions.MAX_ACCRUED_BLOCKS,
+        GPOptions.MAX_CLAIM_LEVEL,
+        GPOptions.MAX_CLAIM_SIZE_BASIC_X,
+        GPOptions.MAX_CLAIM_SIZE_BASIC_Y,
+        GPOptions.MAX_CLAIM_SIZE_BASIC_Z,
+        GPOptions.MAX_CLAIM_SIZE_SUBDIVISION_X,
+        GPOptions.MAX_CLAIM_SIZE_SUBDIVISION_Y,
+        GPOptions.MAX_CLAIM_SIZE_SUBDIVISION_Z,
+        GPOptions.MAX_CLAIM_SIZE_TOWN_X,
+        GPOptions.MAX_CLAIM_SIZE_TOWN_Y,
+        GPOptions.MAX_CLAIM_SIZE_TOWN_Z,
+        GPOptions.MIN_CLAIM_LEVEL,
+        GPOptions.MIN_CLAIM_SIZE_BASIC_X,
+        GPOptions.MIN_CLAIM_SIZE_BASIC_Y,
+        GPOptions.MIN_CLAIM_SIZE_BASIC_Z,
+        GPOptions.MIN_CLAIM_SIZE_TOWN_X,
+        GPOptions.MIN_CLAIM_SIZE_TOWN_Y,
+        GPOptions.MIN_CLAIM_SIZE_TOWN_Z,
+        GPOptions.RADIUS_CLAIM_INSPECT,
+        GPOptions.RADIUS_CLAIM_LIST,
+        GPOptions.TAX_EXPIRATION_BASIC,
+        GPOptions.TAX_RATE_BASIC,
+        GPOptions.TAX_RATE_TOWN,
+        GPOptions.TAX_RATE_TOWN_BASIC,
+    };
+
+    private static final String[] PERMISSIONS = {
+        GPPermissions.COMMAND_ADMIN_CLAIMS,
+        GPPermissions.IGNORE_BORDER_CHECK,
+        GPPermissions.IGNORE_CLAIMS_ADMIN,
+        GPPermissions.IGNORE_CLAIMS_BASIC,
+        GPPermissions.IGNORE_CLAIMS_TOWN,
+        GPPermissions.IGNORE_CLAIMS_WILDERNESS,
+        GPPermissions.MANAGE_WILDERNESS,
+    };
+
+    private static final AtomicLong refreshCount = new AtomicLong();
+    private static volatile long lastRefreshNanos;
+    private static volatile long maxRefreshNanos;
+
+    private final ImmutableMap<String, String> options;
+    private final ImmutableSet<String> permissions;
+    @Nullable private final String friendlyName;
+    private final long refreshNanos;
+
+    private GPOptionSnapshot(ImmutableMap<String, String> options, ImmutableSet<String> permissions, @Nullable String friendlyName,
+            long refreshNanos) {
+        this.options = options;
+        this.permissions = permissions;
+        this.friendlyName = friendlyName;
+        this.refreshNanos = refreshNanos;
+    }
+
+    public static GPOptionSnapshot capture(Subject subject, Set<Context> contexts) {
+        final long start = System.nanoTime();
+        final ImmutableMap.Builder<String, String> options = ImmutableMap.builder();
+        for (String option : OPTIONS) {
+            final String value = subject.getOption(contexts, option).orElse(null);
+            if (value != null) {
+                options.put(option, value);
+            }
+        }
+        final ImmutableSet.Builder<String> permissions = ImmutableSet.builder();
+        for (String permission : PERMISSIONS) {
+            if (subject.hasPermission(contexts, permission)) {
+                permissions.add(permission);
+            }
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        refreshCount.incrementAndGet();
+        lastRefreshNanos = elapsed;
+        if (elapsed > maxRefreshNanos) {
+            maxRefreshNanos = elapsed;
+        }
+        return new GPOptionSnapshot(options.build(), permissions.build(), subject.getFriendlyIdentifier().orElse(null), elapsed);
+    }
+
+    @Nullable
+    public String getOption(String option) {
+        return this.options.get(option);
+    }
+
+    public boolean hasPermission(String permission) {
+        return this.permissions.contains(permission);
+    }
+
+    @Nullable
+    public String getFriendlyName() {
+        return this.friendlyName;
+    }
+
+    public long getRefreshNanos() {
+        return this.refreshNanos;
+    }
+
+    public static long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    public static double getLastRefreshMillis() {
+        return lastRefreshNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public static double getMaxRefreshMillis() {
+        return maxRefreshNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
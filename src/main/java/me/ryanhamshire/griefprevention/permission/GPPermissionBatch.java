@@ -0,0 +1,127 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.permission;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.api.claim.TrustType;
+import me.ryanhamshire.griefprevention.claim.GPClaim;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.entity.living.player.User;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.util.Tristate;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+import org.spongepowered.api.world.storage.WorldProperties;
+
+import javax.annotation.Nullable;
+
+/**
+ * Evaluates a flag for many targets of a single event, once per distinct
+ * claim and target key.
+ *
+ * <p>The source, user and trust type are fixed for the event, and a block
+ * target resolves to the same id for every block sharing a state, so a
+ * decision can be fanned out to all of them. Other targets are keyed by
+ * their permission id. While debug is active every target is still checked
+ * individually so each one is recorded.</p>
+ */
+public final class GPPermissionBatch {
+
+    private final Event event;
+    private final String flagPermission;
+    private final Object source;
+    @Nullable private final User user;
+    @Nullable private final TrustType type;
+    private final boolean checkOverride;
+    private final Reference2ObjectOpenHashMap<GPClaim, Object2ObjectOpenHashMap<Object, Tristate>> results = new Reference2ObjectOpenHashMap<>();
+    private final Reference2ObjectOpenHashMap<BlockState, Boolean> blacklisted = new Reference2ObjectOpenHashMap<>();
+
+    public GPPermissionBatch(Event event, String flagPermission, Object source, @Nullable User user, @Nullable TrustType type, boolean checkOverride) {
+        this.event = event;
+        this.flagPermission = flagPermission;
+        this.source = source;
+        this.user = user;
+        this.type = type;
+        this.checkOverride = checkOverride;
+    }
+
+    // the flag must be the same for every call on a batch
+    public boolean isTargetIdBlacklisted(String flag, BlockState state, WorldProperties worldProperties) {
+        Boolean result = this.blacklisted.get(state);
+        if (result == null) {
+            result = GriefPreventionPlugin.isTargetIdBlacklisted(flag, state, worldProperties);
+            this.blacklisted.put(state, result);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the permission for a block target.
+     *
+     * @param location The block location
+     * @param claim The claim at the location
+     * @param target The target, such as the block snapshot or state
+     * @param state The block state of the target
+     * @return The result
+     */
+    public Tristate getClaimPermission(Location<World> location, GPClaim claim, Object target, BlockState state) {
+        return this.evaluate(location, claim, target, state);
+    }
+
+    /**
+     * Gets the permission for a target that is not a block.
+     *
+     * @param location The target location
+     * @param claim The claim at the location
+     * @param target The target
+     * @return The result
+     */
+    public Tristate getClaimPermission(Location<World> location, GPClaim claim, Object target) {
+        // the id is only needed as a key
+        return this.evaluate(location, claim, target, GriefPreventionPlugin.debugActive ? null : GPPermissionHandler.getPermissionIdentifier(target));
+    }
+
+    private Tristate evaluate(Location<World> location, GPClaim claim, Object target, @Nullable Object key) {
+        if (key == null || GriefPreventionPlugin.debugActive) {
+            return GPPermissionHandler.getClaimPermission(this.event, location, claim, this.flagPermission, this.source, target, this.user, this.type,
+                    this.checkOverride);
+        }
+
+        Object2ObjectOpenHashMap<Object, Tristate> claimResults = this.results.get(claim);
+        if (claimResults == null) {
+            claimResults = new Object2ObjectOpenHashMap<>();
+            this.results.put(claim, claimResults);
+        }
+        Tristate result = claimResults.get(key);
+        if (result == null) {
+            result = GPPermissionHandler.getClaimPermission(this.event, location, claim, this.flagPermission, this.source, target, this.user, this.type,
+                    this.checkOverride);
+            claimResults.put(key, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.permission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.claim.GPClaim;
+import me.ryanhamshire.griefprevention.configuration.category.GeneralCategory;
+import org.spongepowered.api.service.context.Context;
+import org.spongepowered.api.service.permission.Subject;
+import org.spongepowered.api.util.Tristate;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+/**
+ * Caches claim permission decisions per claim, subject, active contexts and
+ * permission node.
+ *
+ * <p>Every entry records the generation of its claim, read before the decision
+ * was evaluated. A claim's generation is the highest of the global generation
+ * and the generations of the claim and its parents' data. Claim data takes a
+ * new generation when it is marked for saving, and the global generation
+ * moves on when the permission service reports a subject data update and on
+ * reload. Both come from one sequence, so any of these changes gives the
+ * claim a generation it never had and older entries are ignored. Entries also
+ * expire after a configurable time, which bounds how long a change is missed
+ * when the permission plugin does not report updates.</p>
+ */
+public class GPPermissionCache {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static volatile long generation = SEQUENCE.incrementAndGet();
+    private static final LongAdder STALE_COUNT = new LongAdder();
+    private static volatile boolean enabled = false;
+    private static volatile Cache<Key, Decision> decisionCache = Caffeine.newBuilder().maximumSize(0).recordStats().build();
+
+    public static void reload() {
+        final GeneralCategory config = GriefPreventionPlugin.getGlobalConfig().getConfig().general;
+        enabled = config.permissionCacheSize > 0;
+        decisionCache = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, config.permissionCacheSize))
+                .expireAfterWrite(Math.max(1, config.permissionCacheExpiry), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        STALE_COUNT.reset();
+        invalidate();
+    }
+
+    /**
+     * Invalidates every cached decision.
+     */
+    public static void invalidate() {
+        generation = SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * Gets a new generation for claim data that changed, which invalidates
+     * the decisions of the claim and its children.
+     *
+     * @return The generation
+     */
+    public static long nextClaimGeneration() {
+        return SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * Gets the generation to look up and store a claim's decisions with. Must
+     * be read before the decision is evaluated.
+     *
+     * @param claim The claim
+     * @return The generation
+     */
+    public static long getGeneration(GPClaim claim) {
+        long value = generation;
+        for (GPClaim current = claim; current != null; current = current.parent) {
+            value = Math.max(value, current.getInternalClaimData().getPermissionGeneration());
+        }
+        return value;
+    }
+
+    public static boolean isEnabled() {
+        // debug records must be produced for every check
+        return enabled && !GriefPreventionPlugin.debugActive;
+    }
+
+    @Nullable
+    public static Tristate get(GPClaim claim, Subject subject, Set<Context> contexts, GPPermissionNodes nodes, long generation) {
+        final Key key = new Key(claim.getUniqueId(), subject.getIdentifier(), contexts, nodes);
+        final Decision decision = decisionCache.getIfPresent(key);
+        if (decision == null) {
+            return null;
+        }
+        if (decision.generation != generation) {
+            STALE_COUNT.increment();
+            return null;
+        }
+        return decision.value;
+    }
+
+    // the contexts must not be modified once passed in
+    public static Tristate put(GPClaim claim, Subject subject, Set<Context> contexts, GPPermissionNodes nodes, long generation, Tristate value) {
+        decisionCache.put(new Key(claim.getUniqueId(), subject.getIdentifier(), contexts, nodes), new Decision(value, generation));
+        return value;
+    }
+
+    public static CacheStats getStats() {
+        return decisionCache.stats();
+    }
+
+    public static long getStaleCount() {
+        return STALE_COUNT.sum();
+    }
+
+    public static long getGeneration() {
+        return generation;
+    }
+
+    public static long getSize() {
+        return decisionCache.estimatedSize();
+    }
+
+    private static final class Decision {
+
+        final Tristate value;
+        final long generation;
+
+        Decision(Tristate value, long generation) {
+            this.value = value;
+            this.generation = generation;
+        }
+    }
+
+    private static final class Key {
+
+        final UUID claimUniqueId;
+        final String subjectId;
+        // the active contexts of the subject, such as gamemode, world or server
+        final Set<Context> contexts;
+        // Nodes are shared instances so identity is enough
+        final GPPermissionNodes nodes;
+        final int hashCode;
+
+        Key(UUID claimUniqueId, String subjectId, Set<Context> contexts, GPPermissionNodes nodes) {
+            this.claimUniqueId = claimUniqueId;
+            this.subjectId = subjectId;
+            this.contexts = contexts;
+            this.nodes = nodes;
+            int hash = claimUniqueId.hashCode();
+            hash = 31 * hash + subjectId.hashCode();
+            hash = 31 * hash + contexts.hashCode();
+            this.hashCode = 31 * hash + System.identityHashCode(nodes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return this.nodes == other.nodes
+                    && this.claimUniqueId.equals(other.claimUniqueId)
+                    && this.subjectId.equals(other.subjectId)
+                    && this.contexts.equals(other.contexts);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.permission;
+
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.block.ChangeBlockEvent;
+import org.spongepowered.api.service.permission.Subject;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import javax.annotation.Nullable;
+
+/**
+ * The state of a single permission evaluation.
+ *
+ * <p>One instance is created per check and passed down the call chain so
+ * evaluations never share state, which allows them to run on any thread
+ * and to nest.</p>
+ */
+final class GPPermissionContext {
+
+    @Nullable final Event event;
+    @Nullable final Location<World> location;
+    @Nullable Subject subject;
+    // set for checks from other threads, which must not message players or write player data
+    final boolean readOnly;
+    String sourceId = "none";
+    String targetId = "none";
+
+    GPPermissionContext(@Nullable Event event, @Nullable Location<World> location, @Nullable Subject subject) {
+        this(event, location, subject, false);
+    }
+
+    GPPermissionContext(@Nullable Event event, @Nullable Location<World> location, @Nullable Subject subject, boolean readOnly) {
+        this.event = event;
+        this.location = location;
+        this.subject = subject;
+        this.readOnly = readOnly;
+    }
+
+    boolean includeBlockMeta() {
+        return !(this.event instanceof ChangeBlockEvent.Pre);
+    }
+}
@@ -53,7 +53,6 @@
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.entity.living.player.User;
 import org.spongepowered.api.event.Event;
-import org.spongepowered.api.event.block.ChangeBlockEvent;
 import org.spongepowered.api.event.block.NotifyNeighborBlockEvent;
 import org.spongepowered.api.event.cause.entity.damage.source.DamageSource;
 import org.spongepowered.api.event.cause.entity.damage.source.EntityDamageSource;
@@ -77,14 +76,11 @@
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.annotation.Nullable;
+
 public class GPPermissionHandler {
 
-    private static Event currentEvent;
-    private static Location<World> eventLocation;
-    private static Subject eventSubject;
-    private static String eventSourceId = "none";
-    private static String eventTargetId = "none";
-    private static final Pattern PATTERN_META = Pattern.compile("\\.[\\d+]*$");
+    static final Pattern PATTERN_META = Pattern.compile("\\.[\\d+]*$");
 
     public static Tristate getClaimPermission(Event event, Location<World> location, GPClaim claim, String flagPermission, Object source, Object target, User user) {
         return getClaimPermission(event, location, claim, flagPermission, source, target, user, null, false);
@@ -100,71 +96,72 @@ public static Tristate getClaimPermission(Event event, Location<World> location,
         }
 
         GPPlayerData playerData = null;
-        eventSubject = null;
-        if (user != null) {
-            eventSubject = user;
-            if (user instanceof Player) {
-                playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(claim.world, user.getUniqueId());
-            }
+        if (user instanceof Player) {
+            playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(claim.world, user.getUniqueId());
         }
-        currentEvent = event;
-        eventLocation = location;
 
-        String sourceId = getPermissionIdentifier(source, true);
-        String targetPermission = flagPermission;
-        String targetId = getPermissionIdentifier(target);
-        String targetModPermission = null;
-        String targetMetaPermission = null;
-        if (!targetId.isEmpty()) {
-            String[] parts = targetId.split(":");
-            String targetMod = parts[0];
-            // move target meta to end of permission
-            Matcher m = PATTERN_META.matcher(targetId);
-            String targetMeta = "";
-            if (!flagPermission.contains("command-execute")) {
-                if (m.find()) {
-                    targetMeta = m.group(0);
-                    targetId = StringUtils.replace(targetId, targetMeta, "");
-                }
-                if (!targetMeta.isEmpty()) {
-                    targetMetaPermission = flagPermission + "." + StringUtils.replace(targetId, ":", ".") + targetMeta;
-                }
-            }
-            if (!sourceId.isEmpty()) {
-                targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId + targetMeta;
-                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
-                targetPermission += "." + targetId + ".source." + sourceId + targetMeta;
-            } else {
-                targetModPermission = flagPermission + "." + targetMod + targetMeta;
-                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
-                targetPermission += "." + targetId + targetMeta;
-            }
-        } else if (!sourceId.isEmpty()) {
-            String targetMod = "";
-            if (sourceId.contains(":")) {
-                String[] parts = sourceId.split(":");
-                targetMod = parts[0];
-                targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId;
-                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
-            }
-            targetPermission += ".source." + sourceId;
+        final GPPermissionContext context = new GPPermissionContext(event, location, user);
+        final String sourceId = getPermissionIdentifier(context, source, true);
+        final String targetId = getPermissionIdentifier(context, target, false);
+        return getClaimPermission(context, claim, flagPermission, sourceId, targetId, user, playerData, type, checkOverride);
+    }
+
+    /**
+     * Checks a flag permission in a claim without an event.
+     *
+     * <p>Unlike the event based checks, this can be called from worker
+     * threads for bulk pre-validation. It has no side effects: no messages
+     * are sent, player data is neither loaded nor written and debug records
+     * are not produced. Source and target must already be resolved to ids
+     * such as {@code minecraft:stone.0}, since reading live entities or blocks
+     * off the main thread is not safe. Trusts are read from the claim's
+     * immutable trust index and other claim fields without locking, so a
+     * change made on the main thread during the call may not be seen.</p>
+     *
+     * @param claim The claim
+     * @param flagPermission The base flag permission
+     * @param sourceId The source id, or null for none
+     * @param targetId The target id, or null for none
+     * @param user The user, or null to check the claim flag only
+     * @param type The trust type that grants access, or null to skip the trust check
+     * @param checkOverride Whether to check flag overrides
+     * @return The result
+     */
+    public static Tristate getClaimPermission(GPClaim claim, String flagPermission, @Nullable String sourceId, @Nullable String targetId, @Nullable User user, @Nullable TrustType type, boolean checkOverride) {
+        if (claim == null) {
+            return Tristate.TRUE;
         }
 
-        targetPermission = StringUtils.replace(targetPermission, ":", ".");
+        GPPlayerData playerData = null;
+        if (user instanceof Player) {
+            playerData = GriefPreventionPlugin.instance.dataStore.getPlayerData(claim.world, user.getUniqueId());
+        }
+
+        final GPPermissionContext context = new GPPermissionContext(null, null, user, true);
+        sourceId = getPermissionIdentifier(context, sourceId, true);
+        targetId = getPermissionIdentifier(context, targetId, false);
+        return getClaimPermission(context, claim, flagPermission, sourceId, targetId, user, playerData, type, checkOverride);
+    }
+
+    private static Tristate getClaimPermission(GPPermissionContext context, GPClaim claim, String flagPermission, String sourceId, String targetId, User user, GPPlayerData playerData, TrustType type, boolean checkOverride) {
+        final GPPermissionNodes nodes = GPPermissionNodes.getClaimNodes(flagPermission, sourceId, targetId);
+        final String targetPermission = nodes.permission;
+        final String targetModPermission = nodes.modPermission;
+        final String targetMetaPermission = nodes.metaPermission;
         if (user != null && playerData != null && !playerData.debugClaimPermissions && playerData.canIgnoreClaim(claim)) {
-            return processResult(claim, targetPermission, "ignore", Tristate.TRUE, user);
+            return processResult(context, claim, targetPermission, "ignore", Tristate.TRUE, user);
         }
         if (checkOverride) {
             Tristate override = Tristate.UNDEFINED;
             if (user != null) {
                 // check global bans in wilderness
-                override = getFlagOverride((GPClaim) claim.getWilderness(), user, user, playerData, targetPermission, targetModPermission, targetMetaPermission);
+                override = getFlagOverride(context, (GPClaim) claim.getWilderness(), user, user, playerData, targetPermission, targetModPermission, targetMetaPermission);
                 if (override != Tristate.UNDEFINED) {
                     return override;
                 }
             }
             // First check for claim flag overrides
-            override = getFlagOverride(claim, user == null ? GriefPreventionPlugin.GLOBAL_SUBJECT : user, user, playerData, targetPermission, targetModPermission, targetMetaPermission);
+            override = getFlagOverride(context, claim, user == null ? GriefPreventionPlugin.GLOBAL_SUBJECT : user, user, playerData, targetPermission, targetModPermission, targetMetaPermission);
             if (override != Tristate.UNDEFINED) {
                 return override;
             }
@@ -172,27 +169,54 @@ public static Tristate getClaimPermission(Event event, Location<World> location,
 
         if (playerData != null) {
             if (playerData.debugClaimPermissions) {
-                if (user != null && type != null && claim.isUserTrusted(user, type)) {
-                    return processResult(claim, targetPermission, type.toString().toLowerCase(), Tristate.TRUE, user);
+                if (user != null && type != null && isUserTrusted(context, claim, user, playerData, type)) {
+                    return processResult(context, claim, targetPermission, type.toString().toLowerCase(), Tristate.TRUE, user);
                 }
-                return getClaimFlagPermission(claim, targetPermission, targetModPermission, targetMetaPermission);
+                return getClaimFlagPermission(context, claim, targetPermission, targetModPermission, targetMetaPermission);
             }
         }
         if (user != null) {
             if (type != null) {
-                if (claim.isUserTrusted(user, type)) {
-                    return processResult(claim, targetPermission, type.toString().toLowerCase(), Tristate.TRUE, user);
+                if (isUserTrusted(context, claim, user, playerData, type)) {
+                    return processResult(context, claim, targetPermission, type.toString().toLowerCase(), Tristate.TRUE, user);
                 }
             }
-            return getUserPermission(user, claim, targetPermission, targetModPermission, targetMetaPermission, playerData);
+            final Set<Context> contexts = PermissionUtils.getActiveContexts(user, playerData, targetPermission, !context.readOnly);
+            if (GPPermissionCache.isEnabled()) {
+                final long generation = GPPermissionCache.getGeneration(claim);
+                final Tristate cachedValue = GPPermissionCache.get(claim, user, contexts, nodes, generation);
+                if (cachedValue != null) {
+                    return cachedValue;
+                }
+                return GPPermissionCache.put(claim, user, contexts, nodes, generation,
+                        getUserPermission(context, user, claim, new HashSet<>(contexts), targetPermission, targetModPermission, targetMetaPermission));
+            }
+            return getUserPermission(context, user, claim, contexts, targetPermission, targetModPermission, targetMetaPermission);
+        }
+
+        if (GPPermissionCache.isEnabled()) {
+            final Set<Context> contexts = GriefPreventionPlugin.GLOBAL_SUBJECT.getActiveContexts();
+            final long generation = GPPermissionCache.getGeneration(claim);
+            final Tristate cachedValue = GPPermissionCache.get(claim, GriefPreventionPlugin.GLOBAL_SUBJECT, contexts, nodes, generation);
+            if (cachedValue != null) {
+                return cachedValue;
+            }
+            return GPPermissionCache.put(claim, GriefPreventionPlugin.GLOBAL_SUBJECT, contexts, nodes, generation, getClaimFlagPermission(context, claim, targetPermission, targetModPermission, targetMetaPermission));
         }
+        return getClaimFlagPermission(context, claim, targetPermission, targetModPermission, targetMetaPermission);
+    }
 
-        return getClaimFlagPermission(claim, targetPermission, targetModPermission, targetMetaPermission);
+    private static boolean isUserTrusted(GPPermissionContext context, GPClaim claim, User user, GPPlayerData playerData, TrustType type) {
+        if (context.readOnly) {
+            // only the player data already loaded is used
+            return claim.isUserTrusted(user, playerData, type, null);
+        }
+        return claim.isUserTrusted(user, type);
     }
 
-    private static Tristate getUserPermission(User user, GPClaim claim, String permission, String targetModPermission, String targetMetaPermission, GPPlayerData playerData) {
+    // the contexts are modified while checking
+    private static Tristate getUserPermission(GPPermissionContext context, User user, GPClaim claim, Set<Context> contexts, String permission, String targetModPermission, String targetMetaPermission) {
         final List<Claim> inheritParents = claim.getInheritedParents();
-        final Set<Context> contexts = PermissionUtils.getActiveContexts(user, playerData, permission);
 
         for (Claim parentClaim : inheritParents) {
             GPClaim parent = (GPClaim) parentClaim;
@@ -201,12 +225,12 @@ private static Tristate getUserPermission(User user, GPClaim claim, String permi
 
             Tristate value = user.getPermissionValue(contexts, permission);
             if (value != Tristate.UNDEFINED) {
-                return processResult(claim, permission, value, user);
+                return processResult(context, claim, permission, value, user);
             }
             if (targetModPermission != null) {
                 value = user.getPermissionValue(contexts, targetModPermission);
                 if (value != Tristate.UNDEFINED) {
-                    return processResult(claim, targetModPermission, value, user);
+                    return processResult(context, claim, targetModPermission, value, user);
                 }
             }
 
@@ -216,50 +240,50 @@ private static Tristate getUserPermission(User user, GPClaim claim, String permi
         contexts.add(claim.getContext());
         Tristate value = user.getPermissionValue(contexts, permission);
         if (value != Tristate.UNDEFINED) {
-            return processResult(claim, permission, value, user);
+            return processResult(context, claim, permission, value, user);
         }
         if (targetMetaPermission != null) {
             value = user.getPermissionValue(contexts, targetMetaPermission);
             if (value != Tristate.UNDEFINED) {
-                return processResult(claim, targetMetaPermission, value, user);
+                return processResult(context, claim, targetMetaPermission, value, user);
             }
         }
         if (targetModPermission != null) {
             value = user.getPermissionValue(contexts, targetModPermission);
             if (value != Tristate.UNDEFINED) {
-                return processResult(claim, targetModPermission, value, user);
+                return processResult(context, claim, targetModPermission, value, user);
             }
         }
 
-        return getClaimFlagPermission(claim, permission, targetModPermission, targetMetaPermission);
+        return getClaimFlagPermission(context, claim, permission, targetModPermission, targetMetaPermission);
     }
 
-    private static Tristate getClaimFlagPermission(GPClaim claim, String permission, String targetModPermission, String targetMetaPermission) {
+    private static Tristate getClaimFlagPermission(GPPermissionContext context, GPClaim claim, String permission, String targetModPermission, String targetMetaPermission) {
         Set<Context> contexts = new HashSet<>(GriefPreventionPlugin.GLOBAL_SUBJECT.getActiveContexts());
         contexts.add(claim.getContext());
 
         Tristate value = GriefPreventionPlugin.GLOBAL_SUBJECT.getPermissionValue(contexts, permission);
         if (value != Tristate.UNDEFINED) {
-            return processResult(claim, permission, value, GriefPreventionPlugin.GLOBAL_SUBJECT);
+            return processResult(context, claim, permission, value, GriefPreventionPlugin.GLOBAL_SUBJECT);
         }
         if (targetMetaPermission != null) {
             value = GriefPreventionPlugin.GLOBAL_SUBJECT.getPermissionValue(contexts, targetMetaPermission);
             if (value != Tristate.UNDEFINED) {
-                return processResult(claim, targetMetaPermission, value, GriefPreventionPlugin.GLOBAL_SUBJECT);
+                return processResult(context, claim, targetMetaPermission, value, GriefPreventionPlugin.GLOBAL_SUBJECT);
             }
         }
         if (targetModPermission != null) {
             value = GriefPreventionPlugin.GLOBAL_SUBJECT.getPermissionValue(contexts, targetModPermission);
             if (value != Tristate.UNDEFINED) {
-                return processResult(claim, targetModPermission, value, GriefPreventionPlugin.GLOBAL_SUBJECT);
+                return processResult(context, claim, targetModPermission, value, GriefPreventionPlugin.GLOBAL_SUBJECT);
             }
         }
 
-        return getFlagDefaultPermission(claim, permission);
+        return getFlagDefaultPermission(context, claim, permission);
     }
 
     // Only uses world and claim type contexts
-    private static Tristate getFlagDefaultPermission(GPClaim claim, String permission) {
+    private static Tristate getFlagDefaultPermission(GPPermissionContext context, GPClaim claim, String permission) {
         // Fallback to defaults
         Set<Context> contexts = new HashSet<>(GriefPreventionPlugin.GLOBAL_SUBJECT.getActiveContexts());
         if (claim.parent != null && claim.getData().doesInheritParent()) {
@@ -284,13 +308,13 @@ private static Tristate getFlagDefaultPermission(GPClaim claim, String permissio
         // check persisted/transient default data
         Tristate value = GriefPreventionPlugin.GLOBAL_SUBJECT.getPermissionValue(contexts, permission);
         if (value != Tristate.UNDEFINED) {
-            return processResult(claim, permission, value, GriefPreventionPlugin.GLOBAL_SUBJECT);
+            return processResult(context, claim, permission, value, GriefPreventionPlugin.GLOBAL_SUBJECT);
         }
 
-        return processResult(claim, permission, Tristate.UNDEFINED, GriefPreventionPlugin.GLOBAL_SUBJECT);
+        return processResult(context, claim, permission, Tristate.UNDEFINED, GriefPreventionPlugin.GLOBAL_SUBJECT);
     }
 
-    private static Tristate getFlagOverride(GPClaim claim, Subject subject, User user, GPPlayerData playerData, String flagPermission, String targetModPermission, String targetMetaPermission) {
+    private static Tristate getFlagOverride(GPPermissionContext context, GPClaim claim, Subject subject, User user, GPPlayerData playerData, String flagPermission, String targetModPermission, String targetMetaPermission) {
         if (!claim.getInternalClaimData().allowFlagOverrides()) {
             return Tristate.UNDEFINED;
         }
@@ -299,7 +323,7 @@ private static Tristate getFlagOverride(GPClaim claim, Subject subject, User use
         }
 
         Player player = null;
-        Set<Context> contexts = PermissionUtils.getActiveContexts(subject, playerData, null);
+        Set<Context> contexts = PermissionUtils.getActiveContexts(subject, playerData, null, !context.readOnly);
         if (claim.isAdminClaim()) {
             contexts.add(ClaimContexts.ADMIN_OVERRIDE_CONTEXT);
             contexts.add(claim.world.getContext());
@@ -311,7 +335,8 @@ private static Tristate getFlagOverride(GPClaim claim, Subject subject, User use
             contexts.add(claim.world.getContext());
         } else if (claim.isWilderness()) {
             contexts.add(ClaimContexts.WILDERNESS_OVERRIDE_CONTEXT);
-            player = user instanceof Player ? (Player) user : null;
+            // ban reasons are only sent for checks made on the main thread
+            player = user instanceof Player && !context.readOnly ? (Player) user : null;
         }
 
         Tristate value = subject.getPermissionValue(contexts, flagPermission);
@@ -322,7 +347,7 @@ private static Tristate getFlagOverride(GPClaim claim, Subject subject, User use
                     player.sendMessage(reason);
                 }
             }
-            return processResult(claim, flagPermission, value, user);
+            return processResult(context, claim, flagPermission, value, user);
         }
         if (targetMetaPermission != null) {
             value = subject.getPermissionValue(contexts, targetMetaPermission);
@@ -333,7 +358,7 @@ private static Tristate getFlagOverride(GPClaim claim, Subject subject, User use
                         player.sendMessage(reason);
                     }
                 }
-                return processResult(claim, targetMetaPermission, value, user);
+                return processResult(context, claim, targetMetaPermission, value, user);
             }
         }
         if (targetModPermission != null) {
@@ -345,7 +370,7 @@ private static Tristate getFlagOverride(GPClaim claim, Subject subject, User use
                         player.sendMessage(reason);
                     }
                 }
-                return processResult(claim, targetModPermission, value, user);
+                return processResult(context, claim, targetModPermission, value, user);
             }
         }
 
@@ -367,43 +392,21 @@ public static Tristate getFlagOverride(Event event, Location<World> location, GP
             }
         }
 
-        currentEvent = event;
-        eventLocation = location;
-        eventSubject = user;
+        final GPPermissionContext context = new GPPermissionContext(event, location, user);
         Player player = null;
         final Subject subject = user != null ? user : GriefPreventionPlugin.GLOBAL_SUBJECT;
-        String targetModPermission = null;
-        String targetMetaPermission = null;
-        if (target != null && source == null) {
-            String targetId = getPermissionIdentifier(target);
-            flagPermission += "." + targetId;
-        } else if (target != null && source != null) {
-            String sourceId = getPermissionIdentifier(source, true);
-            String targetId = getPermissionIdentifier(target);
-            if (!targetId.isEmpty()) {
-                String[] parts = targetId.split(":");
-                String targetMod = parts[0];
-                if (!sourceId.isEmpty()) {
-                    // move target meta to end of permission
-                    Matcher m = PATTERN_META.matcher(targetId);
-                    String targetMeta = "";
-                    if (m.find()) {
-                        targetMeta = m.group(0);
-                        targetId = StringUtils.replace(targetId, targetMeta, "");
-                    }
-                    if (!targetMeta.isEmpty()) {
-                        targetMetaPermission = flagPermission + "." + StringUtils.replace(targetId, ":", ".") + targetMeta;
-                    }
-                    targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId + targetMeta;
-                    targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
-                    flagPermission += "." + targetId + ".source." + sourceId + targetMeta;
-                } else {
-                    flagPermission += "." + targetId;
-                }
-            }
-        }
-
-        flagPermission = StringUtils.replace(flagPermission, ":", ".");
+        String sourceId = null;
+        String targetId = null;
+        if (target != null) {
+            if (source != null) {
+                sourceId = getPermissionIdentifier(context, source, true);
+            }
+            targetId = getPermissionIdentifier(context, target, false);
+        }
+        final GPPermissionNodes nodes = GPPermissionNodes.getOverrideNodes(flagPermission, sourceId, targetId);
+        flagPermission = nodes.permission;
+        final String targetModPermission = nodes.modPermission;
+        final String targetMetaPermission = nodes.metaPermission;
         Set<Context> contexts = PermissionUtils.getActiveContexts(subject, playerData, null);
         if (claim.isWilderness()) {
             contexts.add(ClaimContexts.WILDERNESS_OVERRIDE_CONTEXT);
@@ -427,7 +430,7 @@ public static Tristate getFlagOverride(Event event, Location<World> location, GP
                     player.sendMessage(reason);
                 }
             }
-            return processResult(claim, flagPermission, value, user);
+            return processResult(context, claim, flagPermission, value, user);
         }
         if (targetMetaPermission != null) {
             value = subject.getPermissionValue(contexts, targetMetaPermission);
@@ -438,7 +441,7 @@ public static Tristate getFlagOverride(Event event, Location<World> location, GP
                         player.sendMessage(reason);
                     }
                 }
-                return processResult(claim, targetMetaPermission, value, user);
+                return processResult(context, claim, targetMetaPermission, value, user);
             }
         }
         // check target modid
@@ -451,7 +454,7 @@ public static Tristate getFlagOverride(Event event, Location<World> location, GP
                         player.sendMessage(reason);
                     }
                 }
-                return processResult(claim, targetModPermission, value, user);
+                return processResult(context, claim, targetModPermission, value, user);
             }
         }
 
@@ -470,8 +473,7 @@ public static Tristate getClaimPermission(GPClaim claim, ClaimFlag flag, Subject
                 String[] parts = targetId.split(":");
                 String targetMod = parts[0];
                 // move target meta to end of permission
-                Pattern p = Pattern.compile("\\.[\\d+]*$");
-                Matcher m = p.matcher(targetId);
+                Matcher m = PATTERN_META.matcher(targetId);
                 String targetMeta = "";
                 if (m.find()) {
                     targetMeta = m.group(0);
@@ -490,29 +492,30 @@ public static Tristate getClaimPermission(GPClaim claim, ClaimFlag flag, Subject
         return subject.getPermissionValue(contexts, targetPermission);
     }
 
-    public static Tristate processResult(GPClaim claim, String permission, Tristate permissionValue, Subject permissionSubject) {
-        return processResult(claim, permission, null, permissionValue, permissionSubject);
+    private static Tristate processResult(GPPermissionContext context, GPClaim claim, String permission, Tristate permissionValue, Subject permissionSubject) {
+        return processResult(context, claim, permission, null, permissionValue, permissionSubject);
     }
 
-    public static Tristate processResult(GPClaim claim, String permission, String trust, Tristate permissionValue, Subject permissionSubject) {
-        if (GriefPreventionPlugin.debugActive) {
+    private static Tristate processResult(GPPermissionContext context, GPClaim claim, String permission, String trust, Tristate permissionValue, Subject permissionSubject) {
+        // Checks without an event are not recorded
+        if (GriefPreventionPlugin.debugActive && context.event != null) {
             // Use the event subject always if available
             // This prevents debug showing 'default' for users
-            if (eventSubject != null) {
-                permissionSubject = eventSubject;
+            if (context.subject != null) {
+                permissionSubject = context.subject;
             } else if (permissionSubject == null) {
-                if (currentEvent.getCause().root() instanceof User) {
-                    permissionSubject = (Subject) currentEvent.getCause().root();
+                if (context.event.getCause().root() instanceof User) {
+                    permissionSubject = (Subject) context.event.getCause().root();
                 } else {
                     permissionSubject = GriefPreventionPlugin.GLOBAL_SUBJECT;
                 }
             }
-            if (currentEvent instanceof NotifyNeighborBlockEvent) {
+            if (context.event instanceof NotifyNeighborBlockEvent) {
                 if (claim.getWorld().getProperties().getTotalTime() % 100 == 0L) {
-                    GriefPreventionPlugin.addEventLogEntry(currentEvent, eventLocation, eventSourceId, eventTargetId, permissionSubject, permission, trust, permissionValue);
+                    GriefPreventionPlugin.addEventLogEntry(context.event, context.location, context.sourceId, context.targetId, permissionSubject, permission, trust, permissionValue);
                 }
             } else {
-                GriefPreventionPlugin.addEventLogEntry(currentEvent, eventLocation, eventSourceId, eventTargetId, permissionSubject, permission, trust, permissionValue);
+                GriefPreventionPlugin.addEventLogEntry(context.event, context.location, context.sourceId, context.targetId, permissionSubject, permission, trust, permissionValue);
             }
         }
 
@@ -522,9 +525,10 @@ public static Tristate processResult(GPClaim claim, String permission, String tr
     // Used for situations where events are skipped for perf reasons
     public static void addEventLogEntry(Event event, Location<World> location, Object source, Object target, Subject permissionSubject, String permission, String trust, Tristate result) {
         if (GriefPreventionPlugin.debugActive) {
-            String sourceId = getPermissionIdentifier(source, true);
+            final GPPermissionContext context = new GPPermissionContext(event, location, permissionSubject);
+            String sourceId = getPermissionIdentifier(context, source, true);
             String targetPermission = permission;
-            String targetId = getPermissionIdentifier(target);
+            String targetId = getPermissionIdentifier(context, target, false);
             if (!targetId.isEmpty()) {
                 // move target meta to end of permission
                 Matcher m = PATTERN_META.matcher(targetId);
@@ -545,11 +549,15 @@ public static void addEventLogEntry(Event event, Location<World> location, Objec
     }
 
     public static String getPermissionIdentifier(Object obj) {
-        return getPermissionIdentifier(obj, false);
+        return getPermissionIdentifier(null, obj, false);
     }
 
-    @SuppressWarnings("deprecation")
     public static String getPermissionIdentifier(Object obj, boolean isSource) {
+        return getPermissionIdentifier(null, obj, isSource);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String getPermissionIdentifier(@Nullable GPPermissionContext context, Object obj, boolean isSource) {
         if (obj != null) {
             if (obj instanceof Entity) {
                 Entity targetEntity = (Entity) obj;
@@ -585,7 +593,7 @@ public static String getPermissionIdentifier(Object obj, boolean isSource) {
                         String name = parts[1];
                         if (modId.equalsIgnoreCase("pixelmon") && modId.equalsIgnoreCase(name)) {
                             name = EntityUtils.getFriendlyName(mcEntity).toLowerCase();
-                            populateEventSourceTarget(modId + ":" + name, isSource);
+                            populateEventSourceTarget(context, modId + ":" + name, isSource);
                         }
                         if (!isSource) {
                             for (EnumCreatureType type : EnumCreatureType.values()) {
@@ -602,36 +610,36 @@ public static String getPermissionIdentifier(Object obj, boolean isSource) {
                     id = ((Item) targetEntity).getItemType().getId();
                 }
 
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof EntityType) {
                 final String id = ((EntityType) obj).getId();
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof BlockType) {
                 final String id = ((BlockType) obj).getId();
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof BlockSnapshot) {
                 final BlockSnapshot blockSnapshot = (BlockSnapshot) obj;
                 final BlockState blockstate = blockSnapshot.getState();
                 String id = "";
-                if (currentEvent != null && !(currentEvent instanceof ChangeBlockEvent.Pre)) {
+                if (context == null || context.includeBlockMeta()) {
                     id = blockstate.getType().getId() + "." + BlockUtils.getBlockStateMeta(blockstate);
                 } else {
                     id = blockstate.getType().getId();
                 }
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof BlockState) {
                 final BlockState blockstate = (BlockState) obj;
                 final String id = blockstate.getType().getId() + "." + BlockUtils.getBlockStateMeta(blockstate);
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof LocatableBlock) {
                 final LocatableBlock locatableBlock = (LocatableBlock) obj;
                 final BlockState blockstate = locatableBlock.getBlockState();
                 final String id = blockstate.getType().getId() + "." + BlockUtils.getBlockStateMeta(blockstate);
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof TileEntity) {
                 TileEntity tileEntity = (TileEntity) obj;
                 final String id = tileEntity.getType().getId().toLowerCase();
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof ItemStack) {
                 final ItemStack itemstack = (ItemStack) obj;
                 String id = "";
@@ -644,20 +652,20 @@ public static String getPermissionIdentifier(Object obj, boolean isSource) {
                     id = itemstack.getType().getId() + "." + ((net.minecraft.item.ItemStack)(Object) itemstack).getItemDamage();
                 }
 
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof ItemType) {
                 final String id = ((ItemType) obj).getId().toLowerCase();
-                populateEventSourceTarget(id, isSource);
+                populateEventSourceTarget(context, id, isSource);
                 return id;
             } else if (obj instanceof EntityDamageSource) {
                 final EntityDamageSource damageSource = (EntityDamageSource) obj;
                 Entity sourceEntity = damageSource.getSource();
 
-                if (eventSubject == null && sourceEntity instanceof User) {
-                    eventSubject = (User) sourceEntity;
+                if (context != null && context.subject == null && sourceEntity instanceof User) {
+                    context.subject = (User) sourceEntity;
                 }
 
-                return getPermissionIdentifier(sourceEntity, isSource);
+                return getPermissionIdentifier(context, sourceEntity, isSource);
             } else if (obj instanceof DamageSource) {
                 final DamageSource damageSource = (DamageSource) obj;
                 String id = damageSource.getType().getId();
@@ -665,25 +673,25 @@ public static String getPermissionIdentifier(Object obj, boolean isSource) {
                     id = "minecraft:" + id;
                 }
 
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof ItemStackSnapshot) {
                 final String id = ((ItemStackSnapshot) obj).getType().getId();
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof CatalogType) {
                 final String id = ((CatalogType) obj).getId();
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof String) {
                 final String id = obj.toString().toLowerCase();
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof PluginContainer) {
                 final String id = ((PluginContainer) obj).getId();
-                return populateEventSourceTarget(id, isSource);
+                return populateEventSourceTarget(context, id, isSource);
             } else if (obj instanceof Inventory) {
                 return ((Inventory) obj).getArchetype().getId();
             }
         }
 
-        populateEventSourceTarget("none", isSource);
+        populateEventSourceTarget(context, "none", isSource);
         return "";
     }
 
@@ -757,7 +765,7 @@ public static String getIdentifierWithoutMeta(String targetId) {
         return targetId;
     }
 
-    private static String populateEventSourceTarget(String id, boolean isSource) {
+    private static String populateEventSourceTarget(@Nullable GPPermissionContext context, String id, boolean isSource) {
         // Handle mod's that pass modid:modid:name
         String[] parts = id.split(":");
         if (parts != null && parts.length == 3) {
@@ -766,10 +774,12 @@ private static String populateEventSourceTarget(String id, boolean isSource) {
             }
         }
         id = id.toLowerCase();
-        if (isSource) {
-            eventSourceId = id;
-        } else {
-            eventTargetId = id;
+        if (context != null) {
+            if (isSource) {
+                context.sourceId = id;
+            } else {
+                context.targetId = id;
+            }
         }
         return id;
     }
@@ -0,0 +1,204 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.permission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Objects;
+import java.util.regex.Matcher;
+
+import javax.annotation.Nullable;
+
+/**
+ * The permission nodes checked for a flag, source and target combination.
+ *
+ * <p>Building these requires splitting ids, a regex match and several string
+ * replacements so each combination is built once and shared.</p>
+ */
+public final class GPPermissionNodes {
+
+    private static final Cache<Key, GPPermissionNodes> NODE_CACHE = Caffeine.newBuilder().maximumSize(16384).build();
+
+    public final String permission;
+    @Nullable public final String modPermission;
+    @Nullable public final String metaPermission;
+
+    private GPPermissionNodes(String permission, @Nullable String modPermission, @Nullable String metaPermission) {
+        this.permission = permission;
+        this.modPermission = modPermission;
+        this.metaPermission = metaPermission;
+    }
+
+    /**
+     * Gets the nodes used by claim permission checks.
+     *
+     * @param flagPermission The base flag permission
+     * @param sourceId The source id, empty if none
+     * @param targetId The target id, empty if none
+     * @return The nodes
+     */
+    public static GPPermissionNodes getClaimNodes(String flagPermission, String sourceId, String targetId) {
+        return NODE_CACHE.get(new Key(false, flagPermission, sourceId, targetId), GPPermissionNodes::buildClaimNodes);
+    }
+
+    /**
+     * Gets the nodes used by flag override checks.
+     *
+     * @param flagPermission The base flag permission
+     * @param sourceId The source id, null if no source was available
+     * @param targetId The target id, null if no target was available
+     * @return The nodes
+     */
+    public static GPPermissionNodes getOverrideNodes(String flagPermission, @Nullable String sourceId, @Nullable String targetId) {
+        return NODE_CACHE.get(new Key(true, flagPermission, sourceId, targetId), GPPermissionNodes::buildOverrideNodes);
+    }
+
+    public static void invalidateAll() {
+        NODE_CACHE.invalidateAll();
+    }
+
+    private static GPPermissionNodes buildClaimNodes(Key key) {
+        final String flagPermission = key.flagPermission;
+        final String sourceId = key.sourceId;
+        String targetId = key.targetId;
+        String targetPermission = flagPermission;
+        String targetModPermission = null;
+        String targetMetaPermission = null;
+        if (!targetId.isEmpty()) {
+            String[] parts = targetId.split(":");
+            String targetMod = parts[0];
+            // move target meta to end of permission
+            Matcher m = GPPermissionHandler.PATTERN_META.matcher(targetId);
+            String targetMeta = "";
+            if (!flagPermission.contains("command-execute")) {
+                if (m.find()) {
+                    targetMeta = m.group(0);
+                    targetId = StringUtils.replace(targetId, targetMeta, "");
+                }
+                if (!targetMeta.isEmpty()) {
+                    targetMetaPermission = flagPermission + "." + StringUtils.replace(targetId, ":", ".") + targetMeta;
+                }
+            }
+            if (!sourceId.isEmpty()) {
+                targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId + targetMeta;
+                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
+                targetPermission += "." + targetId + ".source." + sourceId + targetMeta;
+            } else {
+                targetModPermission = flagPermission + "." + targetMod + targetMeta;
+                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
+                targetPermission += "." + targetId + targetMeta;
+            }
+        } else if (!sourceId.isEmpty()) {
+            if (sourceId.contains(":")) {
+                String[] parts = sourceId.split(":");
+                String targetMod = parts[0];
+                targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId;
+                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
+            }
+            targetPermission += ".source." + sourceId;
+        }
+
+        targetPermission = StringUtils.replace(targetPermission, ":", ".");
+        return new GPPermissionNodes(targetPermission, targetModPermission, targetMetaPermission);
+    }
+
+    private static GPPermissionNodes buildOverrideNodes(Key key) {
+        final String sourceId = key.sourceId;
+        String flagPermission = key.flagPermission;
+        String targetId = key.targetId;
+        String targetModPermission = null;
+        String targetMetaPermission = null;
+        if (targetId != null && sourceId == null) {
+            flagPermission += "." + targetId;
+        } else if (targetId != null) {
+            if (!targetId.isEmpty()) {
+                String[] parts = targetId.split(":");
+                String targetMod = parts[0];
+                if (!sourceId.isEmpty()) {
+                    // move target meta to end of permission
+                    Matcher m = GPPermissionHandler.PATTERN_META.matcher(targetId);
+                    String targetMeta = "";
+                    if (m.find()) {
+                        targetMeta = m.group(0);
+                        targetId = StringUtils.replace(targetId, targetMeta, "");
+                    }
+                    if (!targetMeta.isEmpty()) {
+                        targetMetaPermission = flagPermission + "." + StringUtils.replace(targetId, ":", ".") + targetMeta;
+                    }
+                    targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId + targetMeta;
+                    targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
+                    flagPermission += "." + targetId + ".source." + sourceId + targetMeta;
+                } else {
+                    flagPermission += "." + targetId;
+                }
+            }
+        }
+
+        flagPermission = StringUtils.replace(flagPermission, ":", ".");
+        return new GPPermissionNodes(flagPermission, targetModPermission, targetMetaPermission);
+    }
+
+    private static final class Key {
+
+        final boolean override;
+        final String flagPermission;
+        @Nullable final String sourceId;
+        @Nullable final String targetId;
+        final int hashCode;
+
+        Key(boolean override, String flagPermission, @Nullable String sourceId, @Nullable String targetId) {
+            this.override = override;
+            this.flagPermission = flagPermission;
+            this.sourceId = sourceId;
+            this.targetId = targetId;
+            int hash = flagPermission.hashCode();
+            hash = 31 * hash + (sourceId == null ? 0 : sourceId.hashCode());
+            hash = 31 * hash + (targetId == null ? 0 : targetId.hashCode());
+            this.hashCode = 31 * hash + (override ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return this.override == other.override
+                    && this.flagPermission.equals(other.flagPermission)
+                    && Objects.equals(this.sourceId, other.sourceId)
+                    && Objects.equals(this.targetId, other.targetId);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -45,14 +45,44 @@
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 //FEATURE: automatically remove inactive claims
 //runs every 5 minutes on the main thread
 public class CleanupUnusedClaimsTask implements Runnable {
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
     @Override
     public void run() {
+        // claim activity includes the owner's last seen date, owner storage that is not loaded yet is read on the executor first
+        final List<GPPlayerData> unloadedOwners = new ArrayList<>();
+        for (WorldProperties worldProperties : Sponge.getServer().getAllWorldProperties()) {
+            final GPClaimManager claimManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(worldProperties);
+            for (Claim claim : claimManager.getWorldClaims()) {
+                final GPClaim gpClaim = (GPClaim) claim;
+                if (gpClaim.isAdminClaim() || !gpClaim.getInternalClaimData().allowExpiration()) {
+                    continue;
+                }
+                final GPPlayerData playerData = gpClaim.getOwnerPlayerData();
+                if (playerData != null && !playerData.isStorageLoaded()) {
+                    unloadedOwners.add(playerData);
+                }
+            }
+        }
+        if (unloadedOwners.isEmpty()) {
+            this.cleanupClaims();
+            return;
+        }
+
+        GriefPreventionPlugin.instance.executor.execute(() -> {
+            for (GPPlayerData playerData : unloadedOwners) {
+                playerData.getStorageData();
+            }
+            Sponge.getScheduler().createTaskBuilder().execute(this::cleanupClaims).submit(GriefPreventionPlugin.instance);
+        });
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void cleanupClaims() {
         for (WorldProperties worldProperties : Sponge.getServer().getAllWorldProperties()) {
             // don't do anything when there are no claims
             GPClaimManager claimManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(worldProperties);
@@ -74,6 +104,11 @@ public void run() {
                     continue;
                 }
 
+                // the owner's last seen date is still being read, checked on the next run
+                if (playerData.isStorageLoaded() && !playerData.getStorageData().isLoaded()) {
+                    continue;
+                }
+
                 GriefPreventionConfig<?> activeConfig = GriefPreventionPlugin.getActiveConfig(worldProperties);
                 // determine area of the default chest claim
                 int areaOfDefaultClaim = 0;
@@ -82,7 +117,7 @@ public void run() {
                 }
 
                 final Subject subject = playerData.getPlayerSubject();
-                Instant claimLastActive = claim.getInternalClaimData().getDateLastActive();
+                Instant claimLastActive = claim.getLastActive();
 
                 try (final CauseStackManager.StackFrame frame = Sponge.getCauseStackManager().pushCauseFrame()) {
                     Sponge.getCauseStackManager().addContext(GPContextKeys.CHEST_CLAIM_EXPIRED, GriefPreventionPlugin.instance.pluginContainer);
@@ -27,12 +27,14 @@
 
 import me.ryanhamshire.griefprevention.GPPlayerData;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.visual.VisualBlockList;
 import me.ryanhamshire.griefprevention.visual.Visualization;
+import me.ryanhamshire.griefprevention.visual.VisualizationSender;
+import net.minecraft.network.play.server.SPacketMultiBlockChange;
 import org.spongepowered.api.Sponge;
-import org.spongepowered.api.block.BlockSnapshot;
 import org.spongepowered.api.entity.living.player.Player;
 
-import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 //applies a visualization for a player by sending him block change packets
@@ -42,6 +44,9 @@ public class VisualizationApplicationTask implements Runnable {
     private Player player;
     private GPPlayerData playerData;
     private boolean resetActive;
+    private VisualBlockList blocks;
+    // packets built off the main thread, if any
+    private List<SPacketMultiBlockChange> packets;
 
     public VisualizationApplicationTask(Player player, GPPlayerData playerData, Visualization visualization) {
         this(player, playerData, visualization, true);
@@ -52,6 +57,14 @@ public VisualizationApplicationTask(Player player, GPPlayerData playerData, Visu
         this.playerData = playerData;
         this.player = player;
         this.resetActive = resetActive;
+        this.blocks = visualization.elements;
+    }
+
+    public VisualizationApplicationTask(Player player, GPPlayerData playerData, Visualization visualization, boolean resetActive,
+            VisualBlockList blocks, List<SPacketMultiBlockChange> packets) {
+        this(player, playerData, visualization, resetActive);
+        this.blocks = blocks;
+        this.packets = packets;
     }
 
     @Override
@@ -62,9 +75,10 @@ public void run() {
             }
         }
 
-        for (int i = 0; i < this.visualization.elements.size(); i++) {
-            BlockSnapshot snapshot = this.visualization.elements.get(i).getFinal();
-            this.player.sendBlockChange(snapshot.getPosition(), snapshot.getState());
+        if (this.packets != null) {
+            VisualizationSender.sendPackets(this.player, this.packets);
+        } else {
+            VisualizationSender.sendVisual(this.player, this.blocks);
         }
 
         // remember the visualization applied to this player for later (so it can be inexpensively reverted)
@@ -73,20 +87,20 @@ public void run() {
             this.visualization.getClaim().playersWatching.add(this.player.getUniqueId());
         }
         if (this.playerData.visualBlocks == null) {
-            this.playerData.visualBlocks = new ArrayList<>(this.visualization.elements);
-        } else {
-            this.playerData.visualBlocks.addAll(this.visualization.elements);
+            this.playerData.visualBlocks = new VisualBlockList();
         }
+        this.playerData.visualBlocks.addAll(this.blocks);
+        this.playerData.visualTracker.track(this.visualization, this.player.getLocation());
 
         if (this.playerData.visualRevertTask != null) {
             this.playerData.visualRevertTask.cancel();
-            this.playerData.visualRevertTask = Sponge.getGame().getScheduler().createTaskBuilder().async().delay(1, TimeUnit.MINUTES)
+            this.playerData.visualRevertTask = Sponge.getGame().getScheduler().createTaskBuilder().delay(1, TimeUnit.MINUTES)
                     .execute(new VisualizationReversionTask(this.player, this.playerData)).submit(GriefPreventionPlugin.instance);
         } else {
             // schedule automatic visualization reversion in 60 seconds.
             // only create revert task if not resizing/starting a claim
             if (playerData.lastShovelLocation == null) {
-                this.playerData.visualRevertTask = Sponge.getGame().getScheduler().createTaskBuilder().async().delay(1, TimeUnit.MINUTES)
+                this.playerData.visualRevertTask = Sponge.getGame().getScheduler().createTaskBuilder().delay(1, TimeUnit.MINUTES)
                         .execute(new VisualizationReversionTask(this.player, this.playerData)).submit(GriefPreventionPlugin.instance);
             }
         }
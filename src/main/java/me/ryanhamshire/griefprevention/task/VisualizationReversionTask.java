@@ -28,7 +28,8 @@
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import org.spongepowered.api.entity.living.player.Player;
 
-//applies a visualization for a player by sending him block change packets
+//reverts a visualization for a player by sending him the real blocks
+//runs on the main thread since it clears the visualization tracker used by move events
 class VisualizationReversionTask implements Runnable {
 
     private Player player;
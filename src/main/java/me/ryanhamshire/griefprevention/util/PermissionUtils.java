@@ -24,56 +24,211 @@
  */
 package me.ryanhamshire.griefprevention.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import me.ryanhamshire.griefprevention.GPPlayerData;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
+import org.spongepowered.api.Sponge;
 import org.spongepowered.api.service.context.Context;
 import org.spongepowered.api.service.permission.Subject;
+import org.spongepowered.api.service.permission.SubjectCollection;
 
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Nullable;
+
+/**
+ * Subject lookups that avoid blocking the main thread.
+ *
+ * <p>Resolved subjects are cached until they have not been used for a while.
+ * The blocking variants return immediately from the cache or from subjects
+ * the plugin already has loaded. Otherwise they wait for the lookup, except
+ * on the main thread where they start it in the background and return
+ * nothing. Main thread callers should use {@link #resolveGroupSubject} first.
+ * Group trusts are prefetched with {@link #prefetchGroupSubject} when a claim
+ * loads or its trusts change, so trust checks find them resolved.</p>
+ */
 public class PermissionUtils {
 
+    private static final Cache<String, Subject> USER_SUBJECTS = Caffeine.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).build();
+    private static final Cache<String, Subject> GROUP_SUBJECTS = Caffeine.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).build();
+    // kept briefly so invalid group names are not looked up on every use
+    private static final Cache<String, Boolean> MISSING_GROUPS = Caffeine.newBuilder().expireAfterWrite(30, TimeUnit.SECONDS).build();
+
     public static boolean hasGroupSubject(String identifier) {
-        try {
-            return GriefPreventionPlugin.instance.permissionService.getGroupSubjects().hasSubject(identifier).get();
-        } catch (InterruptedException e) {
-            return false;
-        } catch (ExecutionException e) {
-            return false;
-        }
+        return join(hasGroupSubjectAsync(identifier), false);
     }
 
     public static boolean hasUserSubject(String identifier) {
-        try {
-            return GriefPreventionPlugin.instance.permissionService.getUserSubjects().hasSubject(identifier).get();
-        } catch (InterruptedException e) {
-            return false;
-        } catch (ExecutionException e) {
-            return false;
-        }
+        return join(hasUserSubjectAsync(identifier), false);
     }
 
+    @Nullable
     public static Subject getGroupSubject(String identifier) {
-        try {
-            return GriefPreventionPlugin.instance.permissionService.getGroupSubjects().loadSubject(identifier).get();
-        } catch (InterruptedException e) {
-            return null;
-        } catch (ExecutionException e) {
+        return join(getGroupSubjectAsync(identifier), null);
+    }
+
+    @Nullable
+    public static Subject getUserSubject(String identifier) {
+        return join(getUserSubjectAsync(identifier), null);
+    }
+
+    /**
+     * Gets a group without creating it if it does not exist.
+     *
+     * <p>On the main thread a group that is still loading is returned as
+     * null, the lookup continues in the background.</p>
+     *
+     * @param identifier The group identifier
+     * @return The group, or null if it does not exist or is not loaded yet
+     */
+    @Nullable
+    public static Subject loadGroupSubject(String identifier) {
+        return loadGroupSubject(GriefPreventionPlugin.instance.permissionService.getGroupSubjects(), identifier,
+                Sponge.getServer().isMainThread());
+    }
+
+    @Nullable
+    static Subject loadGroupSubject(SubjectCollection collection, String identifier, boolean mainThread) {
+        final CompletableFuture<Subject> future = loadGroupSubjectAsync(collection, identifier);
+        if (!future.isDone() && mainThread) {
             return null;
         }
+        return await(future, null);
     }
 
-    public static Subject getUserSubject(String identifier) {
+    static CompletableFuture<Subject> loadGroupSubjectAsync(SubjectCollection collection, String identifier) {
+        return hasGroupSubjectAsync(collection, identifier)
+                .thenCompose(exists -> exists ? getSubjectAsync(collection, GROUP_SUBJECTS, identifier) : CompletableFuture.completedFuture(null));
+    }
+
+    public static CompletableFuture<Boolean> hasGroupSubjectAsync(String identifier) {
+        return hasGroupSubjectAsync(GriefPreventionPlugin.instance.permissionService.getGroupSubjects(), identifier);
+    }
+
+    static CompletableFuture<Boolean> hasGroupSubjectAsync(SubjectCollection collection, String identifier) {
+        if (getLoadedSubject(collection, GROUP_SUBJECTS, identifier) != null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (MISSING_GROUPS.getIfPresent(identifier) != null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return collection.hasSubject(identifier).thenApply(exists -> {
+            if (!exists) {
+                MISSING_GROUPS.put(identifier, true);
+            }
+            return exists;
+        });
+    }
+
+    public static CompletableFuture<Boolean> hasUserSubjectAsync(String identifier) {
+        final SubjectCollection collection = GriefPreventionPlugin.instance.permissionService.getUserSubjects();
+        if (getLoadedSubject(collection, USER_SUBJECTS, identifier) != null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return collection.hasSubject(identifier);
+    }
+
+    public static CompletableFuture<Subject> getGroupSubjectAsync(String identifier) {
+        return getSubjectAsync(GriefPreventionPlugin.instance.permissionService.getGroupSubjects(), GROUP_SUBJECTS, identifier);
+    }
+
+    public static CompletableFuture<Subject> getUserSubjectAsync(String identifier) {
+        return getSubjectAsync(GriefPreventionPlugin.instance.permissionService.getUserSubjects(), USER_SUBJECTS, identifier);
+    }
+
+    /**
+     * Starts loading a player's subject so it is ready by the time they join.
+     *
+     * @param playerUniqueId The player's unique id
+     */
+    public static void prefetchUserSubject(UUID playerUniqueId) {
+        getUserSubjectAsync(playerUniqueId.toString());
+    }
+
+    /**
+     * Starts loading a group so trust checks can read it without waiting.
+     *
+     * @param identifier The group identifier
+     */
+    public static void prefetchGroupSubject(String identifier) {
+        loadGroupSubjectAsync(GriefPreventionPlugin.instance.permissionService.getGroupSubjects(), identifier);
+    }
+
+    /**
+     * Makes sure a group can be read on the main thread without blocking.
+     *
+     * <p>If the group has not been resolved yet, it is looked up in the
+     * background and {@code retry} is run on the main thread once the lookup
+     * completes. The caller should return without doing any work and let the
+     * retry repeat it.</p>
+     *
+     * @param identifier The group identifier
+     * @param retry The work to repeat once the group is resolved
+     * @return Whether the group is resolved and can be used now
+     */
+    public static boolean resolveGroupSubject(String identifier, Runnable retry) {
+        final SubjectCollection collection = GriefPreventionPlugin.instance.permissionService.getGroupSubjects();
+        if (getLoadedSubject(collection, GROUP_SUBJECTS, identifier) != null || MISSING_GROUPS.getIfPresent(identifier) != null) {
+            return true;
+        }
+
+        loadGroupSubjectAsync(collection, identifier).whenComplete((subject, error) -> {
+            if (error != null) {
+                GriefPreventionPlugin.instance.getLogger().error("Could not load group '" + identifier + "'", error);
+                // treat as missing so the retry does not loop
+                MISSING_GROUPS.put(identifier, true);
+            }
+            Sponge.getScheduler().createTaskBuilder().execute(retry).submit(GriefPreventionPlugin.instance);
+        });
+        return false;
+    }
+
+    @Nullable
+    private static Subject getLoadedSubject(SubjectCollection collection, Cache<String, Subject> cache, String identifier) {
+        Subject subject = cache.getIfPresent(identifier);
+        if (subject == null) {
+            subject = collection.getSubject(identifier).orElse(null);
+            if (subject != null) {
+                cache.put(identifier, subject);
+            }
+        }
+        return subject;
+    }
+
+    private static CompletableFuture<Subject> getSubjectAsync(SubjectCollection collection, Cache<String, Subject> cache, String identifier) {
+        final Subject subject = getLoadedSubject(collection, cache, identifier);
+        if (subject != null) {
+            return CompletableFuture.completedFuture(subject);
+        }
+        return collection.loadSubject(identifier).thenApply(loaded -> {
+            cache.put(identifier, loaded);
+            return loaded;
+        });
+    }
+
+    private static <T> T join(CompletableFuture<T> future, T fallback) {
+        if (!future.isDone() && Sponge.getServer().isMainThread()) {
+            // the lookup continues in the background and is cached once done
+            return fallback;
+        }
+        return await(future, fallback);
+    }
+
+    private static <T> T await(CompletableFuture<T> future, T fallback) {
         try {
-            return GriefPreventionPlugin.instance.permissionService.getUserSubjects().loadSubject(identifier).get();
+            return future.get();
         } catch (InterruptedException e) {
-            return null;
+            return fallback;
         } catch (ExecutionException e) {
-            return null;
+            return fallback;
         }
     }
 
@@ -82,10 +237,15 @@ public static Set<Context> getActiveContexts(Subject subject) {
     }
 
     public static Set<Context> getActiveContexts(Subject subject, GPPlayerData playerData, String flag) {
+        return getActiveContexts(subject, playerData, flag, true);
+    }
+
+    // Player data is only written when markPlayerData is set, checks from other threads leave it untouched
+    public static Set<Context> getActiveContexts(Subject subject, GPPlayerData playerData, String flag, boolean markPlayerData) {
         if (flag != null && flag.startsWith(GPPermissions.COMMAND_EXECUTE)) {
             return new HashSet<>(subject.getActiveContexts());
         }
-        if (playerData != null) {
+        if (playerData != null && markPlayerData) {
             playerData.ignoreActiveContexts = true;
         }
         Set<Context> activeContexts = new HashSet<>(subject.getActiveContexts());
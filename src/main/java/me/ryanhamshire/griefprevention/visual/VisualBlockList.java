@@ -0,0 +1,182 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.visual;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.World;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+/**
+ * The blocks of a visualization, stored as packed positions with the network
+ * ids of the real and the fake block state of each.
+ */
+public final class VisualBlockList {
+
+    private static final int X_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final int Z_BITS = 26;
+    private static final int Y_SHIFT = Z_BITS;
+    private static final int X_SHIFT = Y_SHIFT + Y_BITS;
+
+    private UUID worldUniqueId;
+    private long[] positions = new long[16];
+    private int[] originalStates = new int[16];
+    private int[] visualStates = new int[16];
+    private int size;
+
+    public VisualBlockList() {
+    }
+
+    public VisualBlockList(World world) {
+        this.worldUniqueId = world.getUniqueId();
+    }
+
+    public void add(World world, int x, int y, int z, int originalState, int visualState) {
+        if (this.worldUniqueId == null) {
+            this.worldUniqueId = world.getUniqueId();
+        }
+        this.add(pack(x, y, z), originalState, visualState);
+    }
+
+    private void add(long position, int originalState, int visualState) {
+        if (this.size == this.positions.length) {
+            final int capacity = this.size * 2;
+            this.positions = Arrays.copyOf(this.positions, capacity);
+            this.originalStates = Arrays.copyOf(this.originalStates, capacity);
+            this.visualStates = Arrays.copyOf(this.visualStates, capacity);
+        }
+        this.positions[this.size] = position;
+        this.originalStates[this.size] = originalState;
+        this.visualStates[this.size] = visualState;
+        this.size++;
+    }
+
+    public void addAll(VisualBlockList other) {
+        if (this.worldUniqueId == null) {
+            this.worldUniqueId = other.worldUniqueId;
+        }
+        for (int i = 0; i < other.size; i++) {
+            this.add(other.positions[i], other.originalStates[i], other.visualStates[i]);
+        }
+    }
+
+    /**
+     * Gets the elements of this list that the other list does not show at
+     * the same position.
+     */
+    public VisualBlockList without(VisualBlockList other) {
+        final Long2IntMap otherStates = new Long2IntOpenHashMap(other.size);
+        otherStates.defaultReturnValue(-1);
+        for (int i = 0; i < other.size; i++) {
+            otherStates.put(other.positions[i], other.visualStates[i]);
+        }
+        final VisualBlockList result = new VisualBlockList();
+        result.worldUniqueId = this.worldUniqueId;
+        for (int i = 0; i < this.size; i++) {
+            if (otherStates.get(this.positions[i]) != this.visualStates[i]) {
+                result.add(this.positions[i], this.originalStates[i], this.visualStates[i]);
+            }
+        }
+        return result;
+    }
+
+    // removes any elements which are out of visualization range, keeping the order of the rest
+    public void removeOutside(int minX, int minZ, int maxX, int maxZ) {
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            final int x = this.getX(i);
+            final int z = this.getZ(i);
+            if (x < minX || x > maxX || z < minZ || z > maxZ) {
+                continue;
+            }
+            this.positions[kept] = this.positions[i];
+            this.originalStates[kept] = this.originalStates[i];
+            this.visualStates[kept] = this.visualStates[i];
+            kept++;
+        }
+        this.size = kept;
+    }
+
+    public void clear() {
+        this.size = 0;
+        this.worldUniqueId = null;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Nullable
+    public UUID getWorldUniqueId() {
+        return this.worldUniqueId;
+    }
+
+    public boolean isInWorld(World world) {
+        return this.worldUniqueId != null && this.worldUniqueId.equals(world.getUniqueId());
+    }
+
+    public int getX(int index) {
+        return (int) (this.positions[index] >> X_SHIFT);
+    }
+
+    public int getY(int index) {
+        return (int) (this.positions[index] << (64 - X_SHIFT) >> (64 - Y_BITS));
+    }
+
+    public int getZ(int index) {
+        return (int) (this.positions[index] << (64 - Z_BITS) >> (64 - Z_BITS));
+    }
+
+    public int getOriginalState(int index) {
+        return this.originalStates[index];
+    }
+
+    public int getVisualState(int index) {
+        return this.visualStates[index];
+    }
+
+    // same layout as BlockPos#toLong
+    private static long pack(int x, int y, int z) {
+        return ((long) x & ((1L << X_BITS) - 1)) << X_SHIFT
+                | ((long) y & ((1L << Y_BITS) - 1)) << Y_SHIFT
+                | ((long) z & ((1L << Z_BITS) - 1));
+    }
+
+    public static int getStateId(BlockState state) {
+        return Block.BLOCK_STATE_IDS.get((IBlockState) (Object) state);
+    }
+}
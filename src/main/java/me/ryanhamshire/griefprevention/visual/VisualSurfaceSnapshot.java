@@ -0,0 +1,139 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.visual;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import org.spongepowered.api.world.World;
+import org.spongepowered.common.bridge.world.chunk.ChunkProviderBridge;
+
+import javax.annotation.Nullable;
+
+/**
+ * The block columns under a set of visualization elements, copied from the
+ * world so visible Y values and original blocks can be resolved off the main
+ * thread.
+ *
+ * <p>Columns must be added on the main thread. Once handed to another thread
+ * the snapshot is only read. Columns in chunks that are not loaded are left
+ * out, as the client has nothing there to show a visual on.</p>
+ */
+public final class VisualSurfaceSnapshot {
+
+    private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final World world;
+    private final Long2ObjectMap<IBlockState[]> columns = new Long2ObjectOpenHashMap<>();
+
+    public VisualSurfaceSnapshot(World world) {
+        this.world = world;
+    }
+
+    public World getWorld() {
+        return this.world;
+    }
+
+    public void addColumns(VisualBlockList blocks) {
+        Chunk chunk = null;
+        for (int i = 0; i < blocks.size(); i++) {
+            final int x = blocks.getX(i);
+            final int z = blocks.getZ(i);
+            final long key = columnKey(x, z);
+            if (this.columns.containsKey(key)) {
+                continue;
+            }
+            if (chunk == null || chunk.x != x >> 4 || chunk.z != z >> 4) {
+                chunk = ((ChunkProviderBridge) ((WorldServer) this.world).getChunkProvider()).bridge$getLoadedChunkWithoutMarkingActive(x >> 4, z >> 4);
+            }
+            if (chunk != null) {
+                this.columns.put(key, copyColumn(chunk, x & 15, z & 15));
+            }
+        }
+    }
+
+    @Nullable
+    public IBlockState getBlockState(int x, int y, int z) {
+        final IBlockState[] column = this.columns.get(columnKey(x, z));
+        if (column == null) {
+            return null;
+        }
+        return y < 0 || y >= column.length ? AIR : column[y];
+    }
+
+    // finds a block the player can probably see, or -1 if the column was not captured.
+    // this is how visualizations "cling" to the ground or ceiling
+    public int getVisibleY(int x, int y, int z, boolean waterIsTransparent) {
+        final IBlockState[] column = this.columns.get(columnKey(x, z));
+        if (column == null) {
+            return -1;
+        }
+        y = Math.max(0, Math.min(column.length - 1, y));
+        final int direction = isTransparent(column[y], waterIsTransparent) ? -1 : 1;
+        while (y >= 1 && y < column.length - 1
+                && (!isTransparent(column[y + 1], waterIsTransparent) || isTransparent(column[y], waterIsTransparent))) {
+            y += direction;
+        }
+        return y;
+    }
+
+    // helper method for above. allows visualization blocks to sit underneath partly transparent blocks like grass and fence
+    private static boolean isTransparent(IBlockState state, boolean waterIsTransparent) {
+        if (state.getBlock() == Blocks.SNOW_LAYER) {
+            return false;
+        }
+        if (!waterIsTransparent && state.getMaterial().isLiquid()) {
+            return false;
+        }
+        return !state.isOpaqueCube();
+    }
+
+    private static IBlockState[] copyColumn(Chunk chunk, int x, int z) {
+        final ExtendedBlockStorage[] storages = chunk.getBlockStorageArray();
+        final IBlockState[] column = new IBlockState[storages.length * 16];
+        for (int section = 0; section < storages.length; section++) {
+            final ExtendedBlockStorage storage = storages[section];
+            final int base = section * 16;
+            if (storage == Chunk.NULL_BLOCK_STORAGE || storage.isEmpty()) {
+                for (int y = 0; y < 16; y++) {
+                    column[base + y] = AIR;
+                }
+                continue;
+            }
+            for (int y = 0; y < 16; y++) {
+                column[base + y] = storage.get(x, y, z);
+            }
+        }
+        return column;
+    }
+
+    private static long columnKey(int x, int z) {
+        return (long) x << 32 | z & 0xFFFFFFFFL;
+    }
+}
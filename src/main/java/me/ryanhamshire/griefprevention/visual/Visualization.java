@@ -32,22 +32,19 @@
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.task.VisualizationApplicationTask;
+import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.network.play.server.SPacketMultiBlockChange;
 import org.spongepowered.api.Sponge;
-import org.spongepowered.api.block.BlockSnapshot;
-import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.block.BlockTypes;
-import org.spongepowered.api.data.Transaction;
 import org.spongepowered.api.data.property.block.MatterProperty;
 import org.spongepowered.api.entity.living.player.Player;
-import org.spongepowered.api.util.Direction;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 
 //represents a visualization sent to a player
@@ -55,8 +52,8 @@
 //the result is that those players see new blocks, but the world hasn't been changed.  other players can't see the new blocks, either.
 public class Visualization {
 
-    public ArrayList<Transaction<BlockSnapshot>> elements;
-    private ArrayList<Transaction<BlockSnapshot>> newElements;
+    public VisualBlockList elements;
+    private VisualBlockList newElements;
     private ArrayList<Vector3i> corners;
     private VisualizationType type;
     private GPClaim claim;
@@ -76,16 +73,21 @@ public class Visualization {
     private BlockType cornerMaterial;
     private BlockType accentMaterial;
     private BlockType fillerMaterial; // used for 3d cuboids
-    private BlockSnapshot.Builder snapshotBuilder;
     public boolean displaySubdivisions = false;
     private int STEP = 10;
+    private static final int VISUAL_RADIUS = 75;
+    // the claims this visualization was built from, so it can be rebuilt around a new locality
+    private final List<Source> sources = new ArrayList<>();
+    // elements still waiting for their real blocks, see resolve
+    private final List<Pending> pending = new ArrayList<>();
+    // bumped on reset so elements resolved for stale claim bounds are dropped
+    private int generation;
 
     public Visualization(VisualizationType type) {
         initBlockVisualTypes(type);
         this.type = type;
-        this.snapshotBuilder = Sponge.getGame().getRegistry().createBuilder(BlockSnapshot.Builder.class);
-        this.elements = new ArrayList<Transaction<BlockSnapshot>>();
-        this.newElements = new ArrayList<>();
+        this.elements = new VisualBlockList();
+        this.newElements = new VisualBlockList();
         this.corners = new ArrayList<>();
     }
 
@@ -99,9 +101,8 @@ public Visualization(Location<World> lesserBoundaryCorner, Location<World> great
         this.lesserBoundaryCorner = lesserBoundaryCorner;
         this.greaterBoundaryCorner = greaterBoundaryCorner;
         this.type = type;
-        this.snapshotBuilder = Sponge.getGame().getRegistry().createBuilder(BlockSnapshot.Builder.class);
-        this.elements = new ArrayList<Transaction<BlockSnapshot>>();
-        this.newElements = new ArrayList<>();
+        this.elements = new VisualBlockList();
+        this.newElements = new VisualBlockList();
         this.corners = new ArrayList<>();
     }
 
@@ -171,13 +172,96 @@ public void apply(Player player, boolean resetActive) {
                 GriefPreventionPlugin.getActiveConfig(player.getWorld().getProperties()).getConfig().claim.hideBorders;
         if (!hideBorders) {
             // if he's online, create a task to send him the visualization
-            if (player.isOnline() && this.elements.size() > 0
-                    && this.elements.get(0).getOriginal().getLocation().get().getExtent().equals(player.getWorld())) {
+            if (!player.isOnline() || !this.hasElements() || !this.isInWorld(player.getWorld())) {
+                return;
+            }
+            if (this.pending.isEmpty()) {
                 Sponge.getGame().getScheduler().createTaskBuilder().delayTicks(1L)
                         .execute(new VisualizationApplicationTask(player, playerData, this, resetActive)).submit(GriefPreventionPlugin.instance);
-                //GriefPreventionPlugin.instance.executor.execute(new VisualizationApplicationTask(player, playerData, this, resetActive));
+                return;
+            }
+
+            // only the column copy needs the world. surface search and packets are done on the executor
+            final List<Pending> pending = new ArrayList<>(this.pending);
+            final VisualSurfaceSnapshot snapshot = capture(pending);
+            final VisualBlockList shown = new VisualBlockList();
+            shown.addAll(this.elements);
+            final int generation = this.generation;
+            GriefPreventionPlugin.instance.executor.execute(() -> {
+                final VisualBlockList resolved = resolve(pending, snapshot);
+                shown.addAll(resolved);
+                final List<SPacketMultiBlockChange> packets = VisualizationSender.createPackets(shown, false);
+                Sponge.getGame().getScheduler().createTaskBuilder().delayTicks(1L).execute(() -> {
+                    if (generation != this.generation || !player.isOnline()) {
+                        return;
+                    }
+                    if (this.pending.removeAll(pending)) {
+                        this.elements.addAll(resolved);
+                    }
+                    new VisualizationApplicationTask(player, playerData, this, resetActive, shown, packets).run();
+                }).submit(GriefPreventionPlugin.instance);
+            });
+        }
+    }
+
+    // resolves any pending elements on the calling thread, which must be the main thread
+    public void resolve() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        final VisualBlockList resolved = resolve(this.pending, capture(this.pending));
+        this.pending.clear();
+        this.elements.addAll(resolved);
+    }
+
+    private static VisualSurfaceSnapshot capture(List<Pending> pending) {
+        final VisualSurfaceSnapshot snapshot = new VisualSurfaceSnapshot(pending.get(0).world);
+        for (Pending entry : pending) {
+            if (entry.world == snapshot.getWorld()) {
+                snapshot.addColumns(entry.blocks);
+            }
+        }
+        return snapshot;
+    }
+
+    // sets Y values and real block information, safe to call off the main thread
+    private static VisualBlockList resolve(List<Pending> pending, VisualSurfaceSnapshot snapshot) {
+        final VisualBlockList resolved = new VisualBlockList();
+        for (Pending entry : pending) {
+            if (entry.world != snapshot.getWorld()) {
+                continue;
+            }
+            final VisualBlockList blocks = entry.blocks;
+            int height = entry.height;
+            for (int i = 0; i < blocks.size(); i++) {
+                final int x = blocks.getX(i);
+                final int z = blocks.getZ(i);
+                int y = blocks.getY(i);
+                if (entry.surface) {
+                    y = snapshot.getVisibleY(x, height, z, entry.liquidTransparent);
+                    if (y < 0) {
+                        continue;
+                    }
+                    height = y;
+                }
+                final IBlockState original = snapshot.getBlockState(x, y, z);
+                if (original != null) {
+                    resolved.add(entry.world, x, y, z, Block.BLOCK_STATE_IDS.get(original), blocks.getVisualState(i));
+                }
             }
         }
+        return resolved;
+    }
+
+    private boolean hasElements() {
+        return !this.elements.isEmpty() || !this.pending.isEmpty();
+    }
+
+    private boolean isInWorld(World world) {
+        if (!this.elements.isEmpty()) {
+            return this.elements.isInWorld(world);
+        }
+        return this.pending.get(0).world.getUniqueId().equals(world.getUniqueId());
     }
 
     // reverts a visualization by sending another block change list, this time
@@ -196,24 +280,19 @@ public void revert(Player player) {
 
         // remove any elements which are too far away
         if (!this.cuboidVisual) {
-            this.removeElementsOutOfRange(this.elements, minx, minz, maxx, maxz);
+            this.elements.removeOutside(minx, minz, maxx, maxz);
         }
 
-        // send real block information for any remaining elements
-        for (int i = 0; i < this.elements.size(); i++) {
-            BlockSnapshot snapshot = this.elements.get(i).getOriginal();
-
-            // check player still in world where visualization exists
-            if (i == 0) {
-                if (!player.getWorld().equals(snapshot.getLocation().get().getExtent())) {
-                    return;
-                }
-            }
-
-            player.sendBlockChange(snapshot.getPosition(), snapshot.getState());
+        // check player still in world where visualization exists
+        if (!this.elements.isEmpty() && !this.elements.isInWorld(player.getWorld())) {
+            return;
         }
 
+        // send real block information for any remaining elements
+        VisualizationSender.sendOriginal(player, this.elements);
+
         playerData.visualBlocks = null;
+        playerData.visualTracker.clear();
         if (playerData.visualRevertTask != null) {
             playerData.visualRevertTask.cancel();
             playerData.visualRevertTask = null;
@@ -222,9 +301,8 @@ public void revert(Player player) {
 
     public static Visualization fromClick(Location<World> location, int height, VisualizationType visualizationType, Player player, GPPlayerData playerData) {
         Visualization visualization = new Visualization(visualizationType);
-        BlockSnapshot blockClicked =
-                visualization.snapshotBuilder.from(location).blockState(visualization.cornerMaterial.getDefaultState()).build();
-        visualization.elements.add(new Transaction<BlockSnapshot>(blockClicked.getLocation().get().createSnapshot(), blockClicked));
+        visualization.elements.add(location.getExtent(), location.getBlockX(), location.getBlockY(), location.getBlockZ(),
+                VisualBlockList.getStateId(location.getBlock()), VisualBlockList.getStateId(visualization.cornerMaterial.getDefaultState()));
         if (GriefPreventionPlugin.instance.worldEditProvider != null) {
             GriefPreventionPlugin.instance.worldEditProvider.sendVisualDrag(player, playerData, location.getBlockPosition());
         }
@@ -234,24 +312,34 @@ public static Visualization fromClick(Location<World> location, int height, Visu
     public void resetVisuals() {
         this.elements.clear();
         this.newElements.clear();
+        this.sources.clear();
+        this.pending.clear();
+        this.generation++;
     }
 
     public void createClaimBlockVisualWithType(GPClaim claim, int height, Location<World> locality, GPPlayerData playerData, VisualizationType visualType) {
         this.type = visualType;
         this.claim = claim;
+        this.sources.add(new Source(claim, visualType, height));
         this.addClaimElements(height, locality, playerData);
     }
 
     public void createClaimBlockVisuals(int height, Location<World> locality, GPPlayerData playerData) {
-        if (this.elements.size() != 0) {
+        if (this.hasElements()) {
             return;
         }
 
         // add top level last so that it takes precedence (it shows on top when
         // the child claim boundaries overlap with its boundaries)
+        this.sources.clear();
+        this.sources.add(new Source(this.claim, this.type, height));
         this.addClaimElements(height, locality, playerData);
     }
 
+    public List<Source> getSources() {
+        return this.sources;
+    }
+
     public VisualizationType getType() {
         return this.type;
     }
@@ -264,7 +352,7 @@ public void setType(VisualizationType type) {
     // handy for combining several visualizations together, as when
     // visualization a top level claim with several subdivisions inside
     // locality is a performance consideration. only create visualization blocks
-    // for around 100 blocks of the locality
+    // within view distance of the locality, up to 75 blocks away
     private void addClaimElements(int height, Location<World> locality, GPPlayerData playerData) {
         this.initBlockVisualTypes(type);
         Location<World> lesser = this.claim.getLesserBoundaryCorner();
@@ -272,25 +360,29 @@ private void addClaimElements(int height, Location<World> locality, GPPlayerData
         World world = lesser.getExtent();
         boolean liquidTransparent = locality.getBlock().getType().getProperty(MatterProperty.class).isPresent() ? false : true;
 
+        this.cuboidVisual = this.useCuboidVisual();
         this.smallx = lesser.getBlockX();
-        this.smally = this.useCuboidVisual() ? lesser.getBlockY() : 0;
+        this.smally = this.cuboidVisual ? lesser.getBlockY() : 0;
         this.smallz = lesser.getBlockZ();
         this.bigx = greater.getBlockX();
-        this.bigy = this.useCuboidVisual() ? greater.getBlockY() : 0;
+        this.bigy = this.cuboidVisual ? greater.getBlockY() : 0;
         this.bigz = greater.getBlockZ();
-        this.minx = this.claim.cuboid ? this.smallx : locality.getBlockX() - 75;
-        this.minz = this.claim.cuboid ? this.smallz : locality.getBlockZ() - 75;
-        this.maxx = this.claim.cuboid ? this.bigx : locality.getBlockX() + 75;
-        this.maxz = this.claim.cuboid ? this.bigz : locality.getBlockZ() + 75;
+        final int radius = Math.min(VISUAL_RADIUS, locality.getExtent().getViewDistance() * 16);
+        this.minx = locality.getBlockX() - radius;
+        this.minz = locality.getBlockZ() - radius;
+        this.maxx = locality.getBlockX() + radius;
+        this.maxz = locality.getBlockZ() + radius;
+
+        // elements of previously added claims are already in the visualization
+        this.newElements.clear();
 
         // initialize visualization elements without Y values and real data
         // that will be added later for only the visualization elements within
         // visualization range
 
         if (this.smallx == this.bigx && this.smally == this.bigy && this.smallz == this.bigz) {
-            BlockSnapshot blockClicked =
-                    snapshotBuilder.from(new Location<World>(world, this.smallx, this.smally, this.smallz)).blockState(this.cornerMaterial.getDefaultState()).build();
-            elements.add(new Transaction<BlockSnapshot>(blockClicked.getLocation().get().createSnapshot(), blockClicked));
+            this.newElements.add(world, this.smallx, this.smally, this.smallz, 0, VisualBlockList.getStateId(this.cornerMaterial.getDefaultState()));
+            this.addPending(world, false, 0, false);
             return;
         }
 
@@ -301,7 +393,7 @@ private void addClaimElements(int height, Location<World> locality, GPPlayerData
             STEP = 0;
         }
 
-        if (this.useCuboidVisual()) {
+        if (this.cuboidVisual) {
             this.addVisuals3D(claim, playerData);
         } else {
             this.addVisuals2D(claim, height, liquidTransparent);
@@ -341,7 +433,7 @@ public void addVisuals3D(GPClaim claim, GPPlayerData playerData) {
                 this.addRightLine(world, y, fillerMaterial, fillerMaterial);
             }
         }
-        this.elements.addAll(newElements);
+        this.addPending(world, false, 0, false);
     }
 
     public void addVisuals2D(GPClaim claim, int height, boolean liquidTransparent) {
@@ -351,183 +443,99 @@ public void addVisuals2D(GPClaim claim, int height, boolean liquidTransparent) {
         this.addLeftLine(world, 0, this.cornerMaterial, this.accentMaterial);
         this.addRightLine(world, 0, this.cornerMaterial, this.accentMaterial);
 
-        // remove any out of range elements
-        this.removeElementsOutOfRange(this.newElements, this.minx, this.minz, this.maxx, this.maxz);
-
-        for (int i = 0; i < this.newElements.size(); i++) {
-            BlockSnapshot element = this.newElements.get(i).getFinal();
-            if (!claim.contains(element.getLocation().get())) {
-                this.newElements.remove(i);
-            }
-        }
-
-        // set Y values and real block information for any remaining visualization blocks
-        ArrayList<Transaction<BlockSnapshot>> actualElements = new ArrayList<Transaction<BlockSnapshot>>();
-        for (Transaction<BlockSnapshot> element : this.newElements) {
-            Location<World> tempLocation = element.getFinal().getLocation().get();
-            Location<World> visibleLocation =
-                    getVisibleLocation(tempLocation.getExtent(), tempLocation.getBlockX(), height, tempLocation.getBlockZ(), liquidTransparent);
-            element = new Transaction<BlockSnapshot>(element.getOriginal().withLocation(visibleLocation).withState(visibleLocation.getBlock()),
-                    element.getFinal().withLocation(visibleLocation));
-            height = element.getFinal().getPosition().getY();
-            actualElements.add(element);
-        }
-
-        this.elements.addAll(actualElements);
+        // Y values and real block information are set once resolved
+        this.addPending(world, true, height, liquidTransparent);
     }
 
     public void addCorners(World world, int y, BlockType accentMaterial) {
-        BlockSnapshot corner1 =
-                snapshotBuilder.from(new Location<World>(world, this.smallx, y, this.bigz)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(corner1.getLocation().get().createSnapshot(), corner1));
-        BlockSnapshot corner2 =
-                snapshotBuilder.from(new Location<World>(world, this.bigx, y, this.bigz)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(corner2.getLocation().get().createSnapshot(), corner2));
-        BlockSnapshot corner3 =
-                snapshotBuilder.from(new Location<World>(world, this.bigx, y, this.smallz)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(corner3.getLocation().get().createSnapshot(), corner3));
-        BlockSnapshot corner4 =
-                snapshotBuilder.from(new Location<World>(world, this.smallx, y, this.smallz)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(corner4.getLocation().get().createSnapshot(), corner4));
+        this.addElement(world, this.smallx, y, this.bigz, accentMaterial);
+        this.addElement(world, this.bigx, y, this.bigz, accentMaterial);
+        this.addElement(world, this.bigx, y, this.smallz, accentMaterial);
+        this.addElement(world, this.smallx, y, this.smallz, accentMaterial);
     }
 
     public void addTopLine(World world, int y, BlockType cornerMaterial, BlockType accentMaterial) {
-        BlockSnapshot topVisualBlock1 =
-                snapshotBuilder.from(new Location<World>(world, this.smallx, y, this.bigz)).blockState(cornerMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(topVisualBlock1.getLocation().get().createSnapshot(), topVisualBlock1));
-        this.corners.add(topVisualBlock1.getPosition());
-        BlockSnapshot topVisualBlock2 =
-                snapshotBuilder.from(new Location<World>(world, this.smallx + 1, y, this.bigz)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(topVisualBlock2.getLocation().get().createSnapshot(), topVisualBlock2));
-        BlockSnapshot topVisualBlock3 =
-                snapshotBuilder.from(new Location<World>(world, this.bigx - 1, y, this.bigz)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(topVisualBlock3.getLocation().get().createSnapshot(), topVisualBlock3));
+        this.addElement(world, this.smallx, y, this.bigz, cornerMaterial);
+        this.corners.add(new Vector3i(this.smallx, y, this.bigz));
+        this.addElement(world, this.smallx + 1, y, this.bigz, accentMaterial);
+        this.addElement(world, this.bigx - 1, y, this.bigz, accentMaterial);
 
         if (STEP != 0) {
-            for (int x = this.smallx + STEP; x < this.bigx - STEP / 2; x += STEP) {
-                if ((y != 0 && x >= this.smallx && x <= this.bigx) || (x > this.minx && x < this.maxx)) {
-                    BlockSnapshot visualBlock =
-                            snapshotBuilder.from(new Location<World>(world, x, y, this.bigz)).blockState(accentMaterial.getDefaultState()).build();
-                    newElements.add(new Transaction<BlockSnapshot>(visualBlock.getLocation().get().createSnapshot(), visualBlock));
-                }
+            for (int x = this.firstStep(this.smallx, this.minx); x < this.bigx - STEP / 2 && x < this.maxx; x += STEP) {
+                this.addElement(world, x, y, this.bigz, accentMaterial);
             }
         }
     }
 
     public void addBottomLine(World world, int y, BlockType cornerMaterial, BlockType accentMaterial) {
-        BlockSnapshot bottomVisualBlock1 =
-                this.snapshotBuilder.from(new Location<World>(world, this.smallx + 1, y, this.smallz)).blockState(accentMaterial.getDefaultState()).build();
-        this.newElements.add(new Transaction<BlockSnapshot>(bottomVisualBlock1.getLocation().get().createSnapshot(), bottomVisualBlock1));
-        this.corners.add(bottomVisualBlock1.getPosition());
-        BlockSnapshot bottomVisualBlock2 =
-                this.snapshotBuilder.from(new Location<World>(world, this.bigx - 1, y, this.smallz)).blockState(accentMaterial.getDefaultState()).build();
-        this.newElements.add(new Transaction<BlockSnapshot>(bottomVisualBlock2.getLocation().get().createSnapshot(), bottomVisualBlock2));
+        this.addElement(world, this.smallx + 1, y, this.smallz, accentMaterial);
+        this.corners.add(new Vector3i(this.smallx + 1, y, this.smallz));
+        this.addElement(world, this.bigx - 1, y, this.smallz, accentMaterial);
 
         if (STEP != 0) {
-            for (int x = this.smallx + STEP; x < this.bigx - STEP / 2; x += STEP) {
-                if ((y != 0 && x >= this.smallx && x <= this.bigx) || (x > this.minx && x < this.maxx)) {
-                    BlockSnapshot visualBlock =
-                            this.snapshotBuilder.from(new Location<World>(world, x, y, this.smallz)).blockState(accentMaterial.getDefaultState()).build();
-                    newElements.add(new Transaction<BlockSnapshot>(visualBlock.getLocation().get().createSnapshot(), visualBlock));
-                }
+            for (int x = this.firstStep(this.smallx, this.minx); x < this.bigx - STEP / 2 && x < this.maxx; x += STEP) {
+                this.addElement(world, x, y, this.smallz, accentMaterial);
             }
         }
     }
 
     public void addLeftLine(World world, int y, BlockType cornerMaterial, BlockType accentMaterial) {
-        BlockSnapshot leftVisualBlock1 =
-                snapshotBuilder.from(new Location<World>(world, this.smallx, y, this.smallz)).blockState(cornerMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(leftVisualBlock1.getLocation().get().createSnapshot(), leftVisualBlock1));
-        this.corners.add(leftVisualBlock1.getPosition());
-        BlockSnapshot leftVisualBlock2 =
-                snapshotBuilder.from(new Location<World>(world, this.smallx, y, this.smallz + 1)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(leftVisualBlock2.getLocation().get().createSnapshot(), leftVisualBlock2));
-        BlockSnapshot leftVisualBlock3 =
-                snapshotBuilder.from(new Location<World>(world, this.smallx, y, this.bigz - 1)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(leftVisualBlock3.getLocation().get().createSnapshot(), leftVisualBlock3));
+        this.addElement(world, this.smallx, y, this.smallz, cornerMaterial);
+        this.corners.add(new Vector3i(this.smallx, y, this.smallz));
+        this.addElement(world, this.smallx, y, this.smallz + 1, accentMaterial);
+        this.addElement(world, this.smallx, y, this.bigz - 1, accentMaterial);
 
         if (STEP != 0) {
-            for (int z = this.smallz + STEP; z < this.bigz - STEP / 2; z += STEP) {
-                if ((y != 0 && z >= this.smallz && z <= this.bigz) || (z > this.minz && z < this.maxz)) {
-                    BlockSnapshot visualBlock =
-                            snapshotBuilder.from(new Location<World>(world, this.smallx, y, z)).blockState(accentMaterial.getDefaultState()).build();
-                    newElements.add(new Transaction<BlockSnapshot>(visualBlock.getLocation().get().createSnapshot(), visualBlock));
-               }
+            for (int z = this.firstStep(this.smallz, this.minz); z < this.bigz - STEP / 2 && z < this.maxz; z += STEP) {
+                this.addElement(world, this.smallx, y, z, accentMaterial);
             }
         }
     }
 
     public void addRightLine(World world, int y, BlockType cornerMaterial, BlockType accentMaterial) {
-        BlockSnapshot rightVisualBlock1 =
-                snapshotBuilder.from(new Location<World>(world, this.bigx, y, this.smallz)).blockState(cornerMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(rightVisualBlock1.getLocation().get().createSnapshot(), rightVisualBlock1));
-        this.corners.add(rightVisualBlock1.getPosition());
-        BlockSnapshot rightVisualBlock2 =
-                snapshotBuilder.from(new Location<World>(world, this.bigx, y, this.smallz + 1)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(rightVisualBlock2.getLocation().get().createSnapshot(), rightVisualBlock2));
+        this.addElement(world, this.bigx, y, this.smallz, cornerMaterial);
+        this.corners.add(new Vector3i(this.bigx, y, this.smallz));
+        this.addElement(world, this.bigx, y, this.smallz + 1, accentMaterial);
         if (STEP != 0) {
-            for (int z = this.smallz + STEP; z < this.bigz - STEP / 2; z += STEP) {
-                if ((y != 0 && z >= this.smallz && z <= this.bigz) || (z > this.minz && z < this.maxz)) {
-                    BlockSnapshot visualBlock =
-                            snapshotBuilder.from(new Location<World>(world, this.bigx, y, z)).blockState(accentMaterial.getDefaultState()).build();
-                    newElements.add(new Transaction<BlockSnapshot>(visualBlock.getLocation().get().createSnapshot(), visualBlock));
-                }
+            for (int z = this.firstStep(this.smallz, this.minz); z < this.bigz - STEP / 2 && z < this.maxz; z += STEP) {
+                this.addElement(world, this.bigx, y, z, accentMaterial);
             }
         }
-        BlockSnapshot rightVisualBlock3 =
-                snapshotBuilder.from(new Location<World>(world, this.bigx, y, this.bigz - 1)).blockState(accentMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(rightVisualBlock3.getLocation().get().createSnapshot(), rightVisualBlock3));
-        BlockSnapshot rightVisualBlock4 =
-                snapshotBuilder.from(new Location<World>(world, this.bigx, y, this.bigz)).blockState(cornerMaterial.getDefaultState()).build();
-        newElements.add(new Transaction<BlockSnapshot>(rightVisualBlock4.getLocation().get().createSnapshot(), rightVisualBlock4));
-        this.corners.add(rightVisualBlock4.getPosition());
+        this.addElement(world, this.bigx, y, this.bigz - 1, accentMaterial);
+        this.addElement(world, this.bigx, y, this.bigz, cornerMaterial);
+        this.corners.add(new Vector3i(this.bigx, y, this.bigz));
     }
 
-    public List<Transaction<BlockSnapshot>> getVisualElements() {
-        return this.elements;
+    private void addElement(World world, int x, int y, int z, BlockType material) {
+        if (x < this.minx || x > this.maxx || z < this.minz || z > this.maxz) {
+            return;
+        }
+        if (!this.cuboidVisual && !this.claim.contains(new Location<World>(world, x, y, z))) {
+            return;
+        }
+        this.newElements.add(world, x, y, z, 0, VisualBlockList.getStateId(material.getDefaultState()));
     }
 
-    public List<Vector3i> getVisualCorners() {
-        return this.corners;
+    private void addPending(World world, boolean surface, int height, boolean liquidTransparent) {
+        this.pending.add(new Pending(world, this.newElements, surface, height, liquidTransparent));
+        this.newElements = new VisualBlockList();
     }
 
-    // removes any elements which are out of visualization range
-    private void removeElementsOutOfRange(ArrayList<Transaction<BlockSnapshot>> elements, int minx, int minz, int maxx, int maxz) {
-        for (int i = 0; i < elements.size(); i++) {
-            Location<World> location = elements.get(i).getFinal().getLocation().get();
-            if (location.getX() < minx || location.getX() > maxx || location.getZ() < minz || location.getZ() > maxz) {
-                elements.remove(i);
-            }
+    // first filler position along an edge that is past the start of the visible range
+    private int firstStep(int small, int min) {
+        final int first = small + STEP;
+        if (first > min) {
+            return first;
         }
+        return small + ((min - small) / STEP + 1) * STEP;
     }
 
-    // finds a block the player can probably see. this is how visualizations "cling" to the ground or ceiling
-    private static Location<World> getVisibleLocation(World world, int x, int y, int z, boolean waterIsTransparent) {
-        Location<World> location = world.getLocation(x, y, z);
-        Direction direction = (isTransparent(location.getBlock(), waterIsTransparent)) ? Direction.DOWN : Direction.UP;
-
-        while (location.getPosition().getY() >= 1 &&
-                location.getPosition().getY() < world.getDimension().getBuildHeight() - 1 &&
-                (!isTransparent(location.getBlockRelative(Direction.UP).getBlock(), waterIsTransparent)
-                        || isTransparent(location.getBlock(), waterIsTransparent))) {
-            location = location.getBlockRelative(direction);
-        }
-
-        return location;
+    public VisualBlockList getVisualElements() {
+        return this.elements;
     }
 
-    // helper method for above. allows visualization blocks to sit underneath partly transparent blocks like grass and fence
-    private static boolean isTransparent(BlockState blockstate, boolean waterIsTransparent) {
-        if (blockstate.getType() == BlockTypes.SNOW_LAYER) {
-            return false;
-        }
-
-        IBlockState iblockstate = (IBlockState)(Object) blockstate;
-        Optional<MatterProperty> matterProperty = blockstate.getProperty(MatterProperty.class);
-        if (!waterIsTransparent && matterProperty.isPresent() && matterProperty.get().getValue() == MatterProperty.Matter.LIQUID) {
-            return false;
-        }
-        return !iblockstate.isOpaqueCube();
+    public List<Vector3i> getVisualCorners() {
+        return this.corners;
     }
 
     public static Visualization fromClaims(Set<Claim> claims, int height, Location<World> locality, GPPlayerData playerData, Visualization visualization) {
@@ -540,8 +548,10 @@ public static Visualization fromClaims(Set<Claim> claims, int height, Location<W
             if (!gpClaim.children.isEmpty()) {
                 fromClaims(gpClaim.children, height, locality, playerData, visualization);
             }
-            if (gpClaim.visualization != null && !gpClaim.visualization.elements.isEmpty()) {
-                visualization.elements.addAll(gpClaim.getVisualizer().elements);
+            if (gpClaim.visualization != null && gpClaim.visualization.hasElements()) {
+                visualization.elements.addAll(gpClaim.visualization.elements);
+                visualization.pending.addAll(gpClaim.visualization.pending);
+                visualization.sources.add(new Source(gpClaim, Visualization.getVisualizationType(gpClaim), height));
             } else {
                 visualization.createClaimBlockVisualWithType(gpClaim, height, locality, playerData, Visualization.getVisualizationType(gpClaim));
             }
@@ -550,6 +560,38 @@ public static Visualization fromClaims(Set<Claim> claims, int height, Location<W
         return visualization;
     }
 
+    public static final class Source {
+
+        public final GPClaim claim;
+        public final VisualizationType type;
+        public final int height;
+
+        Source(GPClaim claim, VisualizationType type, int height) {
+            this.claim = claim;
+            this.type = type;
+            this.height = height;
+        }
+    }
+
+    // elements of one claim recorded without touching the world
+    private static final class Pending {
+
+        final World world;
+        final VisualBlockList blocks;
+        // whether the elements are moved to a visible Y, starting from height
+        final boolean surface;
+        final int height;
+        final boolean liquidTransparent;
+
+        Pending(World world, VisualBlockList blocks, boolean surface, int height, boolean liquidTransparent) {
+            this.world = world;
+            this.blocks = blocks;
+            this.surface = surface;
+            this.height = height;
+            this.liquidTransparent = liquidTransparent;
+        }
+    }
+
     private boolean useCuboidVisual() {
         if (this.claim.cuboid) {
             return true;
@@ -0,0 +1,113 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.visual;
+
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.network.play.server.SPacketMultiBlockChange;
+import net.minecraft.util.math.ChunkPos;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.common.SpongeImpl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends visualization blocks with one multi block change packet per chunk
+ * instead of one block change packet per block.
+ */
+public final class VisualizationSender {
+
+    private VisualizationSender() {
+    }
+
+    public static void sendVisual(Player player, VisualBlockList blocks) {
+        send(player, blocks, false);
+    }
+
+    public static void sendOriginal(Player player, VisualBlockList blocks) {
+        send(player, blocks, true);
+    }
+
+    public static void sendPackets(Player player, List<SPacketMultiBlockChange> packets) {
+        final EntityPlayerMP playerMP = (EntityPlayerMP) player;
+        for (SPacketMultiBlockChange packet : packets) {
+            playerMP.connection.sendPacket(packet);
+        }
+    }
+
+    private static void send(Player player, VisualBlockList blocks, boolean original) {
+        sendPackets(player, createPackets(blocks, original));
+    }
+
+    // builds the packets without touching the world, so it is safe to call off the main thread
+    public static List<SPacketMultiBlockChange> createPackets(VisualBlockList blocks, boolean original) {
+        final Long2ObjectMap<IntArrayList> chunks = new Long2ObjectOpenHashMap<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            final int y = blocks.getY(i);
+            if (y < 0 || y > 255) {
+                continue;
+            }
+            final long chunkKey = ChunkPos.asLong(blocks.getX(i) >> 4, blocks.getZ(i) >> 4);
+            IntArrayList indexes = chunks.get(chunkKey);
+            if (indexes == null) {
+                indexes = new IntArrayList();
+                chunks.put(chunkKey, indexes);
+            }
+            indexes.add(i);
+        }
+
+        final List<SPacketMultiBlockChange> packets = new ArrayList<>(chunks.size());
+        for (IntArrayList indexes : chunks.values()) {
+            final int first = indexes.getInt(0);
+            // the packet is built from its wire format since it has no constructor taking block states
+            final PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
+            buffer.writeInt(blocks.getX(first) >> 4);
+            buffer.writeInt(blocks.getZ(first) >> 4);
+            buffer.writeVarInt(indexes.size());
+            for (int j = 0; j < indexes.size(); j++) {
+                final int i = indexes.getInt(j);
+                buffer.writeShort((blocks.getX(i) & 15) << 12 | (blocks.getZ(i) & 15) << 8 | blocks.getY(i));
+                buffer.writeVarInt(original ? blocks.getOriginalState(i) : blocks.getVisualState(i));
+            }
+            final SPacketMultiBlockChange packet = new SPacketMultiBlockChange();
+            try {
+                packet.readPacketData(buffer);
+            } catch (IOException e) {
+                SpongeImpl.getLogger().error("Failed to build visualization packet", e);
+                break;
+            } finally {
+                buffer.release();
+            }
+            packets.add(packet);
+        }
+        return packets;
+    }
+}
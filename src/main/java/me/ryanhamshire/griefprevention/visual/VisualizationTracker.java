@@ -0,0 +1,91 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.visual;
+
+import me.ryanhamshire.griefprevention.GPPlayerData;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the claim visuals shown to a player around them as they move.
+ *
+ * <p>Whenever the player enters another chunk, the tracked claims are rebuilt
+ * around the new location. Only blocks coming into range are sent and only
+ * blocks going out of range are reverted.</p>
+ */
+public final class VisualizationTracker {
+
+    private final List<Visualization.Source> sources = new ArrayList<>();
+    // visuals without a claim, such as a shovel click
+    private final VisualBlockList fixedElements = new VisualBlockList();
+    private int chunkX;
+    private int chunkZ;
+
+    public void track(Visualization visualization, Location<World> locality) {
+        if (visualization.getSources().isEmpty()) {
+            this.fixedElements.addAll(visualization.elements);
+        } else {
+            this.sources.addAll(visualization.getSources());
+        }
+        this.chunkX = locality.getBlockX() >> 4;
+        this.chunkZ = locality.getBlockZ() >> 4;
+    }
+
+    public void clear() {
+        this.sources.clear();
+        this.fixedElements.clear();
+    }
+
+    public void update(Player player, GPPlayerData playerData, Location<World> locality) {
+        final VisualBlockList previous = playerData.visualBlocks;
+        if (this.sources.isEmpty() || previous == null || !previous.isInWorld(locality.getExtent())) {
+            return;
+        }
+        final int chunkX = locality.getBlockX() >> 4;
+        final int chunkZ = locality.getBlockZ() >> 4;
+        if (chunkX == this.chunkX && chunkZ == this.chunkZ) {
+            return;
+        }
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+
+        final VisualBlockList current = new VisualBlockList(locality.getExtent());
+        for (Visualization.Source source : this.sources) {
+            final Visualization visualization = new Visualization(source.type);
+            visualization.createClaimBlockVisualWithType(source.claim, source.height, locality, playerData, source.type);
+            visualization.resolve();
+            current.addAll(visualization.elements);
+        }
+        current.addAll(this.fixedElements);
+
+        VisualizationSender.sendOriginal(player, previous.without(current));
+        VisualizationSender.sendVisual(player, current.without(previous));
+        playerData.visualBlocks = current;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.flowpowered.math.vector.Vector3i;
+import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.configuration.ClaimDataConfig;
+import me.ryanhamshire.griefprevention.configuration.DatabaseClaimStorageData;
+import me.ryanhamshire.griefprevention.configuration.PlayerDataConfig;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.commented.SimpleCommentedConfigurationNode;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class DatabaseTablesTest {
+
+    private DatabaseTables tables;
+
+    @Before
+    public void setUp() throws Exception {
+        // each test gets its own in-memory database, kept open until the JVM exits
+        final JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        // a batch size of 1 exercises the intermediate batches
+        this.tables = new DatabaseTables(dataSource, 1);
+        this.tables.createTables();
+    }
+
+    @Test
+    public void createTablesIsIdempotent() throws Exception {
+        this.tables.createTables();
+    }
+
+    @Test
+    public void claimRoundTrip() throws Exception {
+        final UUID worldUniqueId = UUID.randomUUID();
+        final UUID claimUniqueId = UUID.randomUUID();
+        final Map<String, List<String>> trusts = new HashMap<>();
+        trusts.put("builders", Arrays.asList(UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+        trusts.put("manager-groups", Collections.singletonList("moderators"));
+        this.tables.writeClaims(Collections.singletonList(
+                createRow(claimUniqueId, worldUniqueId, ClaimType.BASIC, "Home", trusts, Arrays.asList("first", "second", "third"))));
+
+        final List<DatabaseTables.ClaimRow> claimRows = this.tables.readWorldClaims(worldUniqueId);
+        assertEquals(1, claimRows.size());
+        final DatabaseTables.ClaimRow claimRow = claimRows.get(0);
+        assertEquals(claimUniqueId, claimRow.getClaimUniqueId());
+        assertEquals(ClaimType.BASIC, claimRow.getType());
+        assertTrue(claimRow.getData().contains("Home"));
+        assertEquals(trusts, claimRow.getTrusts());
+        assertEquals(Arrays.asList("first", "second", "third"), claimRow.getBankTransactions());
+    }
+
+    @Test
+    public void claimWriteReplacesStoredRows() throws Exception {
+        final UUID worldUniqueId = UUID.randomUUID();
+        final UUID claimUniqueId = UUID.randomUUID();
+        final Map<String, List<String>> trusts = new HashMap<>();
+        trusts.put("accessors", Collections.singletonList(UUID.randomUUID().toString()));
+        this.tables.writeClaims(Collections.singletonList(
+                createRow(claimUniqueId, worldUniqueId, ClaimType.BASIC, "Old", trusts, Collections.singletonList("deposit"))));
+        this.tables.writeClaims(Collections.singletonList(
+                createRow(claimUniqueId, worldUniqueId, ClaimType.TOWN, "New", new HashMap<>(), new ArrayList<>())));
+
+        final List<DatabaseTables.ClaimRow> claimRows = this.tables.readWorldClaims(worldUniqueId);
+        assertEquals(1, claimRows.size());
+        final DatabaseTables.ClaimRow claimRow = claimRows.get(0);
+        assertEquals(ClaimType.TOWN, claimRow.getType());
+        assertTrue(claimRow.getData().contains("New"));
+        assertFalse(claimRow.getData().contains("Old"));
+        assertTrue(claimRow.getTrusts().isEmpty());
+        assertTrue(claimRow.getBankTransactions().isEmpty());
+    }
+
+    @Test
+    public void worldClaimsIncludeWildernessAndSkipOtherWorlds() throws Exception {
+        final UUID worldUniqueId = UUID.randomUUID();
+        final UUID otherWorldUniqueId = UUID.randomUUID();
+        final UUID claimUniqueId = UUID.randomUUID();
+        this.tables.writeClaims(Arrays.asList(
+                createRow(worldUniqueId, worldUniqueId, ClaimType.WILDERNESS, "Wilderness", new HashMap<>(), new ArrayList<>()),
+                createRow(claimUniqueId, worldUniqueId, ClaimType.BASIC, "Home", new HashMap<>(), new ArrayList<>()),
+                createRow(UUID.randomUUID(), otherWorldUniqueId, ClaimType.BASIC, "Away", new HashMap<>(), new ArrayList<>())));
+
+        final List<UUID> claimIds = new ArrayList<>();
+        for (DatabaseTables.ClaimRow claimRow : this.tables.readWorldClaims(worldUniqueId)) {
+            claimIds.add(claimRow.getClaimUniqueId());
+        }
+        assertEquals(2, claimIds.size());
+        assertTrue(claimIds.contains(worldUniqueId));
+        assertTrue(claimIds.contains(claimUniqueId));
+    }
+
+    @Test
+    public void deleteClaimRemovesAllRows() throws Exception {
+        final UUID worldUniqueId = UUID.randomUUID();
+        final UUID claimUniqueId = UUID.randomUUID();
+        final Map<String, List<String>> trusts = new HashMap<>();
+        trusts.put("containers", Collections.singletonList(UUID.randomUUID().toString()));
+        this.tables.writeClaims(Collections.singletonList(
+                createRow(claimUniqueId, worldUniqueId, ClaimType.BASIC, "Home", trusts, Collections.singletonList("deposit"))));
+
+        this.tables.deleteClaim(claimUniqueId);
+        assertTrue(this.tables.readWorldClaims(worldUniqueId).isEmpty());
+
+        // trusts and transactions must not resurface for a claim reusing the id
+        this.tables.writeClaims(Collections.singletonList(
+                createRow(claimUniqueId, worldUniqueId, ClaimType.BASIC, "Home", new HashMap<>(), new ArrayList<>())));
+        final DatabaseTables.ClaimRow claimRow = this.tables.readWorldClaims(worldUniqueId).get(0);
+        assertTrue(claimRow.getTrusts().isEmpty());
+        assertTrue(claimRow.getBankTransactions().isEmpty());
+    }
+
+    @Test
+    public void playerRoundTrip() throws Exception {
+        final UUID scopeUniqueId = UUID.randomUUID();
+        final UUID playerUniqueId = UUID.randomUUID();
+        final UUID newPlayerUniqueId = UUID.randomUUID();
+        final Instant lastSeen = Instant.ofEpochMilli(1500000000000L);
+        final Map<UUID, PlayerDataConfig> players = new HashMap<>();
+        players.put(playerUniqueId, createPlayer(120, 30, true, lastSeen));
+        players.put(newPlayerUniqueId, createPlayer(0, 0, false, null));
+        this.tables.writePlayers(scopeUniqueId, players);
+
+        final PlayerDataConfig config = new PlayerDataConfig();
+        assertTrue(this.tables.readPlayer(scopeUniqueId, playerUniqueId, config));
+        assertEquals(120, config.getAccruedClaimBlocks());
+        assertEquals(30, config.getBonusClaimBlocks());
+        assertTrue(config.hasMigratedBlocks());
+        assertEquals(lastSeen, config.getLastSeen());
+
+        final PlayerDataConfig newConfig = new PlayerDataConfig();
+        assertTrue(this.tables.readPlayer(scopeUniqueId, newPlayerUniqueId, newConfig));
+        assertNull(newConfig.getLastSeen());
+
+        assertFalse(this.tables.readPlayer(UUID.randomUUID(), playerUniqueId, new PlayerDataConfig()));
+        assertEquals(2, this.tables.readPlayerIds(scopeUniqueId).size());
+    }
+
+    @Test
+    public void playerWriteReplacesStoredRow() throws Exception {
+        final UUID scopeUniqueId = UUID.randomUUID();
+        final UUID playerUniqueId = UUID.randomUUID();
+        this.tables.writePlayers(scopeUniqueId, Collections.singletonMap(playerUniqueId, createPlayer(10, 0, false, null)));
+        this.tables.writePlayers(scopeUniqueId, Collections.singletonMap(playerUniqueId, createPlayer(20, 5, false, null)));
+
+        final PlayerDataConfig config = new PlayerDataConfig();
+        assertTrue(this.tables.readPlayer(scopeUniqueId, playerUniqueId, config));
+        assertEquals(20, config.getAccruedClaimBlocks());
+        assertEquals(5, config.getBonusClaimBlocks());
+        assertEquals(1, this.tables.readPlayerIds(scopeUniqueId).size());
+    }
+
+    @Test
+    public void metaValueRoundTrip() throws Exception {
+        assertFalse(this.tables.hasMetaValue("flat-file-migrated:test"));
+        this.tables.setMetaValue("flat-file-migrated:test", Instant.now().toString());
+        this.tables.setMetaValue("flat-file-migrated:test", Instant.now().toString());
+        assertTrue(this.tables.hasMetaValue("flat-file-migrated:test"));
+    }
+
+    private static DatabaseClaimStorageData.Row createRow(UUID claimUniqueId, UUID worldUniqueId, ClaimType type, String name,
+            Map<String, List<String>> trusts, List<String> bankTransactions) {
+        final ClaimDataConfig config = mock(ClaimDataConfig.class);
+        when(config.getWorldUniqueId()).thenReturn(worldUniqueId);
+        when(config.getOwnerUniqueId()).thenReturn(UUID.randomUUID());
+        when(config.getType()).thenReturn(type);
+        when(config.getLesserBoundaryCornerPos()).thenReturn(new Vector3i(0, 0, 0));
+        when(config.getGreaterBoundaryCornerPos()).thenReturn(new Vector3i(15, 255, 15));
+        final CommentedConfigurationNode root = SimpleCommentedConfigurationNode.root();
+        root.getNode(GriefPreventionPlugin.MOD_ID, "claim-name").setValue(name);
+        return new DatabaseClaimStorageData.Row(claimUniqueId, config, root, trusts, bankTransactions);
+    }
+
+    private static PlayerDataConfig createPlayer(int accruedBlocks, int bonusBlocks, boolean migrated, Instant lastSeen) {
+        final PlayerDataConfig config = new PlayerDataConfig();
+        config.setAccruedClaimBlocks(accruedBlocks);
+        config.setBonusClaimBlocks(bonusBlocks);
+        config.setMigratedBlocks(migrated);
+        config.setLastSeen(lastSeen);
+        return config;
+    }
+}
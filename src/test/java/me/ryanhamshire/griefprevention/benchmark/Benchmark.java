@@ -0,0 +1,132 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Minimal harness for the benchmarks in this package, which are run by the
+ * {@code benchmark} Gradle task instead of {@code test}.
+ *
+ * <p>Each benchmark is warmed up, then timed on the calling thread.
+ * Allocation is read from the calling thread's allocated bytes counter, so
+ * work handed to other threads is not counted.</p>
+ */
+public final class Benchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+
+    // keeps results alive so the JIT cannot drop the measured work
+    private static volatile long sink;
+
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * Runs one operation.
+         *
+         * @param index The index of the operation within the round
+         * @return Any value derived from the result
+         */
+        long run(int index);
+    }
+
+    public static final class Result {
+
+        public final String name;
+        public final double nanosPerOperation;
+        // -1 if the JVM cannot measure allocation
+        public final double bytesPerOperation;
+
+        Result(String name, double nanosPerOperation, double bytesPerOperation) {
+            this.name = name;
+            this.nanosPerOperation = nanosPerOperation;
+            this.bytesPerOperation = bytesPerOperation;
+        }
+
+        public double getOperationsPerSecond() {
+            return 1_000_000_000d / this.nanosPerOperation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %12.1f ns/op %14.0f ops/s %10.1f B/op", this.name, this.nanosPerOperation,
+                    this.getOperationsPerSecond(), this.bytesPerOperation);
+        }
+    }
+
+    private Benchmark() {
+    }
+
+    /**
+     * Runs a benchmark and prints its result.
+     *
+     * @param name The name printed with the result
+     * @param operations The number of operations per round
+     * @param operation The operation to measure
+     * @return The best round
+     */
+    public static Result run(String name, int operations, Operation operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(operations, operation);
+        }
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long bytesBefore = allocatedBytes();
+            final long start = System.nanoTime();
+            runRound(operations, operation);
+            final long elapsed = System.nanoTime() - start;
+            final long bytes = allocatedBytes() - bytesBefore;
+            bestNanos = Math.min(bestNanos, elapsed);
+            bestBytes = Math.min(bestBytes, bytes);
+        }
+        final Result result = new Result(name, (double) bestNanos / operations,
+                allocatedBytes() < 0 ? -1 : (double) bestBytes / operations);
+        System.out.println(result);
+        return result;
+    }
+
+    private static void runRound(int operations, Operation operation) {
+        long result = 0;
+        for (int i = 0; i < operations; i++) {
+            result += operation.run(i);
+        }
+        sink += result;
+    }
+
+    private static long allocatedBytes() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
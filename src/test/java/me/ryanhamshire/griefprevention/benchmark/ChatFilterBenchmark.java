@@ -0,0 +1,153 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import me.ryanhamshire.griefprevention.chat.ChatFilter;
+import me.ryanhamshire.griefprevention.chat.ProfanityMatcher;
+import org.apache.commons.io.FilenameUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Chat filter throughput over a synthetic chat corpus.
+ *
+ * <p>The corpus is generated from a fixed seed. About 2% of the messages
+ * contain a banned word and about 2% contain an IP address.</p>
+ */
+public class ChatFilterBenchmark {
+
+    private static final int CORPUS_SIZE = 20_000;
+    private static final String[] VOCABULARY = {"hi", "hello", "anyone", "selling", "diamonds", "where", "is", "spawn", "lol", "thanks",
+            "claim", "my", "base", "near", "the", "river", "can", "you", "trust", "me", "please", "need", "iron", "wood", "village",
+            "ok", "brb", "gg", "nether", "portal", "mine", "farm", "shop", "price", "how", "do", "i", "build", "here", "nice"};
+    private static final String[] BANNED = {"whore", "slut", "cunt", "fag", "faggot"};
+    private static final String[] ADDRESSES = {"127.0.0.1", "192.168.1.20", "10.0.0.5"};
+
+    private static List<String> bannedWords;
+    private static List<String> corpus;
+
+    @BeforeClass
+    public static void createCorpus() {
+        bannedWords = new ArrayList<>();
+        // the default banned words, padded with generated words and wildcard patterns as on a customized server
+        bannedWords.addAll(Arrays.asList("nigger", "niggers", "niger", "nigga", "nigers", "niggas", "fag", "fags", "faggot", "faggots",
+                "feggit", "feggits", "faggit", "faggits", "cunt", "cunts", "whore", "whores", "slut", "sluts"));
+        final Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            bannedWords.add(randomWord(random, 5 + random.nextInt(4)));
+        }
+        for (int i = 0; i < 50; i++) {
+            final String word = randomWord(random, 6);
+            bannedWords.add(random.nextBoolean() ? "*" + word + "*" : word.substring(0, 3) + "?" + word.substring(4));
+        }
+
+        corpus = new ArrayList<>(CORPUS_SIZE);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            final int length = 2 + random.nextInt(12);
+            final StringBuilder message = new StringBuilder();
+            for (int j = 0; j < length; j++) {
+                if (j > 0) {
+                    message.append(' ');
+                }
+                final int roll = random.nextInt(1000);
+                if (roll < 2) {
+                    message.append(BANNED[random.nextInt(BANNED.length)]);
+                } else if (roll < 4) {
+                    message.append(ADDRESSES[random.nextInt(ADDRESSES.length)]);
+                } else {
+                    message.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+                }
+            }
+            corpus.add(message.toString());
+        }
+    }
+
+    @Test
+    public void profanity() {
+        final ProfanityMatcher matcher = ProfanityMatcher.compile(bannedWords);
+        // the compiled matcher must agree with matching every banned word in turn
+        int matches = 0;
+        for (String message : corpus) {
+            final boolean expected = containsProfanityNaive(message);
+            assertEquals(message, expected, matcher.containsProfanity(message));
+            if (expected) {
+                matches++;
+            }
+        }
+        System.out.println("profanity: " + matches + " of " + corpus.size() + " messages match " + bannedWords.size() + " banned words");
+
+        Benchmark.run("profanity (per banned word)", corpus.size(), i -> containsProfanityNaive(corpus.get(i)) ? 1 : 0);
+        Benchmark.run("profanity (compiled)", corpus.size(), i -> matcher.containsProfanity(corpus.get(i)) ? 1 : 0);
+    }
+
+    @Test
+    public void fullCheck() {
+        final ChatFilter filter = new ChatFilter(() -> Collections.singletonList("127.0.0.1"));
+        filter.setBannedWords(bannedWords);
+        Benchmark.run("chat filter (all checks)", corpus.size(), i -> {
+            final String message = corpus.get(i);
+            long result = filter.recordChatMessage(message, i, true);
+            if (filter.containsProfanity(message)) {
+                result++;
+            }
+            if (filter.containsBlockedIP(message)) {
+                result++;
+            }
+            if (ChatFilter.stringsAreSimilar(message, corpus.get(i == 0 ? corpus.size() - 1 : i - 1))) {
+                result++;
+            }
+            return result;
+        });
+    }
+
+    // how messages were checked before the banned words were compiled
+    private static boolean containsProfanityNaive(String message) {
+        final String[] words = message.split("\\s+");
+        for (String banned : bannedWords) {
+            for (String word : words) {
+                if (FilenameUtils.wildcardMatch(word, banned)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String randomWord(Random random, int length) {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
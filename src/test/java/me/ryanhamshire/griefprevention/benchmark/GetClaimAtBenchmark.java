@@ -0,0 +1,229 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.benchmark;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import me.ryanhamshire.griefprevention.DataStore;
+import me.ryanhamshire.griefprevention.GPPlayerData;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.claim.GPClaim;
+import me.ryanhamshire.griefprevention.claim.GPClaimManager;
+import me.ryanhamshire.griefprevention.configuration.ClaimDataConfig;
+import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
+import me.ryanhamshire.griefprevention.configuration.type.ConfigBase;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.api.Game;
+import org.spongepowered.api.GameRegistry;
+import org.spongepowered.api.Server;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+import org.spongepowered.api.world.storage.WorldProperties;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Claim lookups by block position, through the spatial index and through the
+ * chunk claim map fallback.
+ *
+ * <p>Claims are generated from a fixed seed: at most one top level claim per
+ * 128 block cell, each with up to two children and one grandchild. Only what
+ * the lookups use is set up, the Sponge registry and the plugin instance are
+ * mocked.</p>
+ */
+public class GetClaimAtBenchmark {
+
+    private static final int CELL_SIZE = 128;
+    private static final int CELLS = 32;
+    private static final int LOOKUPS = 100_000;
+    private static final int BORDER_BLOCK_RADIUS = 5;
+
+    private static GPClaimManager claimManager;
+    private static ConfigBase config;
+    private static GPPlayerData playerData;
+    private static int claimCount;
+    private static final int[] xs = new int[LOOKUPS];
+    private static final int[] ys = new int[LOOKUPS];
+    private static final int[] zs = new int[LOOKUPS];
+
+    @BeforeClass
+    public static void createClaims() throws Exception {
+        final UUID worldUniqueId = UUID.randomUUID();
+        final WorldProperties properties = stub(WorldProperties.class, worldUniqueId, null);
+        final World world = stub(World.class, worldUniqueId, properties);
+        final Server server = mock(Server.class);
+        when(server.getWorld(worldUniqueId)).thenReturn(Optional.of(world));
+        installSponge(server);
+
+        final Path configDir = Files.createTempDirectory("gp-benchmark");
+        final GriefPreventionPlugin plugin = mock(GriefPreventionPlugin.class);
+        when(plugin.getConfigPath()).thenReturn(configDir);
+        // set before the data store class reads its paths from it
+        GriefPreventionPlugin.instance = plugin;
+        final DataStore dataStore = mock(DataStore.class);
+        plugin.dataStore = dataStore;
+
+        final GriefPreventionConfig<ConfigBase> worldConfig = new GriefPreventionConfig<>(ConfigBase.class, configDir.resolve("world.conf"), null);
+        DataStore.worldConfigMap.put(worldUniqueId, worldConfig);
+        config = worldConfig.getConfig();
+        config.claim.borderBlockRadius = BORDER_BLOCK_RADIUS;
+        claimManager = new GPClaimManager(properties);
+        when(dataStore.getClaimWorldManager(properties)).thenReturn(claimManager);
+        // the player subject is not resolved, so every claim border applies
+        playerData = mock(GPPlayerData.class);
+
+        addClaim(new GPClaim(new Location<>(world, -30000000, 0, -30000000), new Location<>(world, 29999999, 255, 29999999), worldUniqueId,
+                ClaimType.WILDERNESS, null, false), null);
+        final Random random = new Random(42);
+        for (int cellX = 0; cellX < CELLS; cellX++) {
+            for (int cellZ = 0; cellZ < CELLS; cellZ++) {
+                if (random.nextInt(4) == 0) {
+                    continue;
+                }
+                final int size = 32 + random.nextInt(CELL_SIZE - 48);
+                final int minX = cellX * CELL_SIZE + random.nextInt(CELL_SIZE - size);
+                final int minZ = cellZ * CELL_SIZE + random.nextInt(CELL_SIZE - size);
+                final GPClaim claim = addClaim(world, minX, minZ, minX + size - 1, minZ + size - 1, null);
+                // children sit in separate halves so both lookups agree on the deepest claim
+                final int half = size / 2;
+                if (random.nextBoolean()) {
+                    final GPClaim child = addClaim(world, minX + 2, minZ + 2, minX + half - 2, minZ + size - 3, claim);
+                    if (random.nextBoolean()) {
+                        addClaim(world, minX + 4, minZ + 4, minX + half - 4, minZ + half, child);
+                    }
+                }
+                if (random.nextBoolean()) {
+                    addClaim(world, minX + half + 2, minZ + 2, minX + size - 3, minZ + half, claim);
+                }
+            }
+        }
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            xs[i] = random.nextInt(CELLS * CELL_SIZE);
+            ys[i] = random.nextInt(256);
+            zs[i] = random.nextInt(CELLS * CELL_SIZE);
+        }
+    }
+
+    @Test
+    public void getClaimAt() {
+        // the fallback must find the same claim as the index
+        config.claim.useSpatialIndex = true;
+        final GPClaim[] expected = new GPClaim[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            expected[i] = claimManager.getClaimAt(xs[i], ys[i], zs[i], playerData, false);
+        }
+        config.claim.useSpatialIndex = false;
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertSame(expected[i], claimManager.getClaimAt(xs[i], ys[i], zs[i], playerData, false));
+        }
+        System.out.println("getClaimAt: " + claimCount + " claims, " + LOOKUPS + " lookups");
+
+        final Benchmark.Result index = run("spatial index", true, false);
+        run("spatial index, border radius", true, true);
+        run("chunk map", false, false);
+        run("chunk map, border radius", false, true);
+        // inside a border band the trust check may allocate, outside of one the index never does
+        assertTrue("spatial index allocated " + index.bytesPerOperation + " B/op", index.bytesPerOperation < 1);
+    }
+
+    private static Benchmark.Result run(String name, boolean useSpatialIndex, boolean useBorderBlockRadius) {
+        config.claim.useSpatialIndex = useSpatialIndex;
+        return Benchmark.run("getClaimAt (" + name + ")", LOOKUPS,
+                i -> claimManager.getClaimAt(xs[i], ys[i], zs[i], playerData, useBorderBlockRadius).isWilderness() ? 0 : 1);
+    }
+
+    private static GPClaim addClaim(World world, int minX, int minZ, int maxX, int maxZ, GPClaim parent) {
+        return addClaim(new GPClaim(new Location<>(world, minX, 0, minZ), new Location<>(world, maxX, 255, maxZ), UUID.randomUUID(),
+                ClaimType.ADMIN, null, false), parent);
+    }
+
+    // admin claims, so no owner player data is needed
+    private static GPClaim addClaim(GPClaim claim, GPClaim parent) {
+        claim.parent = parent;
+        claim.setClaimData(new ClaimDataConfig());
+        claimManager.addClaim(claim, false);
+        claimCount++;
+        return claim;
+    }
+
+    // Mockito records every call it answers, which would show up as allocation on the lookup path
+    private static <T> T stub(Class<T> type, UUID uniqueId, Object properties) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uniqueId;
+                case "getProperties":
+                    return properties;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + "(" + uniqueId + ")";
+                default:
+                    return null;
+            }
+        }));
+    }
+
+    // static plugin state such as the plugin's event context key is built through the registry
+    private static void installSponge(Server server) throws IllegalAccessException {
+        final GameRegistry registry = mock(GameRegistry.class, invocation -> invocation.getMethod().getName().equals("createBuilder")
+                ? mock((Class<?>) invocation.getArgument(0), RETURNS_SELF)
+                : RETURNS_DEFAULTS.answer(invocation));
+        final Game game = mock(Game.class);
+        when(game.getServer()).thenReturn(server);
+        when(game.getRegistry()).thenReturn(registry);
+        for (Field field : Sponge.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            if (field.getType() == Game.class) {
+                field.set(null, game);
+            } else if (field.getType() == GameRegistry.class) {
+                field.set(null, registry);
+            } else if (field.getType() == Server.class) {
+                field.set(null, server);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.util;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.spongepowered.api.service.permission.Subject;
+import org.spongepowered.api.service.permission.SubjectCollection;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class PermissionUtilsTest {
+
+    @Test
+    public void loadGroupSubjectDoesNotWaitOnMainThread() {
+        final SubjectCollection collection = mock(SubjectCollection.class);
+        final Subject group = mock(Subject.class);
+        final CompletableFuture<Boolean> exists = new CompletableFuture<>();
+        final CompletableFuture<Subject> loaded = new CompletableFuture<>();
+        when(collection.getSubject("builders")).thenReturn(Optional.empty());
+        when(collection.hasSubject("builders")).thenReturn(exists);
+        when(collection.loadSubject("builders")).thenReturn(loaded);
+
+        // the permission plugin has not finished loading the group yet
+        assertNull(PermissionUtils.loadGroupSubject(collection, "builders", true));
+
+        exists.complete(true);
+        loaded.complete(group);
+        assertSame(group, PermissionUtils.loadGroupSubject(collection, "builders", true));
+    }
+
+    @Test
+    public void loadGroupSubjectWaitsOffMainThread() throws Exception {
+        final SubjectCollection collection = mock(SubjectCollection.class);
+        final Subject group = mock(Subject.class);
+        final CompletableFuture<Boolean> exists = new CompletableFuture<>();
+        final CompletableFuture<Subject> loaded = new CompletableFuture<>();
+        when(collection.getSubject("helpers")).thenReturn(Optional.empty());
+        when(collection.hasSubject("helpers")).thenReturn(exists);
+        when(collection.loadSubject("helpers")).thenReturn(loaded);
+
+        final Thread loader = new Thread(() -> {
+            sleep(50);
+            exists.complete(true);
+            sleep(50);
+            loaded.complete(group);
+        });
+        loader.start();
+
+        assertSame(group, PermissionUtils.loadGroupSubject(collection, "helpers", false));
+        loader.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Test
+    public void loadGroupSubjectIsCachedOnceLoaded() {
+        final SubjectCollection collection = mock(SubjectCollection.class);
+        final Subject group = mock(Subject.class);
+        when(collection.getSubject("members")).thenReturn(Optional.empty());
+        when(collection.hasSubject("members")).thenReturn(CompletableFuture.completedFuture(true));
+        when(collection.loadSubject("members")).thenReturn(CompletableFuture.completedFuture(group));
+
+        assertSame(group, PermissionUtils.loadGroupSubject(collection, "members", true));
+        assertSame(group, PermissionUtils.loadGroupSubject(collection, "members", true));
+        verify(collection, times(1)).loadSubject("members");
+    }
+
+    @Test
+    public void loadGroupSubjectReturnsNullForMissingGroup() {
+        final SubjectCollection collection = mock(SubjectCollection.class);
+        when(collection.getSubject("nobody")).thenReturn(Optional.empty());
+        when(collection.hasSubject("nobody")).thenReturn(CompletableFuture.completedFuture(false));
+
+        assertNull(PermissionUtils.loadGroupSubject(collection, "nobody", true));
+        // missing groups are remembered instead of being looked up again
+        assertNull(PermissionUtils.loadGroupSubject(collection, "nobody", true));
+        verify(collection, times(1)).hasSubject("nobody");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}